@@ -0,0 +1,30 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.tc.async.api;
+
+import java.util.Collection;
+
+/**
+ * Marks an event handler as batch-aware.  When its stage runs in batch mode (see
+ * {@link com.tc.properties.TCPropertiesConsts#L2_SEDA_STAGE_BATCH_SIZE}) the events drained by a worker are handed
+ * over together through {@link #handleEvents(Collection)}, in queue order.  Handlers that do not implement this
+ * interface keep receiving one event at a time even when the stage batches.
+ */
+public interface BatchEventHandler<EC> extends EventHandler<EC> {
+
+}
@@ -18,6 +18,7 @@
 package com.tc.async.api;
 
 import com.tc.async.impl.Event;
+import java.util.Collection;
 
 /**
  * This is used by the internals to manage the process of processing EventContexts in the manner that makes sense for
@@ -34,4 +35,19 @@ public interface Source {
   public boolean isEmpty();
   
   public int size();
+
+  /**
+   * Move up to {@code max} events that are immediately available into {@code batch} without blocking.
+   *
+   * @return the number of events moved
+   */
+  public default int drainTo(Collection<? super Event> batch, int max) throws InterruptedException {
+    int count = 0;
+    Event next;
+    while (count < max && (next = poll(0)) != null) {
+      batch.add(next);
+      count++;
+    }
+    return count;
+  }
 }
@@ -24,10 +24,18 @@ import com.tc.logging.TCLoggerProvider;
 import com.tc.util.Assert;
 import com.tc.util.concurrent.QueueFactory;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * This StageQueueImpl represents the sink and gives a handle to the source. We are internally just using a queue
@@ -63,6 +71,11 @@ public class MultiStageQueueImpl<EC extends MultiThreadedEventContext> extends A
   private final MultiSourceQueueImpl[] sourceQueues;
   private volatile int fcheck = 0;  // used to start the shortest queue search
   AtomicInteger partitionHand =new AtomicInteger(0);
+  // work stealing of events without a scheduling key
+  private final boolean workStealing;
+  private final AtomicInteger stealingRunning = new AtomicInteger();
+  private final AtomicInteger flushesPending = new AtomicInteger();
+  private final LongAdder stolen = new LongAdder();
 
   /**
    * The Constructor.
@@ -73,7 +86,6 @@ public class MultiStageQueueImpl<EC extends MultiThreadedEventContext> extends A
    * @param stageName : The stage name
    * @param queueSize : Max queue Size allowed
    */
-  @SuppressWarnings("unchecked")
   MultiStageQueueImpl(int queueCount,
                       QueueFactory queueFactory,
                       Class<EC> type, 
@@ -81,8 +93,31 @@ public class MultiStageQueueImpl<EC extends MultiThreadedEventContext> extends A
                       TCLoggerProvider loggerProvider,
                       String stageName,
                       int queueSize) {
+    this(queueCount, queueFactory, type, creator, loggerProvider, stageName, queueSize, false);
+  }
+
+  /**
+   * The Constructor.
+   *
+   * @param queueCount : Number of queues working on this stage
+   * @param queueFactory : Factory used to create the queues
+   * @param loggerProvider : logger
+   * @param stageName : The stage name
+   * @param queueSize : Max queue Size allowed
+   * @param workStealing : let idle workers take events without a scheduling key from their siblings
+   */
+  @SuppressWarnings("unchecked")
+  MultiStageQueueImpl(int queueCount,
+                      QueueFactory queueFactory,
+                      Class<EC> type, 
+                      EventCreator<EC> creator,
+                      TCLoggerProvider loggerProvider,
+                      String stageName,
+                      int queueSize,
+                      boolean workStealing) {
     super(loggerProvider, stageName, creator, queueSize);
     Assert.eval(queueCount > 0);
+    this.workStealing = workStealing && queueCount > 1;
 
     if (queueCount >= 8) {
       PARTITION_SHIFT = 2;
@@ -132,7 +167,9 @@ public class MultiStageQueueImpl<EC extends MultiThreadedEventContext> extends A
     }
 
     for (int i = 0; i < queueCount; i++) {
-      this.sourceQueues[i] = new MultiSourceQueueImpl(queueFactory.createInstance(type, queueSize), v->this.fcheck = v, i);
+      final int thief = i;
+      this.sourceQueues[i] = new MultiSourceQueueImpl(queueFactory.createInstance(type, queueSize), v->this.fcheck = v, i,
+          this.workStealing ? ()->steal(thief) : null);
     }
   }
 
@@ -154,12 +191,31 @@ public class MultiStageQueueImpl<EC extends MultiThreadedEventContext> extends A
     if (event != null) {
       // NOTE:  We don't currently consult the predicate for multi-threaded events (the only implementation always returns true, in any case).
       boolean interrupted = Thread.interrupted();
-      int index = getSourceQueueFor(context);
-      Event wrapper = (context.flush()) ? new FlushingHandledContext(event, index) : event;
+      Object schedulingKey = context.getSchedulingKey();
+      int index = getSourceQueueFor(schedulingKey);
+      boolean flush = context.flush();
+      StealableEvent stealable = null;
+      Event wrapper;
+      if (flush) {
+        if (workStealing) {
+          flushesPending.incrementAndGet();
+        }
+        wrapper = new FlushingHandledContext(event, index);
+      } else if (workStealing && schedulingKey == null) {
+        stealable = new StealableEvent(event);
+        this.sourceQueues[index].stealable.add(stealable);
+        wrapper = stealable;
+      } else {
+        wrapper = event;
+      }
       try {
         while (true) {
           try {
-            updateDepth(this.sourceQueues[index].put(wrapper));
+            int depth = this.sourceQueues[index].put(wrapper);
+            updateDepth(depth);
+            if (stealable != null && depth > 1) {
+              wakeIdleSibling(index);
+            }
             break;
           } catch (InterruptedException e) {
             this.logger.debug("StageQueue Add: " + e);
@@ -225,9 +281,7 @@ public class MultiStageQueueImpl<EC extends MultiThreadedEventContext> extends A
     } return newP;
   }
 
-  private int getSourceQueueFor(EC context) {
-    EC multi = context;
-    Object schedulingKey = multi.getSchedulingKey();
+  private int getSourceQueueFor(Object schedulingKey) {
     if (null == schedulingKey) {
       return findShortestQueueIndex();
     } else {
@@ -239,21 +293,122 @@ public class MultiStageQueueImpl<EC extends MultiThreadedEventContext> extends A
     return Math.abs(hashcode % arrayLength);
   }
   
+  /**
+   * An event without a scheduling key queued behind others.  Put an empty sibling's worker to work so it can steal
+   * the backlog if it is idle.
+   */
+  private void wakeIdleSibling(int index) {
+    for (int x = 1; x < this.sourceQueues.length; x++) {
+      MultiSourceQueueImpl sibling = this.sourceQueues[moduloQueueCount(index + x)];
+      if (sibling.isEmpty()) {
+        sibling.queue.offer(WAKEUP);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Take the oldest unclaimed event without a scheduling key from a sibling of {@code thief}.  Keyed events are never
+   * stealable so per-key ordering is unaffected.  Stealing is suspended while a flush is making its way through the
+   * queues.
+   */
+  private Event steal(int thief) {
+    stealingRunning.incrementAndGet();
+    boolean running = false;
+    try {
+      if (flushesPending.get() > 0) {
+        return null;
+      }
+      for (int x = 1; x < this.sourceQueues.length; x++) {
+        MultiSourceQueueImpl victim = this.sourceQueues[moduloQueueCount(thief + x)];
+        StealableEvent candidate;
+        while ((candidate = victim.stealable.poll()) != null) {
+          if (candidate.claim()) {
+            stolen.increment();
+            running = true;
+            final Event event = candidate.event;
+            return () -> {
+              try {
+                event.call();
+              } finally {
+                stealingRunning.decrementAndGet();
+              }
+            };
+          }
+        }
+      }
+      return null;
+    } finally {
+      if (!running) {
+        stealingRunning.decrementAndGet();
+      }
+    }
+  }
+
+  private void awaitStolenEvents() {
+    while (stealingRunning.get() > 0) {
+      LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+    }
+  }
+
+  @Override
+  public Map<String, ?> getState() {
+    Map<String, ?> state = super.getState();
+    if (!workStealing) {
+      return state;
+    }
+    Map<String, Object> withStealing = new LinkedHashMap<>(state);
+    withStealing.put("stolen", stolen.sum());
+    return withStealing;
+  }
+
   @Override
   public String toString() {
     return "StageQueue(" + this.stageName + ")";
   }
 
+  private static final Event WAKEUP = () -> {};
+
+  /**
+   * Sits in the queue it was scheduled on but can be run by whichever worker claims it first.
+   */
+  private static final class StealableEvent implements Event {
+    private final Event event;
+    private final AtomicBoolean claimed = new AtomicBoolean();
+
+    StealableEvent(Event event) {
+      this.event = event;
+    }
+
+    boolean claim() {
+      return !claimed.get() && claimed.compareAndSet(false, true);
+    }
+
+    boolean isClaimed() {
+      return claimed.get();
+    }
+
+    @Override
+    public void call() throws EventHandlerException {
+      if (claim()) {
+        event.call();
+      }
+    }
+  }
+
   private static final class MultiSourceQueueImpl implements SourceQueue {
 
     private final Consumer<Integer> hint;
     private final BlockingQueue<Event> queue;
     private final int                      sourceIndex;
+    private final Supplier<Event> thief;
+    private final ConcurrentLinkedQueue<StealableEvent> stealable = new ConcurrentLinkedQueue<>();
 
-    public MultiSourceQueueImpl(BlockingQueue<Event> queue, Consumer<Integer> hint, int sourceIndex) {
+    public MultiSourceQueueImpl(BlockingQueue<Event> queue, Consumer<Integer> hint, int sourceIndex, Supplier<Event> thief) {
       this.queue = queue;
       this.hint = hint;
       this.sourceIndex = sourceIndex;
+      this.thief = thief;
     }
 
     @Override
@@ -268,7 +423,7 @@ public class MultiStageQueueImpl<EC extends MultiThreadedEventContext> extends A
 
     @Override
     public Event poll(long timeout) throws InterruptedException {
-      Event rv = timeout == 0 ? this.queue.poll() : this.queue.poll(timeout, TimeUnit.MILLISECONDS);
+      Event rv = (thief == null) ? (timeout == 0 ? this.queue.poll() : this.queue.poll(timeout, TimeUnit.MILLISECONDS)) : pollOrSteal(timeout);
       if (rv != null) {
         if (queue.isEmpty()) {
           // set the empty index for shortest queue in hopes of catching it on the first try
@@ -280,6 +435,57 @@ public class MultiStageQueueImpl<EC extends MultiThreadedEventContext> extends A
       return rv;
     }
 
+    private Event pollOrSteal(long timeout) throws InterruptedException {
+      Event rv = own(this.queue.poll());
+      if (rv == null) {
+        rv = thief.get();
+      }
+      if (rv == null && timeout != 0) {
+        rv = own(this.queue.poll(timeout, TimeUnit.MILLISECONDS));
+        if (rv == null) {
+          rv = thief.get();
+        }
+      }
+      return rv;
+    }
+
+    /**
+     * Skip wakeups and events a sibling already stole, claiming stealable events for this worker.
+     */
+    private Event own(Event next) {
+      while (next != null) {
+        if (next == WAKEUP) {
+          next = this.queue.poll();
+        } else if (next instanceof StealableEvent) {
+          StealableEvent candidate = (StealableEvent) next;
+          boolean mine = candidate.claim();
+          StealableEvent head;
+          while ((head = stealable.peek()) != null && head.isClaimed()) {
+            stealable.poll();
+          }
+          if (mine) {
+            return candidate.event;
+          }
+          next = this.queue.poll();
+        } else {
+          return next;
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public int drainTo(Collection<? super Event> batch, int max) throws InterruptedException {
+      if (thief != null) {
+        return SourceQueue.super.drainTo(batch, max);
+      }
+      int count = this.queue.drainTo(batch, max);
+      if (queue.isEmpty()) {
+        hint.accept(this.sourceIndex);
+      }
+      return count;
+    }
+
     @Override
     public int put(Event context) throws InterruptedException {
       this.queue.put(context);
@@ -308,9 +514,19 @@ public class MultiStageQueueImpl<EC extends MultiThreadedEventContext> extends A
     
     @Override
     public void call() throws EventHandlerException {
+      if (executionCount == 0 && workStealing) {
+//  stealing stopped when this was queued, let anything already stolen finish
+        awaitStolenEvents();
+      }
       if (++executionCount == sourceQueues.length) {
 //  been through all the queues.  execute now.
-        super.call();
+        try {
+          super.call();
+        } finally {
+          if (workStealing) {
+            flushesPending.decrementAndGet();
+          }
+        }
       } else {
 //  move to next queue
         boolean interrupted = false;
@@ -23,6 +23,7 @@ import com.tc.logging.TCLoggerProvider;
 import com.tc.util.Assert;
 import com.tc.util.concurrent.QueueFactory;
 
+import java.util.Collection;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 
@@ -132,6 +133,11 @@ public class SingletonStageQueueImpl<EC> extends AbstractStageQueueImpl<EC> {
       return rv;
     }
 
+    @Override
+    public int drainTo(Collection<? super Event> batch, int max) {
+      return this.queue.drainTo(batch, max);
+    }
+
     @Override
     public int put(Event context) throws InterruptedException {
       this.queue.put(context);
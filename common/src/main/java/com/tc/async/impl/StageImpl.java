@@ -19,6 +19,7 @@ package com.tc.async.impl;
 
 import org.slf4j.Logger;
 
+import com.tc.async.api.BatchEventHandler;
 import com.tc.async.api.ConfigurationContext;
 import com.tc.async.api.EventHandler;
 import com.tc.async.api.EventHandlerException;
@@ -36,6 +37,8 @@ import com.tc.properties.TCPropertiesConsts;
 import com.tc.properties.TCPropertiesImpl;
 import com.tc.util.concurrent.QueueFactory;
 import com.tc.util.concurrent.ThreadUtil;
+import com.tc.util.concurrent.VirtualThreads;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
@@ -62,6 +65,9 @@ public class StageImpl<EC> implements Stage<EC> {
   private final Logger logger;
   private final int            sleepMs;
   private final boolean        pausable;
+  private final boolean        virtualThreads;
+  private final int            batchSize;
+  private final ThreadLocal<EventBatch> openBatch;
   private volatile boolean     paused;
   private volatile boolean     shutdown = true;
   private final LongAdder  inflight = new LongAdder();
@@ -84,9 +90,29 @@ public class StageImpl<EC> implements Stage<EC> {
    * @param listener
    * @param queueSize : Max queue Size allowed
    */
-  @SuppressWarnings("unchecked")
   public StageImpl(TCLoggerProvider loggerProvider, String name, Class<EC> type, EventHandler<EC> handler, int queueCount,
                    ThreadGroup group, QueueFactory queueFactory, StageListener listener, int queueSize, boolean canBeDirect, boolean stallLogging) {
+    this(loggerProvider, name, type, handler, queueCount, group, queueFactory, listener, queueSize, canBeDirect, stallLogging, false);
+  }
+
+  /**
+   * The Constructor.
+   * 
+   * @param loggerProvider : logger
+   * @param name : The stage name
+   * @param type
+   * @param handler : Event handler for this stage
+   * @param queueCount : Number of threads and queues working on this stage with 1 thread bound to 1 queue
+   * @param group : The thread group to be used, virtual worker threads report uncaught exceptions to it
+   * @param queueFactory : Factory used to create the queues
+   * @param listener
+   * @param queueSize : Max queue Size allowed
+   * @param virtualThreads : run the workers on virtual threads when the JVM supports them
+   */
+  @SuppressWarnings("unchecked")
+  public StageImpl(TCLoggerProvider loggerProvider, String name, Class<EC> type, EventHandler<EC> handler, int queueCount,
+                   ThreadGroup group, QueueFactory queueFactory, StageListener listener, int queueSize, boolean canBeDirect, boolean stallLogging,
+                   boolean virtualThreads) {
     Objects.requireNonNull(handler);
     this.logger = loggerProvider.getLogger(Stage.class.getName() + ": " + name);
     this.name = name;
@@ -106,6 +132,17 @@ public class StageImpl<EC> implements Stage<EC> {
     if (this.pausable) {
       logger.warn("Stage pausing is enabled for stage " + name);
     }
+    int defaultBatchSize = TCPropertiesImpl.getProperties().getInt(TCPropertiesConsts.L2_SEDA_STAGE_BATCH_SIZE, 1);
+    this.batchSize = Math.max(1, TCPropertiesImpl.getProperties().getInt("seda." + name + ".batch.size", defaultBatchSize));
+    this.openBatch = (this.batchSize > 1 && handler instanceof BatchEventHandler) ? new ThreadLocal<>() : null;
+    if (this.batchSize > 1) {
+      logger.info("Stage {} drains up to {} events per batch", name, this.batchSize);
+    }
+    if (virtualThreads && !VirtualThreads.isSupported()) {
+      logger.warn("Virtual threads are not supported by this JVM, stage {} uses platform threads", name);
+      virtualThreads = false;
+    }
+    this.virtualThreads = virtualThreads;
     this.event = TripwireFactory.createStageMonitor(name, queueCount);
     if (!stallLogging) {
       lastWarnTime = Long.MAX_VALUE;
@@ -125,6 +162,14 @@ public class StageImpl<EC> implements Stage<EC> {
         if (exec - start > TimeUnit.MILLISECONDS.toNanos(warnStallTime)) {
           warnIfWarranted("queue", event, TimeUnit.NANOSECONDS.toMillis(exec-start));
         }
+        if (openBatch != null) {
+          EventBatch batch = openBatch.get();
+          if (batch != null) {
+            // handled when the worker flushes the batch
+            batch.contexts.add(event);
+            return;
+          }
+        }
         try {
           handler.handleEvent(event);
           long end = System.nanoTime();;
@@ -274,14 +319,46 @@ public class StageImpl<EC> implements Stage<EC> {
     Arrays.stream(threads).forEach(t->{if (t != null) tl.add(t.getStats());});
     data.put("name", name);
     data.put("threadCount", threads.length);
+    data.put("virtualThreads", virtualThreads);
     data.put("backlog", inflight.sum());
     data.put("sink", this.stageQueue.getState());
     data.put("threads", tl);
     return data;
   }
 
-  private class WorkerThread<EC> extends Thread {
+  /**
+   * The contexts a worker has collected for a batch-aware handler since the last flush.
+   */
+  private class EventBatch {
+    private final List<EC> contexts = new ArrayList<>();
+
+    void flush() throws EventHandlerException {
+      if (contexts.isEmpty()) {
+        return;
+      }
+      long exec = System.nanoTime();
+      try {
+        handler.handleEvents(contexts);
+        long end = System.nanoTime();
+        if (end - exec > TimeUnit.MILLISECONDS.toNanos(warnStallTime)) {
+          warnIfWarranted("executed", "batch of " + contexts.size() + " events", TimeUnit.NANOSECONDS.toMillis(end-exec));
+        }
+      } finally {
+        clear();
+      }
+    }
+
+    void clear() {
+      inflight.add(-contexts.size());
+      contexts.clear();
+    }
+  }
+
+  private class WorkerThread<EC> implements Runnable {
+    private final Thread       thread;
     private final Source       source;
+    private final ArrayDeque<Event> pending = new ArrayDeque<>();
+    private final EventBatch   batch = new EventBatch();
     private volatile boolean idle = false;
     // these are single threaded, don't need special handling
     private long idleTime  = 0;
@@ -289,11 +366,33 @@ public class StageImpl<EC> implements Stage<EC> {
     private long count = 0;
 
     public WorkerThread(String name, Source source) {
-      super(group, name);
-      setDaemon(true);
+      if (virtualThreads) {
+        // virtual threads cannot join a thread group, route failures to its handler instead
+        ThreadGroup handler = (group != null) ? group : Thread.currentThread().getThreadGroup();
+        this.thread = VirtualThreads.newThread(name, handler, this);
+      } else {
+        this.thread = new Thread(group, this, name);
+        this.thread.setDaemon(true);
+      }
       this.source = source;
     }
 
+    void start() {
+      thread.start();
+    }
+
+    boolean isAlive() {
+      return thread.isAlive();
+    }
+
+    void join(long millis) throws InterruptedException {
+      thread.join(millis);
+    }
+
+    String getName() {
+      return thread.getName();
+    }
+
     private void handleStageDebugPauses() {
       if (sleepMs > 0) {
         ThreadUtil.reallySleep(sleepMs);
@@ -314,21 +413,26 @@ public class StageImpl<EC> implements Stage<EC> {
     public void run() {
       int spinCount = 0;
       boolean spinner = spinning > 0;
-      while (!shutdown || !source.isEmpty()) {
+      while (!shutdown || !source.isEmpty() || !pending.isEmpty()) {
         Event ctxt = null;
         try {
           long stopped = System.nanoTime();
-          idle = true;
-          ctxt = (spinner) ? source.poll(0) : source.poll(pollTime);
+          idle = pending.isEmpty();
+          ctxt = (!pending.isEmpty()) ? pending.poll() : (spinner) ? source.poll(0) : source.poll(pollTime);
           if (ctxt != null) {
             idle = false;
             long running = System.nanoTime();
             handleStageDebugPauses();
             idleTime += (running - stopped);
-            ctxt.call();
+            int processed = 1;
+            if (batchSize > 1) {
+              processed = runBatch(ctxt);
+            } else {
+              ctxt.call();
+            }
             long finishRun = System.nanoTime();
             runTime += (finishRun - running);
-            count += 1;
+            count += processed;
             event.eventOccurred(size(), (finishRun - running));
             spinCount = 0;
             spinner = spinning > 0;
@@ -366,6 +470,46 @@ public class StageImpl<EC> implements Stage<EC> {
       }
     }
     
+    /**
+     * Runs {@code first} and whatever else the source has ready, up to the batch size, paying for a single wakeup
+     * and timing measurement.  Events left over when one of them fails stay pending and are run by the next loop.
+     */
+    private int runBatch(Event first) throws EventHandlerException, InterruptedException {
+      if (pending.isEmpty()) {
+        source.drainTo(pending, batchSize - 1);
+      }
+      int processed = 0;
+      if (openBatch != null) {
+        openBatch.set(batch);
+      }
+      try {
+        Event next = first;
+        while (next != null) {
+          processed += 1;
+          if (openBatch != null && isBarrier(next)) {
+            // everything ahead of a flush or close must be handled before it moves on
+            batch.flush();
+            next.call();
+            batch.flush();
+          } else {
+            next.call();
+          }
+          next = (processed < batchSize) ? pending.poll() : null;
+        }
+        batch.flush();
+      } finally {
+        if (openBatch != null) {
+          openBatch.remove();
+          batch.clear();
+        }
+      }
+      return processed;
+    }
+
+    private boolean isBarrier(Event e) {
+      return e instanceof AbstractStageQueueImpl.HandledEvent || e instanceof AbstractStageQueueImpl.CloseEvent;
+    }
+
     private Map<String, ?> getStats() {
       Map<String, Object> state = new LinkedHashMap<>();
       state.put("idle", idleTime);
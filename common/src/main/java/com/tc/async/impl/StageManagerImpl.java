@@ -128,12 +128,21 @@ public class StageManagerImpl implements StageManager {
       throw new IllegalStateException("A new stage cannot be created, because StageManager is already started.");
     }
     // Note that the queue factory is used by all the stages under this manager so it can't be type-safe.
-    Stage<EC> s = new StageImpl<>(loggerProvider, name, verification, handler, queueCount, group, queueFactory, listener, maxSize, canBeDirect, stallWarn);
+    Stage<EC> s = new StageImpl<>(loggerProvider, name, verification, handler, queueCount, group, queueFactory, listener, maxSize, canBeDirect, stallWarn, useVirtualThreads(name));
     addStage(name, s);
     this.classVerifications.put(name,  verification);
     return s;
   }
 
+  /**
+   * Stages run on virtual threads when {@code seda.<stage>.virtual} or
+   * {@link TCPropertiesConsts#L2_SEDA_STAGE_VIRTUAL_THREADS} is set.
+   */
+  private static boolean useVirtualThreads(String name) {
+    return TCPropertiesImpl.getProperties().getBoolean("seda." + name + ".virtual",
+        TCPropertiesImpl.getProperties().getBoolean(TCPropertiesConsts.L2_SEDA_STAGE_VIRTUAL_THREADS, false));
+  }
+
   private synchronized <EC> void addStage(String name, Stage<EC> s) {
     Object prev = stages.put(name, s);
     Assert.assertNull(prev);
@@ -21,7 +21,12 @@ import com.tc.async.api.MultiThreadedEventContext;
 import com.tc.async.api.Sink;
 import com.tc.async.api.Source;
 import com.tc.logging.TCLoggerProvider;
+import com.tc.properties.TCProperties;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
+import com.tc.util.concurrent.MpscRingBufferQueue;
 import com.tc.util.concurrent.QueueFactory;
+import com.tc.util.concurrent.RingBufferQueueFactory;
 import java.util.Map;
 
 /**
@@ -59,11 +64,41 @@ public interface StageQueue<EC> extends Sink<EC> {
                                             TCLoggerProvider loggerProvider,
                                             String stageName,
                                             int queueSize) {
+      queueFactory = queueFactoryFor(stageName, queueFactory);
       if (!MultiThreadedEventContext.class.isAssignableFrom(type)) {
         return new SingletonStageQueueImpl(queueFactory, type, creator, loggerProvider, stageName, queueSize);
       } else {
-        return new MultiStageQueueImpl(queueCount, queueFactory, type, creator, loggerProvider, stageName, queueSize);
+        return new MultiStageQueueImpl(queueCount, queueFactory, type, creator, loggerProvider, stageName, queueSize, isWorkStealing(stageName));
       }
     }
+
+    /**
+     * Idle workers of a multi-threaded stage steal events without a scheduling key from their siblings when
+     * {@code seda.<stage>.worksteal} or {@link TCPropertiesConsts#L2_SEDA_STAGE_WORK_STEALING} is set.
+     */
+    private static boolean isWorkStealing(String stageName) {
+      TCProperties props = TCPropertiesImpl.getProperties();
+      return props.getBoolean("seda." + stageName + ".worksteal", props.getBoolean(TCPropertiesConsts.L2_SEDA_STAGE_WORK_STEALING, false));
+    }
+
+    /**
+     * Bounded stages can be switched to a lock-free ring buffer with the {@code seda.<stage>.queue.type} property,
+     * falling back to {@link TCPropertiesConsts#L2_SEDA_STAGE_QUEUE_TYPE} for all stages.
+     */
+    private static QueueFactory queueFactoryFor(String stageName, QueueFactory queueFactory) {
+      TCProperties props = TCPropertiesImpl.getProperties();
+      String type = props.getProperty("seda." + stageName + ".queue.type", true);
+      if (type == null) {
+        type = props.getProperty(TCPropertiesConsts.L2_SEDA_STAGE_QUEUE_TYPE, true);
+      }
+      if (!RingBufferQueueFactory.TYPE_NAME.equalsIgnoreCase(type)) {
+        return queueFactory;
+      }
+      String wait = props.getProperty("seda." + stageName + ".queue.wait", true);
+      if (wait == null) {
+        wait = props.getProperty(TCPropertiesConsts.L2_SEDA_STAGE_QUEUE_WAIT, true);
+      }
+      return new RingBufferQueueFactory(queueFactory, MpscRingBufferQueue.WaitStrategy.parse(wait, MpscRingBufferQueue.WaitStrategy.PARK));
+    }
   }
 }
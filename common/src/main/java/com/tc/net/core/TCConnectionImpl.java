@@ -21,7 +21,7 @@ import com.tc.bytes.TCByteBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.tc.bytes.TCDirectByteBufferCache;
+import com.tc.bytes.TCDirectByteBufferPool;
 import com.tc.bytes.TCReference;
 import com.tc.bytes.TCReferenceSupport;
 import com.tc.io.TCByteBufferOutputStream;
@@ -53,9 +53,11 @@ import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
 import com.tc.net.protocol.TCProtocolAdaptor;
@@ -70,6 +72,9 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -93,7 +98,7 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
   private final AtomicBoolean transportEstablished = new AtomicBoolean(false);
   private final BlockingQueue<TCNetworkMessage> writeMessages = new ArrayBlockingQueue<>(MSG_GROUPING_MAX_COUNT);
   private final TCConnectionManagerImpl parent;
-  private final TCDirectByteBufferCache buffers;
+  private final TCDirectByteBufferPool buffers;
   private final TCSocketEndpointReader readAllocator;
   private final TCConnectionEventCaller eventCaller = new TCConnectionEventCaller(logger);
   private final AtomicLong lastDataWriteTime = new AtomicLong(System.currentTimeMillis());
@@ -130,6 +135,26 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
                           .getProperties()
                           .getBoolean(TCPropertiesConsts.TC_MESSAGE_PACKUP_ENABLED,
                                       false);
+  private static final boolean CORK_ENABLED = TCPropertiesImpl
+                          .getProperties()
+                          .getBoolean(TCPropertiesConsts.TC_MESSAGE_CORK_ENABLED,
+                                      false);
+  private static final long CORK_MAX_BYTES = TCPropertiesImpl
+                          .getProperties()
+                          .getInt(TCPropertiesConsts.TC_MESSAGE_CORK_MAXSIZE_KB,
+                                  256) * 1024L;
+  private static final long CORK_HOLD_NANOS = TimeUnit.MICROSECONDS.toNanos(TCPropertiesImpl
+                          .getProperties()
+                          .getLong(TCPropertiesConsts.TC_MESSAGE_CORK_HOLD_MICROS,
+                                   0));
+  private final LongAdder gatheringWrites = new LongAdder();
+  private final LongAdder gatheringHolds = new LongAdder();
+  private boolean corkEnabled = CORK_ENABLED;
+  private long corkMaxBytes = CORK_MAX_BYTES;
+  private long corkHoldNanos = CORK_HOLD_NANOS;
+  // guarded by writerLock
+  private long lastGatheringWrite = System.nanoTime() - CORK_HOLD_NANOS;
+  private final AtomicBoolean holdRearmPending = new AtomicBoolean();
   private final Object readerLock = new Object();
   private final Object writerLock = new Object();
 
@@ -170,7 +195,7 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
     this.socketParams = socketParams;
     this.commWorker = nioServiceThread;
 
-    this.buffers = MESSAGE_PACKUP ? new TCDirectByteBufferCache(parent.getBufferCache()) : null;
+    this.buffers = MESSAGE_PACKUP ? parent.getBufferPool() : null;
     this.readAllocator = MESSAGE_PACKUP ? new TCSocketEndpointReader(buffers) : new TCSocketEndpointReader();
   }
 
@@ -186,6 +211,10 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
     state.put("idleTime", this.getIdleTime());
     state.put("messageWritten", this.messagesWritten.longValue());
     state.put("messageBatch", this.messageBatch.longValue());
+    if (corkEnabled) {
+      state.put("gatheringWrites", this.gatheringWrites.longValue());
+      state.put("gatheringHolds", this.gatheringHolds.longValue());
+    }
     state.put("messageRead", this.messagesRead.longValue());
     state.put("worker", commWorker.getName());
     state.put("closed", isClosed());
@@ -193,8 +222,6 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
     state.put("transportConnected", isTransportEstablished());
     if (buffers != null) {
         state.put("buffers.type", "direct");
-        state.put("buffers.cached", buffers.size());
-        state.put("buffers.referenced", buffers.referenced());
     } else {
         state.put("buffers.type", "heap");
     }
@@ -448,31 +475,50 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
   }
 
   private long doPackageAndWrite() throws IOException {
+    if (corkEnabled) {
+      return doGatheringWrite();
+    }
     final boolean debug = logger.isDebugEnabled();
     long totalBytesWritten = 0;
 
-    WriteContext context = this.writeContexts.poll();
+    // the context stays at the head of the queue until it is completely written
+    WriteContext context = this.writeContexts.peek();
 
     if (context == null) {
       if (buildWriteContextsFromMessages(true)) {
-        context = this.writeContexts.poll();
+        context = this.writeContexts.peek();
       }
     }
 
     while (context != null) {
+      if (!context.claim()) {
+        // pruned as invalid before the writer got to it
+        this.writeContexts.remove(context);
+        context = this.writeContexts.peek();
+        continue;
+      }
       long bytesWritten = context.write();
-      messageBatch.increment();
       if (debug) {
         logger.debug("Wrote " + bytesWritten + " bytes on connection " + this.channel.toString() + " with batch size " + context.getBatchSize());
       }
       totalBytesWritten += bytesWritten;
 
-      Assert.assertTrue(context.done());
+      if (!context.done()) {
+        // the socket send buffer is full, keep write interest and let the selector
+        // call back when there is room instead of spinning on this connection
+        if (debug) {
+          logger.debug("Partial message sent on connection " + this.channel.toString());
+        }
+        return totalBytesWritten;
+      }
+      // claimed contexts are never pruned so this is still the head
+      this.writeContexts.remove(context);
+      messageBatch.increment();
       if (debug) {
         logger.debug("Complete message sent on connection " + this.channel.toString());
       }
       context.writeComplete();
-      context = writeContexts.poll();
+      context = writeContexts.peek();
     }
 
     if (!this.closed.isSet() && context == null && !buildWriteContextsFromMessages(false)) {
@@ -482,6 +528,169 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
     return totalBytesWritten;
   }
 
+  private long doGatheringWrite() throws IOException {
+    buildWriteContextsFromMessages(true);
+    long hold = holdForMoreMessages();
+    if (hold > 0) {
+      // a writable socket would select again right away, so drop write interest and re-arm once the window has passed
+      this.gatheringHolds.increment();
+      this.commWorker.removeWriteInterest(this, this.channel);
+      if (this.holdRearmPending.compareAndSet(false, true)) {
+        CorkTimer.TIMER.schedule(this::rearmAfterHold, hold, TimeUnit.NANOSECONDS);
+      }
+      return 0;
+    }
+
+    long totalBytesWritten = 0;
+    List<WriteContext> gathered = new ArrayList<>();
+    List<ByteBuffer> vector = new ArrayList<>();
+    while (!this.writeContexts.isEmpty()) {
+      // one vectored write for as many pending contexts as fit the byte budget, at least one
+      long start = 0;
+      for (WriteContext context : this.writeContexts) {
+        if (!gathered.isEmpty() && start >= corkMaxBytes) {
+          break;
+        }
+        if (!context.claim()) {
+          // pruned as invalid before the writer got to it
+          this.writeContexts.remove(context);
+          continue;
+        }
+        Collections.addAll(vector, context.prepare());
+        gathered.add(context);
+        start += context.remaining();
+      }
+      boolean blocked = writeVector(vector.toArray(new ByteBuffer[vector.size()]), start);
+      this.gatheringWrites.increment();
+      this.lastGatheringWrite = System.nanoTime();
+
+      long left = 0;
+      for (WriteContext context : gathered) {
+        left += context.remaining();
+      }
+      totalBytesWritten += start - left;
+      for (WriteContext context : gathered) {
+        if (!context.finish()) {
+          break;
+        }
+        this.writeContexts.remove(context);
+        messageBatch.increment();
+        context.writeComplete();
+      }
+      gathered.clear();
+      vector.clear();
+      if (blocked) {
+        logger.debug("Partial gathering write on connection {}", this.channel);
+        return totalBytesWritten;
+      }
+    }
+
+    if (!this.closed.isSet() && !buildWriteContextsFromMessages(false)) {
+      this.commWorker.removeWriteInterest(this, this.channel);
+    }
+
+    return totalBytesWritten;
+  }
+
+  /**
+   * Holding only kicks in while messages are written in quick succession and less than a gathering write is pending,
+   * an idle connection writes right away.
+   *
+   * @return how long to hold back the pending messages, zero to write them now
+   */
+  private long holdForMoreMessages() {
+    if (corkHoldNanos <= 0 || this.writeContexts.isEmpty() || this.writeMessages.remainingCapacity() == 0) {
+      return 0;
+    }
+    long left = corkHoldNanos - (System.nanoTime() - this.lastGatheringWrite);
+    if (left <= 0) {
+      return 0;
+    }
+    long pending = 0;
+    for (WriteContext context : this.writeContexts) {
+      if (context.isClaimed()) {
+        // a partially written message is never held back
+        return 0;
+      }
+      pending += context.length();
+      if (pending >= corkMaxBytes) {
+        return 0;
+      }
+    }
+    return left;
+  }
+
+  private void rearmAfterHold() {
+    this.holdRearmPending.set(false);
+    if (!this.closed.isSet()) {
+      this.commWorker.requestWriteInterest(this, this.channel);
+    }
+  }
+
+  // for testing
+  void setGatheringWrites(long maxBytes, long holdNanos) {
+    this.corkEnabled = true;
+    this.corkMaxBytes = maxBytes;
+    this.corkHoldNanos = holdNanos;
+    this.lastGatheringWrite = System.nanoTime() - holdNanos;
+  }
+
+  /**
+   * Re-arms write interest of connections holding back messages.  Only loaded once a hold happens.
+   */
+  private static class CorkTimer {
+    private static final ScheduledExecutorService TIMER = createTimer();
+
+    private static ScheduledExecutorService createTimer() {
+      ScheduledThreadPoolExecutor exec = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread t = new Thread(r, "TCConnection cork timer");
+        t.setDaemon(true);
+        return t;
+      });
+      exec.setKeepAliveTime(5, TimeUnit.SECONDS);
+      exec.allowCoreThreadTimeOut(true);
+      return exec;
+    }
+  }
+
+  /**
+   * Writes until everything is written or the socket takes no more bytes.
+   *
+   * @return true if the socket stopped taking bytes
+   */
+  private boolean writeVector(ByteBuffer[] buffers, long start) throws IOException {
+    while (hasRemaining(buffers)) {
+      switch (socket.writeFrom(buffers)) {
+        case SUCCESS:
+          break;
+        case ZERO:
+          return true;
+        case EOF:
+          throw new EOFException();
+        case OVERFLOW:
+          // unexpected
+          throw new IOException();
+        case UNDERFLOW:
+          if (start > 0) {
+            throw new IOException("underflow");
+          }
+          break;
+          // not sure what to do here.  need to figure out if there is some way to
+          // send dummy bytes
+      }
+    }
+    return false;
+  }
+
+  private static boolean hasRemaining(ByteBuffer[] buffers) {
+    for (ByteBuffer b : buffers) {
+      if (b.hasRemaining()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private void putMessageImpl(TCNetworkMessage message) {
     // ??? Does the message queue and the WriteContext belong in the base connection class?
     final boolean debug = logger.isDebugEnabled();
@@ -558,10 +767,6 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
         if (fireClose) {
           TCConnectionImpl.this.eventCaller.fireCloseEvent(TCConnectionImpl.this.eventListeners, TCConnectionImpl.this);
         }
-
-        if (buffers != null) {
-          buffers.close();
-        }
       }
     };
   }
@@ -826,10 +1031,19 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
     return MESSAGE_PACKUP ? new TCDirectByteBufferOutputStream(buffers) : new TCByteBufferOutputStream();
   }
 
+  private static final int PENDING = 0;
+  private static final int CLAIMED = 1;
+  private static final int DROPPED = 2;
+
   protected class WriteContext {
     private final WireProtocolMessage message;
     private final int batchSize;
     private boolean sent = false;
+    // held across calls to write() while the message is partially written
+    private TCReference msgRef;
+    private ByteBuffer[] compat;
+    // pending until the writer claims it or pruning drops it, whichever comes first
+    private final AtomicInteger state = new AtomicInteger(PENDING);
 
     WriteContext(WireProtocolMessage message, int batchSize) {
       this.message = message;
@@ -849,50 +1063,77 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
     }
 
     void writeComplete() {
+      release();
       this.message.complete();
     }
 
     boolean isNotValid() {
-      return !message.isValid();
+      // once claimed by the writer the rest has to follow
+      return !message.isValid() && state.compareAndSet(PENDING, DROPPED);
+    }
+
+    /**
+     * Claim the context for writing, a claimed context is never pruned.
+     *
+     * @return false if the context was pruned first and must not be written
+     */
+    boolean claim() {
+      return state.get() == CLAIMED || state.compareAndSet(PENDING, CLAIMED);
+    }
+
+    boolean isClaimed() {
+      return state.get() == CLAIMED;
+    }
+
+    int length() {
+      return message.getTotalLength();
+    }
+
+    private void release() {
+      if (msgRef != null) {
+        msgRef.returnByteBufferArray(compat);
+        msgRef.close();
+        msgRef = null;
+        compat = null;
+      }
     }
 
     int getBatchSize() {
       return batchSize;
     }
 
+    /**
+     * Writes as much of the message as the socket accepts.  Returns without being {@link #done()} when the socket
+     * takes no more bytes, the next call continues from there.
+     */
     long write() throws IOException {
-      long written = 0;
-      try (TCReference msgRef = prep()) {
-        long msgSize = msgRef.available();
-        ByteBuffer[] compat = msgRef.toByteBufferArray();
-        try {
-          while (msgRef.hasRemaining()) {
-            switch (socket.writeFrom(compat)) {
-              case SUCCESS:
-              case ZERO:
-                break;
-              case EOF:
-                throw new EOFException();
-              case OVERFLOW:
-                // unexpected
-                throw new IOException();
-              case UNDERFLOW:
-                if (msgSize > 0) {
-                  throw new IOException("underflow");
-                }
-                break;
-                // not sure what to do here.  need to figure out if there is some way to
-                // send dummy bytes
-            }
-          }
-          sent = true;
-          written = msgSize - msgRef.available();
-        } finally {
-          msgRef.returnByteBufferArray(compat);
-        }
-      }
+      ByteBuffer[] buffers = prepare();
+      long start = remaining();
+      writeVector(buffers, start);
+      long written = start - remaining();
+      finish();
       return written;
     }
+
+    ByteBuffer[] prepare() {
+      if (msgRef == null) {
+        msgRef = prep();
+        compat = msgRef.toByteBufferArray();
+      }
+      return compat;
+    }
+
+    long remaining() {
+      return msgRef == null ? 0 : msgRef.available();
+    }
+
+    boolean finish() {
+      if (msgRef != null && !msgRef.hasRemaining()) {
+        sent = true;
+        release();
+      }
+      return sent;
+    }
   }
 
   @Override
@@ -18,7 +18,7 @@
 package com.tc.net.core;
 
 import com.tc.bytes.TCByteBufferFactory;
-import com.tc.bytes.TCDirectByteBufferCache;
+import com.tc.bytes.TCDirectByteBufferPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -69,7 +69,7 @@ public class TCConnectionManagerImpl implements TCConnectionManager {
   private final SocketParams            socketParams;
   private final SocketEndpointFactory    socketEndpointFactory;
 
-  private final TCDirectByteBufferCache buffers = new TCDirectByteBufferCache(TCByteBufferFactory.getFixedBufferSize(), 16 * 1024);
+  private final TCDirectByteBufferPool buffers = BufferPool.POOL;
 
   public TCConnectionManagerImpl() {
     this("ConnectionMgr", null, 0, new ClearTextSocketEndpointFactory());
@@ -91,8 +91,7 @@ public class TCConnectionManagerImpl implements TCConnectionManager {
       state.put("connections", connections.stream().map(connection->connection.getState()).collect(Collectors.toList()));
     }
     state.put("processors", comm.getState());
-    state.put("buffers.cached", buffers.size());
-    state.put("buffers.referenced", buffers.referenced());
+    state.put("buffers", buffers.getStateMap());
     if (socketEndpointFactory instanceof PrettyPrintable) {
       state.put("bufferManager", ((PrettyPrintable)socketEndpointFactory).getStateMap());
     } else {
@@ -237,7 +236,6 @@ public class TCConnectionManagerImpl implements TCConnectionManager {
     if (shutdown.attemptSet()) {
       closeAllListeners();
       asynchCloseAllConnections();
-      this.buffers.close();
       comm.stop();
     }
   }
@@ -337,7 +335,7 @@ public class TCConnectionManagerImpl implements TCConnectionManager {
     }
   }
 
-  TCDirectByteBufferCache getBufferCache() {
+  TCDirectByteBufferPool getBufferPool() {
     return buffers;
   }
   
@@ -349,4 +347,14 @@ public class TCConnectionManagerImpl implements TCConnectionManager {
   void distribute() {
     connections.forEach(TCConnectionImpl::migrate);
   }
+
+  /**
+   * One direct buffer pool for the whole process, created on first use so the fixed buffer size is already set.
+   */
+  private static class BufferPool {
+    private static final TCDirectByteBufferPool POOL = new TCDirectByteBufferPool(TCByteBufferFactory.getFixedBufferSize(),
+        TCDirectByteBufferPool.DEFAULT_SIZE_CLASSES,
+        TCPropertiesImpl.getProperties().getLong(TCPropertiesConsts.TC_BYTEBUFFER_DIRECT_POOL_MAX_MB, 256) * 1024 * 1024,
+        TCPropertiesImpl.getProperties().getInt(TCPropertiesConsts.TC_BYTEBUFFER_DIRECT_POOL_MAGAZINE, TCDirectByteBufferPool.DEFAULT_MAGAZINE_SIZE));
+  }
 }
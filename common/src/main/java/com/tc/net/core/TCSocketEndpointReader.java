@@ -19,7 +19,7 @@ package com.tc.net.core;
 
 import com.tc.bytes.TCByteBuffer;
 import com.tc.bytes.TCByteBufferFactory;
-import com.tc.bytes.TCDirectByteBufferCache;
+import com.tc.bytes.TCDirectByteBufferPool;
 import com.tc.bytes.TCReference;
 import com.tc.bytes.TCReferenceSupport;
 import static com.tc.net.core.SocketEndpoint.ResultType.EOF;
@@ -52,15 +52,19 @@ public class TCSocketEndpointReader implements AutoCloseable {
   private TCByteBuffer readBuffer;   //  raw buffer to read from the socket
   private TCReference current;  // complete reference to slice off references to be used by the rest of the system
   private int readTo = 0;   // read cursor in the raw buffer
+  // a request that could only be partially read, resumed on the next call once the channel is readable again
+  private LinkedList<TCByteBuffer> partial;
+  private long partialReceived;
+  private int partialLength;
 
   public TCSocketEndpointReader() {
     this.allocator = (s)->TCByteBufferFactory.getInstance(s);
-    this.returns = (b)->{};
+    this.returns = TCByteBufferFactory::release;
   }
 
-  public TCSocketEndpointReader(TCDirectByteBufferCache cache) {
-    this.allocator = (s)->cache.poll();
-    this.returns = cache::offer;
+  public TCSocketEndpointReader(TCDirectByteBufferPool pool) {
+    this.allocator = pool::allocate;
+    this.returns = pool::offer;
   }
 
   // for testing
@@ -84,17 +88,27 @@ public class TCSocketEndpointReader implements AutoCloseable {
       return ref;
     } else {
       // need to fetch bytes from the network
-      LinkedList<TCByteBuffer> newBufs = new LinkedList<>();
-      int capacity = readBuffer.limit() - readTo;
-      // make sure there is enough capacity
-      while (capacity < len) {
-        TCByteBuffer next = allocator.apply(len - capacity);
-        newBufs.add(next);
-        capacity += next.limit();
+      LinkedList<TCByteBuffer> newBufs;
+      long received;
+      if (partial != null) {
+      // pick up where the last call left off
+        Assert.assertEquals(partialLength, len);
+        newBufs = partial;
+        received = partialReceived;
+        partial = null;
+      } else {
+        newBufs = new LinkedList<>();
+        int capacity = readBuffer.limit() - readTo;
+        // make sure there is enough capacity
+        while (capacity < len) {
+          TCByteBuffer next = allocator.apply(len - capacity);
+          newBufs.add(next);
+          capacity += next.limit();
+        }
+        // add the current buffer at the head
+        newBufs.addFirst(readBuffer);
+        received = readBuffer.position() - readTo;
       }
-      // add the current buffer at the head
-      newBufs.addFirst(readBuffer);
-      long received = readBuffer.position() - readTo;
       // read bytes from the network until the requested bytes are in
       int rotations = 0;
       while (received < len) {
@@ -114,21 +128,14 @@ public class TCSocketEndpointReader implements AutoCloseable {
             LOGGER.debug("returning null");
             return null;
           } else {
-       // still expecting bytes, might be something wrong here.
-       // go around again after a short pause, maybe should consider
-       // failing at some point
-            Thread.onSpinWait();
-            if (rotations > 1_000_000) {
-              // give up, something is wrong
-              throw new IOException("incomplete bytes in channel");
-            } else {
-              try {
-                Thread.sleep(500);
-              } catch (InterruptedException ie) {
-                Thread.currentThread().interrupt();
-                throw new IOException(ie);
-              }
-            }
+       // the rest of the request has not arrived yet.  keep what has been
+       // read and give the thread back to the selector, the next call
+       // resumes once the channel is readable again
+            partial = newBufs;
+            partialReceived = received;
+            partialLength = len;
+            LOGGER.debug("partial read of {} with {} received", len, received);
+            return null;
           }
         }
       }
@@ -237,6 +244,12 @@ public class TCSocketEndpointReader implements AutoCloseable {
   }
 
   public void close() {
+    if (partial != null) {
+      // the head is the current read buffer, released with the current reference
+      partial.removeFirst();
+      partial.forEach(b->returns.accept(b.reInit()));
+      partial = null;
+    }
     if (current != null) {
       current.close();
     }
@@ -36,8 +36,10 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.function.Supplier;
 
@@ -49,6 +51,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -60,7 +63,10 @@ public class ClientConnectionEstablisher {
   private static final Logger LOGGER = LoggerFactory.getLogger(ClientConnectionEstablisher.class);
 
   private static final long                 CONNECT_RETRY_INTERVAL;
+  private static final long                 MAX_RETRY_INTERVAL;
   private static final long                 MIN_RETRY_INTERVAL    = 1000;
+  private static final long                 PROBE_TIMEOUT;
+  private static final boolean              PROBE_SERVERS;
   public static final String                RECONNECT_THREAD_NAME = "ConnectionEstablisher";
 
   private volatile Iterable<InetSocketAddress>       serverAddresses;
@@ -69,6 +75,8 @@ public class ClientConnectionEstablisher {
   //  tie these two variables in synchronized blocks
   private boolean               allowReconnects       = false;
   private AsyncReconnect        asyncReconnect;
+  //  only touched by the thread connecting
+  private int                   failedAttempts        = 0;
     
   static {
     Logger logger = LoggerFactory.getLogger(ClientConnectionEstablisher.class);
@@ -79,6 +87,9 @@ public class ClientConnectionEstablisher {
     }
 
     CONNECT_RETRY_INTERVAL = value;
+    MAX_RETRY_INTERVAL = Math.max(value, TCPropertiesImpl.getProperties().getLong(TCPropertiesConsts.L1_SOCKET_RECONNECT_MAX_WAIT_INTERVAL, 10000));
+    PROBE_TIMEOUT = TCPropertiesImpl.getProperties().getLong(TCPropertiesConsts.L1_SOCKET_CONNECT_TIMEOUT);
+    PROBE_SERVERS = TCPropertiesImpl.getProperties().getBoolean(TCPropertiesConsts.L1_SOCKET_RECONNECT_PROBE, true);
   }
 
   public ClientConnectionEstablisher(ClientMessageTransport cmt) {
@@ -185,87 +196,99 @@ public class ClientConnectionEstablisher {
       InetSocketAddress target = null;
 
       for (int i = 0; tryToConnect(connected, stopCheck); i++) {
-        Iterator<InetSocketAddress> serverAddressIterator = getServerAddressIterator();
-        while ((target != null || serverAddressIterator.hasNext()) && tryToConnect(connected, stopCheck)) {
-
-          if (reconnectionRejected) {
-            if (transport.isRetryOnReconnectionRejected()) {
-              LOGGER.info("Reconnection rejected by L2, trying again to reconnect - " + transport);
-            } else {
-              LOGGER.info("Reconnection rejected by L2, no more trying to reconnect - " + transport);
-              return;
+        ServerProbe probe = probeServers();
+        Iterator<InetSocketAddress> serverAddressIterator = probe != null ? probe : getServerAddressIterator();
+        try {
+          while ((target != null || serverAddressIterator.hasNext()) && tryToConnect(connected, stopCheck)) {
+
+            if (reconnectionRejected) {
+              if (transport.isRetryOnReconnectionRejected()) {
+                LOGGER.info("Reconnection rejected by L2, trying again to reconnect - " + transport);
+              } else {
+                LOGGER.info("Reconnection rejected by L2, no more trying to reconnect - " + transport);
+                return;
+              }
             }
-          }
 
-          if (target == null) {
-            target = nextServerAddress(serverAddressIterator);
-          }
+            if (target == null) {
+              target = nextServerAddress(serverAddressIterator);
+            }
 
-          // DEV-1945
-          if (i == 0) {
-            String previousConnectHost = "";
-            int previousConnectHostPort = -1;
-            if (transport.getRemoteAddress() != null) {
-              previousConnectHost = transport.getRemoteAddress().getAddress().getHostAddress();
-              previousConnectHostPort = transport.getRemoteAddress().getPort();
+            // DEV-1945
+            if (i == 0) {
+              String previousConnectHost = "";
+              int previousConnectHostPort = -1;
+              if (transport.getRemoteAddress() != null) {
+                previousConnectHost = transport.getRemoteAddress().getAddress().getHostAddress();
+                previousConnectHostPort = transport.getRemoteAddress().getPort();
+              }
+              String connectingToHost = "";
+              try {
+                connectingToHost = getHostByName(target);
+              } catch (UnknownHostException e) {
+                handleConnectException(e, true, connectionErrorLossyLogger);
+                // keep trying reconnects, for maxReconnectTries
+                target = null;
+                continue;
+              }
+              int connectingToHostPort = target.getPort();
+              if ((serverAddressIterator.hasNext()) && (previousConnectHost.equals(connectingToHost))
+                  && (previousConnectHostPort == connectingToHostPort)) {
+                target = null;
+                continue;
+              }
             }
-            String connectingToHost = "";
             try {
-              connectingToHost = getHostByName(target);
-            } catch (UnknownHostException e) {
-              handleConnectException(e, true, connectionErrorLossyLogger);
-              // keep trying reconnects, for maxReconnectTries
+              if (i % 20 == 0 && i > 0) {
+                transport.getLogger().info("Reconnect attempt " + i + " to " + target);
+              }
+              transport.reopen(target);
+              connected = transport.isConnected() && transport.getConnectionID().isValid();
+              if (connected) {
+                failedAttempts = 0;
+              } else {
+                // if here, a strange state has been reached.  reopen should have either thrown an exception
+                // or created a proper connection.  Log it for now
+                LOGGER.warn("reopen succeeded however connection is not established ", new Exception());
+              }
+            } catch (TransportRedirect redirect) {
+              target = InetSocketAddress.createUnresolved(redirect.getHostname(), redirect.getPort());
+            } catch (NoActiveException noactive) {
               target = null;
-              continue;
-            }
-            int connectingToHostPort = target.getPort();
-            if ((serverAddressIterator.hasNext()) && (previousConnectHost.equals(connectingToHost))
-                && (previousConnectHostPort == connectingToHostPort)) {
+              handleConnectException(new IOException(noactive), false, connectionErrorLossyLogger);
+            } catch (MaxConnectionsExceededException e) {
+              target = null;
+              quitReconnectAttempts();
+              throw e;
+            } catch (ReconnectionRejectedException e) {
+              target = null;
+              quitReconnectAttempts();
+              reconnectionRejected = true;
+              handleConnectException(e, false, connectionErrorLossyLogger);
+            } catch (CommStackMismatchException e) {
               target = null;
-              continue;
+              quitReconnectAttempts();
+              handleConnectException(e, false, connectionErrorLossyLogger);
+            } catch (TCTimeoutException e) {
+              target = null;
+              handleConnectException(e, false, connectionErrorLossyLogger);
+            } catch (IOException e) {
+              target = null;
+              handleConnectException(e, false, connectionErrorLossyLogger);
+            } catch (Exception e) {
+              target = null;
+              handleConnectException(e, true, connectionErrorLossyLogger);
+            } catch (Throwable t) {
+              target = null;
+              LOGGER.warn("unknown error", t);
             }
           }
-          try {
-            if (i % 20 == 0 && i > 0) {
-              transport.getLogger().info("Reconnect attempt " + i + " to " + target);
-            }
-            transport.reopen(target);
-            connected = transport.isConnected() && transport.getConnectionID().isValid();
-            if (!connected) {
-              // if here, a strange state has been reached.  reopen should have either thrown an exception
-              // or created a proper connection.  Log it for now
-              LOGGER.warn("reopen succeeded however connection is not established ", new Exception());
-            }
-          } catch (TransportRedirect redirect) {
-            target = InetSocketAddress.createUnresolved(redirect.getHostname(), redirect.getPort());
-          } catch (NoActiveException noactive) {
-            target = null;
-            handleConnectException(new IOException(noactive), false, connectionErrorLossyLogger);
-          } catch (MaxConnectionsExceededException e) {
-            target = null;
-            quitReconnectAttempts();
-            throw e;
-          } catch (ReconnectionRejectedException e) {
-            target = null;
-            quitReconnectAttempts();
-            reconnectionRejected = true;
-            handleConnectException(e, false, connectionErrorLossyLogger);
-          } catch (CommStackMismatchException e) {
-            target = null;
-            quitReconnectAttempts();
-            handleConnectException(e, false, connectionErrorLossyLogger);
-          } catch (TCTimeoutException e) {
-            target = null;
-            handleConnectException(e, false, connectionErrorLossyLogger);
-          } catch (IOException e) {
-            target = null;
-            handleConnectException(e, false, connectionErrorLossyLogger);
-          } catch (Exception e) {
-            target = null;
-            handleConnectException(e, true, connectionErrorLossyLogger);
-          } catch (Throwable t) {
-            target = null;
-            LOGGER.warn("unknown error", t);
+          if (probe != null && !probe.anyAnswered() && tryToConnect(connected, stopCheck)) {
+            handleConnectException(new IOException("no server answered " + serverAddresses), false, connectionErrorLossyLogger);
+          }
+        } finally {
+          if (probe != null) {
+            probe.close();
           }
         }
       }
@@ -278,6 +301,32 @@ public class ClientConnectionEstablisher {
     return new CompositeIterator<>(asList(serverAddresses.iterator(), new LinkedHashSet<>(redirects).iterator()));
   }
 
+  /**
+   * Starts probing all known servers at once when there is more than one to choose from so the handshake goes
+   * to servers that answer, in the order they answered.
+   *
+   * @return null if probing is disabled or pointless
+   */
+  private ServerProbe probeServers() {
+    if (!PROBE_SERVERS) {
+      return null;
+    }
+    List<InetSocketAddress> targets = new ArrayList<>();
+    Iterator<InetSocketAddress> it = getServerAddressIterator();
+    while (it.hasNext()) {
+      targets.add(nextServerAddress(it));
+    }
+    if (targets.size() < 2) {
+      return null;
+    }
+    try {
+      return new ServerProbe(targets, PROBE_TIMEOUT);
+    } catch (IOException ioe) {
+      LOGGER.debug("unable to probe servers", ioe);
+      return null;
+    }
+  }
+
   private static InetSocketAddress nextServerAddress(Iterator<InetSocketAddress> serverAddressIterator) {
     InetSocketAddress serverAddress = serverAddressIterator.next();
     if (serverAddress.getPort() <= 0) {
@@ -302,7 +351,17 @@ public class ClientConnectionEstablisher {
       logger.error("Connect Exception", e);
     }
 
-    Thread.sleep(CONNECT_RETRY_INTERVAL);
+    Thread.sleep(nextRetryInterval());
+  }
+
+  /**
+   * Exponential backoff from the configured wait interval up to the max wait interval.  Half of each wait is random
+   * so clients that lost the same server do not all come back at the same moment.
+   */
+  long nextRetryInterval() {
+    long ceiling = Math.min(MAX_RETRY_INTERVAL, CONNECT_RETRY_INTERVAL << Math.min(failedAttempts, 20));
+    failedAttempts++;
+    return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
   }
 
   public boolean asyncReconnect(Supplier<Boolean> stopCheck) {
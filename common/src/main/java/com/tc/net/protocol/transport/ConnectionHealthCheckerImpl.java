@@ -27,7 +27,9 @@ import com.tc.util.Assert;
 import java.net.InetSocketAddress;
 
 import java.util.Iterator;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
@@ -39,6 +41,10 @@ import java.util.function.Supplier;
 /**
  * The Engine which does the peer health checking work. Based on the config passed, it probes the peer once in specified
  * interval. When it doesn't get a reply from the peer, it disconnects the transport.
+ * <p>
+ * Each connection has its own deadline on a timing wheel.  A connection receiving traffic is not looked at again
+ * until it could have been idle for the ping idle time, so the work done on each tick follows the number of idle
+ * connections rather than the number of connections.
  * 
  * @author Manoj
  */
@@ -98,7 +104,7 @@ public class ConnectionHealthCheckerImpl implements ConnectionHealthChecker {
   public synchronized void start() {
     if (task == null) {
       try {
-        task = monitorThread.scheduleAtFixedRate(monitorThreadEngine, 0L, monitorThreadEngine.pingInterval, TimeUnit.MILLISECONDS);
+        task = monitorThread.scheduleAtFixedRate(monitorThreadEngine, 0L, monitorThreadEngine.tick, TimeUnit.MILLISECONDS);
       } catch (IllegalStateException state) {
         logger.warn("HealthChecker cannot start");
         return;
@@ -169,10 +175,14 @@ public class ConnectionHealthCheckerImpl implements ConnectionHealthChecker {
   }
 
   static class HealthCheckerMonitorThreadEngine implements Runnable {
-    private final ConcurrentMap<ConnectionID, MessageTransportBase> connectionMap =
+    private static final int          TICKS_PER_INTERVAL = 10;
+    private static final long         MIN_TICK = 10;
+    private final ConcurrentMap<ConnectionID, Monitored> connectionMap =
         new ConcurrentHashMap<>();
+    private final Queue<Monitored>    added = new ConcurrentLinkedQueue<>();
     private final long                pingIdleTime;
     private final long                pingInterval;
+    private final long                tick;
     private final int                 pingProbes;
     private final long                checkTimeInterval;
     private final HealthCheckerConfig config;
@@ -180,11 +190,14 @@ public class ConnectionHealthCheckerImpl implements ConnectionHealthChecker {
     private final TCConnectionManager connectionManager;
     private final Supplier<Boolean>   reachable;
     private final AtomicLong          lastCheckTime = new AtomicLong(System.currentTimeMillis());
+    // only touched by the monitor thread
+    private TimingWheel<Monitored>    deadlines;
 
     public HealthCheckerMonitorThreadEngine(HealthCheckerConfig healthCheckerConfig,
                                             TCConnectionManager connectionManager, Supplier<Boolean> reachable, Logger logger) {
       this.pingIdleTime = healthCheckerConfig.getPingIdleTimeMillis();
       this.pingInterval = healthCheckerConfig.getPingIntervalMillis();
+      this.tick = Math.max(MIN_TICK, pingInterval / TICKS_PER_INTERVAL);
       this.pingProbes = healthCheckerConfig.getPingProbes();
       this.checkTimeInterval = healthCheckerConfig.getCheckTimeInterval();
       this.connectionManager = connectionManager;
@@ -206,7 +219,9 @@ public class ConnectionHealthCheckerImpl implements ConnectionHealthChecker {
     private void addConnection(MessageTransport transport) {
       MessageTransportBase mtb = (MessageTransportBase) transport;
       mtb.setHealthCheckerContext(getHealthCheckerContext(mtb, config, connectionManager));
-      connectionMap.put(transport.getConnectionID(), mtb);
+      Monitored monitored = new Monitored(transport.getConnectionID(), mtb);
+      connectionMap.put(monitored.id, monitored);
+      added.add(monitored);
     }
 
     private boolean removeConnection(MessageTransport transport) {
@@ -225,42 +240,22 @@ public class ConnectionHealthCheckerImpl implements ConnectionHealthChecker {
       final boolean canCheckTime = canCheckTime();
 
       if (reachable.get()) {
-        Iterator<MessageTransportBase> connectionIterator = connectionMap.values().iterator();
-        while (connectionIterator.hasNext()) {
-          MessageTransportBase mtb = connectionIterator.next();
-
-          TCConnection conn = mtb.getConnection();
-          if (conn == null || !mtb.isConnected()) {
-            logger.info("[" + (conn == null ? null : conn.getRemoteAddress().toString())
-                        + "] is not connected. Health Monitoring for this node is now disabled.");
-            connectionIterator.remove();
-            continue;
-          }
-
-          if (mtb.getReceiveLayer() == null) {
-            logger.info("[" + (conn == null ? null : conn.getRemoteAddress().toString())
-                        + "] is no longer referenced.  Closing the connection");
-            mtb.disconnect();
-            connectionIterator.remove();
-            continue;
-          }
-
-          ConnectionHealthCheckerContext connContext = mtb.getHealthCheckerContext();
-          if ((conn.getIdleReceiveTime() >= this.pingIdleTime)) {
+        long now = System.currentTimeMillis();
+        if (deadlines == null) {
+          deadlines = new TimingWheel<>(tick, now);
+        }
+        Monitored monitored;
+        while ((monitored = added.poll()) != null) {
+          deadlines.schedule(monitored, now);
+        }
+        deadlines.advance(now, m -> check(m, now));
 
-            if (!connContext.probeIfAlive()) {
-              // Connection is dead. Disconnect the transport.
-              logger.error("Declared connection dead " + mtb.getConnectionID() + " idle time "
-                           + conn.getIdleReceiveTime() + "ms");
-              mtb.disconnect();
-              connectionIterator.remove();
+        // is there any significant time difference between hosts ?
+        if (canCheckTime) {
+          for (Monitored m : connectionMap.values()) {
+            if (m.transport.isConnected()) {
+              m.transport.getHealthCheckerContext().checkTime();
             }
-          } else {
-            connContext.refresh();
-          }
-          // is there any significant time difference between hosts ?
-          if (canCheckTime) {
-            connContext.checkTime();
           }
         }
       }
@@ -271,6 +266,47 @@ public class ConnectionHealthCheckerImpl implements ConnectionHealthChecker {
       }
     }
 
+    private void check(Monitored monitored, long now) {
+      if (connectionMap.get(monitored.id) != monitored) {
+        // removed or replaced since it was scheduled
+        return;
+      }
+      MessageTransportBase mtb = monitored.transport;
+      TCConnection conn = mtb.getConnection();
+      if (conn == null || !mtb.isConnected()) {
+        logger.info("[" + (conn == null ? null : conn.getRemoteAddress().toString())
+                    + "] is not connected. Health Monitoring for this node is now disabled.");
+        connectionMap.remove(monitored.id, monitored);
+        return;
+      }
+
+      if (mtb.getReceiveLayer() == null) {
+        logger.info("[" + conn.getRemoteAddress().toString()
+                    + "] is no longer referenced.  Closing the connection");
+        mtb.disconnect();
+        connectionMap.remove(monitored.id, monitored);
+        return;
+      }
+
+      ConnectionHealthCheckerContext connContext = mtb.getHealthCheckerContext();
+      long idle = conn.getIdleReceiveTime();
+      if (idle >= this.pingIdleTime) {
+        if (!connContext.probeIfAlive()) {
+          // Connection is dead. Disconnect the transport.
+          logger.error("Declared connection dead " + mtb.getConnectionID() + " idle time "
+                       + conn.getIdleReceiveTime() + "ms");
+          mtb.disconnect();
+          connectionMap.remove(monitored.id, monitored);
+          return;
+        }
+        deadlines.schedule(monitored, now + this.pingInterval);
+      } else {
+        // traffic seen, nothing to do until the connection could have been idle long enough
+        connContext.refresh();
+        deadlines.schedule(monitored, now + this.pingIdleTime - idle);
+      }
+    }
+
     boolean canCheckTime() {
       return config.isCheckTimeEnabled() &&
              (System.currentTimeMillis() - this.lastCheckTime.get() >= this.checkTimeInterval);
@@ -282,10 +318,10 @@ public class ConnectionHealthCheckerImpl implements ConnectionHealthChecker {
     }
 
     long getTotalProbesSentOnAllConnections() {
-      Iterator<MessageTransportBase> connIterator = connectionMap.values().iterator();
+      Iterator<Monitored> connIterator = connectionMap.values().iterator();
       long totalProbeSent = 0;
       while (connIterator.hasNext()) {
-        MessageTransportBase mtb = connIterator.next();
+        MessageTransportBase mtb = connIterator.next().transport;
         ConnectionHealthCheckerContextImpl connContext = (ConnectionHealthCheckerContextImpl) mtb
             .getHealthCheckerContext();
         totalProbeSent += connContext.getTotalProbesSent();
@@ -294,6 +330,16 @@ public class ConnectionHealthCheckerImpl implements ConnectionHealthChecker {
     }
   }
 
+  private static class Monitored {
+    private final ConnectionID id;
+    private final MessageTransportBase transport;
+
+    Monitored(ConnectionID id, MessageTransportBase transport) {
+      this.id = id;
+      this.transport = transport;
+    }
+  }
+
   /* For testing only */
   public int getTotalConnsUnderMonitor() {
     return monitorThreadEngine.getTotalConnectionsUnderMonitor();
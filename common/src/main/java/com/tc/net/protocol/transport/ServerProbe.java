@@ -0,0 +1,163 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.tc.net.protocol.transport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connects to every server of a stripe at once, without handshaking, and hands out the servers in the order they
+ * accepted the connection.  Servers that do not answer within the timeout are never handed out so a dead host does
+ * not cost a full connect timeout on every reconnect attempt.
+ * <p>
+ * Connects progress in the background while the caller handshakes with the first server to answer, closing the
+ * probe abandons whatever has not answered yet.  Not thread safe.
+ */
+class ServerProbe implements Iterator<InetSocketAddress>, Closeable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ServerProbe.class);
+
+  private final Selector selector;
+  private final Deque<InetSocketAddress> answered = new ArrayDeque<>();
+  private final long deadline;
+  private int pending;
+  private boolean anyAnswered;
+
+  ServerProbe(Iterable<InetSocketAddress> targets, long timeout) throws IOException {
+    this.selector = Selector.open();
+    this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+    for (InetSocketAddress target : targets) {
+      probe(target);
+    }
+  }
+
+  private void probe(InetSocketAddress target) {
+    SocketChannel channel = null;
+    try {
+      InetSocketAddress resolved = target.isUnresolved() ? new InetSocketAddress(target.getHostString(), target.getPort()) : target;
+      if (resolved.isUnresolved()) {
+        LOGGER.debug("unable to resolve {}", target);
+        return;
+      }
+      channel = SocketChannel.open();
+      channel.configureBlocking(false);
+      if (channel.connect(resolved)) {
+        answer(target);
+        channel.close();
+      } else {
+        channel.register(selector, SelectionKey.OP_CONNECT, target);
+        pending++;
+      }
+    } catch (IOException | RuntimeException e) {
+      LOGGER.debug("unable to probe {}", target, e);
+      closeQuietly(channel);
+    }
+  }
+
+  private void answer(InetSocketAddress target) {
+    answered.add(target);
+    anyAnswered = true;
+  }
+
+  /**
+   * @return true once any server has accepted a connection
+   */
+  boolean anyAnswered() {
+    return anyAnswered;
+  }
+
+  /**
+   * Waits for the next server to answer.  Returns false once every server has answered or failed, the timeout
+   * expires or the thread is interrupted, leaving the interrupt flag set.
+   */
+  @Override
+  public boolean hasNext() {
+    try {
+      while (answered.isEmpty() && pending > 0 && !Thread.currentThread().isInterrupted()) {
+        long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remaining <= 0) {
+          break;
+        }
+        selector.select(remaining);
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          finish(key);
+        }
+      }
+    } catch (IOException e) {
+      LOGGER.debug("probe failed", e);
+    }
+    return !answered.isEmpty();
+  }
+
+  private void finish(SelectionKey key) {
+    SocketChannel channel = (SocketChannel)key.channel();
+    InetSocketAddress target = (InetSocketAddress)key.attachment();
+    try {
+      if (!channel.finishConnect()) {
+        return;
+      }
+      answer(target);
+    } catch (IOException e) {
+      LOGGER.debug("{} did not answer", target, e);
+    }
+    pending--;
+    key.cancel();
+    closeQuietly(channel);
+  }
+
+  @Override
+  public InetSocketAddress next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return answered.poll();
+  }
+
+  @Override
+  public void close() {
+    for (SelectionKey key : selector.keys()) {
+      closeQuietly(key.channel());
+    }
+    closeQuietly(selector);
+  }
+
+  private static void closeQuietly(Closeable c) {
+    if (c != null) {
+      try {
+        c.close();
+      } catch (IOException ioe) {
+        LOGGER.debug("close failed", ioe);
+      }
+    }
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.tc.net.protocol.transport;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel.  Each level has {@value #SLOTS} slots, a slot of the first level spans one tick and a
+ * slot of every further level spans a whole turn of the level below.  Scheduling is constant time and each tick only
+ * touches the items that are due, items further out are moved down a level once per turn of the level above.
+ * <p>
+ * Not thread safe, one thread schedules and advances the wheel.
+ */
+class TimingWheel<T> {
+
+  private static final int BITS = 6;
+  private static final int SLOTS = 1 << BITS;
+  private static final int MASK = SLOTS - 1;
+  private static final int LEVELS = 4;
+  private static final long HORIZON = (1L << (BITS * LEVELS)) - 1;
+
+  private final long tick;
+  private final List<List<Entry<T>>> wheel = new ArrayList<>(LEVELS * SLOTS);
+  private long currentTick;
+  private int size;
+
+  /**
+   * @param tick duration of a tick in milliseconds
+   * @param now current time in milliseconds
+   */
+  TimingWheel(long tick, long now) {
+    if (tick <= 0) {
+      throw new IllegalArgumentException("tick must be positive");
+    }
+    this.tick = tick;
+    this.currentTick = now / tick;
+    for (int x = 0; x < LEVELS * SLOTS; x++) {
+      wheel.add(new ArrayList<>());
+    }
+  }
+
+  /**
+   * Schedule an item to expire at the first tick at or after the deadline.  Deadlines already passed expire on the
+   * next tick.
+   */
+  void schedule(T item, long deadline) {
+    long due = Math.max(currentTick + 1, (deadline + tick - 1) / tick);
+    place(new Entry<>(item, due));
+    size++;
+  }
+
+  /**
+   * Move the wheel forward to the given time, handing every item that expires on the way to the consumer.  Items
+   * scheduled by the consumer are never handed out again in the same tick.
+   */
+  void advance(long now, Consumer<T> expired) {
+    long target = now / tick;
+    while (currentTick < target) {
+      currentTick++;
+      for (int level = 1; level < LEVELS && (currentTick & ((1L << (BITS * level)) - 1)) == 0; level++) {
+        for (Entry<T> e : drain(level, slot(currentTick, level))) {
+          place(e);
+        }
+      }
+      for (Entry<T> e : drain(0, slot(currentTick, 0))) {
+        if (e.due <= currentTick) {
+          size--;
+          expired.accept(e.item);
+        } else {
+          place(e);
+        }
+      }
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  private void place(Entry<T> e) {
+    long delta = Math.min(Math.max(e.due - currentTick, 0), HORIZON);
+    long position = currentTick + delta;
+    int level = 0;
+    while (level < LEVELS - 1 && delta >= (1L << (BITS * (level + 1)))) {
+      level++;
+    }
+    wheel.get(level * SLOTS + slot(position, level)).add(e);
+  }
+
+  private List<Entry<T>> drain(int level, int slot) {
+    List<Entry<T>> bucket = wheel.get(level * SLOTS + slot);
+    if (bucket.isEmpty()) {
+      return bucket;
+    }
+    wheel.set(level * SLOTS + slot, new ArrayList<>());
+    return bucket;
+  }
+
+  private static int slot(long position, int level) {
+    return (int)((position >>> (BITS * level)) & MASK);
+  }
+
+  private static class Entry<T> {
+    private final T item;
+    private final long due;
+
+    Entry(T item, long due) {
+      this.item = item;
+      this.due = due;
+    }
+  }
+}
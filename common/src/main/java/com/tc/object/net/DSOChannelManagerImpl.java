@@ -32,7 +32,7 @@ import com.tc.net.protocol.tcm.TCMessageType;
 import com.tc.object.msg.ClientHandshakeAckMessage;
 import com.tc.object.msg.ClientHandshakeRefusedMessage;
 import com.tc.net.core.ProductID;
-import com.tc.util.concurrent.CopyOnWriteSequentialMap;
+import com.tc.util.concurrent.ConcurrentSnapshotMap;
 import java.net.InetSocketAddress;
 
 import java.util.Collection;
@@ -48,14 +48,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 public class DSOChannelManagerImpl implements DSOChannelManager, DSOChannelManagerMBean {
   private static final Logger logger = LoggerFactory.getLogger(DSOChannelManager.class);
 
-  private final CopyOnWriteSequentialMap<NodeID, MessageChannel> activeChannels = new CopyOnWriteSequentialMap<NodeID, MessageChannel>(
-                                                                                      new CopyOnWriteSequentialMap.TypedArrayFactory() {
-                                                                                        @SuppressWarnings("unchecked")
-                                                                                        @Override
-                                                                                        public MessageChannel[] createTypedArray(int size) {
-                                                                                          return new MessageChannel[size];
-                                                                                        }
-                                                                                      });
+  private final ConcurrentSnapshotMap<NodeID, MessageChannel> activeChannels = new ConcurrentSnapshotMap<>(MessageChannel[]::new);
   
   private final List<ChannelManagerEventListener> eventListeners = new CopyOnWriteArrayList<>();
 
@@ -160,11 +153,7 @@ public class DSOChannelManagerImpl implements DSOChannelManager, DSOChannelManag
   }
 
   private Set<? extends NodeID> getAllActiveClientIDs() {
-    Set<NodeID> clientIDs = new HashSet<NodeID>();
-      for (NodeID cid : activeChannels.keySet()) {
-        clientIDs.add(cid);
-      }
-    return clientIDs;
+    return new HashSet<NodeID>(activeChannels.keySet());
   }
 
   @Override
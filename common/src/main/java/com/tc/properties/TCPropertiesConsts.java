@@ -43,6 +43,17 @@ public interface TCPropertiesConsts {
    *                                      seda stage
    * stage.sink.capacity                : Capacity of seda stage queue, Integer.MAX_VALUE if not set
    *                                      (experimental, do not change)
+   * stage.queue.type                   : Queue backing bounded stages, "default" or "ring" (lock-free MPSC ring
+   *                                      buffer), overridden per stage by seda.<stage>.queue.type
+   * stage.queue.wait                   : Wait strategy of ring buffer queues, "spin", "yield" or "park",
+   *                                      overridden per stage by seda.<stage>.queue.wait
+   * stage.batch.size                   : Maximum number of events a worker drains per wakeup, batching is off when
+   *                                      not greater than one, overridden per stage by seda.<stage>.batch.size
+   * stage.worksteal                    : Let idle workers of multi-threaded stages take events without a
+   *                                      scheduling key from busy siblings, overridden per stage by
+   *                                      seda.<stage>.worksteal
+   * stage.virtual                      : Run stage workers on virtual threads when the JVM supports them,
+   *                                      overridden per stage by seda.<stage>.virtual
    * </code>
    ********************************************************************************************************************/
   public static final String ENTITY_PROCESSOR_THREADS                                    = "server.entity.processor.threads";
@@ -53,6 +64,11 @@ public interface TCPropertiesConsts {
   public static final String L2_SEDA_STAGE_USE_BACKOFF                                    = "l2.seda.stage.voltron.backoff";
   public static final String L2_SEDA_STAGE_STALL_WARNING                                    = "l2.seda.stage.stall.warning";
   public static final String L2_SEDA_STAGE_ALWAYS_HYDRATE                                    = "l2.seda.stage.always.hydrate";
+  public static final String L2_SEDA_STAGE_QUEUE_TYPE                                    = "l2.seda.stage.queue.type";
+  public static final String L2_SEDA_STAGE_QUEUE_WAIT                                    = "l2.seda.stage.queue.wait";
+  public static final String L2_SEDA_STAGE_BATCH_SIZE                                    = "l2.seda.stage.batch.size";
+  public static final String L2_SEDA_STAGE_WORK_STEALING                                    = "l2.seda.stage.worksteal";
+  public static final String L2_SEDA_STAGE_VIRTUAL_THREADS                                    = "l2.seda.stage.virtual";
   public static final String L2_TCCOM_WORKERTHREADS                                                          = "l2.tccom.workerthreads";
   public static final String L2_SEDA_STAGE_WORKERTHREADS                                                     = "l2.seda.stage.workerthreads";
 
@@ -83,10 +99,31 @@ public interface TCPropertiesConsts {
    *                                 instance in a cluster with no passives present
    * startuplock.retries.enabled   : If true then L2s will try to lock indefinitely on the data
    *                                 directory while starting up
+   * transactionorder.groupcommit.size : Transaction order tuples written to storage together, 0 writes each one
+   * transactionorder.groupcommit.windowMicros : Longest a transaction order tuple waits for its batch to fill
+   * passivesync.window            : Sync activities sent to a passive before waiting for it to receive the oldest one
+   * relay.journal.enabled         : Journal relayed replication messages to disk so a duplication target can resume
+   *                                 from further back than the in-memory history
+   * relay.journal.directory       : Directory of the relay journal, a directory of this server in its logs directory if empty
+   * relay.journal.segmentMegaBytes : Size of each memory mapped journal segment
+   * relay.journal.maxMegaBytes    : Oldest segments are dropped once the journal is larger, 0 for no limit
+   * relay.journal.retentionSeconds : Segments last written longer ago are dropped, 0 for no limit
+   * server.classloader.index.enabled : Keep the service declarations of plugin jars in an index reused across restarts
+   * server.classloader.index.file : File of the plugin service index, a file in the working directory of the server if empty
    * </code>
    ********************************************************************************************************************/
   public static final String PLUGIN_CLASSLOADER_COMPATIBILITY                               = "server.classloader.compatibility";
+  public static final String PLUGIN_SERVICE_INDEX_ENABLED                                   = "server.classloader.index.enabled";
+  public static final String PLUGIN_SERVICE_INDEX_FILE                                      = "server.classloader.index.file";
   public static final String ENTITY_DEFERMENT_QUEUE_SIZE                                    = "server.entity.deferment.queue.size";
+  public static final String L2_TRANSACTION_ORDER_GROUP_COMMIT_SIZE                         = "l2.transactionorder.groupcommit.size";
+  public static final String L2_TRANSACTION_ORDER_GROUP_COMMIT_WINDOW                       = "l2.transactionorder.groupcommit.windowMicros";
+  public static final String L2_PASSIVE_SYNC_WINDOW                                         = "l2.passivesync.window";
+  public static final String L2_RELAY_JOURNAL_ENABLED                                       = "l2.relay.journal.enabled";
+  public static final String L2_RELAY_JOURNAL_DIRECTORY                                     = "l2.relay.journal.directory";
+  public static final String L2_RELAY_JOURNAL_SEGMENT_MB                                    = "l2.relay.journal.segmentMegaBytes";
+  public static final String L2_RELAY_JOURNAL_MAX_MB                                        = "l2.relay.journal.maxMegaBytes";
+  public static final String L2_RELAY_JOURNAL_RETENTION_SECONDS                             = "l2.relay.journal.retentionSeconds";
   
   /*********************************************************************************************************************
    * <code>
@@ -115,11 +152,15 @@ public interface TCPropertiesConsts {
    * socket.connect.timeout            - Socket timeout (ms) when connecting to server
    * reconnect.waitInterval            - Sleep time (ms) between trying connections to the server
    *                                     (values less than 10ms will be set to 10ms)
+   * reconnect.maxWaitInterval         - Upper bound (ms) of the jittered exponential backoff between tries
+   * reconnect.probe                   - Probe all servers at once on reconnect and only try the ones that answer
    * l2.l1redirect.enabled             - Allow the server to redirect the client to the current active
    * </code>
    ********************************************************************************************************************/
   public static final String L1_SOCKET_CONNECT_TIMEOUT                                      = "l1.socket.connect.timeout";
   public static final String L1_SOCKET_RECONNECT_WAIT_INTERVAL                              = "l1.socket.reconnect.waitInterval";
+  public static final String L1_SOCKET_RECONNECT_MAX_WAIT_INTERVAL                          = "l1.socket.reconnect.maxWaitInterval";
+  public static final String L1_SOCKET_RECONNECT_PROBE                                      = "l1.socket.reconnect.probe";
   public static final String L2_L1REDIRECT_ENABLED                                          = "l2.l1redirect.enabled";
 
   /*********************************************************************************************************************
@@ -144,6 +185,12 @@ public interface TCPropertiesConsts {
    * bytebuffer.pooling.enabled           : Enable/disable tc byte buffer pooling
    * bytebuffer.common.pool.maxcount      : Max size of pool for tc byte buffer
    * bytebuffer.threadlocal.pool.maxcount : Thread pool size
+   * messages.cork.enabled                : Write all pending messages of a connection with one gathering write
+   * messages.cork.maxSizeKiloBytes       : Byte budget of one gathering write
+   * messages.cork.holdMicros             : How long to hold back messages for more to arrive while writes are frequent
+   * bytebuffer.direct.pool.maxMegaBytes : Max direct memory held by the shared direct buffer pool
+   * bytebuffer.direct.pool.magazine      : Free buffers of each size class kept per thread by the direct buffer pool
+   * bytebuffer.heap.pool.maxMegaBytes   : Max free heap buffers kept for reuse, 0 disables heap buffer pooling
    * </code>
    ********************************************************************************************************************/
   
@@ -155,6 +202,12 @@ public interface TCPropertiesConsts {
   public static final String TC_MESSAGE_GROUPING_MAXSIZE_KB                                 = "tc.messages.grouping.maxSizeKiloBytes";
   public static final String TC_MESSAGE_GROUPING_MAX_COUNT                                  = "tc.messages.grouping.maxCount";
   public static final String TC_MESSAGE_PACKUP_ENABLED                                      = "tc.messages.packup.enabled";
+  public static final String TC_MESSAGE_CORK_ENABLED                                        = "tc.messages.cork.enabled";
+  public static final String TC_MESSAGE_CORK_MAXSIZE_KB                                     = "tc.messages.cork.maxSizeKiloBytes";
+  public static final String TC_MESSAGE_CORK_HOLD_MICROS                                    = "tc.messages.cork.holdMicros";
+  public static final String TC_BYTEBUFFER_DIRECT_POOL_MAX_MB                               = "tc.bytebuffer.direct.pool.maxMegaBytes";
+  public static final String TC_BYTEBUFFER_DIRECT_POOL_MAGAZINE                             = "tc.bytebuffer.direct.pool.magazine";
+  public static final String TC_BYTEBUFFER_HEAP_POOL_MAX_MB                                 = "tc.bytebuffer.heap.pool.maxMegaBytes";
 
   /*********************************************************************************************************************
    * <code>
@@ -293,6 +346,15 @@ public interface TCPropertiesConsts {
       L2_SEDA_STAGE_SINGLE_THREAD,
       L2_SEDA_STAGE_STALL_WARNING,
       L2_SEDA_STAGE_ALWAYS_HYDRATE,
+      L2_SEDA_STAGE_QUEUE_TYPE,
+      L2_SEDA_STAGE_QUEUE_WAIT,
+      L2_SEDA_STAGE_BATCH_SIZE,
+      L2_SEDA_STAGE_WORK_STEALING,
+      L2_SEDA_STAGE_VIRTUAL_THREADS,
+      L2_TRANSACTION_ORDER_GROUP_COMMIT_SIZE,
+      L2_TRANSACTION_ORDER_GROUP_COMMIT_WINDOW,
+      L2_RELAY_JOURNAL_DIRECTORY,
+      PLUGIN_SERVICE_INDEX_FILE,
       L2_NHA_TCGROUPCOMM_RECONNECT_L2PROXY_TO_PORT,
   };
 
@@ -0,0 +1,166 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.tc.stats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed size, lock free histogram of latencies.  Buckets are log-linear, every power of two is split into
+ * {@value #SUB_BUCKETS} linear buckets so any recorded value is reported within about 6% of what was recorded.
+ * Values above {@link #MAX_TRACKABLE} are counted in the last bucket.
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BITS;
+  private static final int MAX_EXPONENT = 43;
+  /**
+   * largest value tracked exactly, a little under five hours in nanoseconds
+   */
+  public static final long MAX_TRACKABLE = (1L << (MAX_EXPONENT + 1)) - 1;
+  private static final int BUCKETS = index(MAX_TRACKABLE) + 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Record one value.  Negative values come from incomplete timings and are ignored.
+   */
+  public void record(long value) {
+    if (value < 0) {
+      return;
+    }
+    long v = Math.min(value, MAX_TRACKABLE);
+    counts.incrementAndGet(index(v));
+    sum.add(v);
+    if (v > max.get()) {
+      max.accumulateAndGet(v, Math::max);
+    }
+  }
+
+  /**
+   * A copy of everything recorded so far.
+   */
+  public Snapshot snapshot() {
+    long[] copy = new long[BUCKETS];
+    for (int x = 0; x < BUCKETS; x++) {
+      copy[x] = counts.get(x);
+    }
+    return new Snapshot(copy, sum.sum(), max.get());
+  }
+
+  /**
+   * A copy of everything recorded since the last reset, starting a new interval.  Values recorded concurrently
+   * land in either this interval or the next one, never in both.
+   */
+  public Snapshot snapshotAndReset() {
+    long[] copy = new long[BUCKETS];
+    for (int x = 0; x < BUCKETS; x++) {
+      copy[x] = counts.getAndSet(x, 0);
+    }
+    return new Snapshot(copy, sum.sumThenReset(), max.getAndSet(0));
+  }
+
+  static int index(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int)value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int sub = (int)(value >>> (exponent - SUB_BITS)) - SUB_BUCKETS;
+    return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+  }
+
+  /**
+   * highest value that falls in the bucket at index
+   */
+  static long highestValue(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long lowest = (long)(SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+
+  public static class Snapshot {
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    private Snapshot(long[] counts, long sum, long max) {
+      long total = 0;
+      for (long c : counts) {
+        total += c;
+      }
+      this.counts = counts;
+      this.count = total;
+      this.sum = sum;
+      this.max = max;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public long getMax() {
+      return max;
+    }
+
+    public long getMean() {
+      return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * The value at or below which the given percentage of the recorded values fall.
+     *
+     * @param percentile between 0 and 100
+     */
+    public long getValueAtPercentile(double percentile) {
+      if (count == 0) {
+        return 0;
+      }
+      long target = Math.max(1, (long)Math.ceil(count * Math.min(100d, Math.max(0d, percentile)) / 100d));
+      long seen = 0;
+      for (int x = 0; x < counts.length; x++) {
+        seen += counts[x];
+        if (seen >= target) {
+          return Math.min(highestValue(x), max);
+        }
+      }
+      return max;
+    }
+
+    public Map<String, Long> toMap() {
+      Map<String, Long> map = new LinkedHashMap<>();
+      map.put("count", count);
+      map.put("mean", getMean());
+      map.put("p50", getValueAtPercentile(50));
+      map.put("p90", getValueAtPercentile(90));
+      map.put("p99", getValueAtPercentile(99));
+      map.put("p999", getValueAtPercentile(99.9));
+      map.put("max", max);
+      return map;
+    }
+  }
+}
@@ -20,9 +20,6 @@ package com.tc.util;
 import com.tc.classloader.OverrideService;
 import com.tc.classloader.OverrideServiceType;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.LineNumberReader;
 import java.lang.reflect.InvocationTargetException;
 import java.net.MalformedURLException;
 import org.slf4j.Logger;
@@ -30,7 +27,7 @@ import org.slf4j.LoggerFactory;
 
 import java.net.URL;
 import java.net.URLClassLoader;
-import java.nio.charset.Charset;
+import java.nio.file.Path;
 import java.util.AbstractList;
 import java.util.Collection;
 import java.util.Collections;
@@ -38,7 +35,9 @@ import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static java.util.stream.Collectors.toList;
@@ -53,6 +52,11 @@ public class ManagedServiceLoader implements TCServiceLoader.Provider {
 
   private static final String METAINFCONST = "META-INF/services/";
 
+  private static final ServiceIndex MEMORY_INDEX = new ServiceIndex(null);
+  private static final Map<Path, ServiceIndex> INDEXES = new ConcurrentHashMap<>();
+
+  private final ServiceIndex index;
+
   public static <T> Collection<? extends T> loadServices(Class<T> serviceClass, ClassLoader loader) {
     return new ManagedServiceLoader().getImplementations(serviceClass, loader);
   }
@@ -62,6 +66,14 @@ public class ManagedServiceLoader implements TCServiceLoader.Provider {
   }
     
   public ManagedServiceLoader() {
+    this.index = MEMORY_INDEX;
+  }
+
+  /**
+   * @param indexFile where the discovered service declarations are kept between runs, null to keep them in memory
+   */
+  protected ManagedServiceLoader(Path indexFile) {
+    this.index = indexFile == null ? MEMORY_INDEX : INDEXES.computeIfAbsent(indexFile.toAbsolutePath(), ServiceIndex::new);
   }
 
   @Override
@@ -95,7 +107,6 @@ public class ManagedServiceLoader implements TCServiceLoader.Provider {
       HashMap<String, String> overrides = new HashMap<>();
       Enumeration<URL> urlEnumeration = loader.getResources(
           METAINFCONST + interfaceName);
-      StringBuilder sb = new StringBuilder();
       while (urlEnumeration.hasMoreElements()) {
         URL x = urlEnumeration.nextElement();
         String urlString = parseURLString(x, interfaceName);
@@ -105,13 +116,11 @@ public class ManagedServiceLoader implements TCServiceLoader.Provider {
         } else {
           LOG.debug("reading " + urlString + " for " + interfaceName);
         }
-        InputStream s = x.openStream();
-        LineNumberReader reader = new LineNumberReader(new InputStreamReader(s, Charset.forName("UTF-8")));
-        String split = reader.readLine();
-        while (split != null) {
-          LOG.debug(reader.getLineNumber() + ":processing " + split);
+        List<String> lines = index.lines(urlString, interfaceName, x);
+        for (int line = 0; line < lines.size(); line++) {
+          String split = lines.get(line);
+          LOG.debug((line + 1) + ":processing " + split);
           String[] trim = split.trim().split("\\#");
-          split = reader.readLine();
           for (int c=0;c<trim.length;c++) {
             trim[c] = trim[c].trim();
           }
@@ -168,8 +177,8 @@ public class ManagedServiceLoader implements TCServiceLoader.Provider {
             LOG.info(trim[0] + " is not loadable from " + urlString + " skipping");
           }
         }
-        sb.setLength(0);
       }
+      index.save();
       if(LOG.isDebugEnabled()) {
         LOG.debug("implementations:" + urls.toString());
         LOG.debug("overrides:" + overrides.toString());
@@ -0,0 +1,268 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.tc.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Index of the service declarations in {@code META-INF/services} of each jar, keyed by the location of the jar.
+ * The first lookup in a jar reads every service file of that jar at once so the jar is not opened again for the
+ * next service type.  An entry is valid as long as the size and modification time of the jar are unchanged which
+ * lets the index be persisted and reused by the next start without rescanning anything.
+ * <p>
+ * Service files that are not inside a local jar (exploded directories and the like) are read on every lookup.
+ * <p>
+ * The index decides which classes get instantiated so a persisted index is only loaded when it is a regular file
+ * owned by the current user that nobody else can write to.
+ */
+class ServiceIndex {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ServiceIndex.class);
+
+  private static final String METAINFCONST = "META-INF/services/";
+  private static final int MAGIC = 0x54435349;
+  private static final int VERSION = 1;
+
+  private final Path file;
+  private final ConcurrentMap<String, JarServices> jars = new ConcurrentHashMap<>();
+  private volatile boolean dirty;
+
+  /**
+   * @param file where the index is persisted, null to keep it in memory only
+   */
+  ServiceIndex(Path file) {
+    this.file = file;
+    if (file != null && Files.exists(file, LinkOption.NOFOLLOW_LINKS)) {
+      if (!trusted(file)) {
+        LOG.warn("ignoring service index " + file + " which is not a regular file owned and only writable by " + System.getProperty("user.name"));
+        return;
+      }
+      try {
+        load(file);
+        LOG.debug("loaded service index of {} jars from {}", jars.size(), file);
+      } catch (IOException | RuntimeException e) {
+        LOG.info("ignoring unreadable service index " + file, e);
+        jars.clear();
+      }
+    }
+  }
+
+  /**
+   * The lines of the service file for the service type declared by the resource found at the location.
+   *
+   * @param location jar or directory the resource was found in
+   * @param interfaceName service type
+   * @param resource the service file itself
+   */
+  List<String> lines(String location, String interfaceName, URL resource) throws IOException {
+    Path jar = toJar(location);
+    if (jar != null) {
+      try {
+        long size = Files.size(jar);
+        long modified = Files.getLastModifiedTime(jar).toMillis();
+        JarServices services = jars.get(location);
+        if (services == null || services.size != size || services.modified != modified) {
+          services = scan(jar, size, modified);
+          jars.put(location, services);
+          dirty = true;
+        }
+        List<String> lines = services.services.get(interfaceName);
+        if (lines != null) {
+          return lines;
+        }
+      } catch (IOException ioe) {
+        LOG.debug("unable to index " + location, ioe);
+      }
+    }
+    return read(resource.openStream());
+  }
+
+  /**
+   * Write the index if anything changed since it was loaded or last saved.
+   */
+  synchronized void save() {
+    if (file == null || !dirty) {
+      return;
+    }
+    dirty = false;
+    try {
+      Path parent = file.toAbsolutePath().getParent();
+      if (parent != null) {
+        Files.createDirectories(parent);
+      }
+      Path tmp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        Map<String, JarServices> copy = new HashMap<>(jars);
+        out.writeInt(copy.size());
+        for (Map.Entry<String, JarServices> jar : copy.entrySet()) {
+          out.writeUTF(jar.getKey());
+          out.writeLong(jar.getValue().size);
+          out.writeLong(jar.getValue().modified);
+          out.writeInt(jar.getValue().services.size());
+          for (Map.Entry<String, List<String>> service : jar.getValue().services.entrySet()) {
+            out.writeUTF(service.getKey());
+            out.writeInt(service.getValue().size());
+            for (String line : service.getValue()) {
+              out.writeUTF(line);
+            }
+          }
+        }
+      }
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException | RuntimeException e) {
+      LOG.info("unable to save service index to " + file, e);
+    }
+  }
+
+  private void load(Path from) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(from)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException("unknown format");
+      }
+      int count = in.readInt();
+      for (int x = 0; x < count; x++) {
+        String location = in.readUTF();
+        long size = in.readLong();
+        long modified = in.readLong();
+        int serviceCount = in.readInt();
+        Map<String, List<String>> services = new HashMap<>();
+        for (int s = 0; s < serviceCount; s++) {
+          String name = in.readUTF();
+          int lineCount = in.readInt();
+          List<String> lines = new ArrayList<>(lineCount);
+          for (int l = 0; l < lineCount; l++) {
+            lines.add(in.readUTF());
+          }
+          services.put(name, Collections.unmodifiableList(lines));
+        }
+        jars.put(location, new JarServices(size, modified, services));
+      }
+    }
+  }
+
+  private static boolean trusted(Path file) {
+    try {
+      if (!Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS)) {
+        return false;
+      }
+      UserPrincipal owner = Files.getOwner(file, LinkOption.NOFOLLOW_LINKS);
+      UserPrincipal self = file.getFileSystem().getUserPrincipalLookupService().lookupPrincipalByName(System.getProperty("user.name"));
+      if (!owner.equals(self)) {
+        return false;
+      }
+      if (Files.getFileStore(file).supportsFileAttributeView(PosixFileAttributeView.class)) {
+        Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(file, LinkOption.NOFOLLOW_LINKS);
+        return !permissions.contains(PosixFilePermission.GROUP_WRITE) && !permissions.contains(PosixFilePermission.OTHERS_WRITE);
+      }
+      return true;
+    } catch (IOException | UnsupportedOperationException | SecurityException e) {
+      LOG.debug("unable to check ownership of " + file, e);
+      return false;
+    }
+  }
+
+  private static JarServices scan(Path jar, long size, long modified) throws IOException {
+    Map<String, List<String>> services = new HashMap<>();
+    try (JarFile jf = new JarFile(jar.toFile())) {
+      Enumeration<JarEntry> entries = jf.entries();
+      while (entries.hasMoreElements()) {
+        JarEntry entry = entries.nextElement();
+        String name = entry.getName();
+        if (!entry.isDirectory() && name.startsWith(METAINFCONST) && name.length() > METAINFCONST.length()) {
+          services.put(name.substring(METAINFCONST.length()), read(jf.getInputStream(entry)));
+        }
+      }
+    }
+    LOG.debug("indexed {} services in {}", services.size(), jar);
+    return new JarServices(size, modified, services);
+  }
+
+  private static Path toJar(String location) {
+    if (!location.startsWith("file:")) {
+      return null;
+    }
+    String lower = location.toLowerCase();
+    if (!lower.endsWith(".jar") && !lower.endsWith(".zip")) {
+      return null;
+    }
+    try {
+      Path path = Paths.get(new URL(location).toURI());
+      return Files.isRegularFile(path) ? path : null;
+    } catch (IOException | URISyntaxException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  private static List<String> read(InputStream stream) throws IOException {
+    List<String> lines = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+      String line = reader.readLine();
+      while (line != null) {
+        lines.add(line);
+        line = reader.readLine();
+      }
+    }
+    return Collections.unmodifiableList(lines);
+  }
+
+  private static class JarServices {
+    private final long size;
+    private final long modified;
+    private final Map<String, List<String>> services;
+
+    JarServices(long size, long modified, Map<String, List<String>> services) {
+      this.size = size;
+      this.modified = modified;
+      this.services = services;
+    }
+  }
+}
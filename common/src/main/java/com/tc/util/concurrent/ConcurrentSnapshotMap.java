@@ -0,0 +1,131 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.tc.util.concurrent;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * A concurrent map that also hands out array snapshots of its values.
+ * <p>
+ * Lookups and mutations go straight to a {@link ConcurrentHashMap} and cost O(1).  Every mutation moves the map to a
+ * new epoch.  A snapshot is built lazily, without locking, the first time it is asked for in an epoch and is then
+ * shared by every reader until the next mutation.  A burst of mutations therefore costs nothing extra and a burst of
+ * readers pays for one copy.  Unlike {@link CopyOnWriteSequentialMap} no insertion order is kept.
+ */
+public class ConcurrentSnapshotMap<K, V> {
+
+  private final ConcurrentHashMap<K, V> map = new ConcurrentHashMap<>();
+  private final AtomicLong epoch = new AtomicLong();
+  private final IntFunction<V[]> arrayFactory;
+  private volatile Snapshot<V> snapshot;
+
+  public ConcurrentSnapshotMap(IntFunction<V[]> arrayFactory) {
+    this.arrayFactory = arrayFactory;
+    this.snapshot = new Snapshot<>(0, arrayFactory.apply(0));
+  }
+
+  public V get(K key) {
+    return map.get(key);
+  }
+
+  public boolean containsKey(K key) {
+    return map.containsKey(key);
+  }
+
+  public V put(K key, V value) {
+    V old = map.put(key, value);
+    if (old != value) {
+      epoch.incrementAndGet();
+    }
+    return old;
+  }
+
+  public V remove(K key) {
+    V old = map.remove(key);
+    if (old != null) {
+      epoch.incrementAndGet();
+    }
+    return old;
+  }
+
+  public void clear() {
+    map.clear();
+    epoch.incrementAndGet();
+  }
+
+  public int size() {
+    return map.size();
+  }
+
+  public boolean isEmpty() {
+    return map.isEmpty();
+  }
+
+  /**
+   * @return a read-only, weakly consistent view of the keys
+   */
+  public Set<K> keySet() {
+    return Collections.unmodifiableSet(map.keySet());
+  }
+
+  /**
+   * @return the values as of the current epoch, the caller owns the returned array
+   */
+  public V[] valuesToArray() {
+    V[] values = currentValues();
+    return Arrays.copyOf(values, values.length);
+  }
+
+  private V[] currentValues() {
+    Snapshot<V> current = snapshot;
+    // read the epoch before the map, any mutation counted in it is visible to the copy below
+    long now = epoch.get();
+    if (current.epoch == now) {
+      return current.values;
+    }
+    V[] values = map.values().toArray(arrayFactory.apply(map.size()));
+    if (values.length > 0 && values[values.length - 1] == null) {
+      // the map shrank while copying
+      values = Arrays.stream(values).filter(v -> v != null).toArray(arrayFactory);
+    }
+    snapshot = new Snapshot<>(now, values);
+    return values;
+  }
+
+  /**
+   * @return the epoch, which changes on every mutation
+   */
+  public long getEpoch() {
+    return epoch.get();
+  }
+
+  private static class Snapshot<V> {
+    private final long epoch;
+    private final V[] values;
+
+    Snapshot(long epoch, V[] values) {
+      this.epoch = epoch;
+      this.values = values;
+    }
+  }
+}
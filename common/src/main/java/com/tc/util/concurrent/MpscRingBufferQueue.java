@@ -0,0 +1,322 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.tc.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded multi-producer/single-consumer ring buffer.  Producers claim a slot by advancing the tail sequence and
+ * then publish into it; the single consumer takes slots in sequence order without any locking.  Blocking is done by
+ * parking: an idle consumer parks until a producer publishes and a producer facing a full ring parks until the
+ * consumer frees a slot.
+ * <p>
+ * Only one thread may consume ({@code poll}, {@code take}, {@code drainTo}, {@code peek}) at a time.  This is the
+ * contract of a SEDA stage queue where each source is served by exactly one worker thread.
+ */
+public class MpscRingBufferQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+  /**
+   * How a blocked thread waits before parking.  SPIN busy-waits, YIELD gives up the processor and PARK parks
+   * immediately.  Spinning and yielding are bounded so an idle queue always ends up parked.
+   */
+  public enum WaitStrategy {
+    SPIN(10_000, 0),
+    YIELD(0, 100),
+    PARK(0, 0);
+
+    private final int spins;
+    private final int yields;
+
+    WaitStrategy(int spins, int yields) {
+      this.spins = spins;
+      this.yields = yields;
+    }
+
+    public static WaitStrategy parse(String name, WaitStrategy defaultVal) {
+      if (name != null) {
+        for (WaitStrategy s : values()) {
+          if (s.name().equalsIgnoreCase(name.trim())) {
+            return s;
+          }
+        }
+      }
+      return defaultVal;
+    }
+  }
+
+  private final int                     capacity;
+  private final int                     mask;
+  private final AtomicReferenceArray<E> ring;
+  private final WaitStrategy            waitStrategy;
+  private final AtomicLong              tail             = new AtomicLong();
+  // only advanced by the consumer
+  private final AtomicLong              head             = new AtomicLong();
+  private final Queue<Thread>           waitingProducers = new ConcurrentLinkedQueue<>();
+  private volatile Thread               waitingConsumer;
+
+  public MpscRingBufferQueue(int capacity, WaitStrategy waitStrategy) {
+    if (capacity <= 0 || capacity > (1 << 30)) {
+      throw new IllegalArgumentException("invalid ring buffer capacity " + capacity);
+    }
+    this.capacity = capacity;
+    int length = Integer.highestOneBit(capacity);
+    if (length < capacity) {
+      length <<= 1;
+    }
+    this.mask = length - 1;
+    this.ring = new AtomicReferenceArray<>(length);
+    this.waitStrategy = Objects.requireNonNull(waitStrategy);
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  @Override
+  public boolean offer(E e) {
+    Objects.requireNonNull(e);
+    long t;
+    do {
+      t = tail.get();
+      if (t - head.get() >= capacity) {
+        return false;
+      }
+    } while (!tail.compareAndSet(t, t + 1));
+    ring.set(index(t), e);
+    Thread consumer = waitingConsumer;
+    if (consumer != null) {
+      LockSupport.unpark(consumer);
+    }
+    return true;
+  }
+
+  @Override
+  public void put(E e) throws InterruptedException {
+    int attempt = 0;
+    while (!offer(e)) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      awaitNotFull(attempt++, 0L);
+    }
+  }
+
+  @Override
+  public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    int attempt = 0;
+    while (!offer(e)) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return false;
+      }
+      awaitNotFull(attempt++, remaining);
+    }
+    return true;
+  }
+
+  @Override
+  public E poll() {
+    long h = head.get();
+    int i = index(h);
+    E e = ring.get(i);
+    if (e == null) {
+      if (tail.get() == h) {
+        return null;
+      }
+      // the slot is claimed but the producer has not published it yet
+      while ((e = ring.get(i)) == null) {
+        Thread.onSpinWait();
+      }
+    }
+    ring.lazySet(i, null);
+    head.set(h + 1);
+    if (!waitingProducers.isEmpty()) {
+      Thread producer = waitingProducers.poll();
+      if (producer != null) {
+        LockSupport.unpark(producer);
+      }
+    }
+    return e;
+  }
+
+  @Override
+  public E take() throws InterruptedException {
+    int attempt = 0;
+    E e;
+    while ((e = poll()) == null) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      awaitNotEmpty(attempt++, 0L);
+    }
+    return e;
+  }
+
+  @Override
+  public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+    E e = poll();
+    if (e != null) {
+      return e;
+    }
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    int attempt = 0;
+    while ((e = poll()) == null) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return null;
+      }
+      awaitNotEmpty(attempt++, remaining);
+    }
+    return e;
+  }
+
+  @Override
+  public E peek() {
+    return ring.get(index(head.get()));
+  }
+
+  @Override
+  public int size() {
+    long h = head.get();
+    long t = tail.get();
+    return (int) Math.max(0, Math.min(t - h, capacity));
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return head.get() == tail.get();
+  }
+
+  @Override
+  public int remainingCapacity() {
+    return capacity - size();
+  }
+
+  @Override
+  public int drainTo(Collection<? super E> c) {
+    return drainTo(c, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public int drainTo(Collection<? super E> c, int maxElements) {
+    Objects.requireNonNull(c);
+    if (c == this) {
+      throw new IllegalArgumentException();
+    }
+    int count = 0;
+    E e;
+    while (count < maxElements && (e = poll()) != null) {
+      c.add(e);
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * A weakly consistent snapshot of the published elements, intended for diagnostics only.
+   */
+  @Override
+  public Iterator<E> iterator() {
+    long h = head.get();
+    long t = tail.get();
+    List<E> snapshot = new ArrayList<>((int) Math.min(t - h, capacity));
+    for (long seq = h; seq < t; seq++) {
+      E e = ring.get(index(seq));
+      if (e != null) {
+        snapshot.add(e);
+      }
+    }
+    return Collections.unmodifiableList(snapshot).iterator();
+  }
+
+  @Override
+  public String toString() {
+    return "MpscRingBufferQueue{capacity=" + capacity + ", size=" + size() + ", wait=" + waitStrategy + '}';
+  }
+
+  private int index(long sequence) {
+    return (int) sequence & mask;
+  }
+
+  private boolean isFull() {
+    return tail.get() - head.get() >= capacity;
+  }
+
+  private void awaitNotEmpty(int attempt, long nanos) {
+    if (attempt < waitStrategy.spins) {
+      Thread.onSpinWait();
+    } else if (attempt < waitStrategy.spins + waitStrategy.yields) {
+      Thread.yield();
+    } else {
+      waitingConsumer = Thread.currentThread();
+      try {
+        if (isEmpty()) {
+          park(nanos);
+        }
+      } finally {
+        waitingConsumer = null;
+      }
+    }
+  }
+
+  private void awaitNotFull(int attempt, long nanos) {
+    if (attempt < waitStrategy.spins) {
+      Thread.onSpinWait();
+    } else if (attempt < waitStrategy.spins + waitStrategy.yields) {
+      Thread.yield();
+    } else {
+      Thread current = Thread.currentThread();
+      waitingProducers.add(current);
+      try {
+        if (isFull()) {
+          park(nanos);
+        }
+      } finally {
+        waitingProducers.remove(current);
+      }
+    }
+  }
+
+  private void park(long nanos) {
+    if (nanos > 0) {
+      LockSupport.parkNanos(this, nanos);
+    } else {
+      LockSupport.park(this);
+    }
+  }
+}
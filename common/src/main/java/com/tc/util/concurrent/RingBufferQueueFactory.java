@@ -0,0 +1,46 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.tc.util.concurrent;
+
+import com.tc.async.impl.Event;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Creates {@link MpscRingBufferQueue}s for bounded stage queues.  Unbounded and hand-off (zero capacity) queues
+ * cannot be expressed as a ring so they are created by the delegate factory, keeping their back-pressure semantics.
+ */
+public class RingBufferQueueFactory extends QueueFactory {
+
+  public static final String TYPE_NAME = "ring";
+
+  private final QueueFactory delegate;
+  private final MpscRingBufferQueue.WaitStrategy waitStrategy;
+
+  public RingBufferQueueFactory(QueueFactory delegate, MpscRingBufferQueue.WaitStrategy waitStrategy) {
+    this.delegate = delegate;
+    this.waitStrategy = waitStrategy;
+  }
+
+  @Override
+  public <E> BlockingQueue<Event> createInstance(Class<E> type, int capacity) {
+    if (capacity <= 0 || capacity == Integer.MAX_VALUE) {
+      return delegate.createInstance(type, capacity);
+    }
+    return new MpscRingBufferQueue<>(capacity, waitStrategy);
+  }
+}
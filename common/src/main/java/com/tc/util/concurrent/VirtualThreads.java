@@ -0,0 +1,86 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.tc.util.concurrent;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Creates virtual threads when the running JVM supports them.  The code base is compiled for a release without
+ * virtual threads so the {@code Thread.Builder} API is bound reflectively.
+ */
+public final class VirtualThreads {
+
+  private static final MethodHandle OF_VIRTUAL;
+  private static final MethodHandle NAME;
+  private static final MethodHandle UNCAUGHT_HANDLER;
+  private static final MethodHandle UNSTARTED;
+
+  static {
+    MethodHandle ofVirtual = null;
+    MethodHandle name = null;
+    MethodHandle uncaught = null;
+    MethodHandle unstarted = null;
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+      Class<?> builder = Class.forName("java.lang.Thread$Builder");
+      Class<?> ofVirtualBuilder = Class.forName("java.lang.Thread$Builder$OfVirtual");
+      ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(ofVirtualBuilder));
+      name = lookup.findVirtual(builder, "name", MethodType.methodType(builder, String.class));
+      uncaught = lookup.findVirtual(builder, "uncaughtExceptionHandler", MethodType.methodType(builder, Thread.UncaughtExceptionHandler.class));
+      unstarted = lookup.findVirtual(builder, "unstarted", MethodType.methodType(Thread.class, Runnable.class));
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      ofVirtual = null;
+    }
+    OF_VIRTUAL = ofVirtual;
+    NAME = name;
+    UNCAUGHT_HANDLER = uncaught;
+    UNSTARTED = unstarted;
+  }
+
+  private VirtualThreads() {
+  }
+
+  public static boolean isSupported() {
+    return OF_VIRTUAL != null;
+  }
+
+  /**
+   * Create an unstarted virtual thread.
+   *
+   * @throws UnsupportedOperationException if the JVM does not support virtual threads
+   */
+  public static Thread newThread(String name, Thread.UncaughtExceptionHandler handler, Runnable task) {
+    if (!isSupported()) {
+      throw new UnsupportedOperationException("virtual threads are not supported by this JVM");
+    }
+    try {
+      Object builder = OF_VIRTUAL.invoke();
+      builder = NAME.invoke(builder, name);
+      if (handler != null) {
+        builder = UNCAUGHT_HANDLER.invoke(builder, handler);
+      }
+      return (Thread) UNSTARTED.invoke(builder, task);
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new IllegalStateException(t);
+    }
+  }
+}
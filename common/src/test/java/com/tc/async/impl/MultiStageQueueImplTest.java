@@ -235,6 +235,82 @@ public class MultiStageQueueImplTest {
     assertTrue(impl.partitionHand.get() < prior);
   }
 
+  @Test
+  public void testIdleWorkerStealsUnkeyedEvents() throws Exception {
+    final List<Object> ran = new ArrayList<>();
+    MultiStageQueueImpl<MultiThreadedEventContext> impl = new MultiStageQueueImpl<>(2, new QueueFactory(), MultiThreadedEventContext.class,
+        (event)->()->ran.add(event), new DefaultLoggerProvider(), "steal", 100, true);
+    for (int i = 0; i < 6; i++) {
+      impl.addToSink(new StealingContext(null, false));
+    }
+    Event next;
+    while ((next = impl.getSource(1).poll(0)) != null) {
+      next.call();
+    }
+    assertEquals(6, ran.size());
+    assertNull(impl.getSource(0).poll(0));
+    assertEquals(3L, impl.getState().get("stolen"));
+  }
+
+  @Test
+  public void testKeyedEventsAreNotStolen() throws Exception {
+    MultiStageQueueImpl<MultiThreadedEventContext> impl = new MultiStageQueueImpl<>(2, new QueueFactory(), MultiThreadedEventContext.class,
+        (event)->()->{}, new DefaultLoggerProvider(), "steal", 100, true);
+    for (int i = 0; i < 6; i++) {
+      impl.addToSink(new StealingContext(2, false));
+    }
+    assertNull(impl.getSource(1).poll(0));
+    for (int i = 0; i < 6; i++) {
+      assertNotNull(impl.getSource(0).poll(0));
+    }
+  }
+
+  @Test
+  public void testNoStealingWhileFlushPending() throws Exception {
+    MultiStageQueueImpl<MultiThreadedEventContext> impl = new MultiStageQueueImpl<>(2, new QueueFactory(), MultiThreadedEventContext.class,
+        (event)->()->{}, new DefaultLoggerProvider(), "steal", 100, true);
+    impl.addToSink(new StealingContext(1, false));
+    impl.addToSink(new StealingContext(2, false));
+    // ties go to the first queue so this lands behind the event keyed to it
+    impl.addToSink(new StealingContext(null, false));
+    impl.addToSink(new StealingContext(2, true));
+    Event next = impl.getSource(1).poll(0);
+    assertNotNull(next);
+    next.call();
+    assertNull(impl.getSource(1).poll(0));
+    int count = 0;
+    while ((next = impl.getSource(0).poll(0)) != null) {
+      next.call();
+      count++;
+    }
+    assertEquals(3, count);
+    // the flush moved on to the second queue and runs there
+    next = impl.getSource(1).poll(0);
+    assertNotNull(next);
+    next.call();
+    assertNull(impl.getSource(1).poll(0));
+  }
+
+  private static class StealingContext implements MultiThreadedEventContext {
+    private final Object key;
+    private final boolean flush;
+
+    StealingContext(Object key, boolean flush) {
+      this.key = key;
+      this.flush = flush;
+    }
+
+    @Override
+    public Object getSchedulingKey() {
+      return key;
+    }
+
+    @Override
+    public boolean flush() {
+      return flush;
+    }
+  }
+
   @Test
   @Ignore
   public void testThroughput8() throws InterruptedException {
@@ -17,13 +17,16 @@
  */
 package com.tc.async.impl;
 
+import com.tc.async.api.BatchEventHandler;
 import com.tc.async.api.ConfigurationContext;
 import com.tc.async.api.EventHandler;
 import com.tc.async.api.EventHandlerException;
 import com.tc.async.api.MultiThreadedEventContext;
 import com.tc.logging.DefaultLoggerProvider;
 import com.tc.logging.TCLoggerProvider;
+import com.tc.properties.TCPropertiesImpl;
 import com.tc.util.concurrent.QueueFactory;
+import com.tc.util.concurrent.VirtualThreads;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -34,14 +37,18 @@ import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -101,6 +108,85 @@ public class StageImplTest {
     
   }
   
+  @Test
+  public void testBatchAwareHandlerReceivesDrainedBatches() throws Exception {
+    TCPropertiesImpl.getProperties().setProperty("seda.batching.batch.size", "8");
+    final List<Integer> batchSizes = new ArrayList<>();
+    final List<Object> handled = new ArrayList<>();
+    final CountDownLatch done = new CountDownLatch(20);
+    BatchEventHandler<Object> handler = new BatchEventHandler<Object>() {
+      @Override
+      public void handleEvent(Object context) throws EventHandlerException {
+        throw new AssertionError("batch-aware handlers are handed batches");
+      }
+      @Override
+      public void handleEvents(Collection<Object> contexts) throws EventHandlerException {
+        batchSizes.add(contexts.size());
+        for (Object c : contexts) {
+          handled.add(c);
+          done.countDown();
+        }
+      }
+      @Override
+      public void destroy() { }
+      @Override
+      public void initializeContext(ConfigurationContext context) { }
+    };
+    StageImpl<Object> instance = new StageImpl<>(new DefaultLoggerProvider(), "batching", Object.class, handler, 1, null, new QueueFactory(), null, 32, false, true);
+    for (int x = 0; x < 20; x++) {
+      instance.getSink().addToSink(x);
+    }
+    instance.start(mock(ConfigurationContext.class));
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    instance.destroy();
+    assertEquals(Arrays.asList(8, 8, 4), batchSizes);
+    for (int x = 0; x < 20; x++) {
+      assertEquals(x, handled.get(x));
+    }
+  }
+
+  @Test
+  public void testBatchingKeepsSingleEventHandling() throws Exception {
+    TCPropertiesImpl.getProperties().setProperty("seda.unaware.batch.size", "8");
+    final List<Object> handled = new ArrayList<>();
+    final CountDownLatch done = new CountDownLatch(20);
+    EventHandler<Object> handler = EventHandler.consumer(c -> {
+      handled.add(c);
+      done.countDown();
+    });
+    StageImpl<Object> instance = new StageImpl<>(new DefaultLoggerProvider(), "unaware", Object.class, handler, 1, null, new QueueFactory(), null, 32, false, true);
+    for (int x = 0; x < 20; x++) {
+      instance.getSink().addToSink(x);
+    }
+    instance.start(mock(ConfigurationContext.class));
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    instance.destroy();
+    for (int x = 0; x < 20; x++) {
+      assertEquals(x, handled.get(x));
+    }
+  }
+
+  @Test
+  public void testVirtualThreadStageKeepsQueueOrder() throws Exception {
+    final List<Object> handled = new ArrayList<>();
+    final CountDownLatch done = new CountDownLatch(20);
+    EventHandler<Object> handler = EventHandler.consumer(c -> {
+      handled.add(c);
+      done.countDown();
+    });
+    StageImpl<Object> instance = new StageImpl<>(new DefaultLoggerProvider(), "virtual", Object.class, handler, 1, null, new QueueFactory(), null, 32, false, true, true);
+    instance.start(mock(ConfigurationContext.class));
+    for (int x = 0; x < 20; x++) {
+      instance.getSink().addToSink(x);
+    }
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertEquals(VirtualThreads.isSupported(), instance.getState().get("virtualThreads"));
+    instance.destroy();
+    for (int x = 0; x < 20; x++) {
+      assertEquals(x, handled.get(x));
+    }
+  }
+
   private void testMultiContextFlush(int size) throws Exception {
     System.out.println("test a multi context flush");
     TCLoggerProvider logger = new DefaultLoggerProvider();
@@ -27,6 +27,7 @@ import java.nio.channels.ScatteringByteChannel;
 import java.nio.channels.SocketChannel;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import static junit.framework.TestCase.fail;
 import org.junit.Assert;
 import org.junit.Test;
@@ -36,6 +37,8 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import com.tc.net.protocol.TCProtocolAdaptor;
@@ -153,6 +156,64 @@ public class TCConnectionImplTest {
     }
   }
 
+  @Test
+  public void testPartialWriteResumes() throws Exception {
+    try (PortManager.PortRef portRef = PortManager.getInstance().reservePort()) {
+      int port = portRef.port();
+      try (ServerSocket socket = new ServerSocket(port)) {
+        TCConnectionEventListener listener = mock(TCConnectionEventListener.class);
+        TCProtocolAdaptor adaptor = mock(TCProtocolAdaptor.class);
+        TCConnectionManagerImpl mgr = new TCConnectionManagerImpl();
+        final CoreNIOServices nioServiceThread = mock(CoreNIOServices.class);
+        SocketParams socketParams = new SocketParams();
+        SocketEndpointFactory bufferManagerFactory = mock(SocketEndpointFactory.class);
+
+        AtomicBoolean full = new AtomicBoolean(false);
+        SocketEndpoint bufferManager = mock(SocketEndpoint.class);
+        when(bufferManager.writeFrom(any())).then(iom -> {
+          if (full.get()) {
+            return SocketEndpoint.ResultType.ZERO;
+          }
+          ByteBuffer[] bytes = (ByteBuffer[])iom.getArgument(0);
+          if (bytes[0].position() == 0) {
+            // the first write only takes part of the message and then the socket is full
+            bytes[0].position(100);
+            full.set(true);
+          } else {
+            for (ByteBuffer b : bytes) {
+              b.position(b.limit());
+            }
+          }
+          return SocketEndpoint.ResultType.SUCCESS;
+        });
+
+        when(bufferManagerFactory.createSocketEndpoint(any(SocketChannel.class), anyBoolean())).thenReturn(bufferManager);
+        TCConnectionImpl conn = new TCConnectionImpl(listener, adaptor, mgr, nioServiceThread, socketParams,
+            bufferManagerFactory);
+        InetSocketAddress addr = new InetSocketAddress("localhost", port);
+        conn.connect(addr, 0);
+
+        WireProtocolMessage msg = mock(WireProtocolMessage.class);
+        when(msg.prepareToSend()).thenReturn(Boolean.TRUE);
+        when(msg.isValid()).thenReturn(Boolean.TRUE);
+        when(msg.getHeader()).thenReturn(mock(WireProtocolHeader.class));
+        when(msg.getWireProtocolHeader()).thenReturn(mock(WireProtocolHeader.class));
+        when(msg.getEntireMessageData()).thenReturn(TCReferenceSupport.createGCReference(TCByteBufferFactory.wrap(new byte[512])));
+        when(msg.getDataLength()).thenReturn(512);
+
+        conn.putMessage(msg);
+
+        Assert.assertEquals(100, conn.doWrite());
+        verify(msg, never()).complete();
+        verify(nioServiceThread, never()).removeWriteInterest(any(), any());
+
+        full.set(false);
+        Assert.assertEquals(412, conn.doWrite());
+        verify(msg).complete();
+      }
+    }
+  }
+
   @Test
   public void testCloseBufferManager() throws Exception {
     try (PortManager.PortRef portRef = PortManager.getInstance().reservePort()) {
@@ -455,6 +516,168 @@ public class TCConnectionImplTest {
     }
   }
   
+  @Test
+  public void testGatheringWriteCombinesMessages() throws Exception {
+    try (PortManager.PortRef portRef = PortManager.getInstance().reservePort()) {
+      int port = portRef.port();
+      try (ServerSocket socket = new ServerSocket(port)) {
+        final CoreNIOServices nioServiceThread = mock(CoreNIOServices.class);
+        SocketEndpoint bufferManager = mock(SocketEndpoint.class);
+        AtomicInteger calls = new AtomicInteger();
+        when(bufferManager.writeFrom(any())).then(iom -> {
+          calls.incrementAndGet();
+          for (ByteBuffer b : (ByteBuffer[])iom.getArgument(0)) {
+            b.position(b.limit());
+          }
+          return SocketEndpoint.ResultType.SUCCESS;
+        });
+        TCConnectionImpl conn = connectGathering(port, nioServiceThread, bufferManager, 1024 * 1024, 0);
+
+        WireProtocolMessage[] msgs = new WireProtocolMessage[3];
+        for (int x = 0; x < msgs.length; x++) {
+          msgs[x] = wireMessage(512);
+          conn.putMessage(msgs[x]);
+        }
+
+        Assert.assertEquals(3 * 512, conn.doWrite());
+        Assert.assertEquals(1, calls.get());
+        for (WireProtocolMessage msg : msgs) {
+          verify(msg).complete();
+        }
+        verify(nioServiceThread).removeWriteInterest(any(TCConnectionImpl.class), any(SelectableChannel.class));
+      }
+    }
+  }
+
+  @Test
+  public void testGatheringPartialWriteResumes() throws Exception {
+    try (PortManager.PortRef portRef = PortManager.getInstance().reservePort()) {
+      int port = portRef.port();
+      try (ServerSocket socket = new ServerSocket(port)) {
+        final CoreNIOServices nioServiceThread = mock(CoreNIOServices.class);
+        SocketEndpoint bufferManager = mock(SocketEndpoint.class);
+        AtomicBoolean full = new AtomicBoolean(false);
+        when(bufferManager.writeFrom(any())).then(iom -> {
+          if (full.get()) {
+            return SocketEndpoint.ResultType.ZERO;
+          }
+          ByteBuffer[] bytes = (ByteBuffer[])iom.getArgument(0);
+          // the first message and part of the second fit before the socket is full
+          int budget = bytes[0].position() == 0 ? 700 : Integer.MAX_VALUE;
+          for (ByteBuffer b : bytes) {
+            int take = Math.min(budget, b.remaining());
+            b.position(b.position() + take);
+            budget -= take;
+          }
+          if (budget == 0) {
+            full.set(true);
+          }
+          return SocketEndpoint.ResultType.SUCCESS;
+        });
+        TCConnectionImpl conn = connectGathering(port, nioServiceThread, bufferManager, 1024 * 1024, 0);
+
+        WireProtocolMessage first = wireMessage(512);
+        WireProtocolMessage second = wireMessage(512);
+        conn.putMessage(first);
+        conn.putMessage(second);
+
+        Assert.assertEquals(700, conn.doWrite());
+        verify(first).complete();
+        verify(second, never()).complete();
+        verify(nioServiceThread, never()).removeWriteInterest(any(), any());
+
+        full.set(false);
+        Assert.assertEquals(324, conn.doWrite());
+        verify(second).complete();
+      }
+    }
+  }
+
+  @Test
+  public void testGatheringHoldDropsWriteInterest() throws Exception {
+    try (PortManager.PortRef portRef = PortManager.getInstance().reservePort()) {
+      int port = portRef.port();
+      try (ServerSocket socket = new ServerSocket(port)) {
+        final CoreNIOServices nioServiceThread = mock(CoreNIOServices.class);
+        SocketEndpoint bufferManager = mock(SocketEndpoint.class);
+        when(bufferManager.writeFrom(any())).then(iom -> {
+          for (ByteBuffer b : (ByteBuffer[])iom.getArgument(0)) {
+            b.position(b.limit());
+          }
+          return SocketEndpoint.ResultType.SUCCESS;
+        });
+        TCConnectionImpl conn = connectGathering(port, nioServiceThread, bufferManager, 1024 * 1024, TimeUnit.MILLISECONDS.toNanos(200));
+
+        // an idle connection writes right away
+        WireProtocolMessage first = wireMessage(512);
+        conn.putMessage(first);
+        Assert.assertEquals(512, conn.doWrite());
+        verify(first).complete();
+        verify(nioServiceThread, times(1)).removeWriteInterest(any(), any());
+
+        // right after a write the next message is held back without keeping write interest
+        WireProtocolMessage second = wireMessage(512);
+        conn.putMessage(second);
+        Assert.assertEquals(0, conn.doWrite());
+        verify(second, never()).complete();
+        verify(nioServiceThread, times(2)).removeWriteInterest(any(), any());
+
+        // write interest comes back once the window has passed
+        verify(nioServiceThread, timeout(5000).times(3)).requestWriteInterest(any(), any());
+        Assert.assertEquals(512, conn.doWrite());
+        verify(second).complete();
+      }
+    }
+  }
+
+  @Test
+  public void testGatheringNoHoldOverByteBudget() throws Exception {
+    try (PortManager.PortRef portRef = PortManager.getInstance().reservePort()) {
+      int port = portRef.port();
+      try (ServerSocket socket = new ServerSocket(port)) {
+        final CoreNIOServices nioServiceThread = mock(CoreNIOServices.class);
+        SocketEndpoint bufferManager = mock(SocketEndpoint.class);
+        when(bufferManager.writeFrom(any())).then(iom -> {
+          for (ByteBuffer b : (ByteBuffer[])iom.getArgument(0)) {
+            b.position(b.limit());
+          }
+          return SocketEndpoint.ResultType.SUCCESS;
+        });
+        TCConnectionImpl conn = connectGathering(port, nioServiceThread, bufferManager, 256, TimeUnit.SECONDS.toNanos(10));
+
+        conn.putMessage(wireMessage(512));
+        Assert.assertEquals(512, conn.doWrite());
+        // already more than one gathering write worth pending, nothing to wait for
+        WireProtocolMessage next = wireMessage(512);
+        conn.putMessage(next);
+        Assert.assertEquals(512, conn.doWrite());
+        verify(next).complete();
+      }
+    }
+  }
+
+  private static TCConnectionImpl connectGathering(int port, CoreNIOServices nioServiceThread, SocketEndpoint bufferManager, long maxBytes, long holdNanos) throws Exception {
+    SocketEndpointFactory bufferManagerFactory = mock(SocketEndpointFactory.class);
+    when(bufferManagerFactory.createSocketEndpoint(any(SocketChannel.class), anyBoolean())).thenReturn(bufferManager);
+    TCConnectionImpl conn = new TCConnectionImpl(mock(TCConnectionEventListener.class), mock(TCProtocolAdaptor.class),
+        new TCConnectionManagerImpl(), nioServiceThread, new SocketParams(), bufferManagerFactory);
+    conn.setGatheringWrites(maxBytes, holdNanos);
+    conn.connect(new InetSocketAddress("localhost", port), 0);
+    return conn;
+  }
+
+  private static WireProtocolMessage wireMessage(int size) {
+    WireProtocolMessage msg = mock(WireProtocolMessage.class);
+    when(msg.prepareToSend()).thenReturn(Boolean.TRUE);
+    when(msg.isValid()).thenReturn(Boolean.TRUE);
+    when(msg.getHeader()).thenReturn(mock(WireProtocolHeader.class));
+    when(msg.getWireProtocolHeader()).thenReturn(mock(WireProtocolHeader.class));
+    when(msg.getEntireMessageData()).thenReturn(TCReferenceSupport.createGCReference(TCByteBufferFactory.wrap(new byte[size])));
+    when(msg.getDataLength()).thenReturn(size);
+    when(msg.getTotalLength()).thenReturn(size);
+    return msg;
+  }
+  
   private void sleepThenClose(TCConnectionImpl conn) {
     try {
       TimeUnit.SECONDS.sleep(3);
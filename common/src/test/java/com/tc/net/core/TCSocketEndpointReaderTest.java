@@ -19,9 +19,11 @@ package com.tc.net.core;
 
 import com.tc.bytes.TCByteBuffer;
 import com.tc.bytes.TCByteBufferFactory;
+import com.tc.bytes.TCHeapByteBufferPool;
 import com.tc.bytes.TCReference;
 import com.tc.util.Assert;
 import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import org.junit.After;
@@ -127,4 +129,78 @@ public class TCSocketEndpointReaderTest {
     }
     verify(returns, times(3)).accept(any());
   }
+
+  /**
+   * A request that only partly arrived is resumed on the next call instead of stalling the reader.
+   */
+  @Test
+  public void testPartialReadResumes() throws Exception {
+    SocketEndpoint endpoint = mock(SocketEndpoint.class);
+    AtomicInteger calls = new AtomicInteger();
+    when(endpoint.readTo(any())).then((InvocationOnMock iom) -> {
+      ByteBuffer[] bb = ((ByteBuffer[])iom.getArgument(0));
+      switch (calls.incrementAndGet()) {
+        case 1:
+          bb[0].position(bb[0].position() + 16);
+          return SocketEndpoint.ResultType.SUCCESS;
+        case 2:
+          return SocketEndpoint.ResultType.ZERO;
+        default:
+          for (ByteBuffer b : bb) {
+            b.position(b.limit());
+          }
+          return SocketEndpoint.ResultType.SUCCESS;
+      }
+    });
+    Consumer<TCByteBuffer> returns = mock(Consumer.class);
+    Function<Integer, TCByteBuffer> allocator = TCByteBufferFactory::getInstance;
+    try (TCSocketEndpointReader reader = new TCSocketEndpointReader(allocator, returns)) {
+      Assert.assertNull(reader.readFromSocket(endpoint, 32));
+      verify(endpoint, times(2)).readTo(any());
+      try (TCReference ref = reader.readFromSocket(endpoint, 32)) {
+        Assert.assertEquals(32, ref.available());
+        verify(endpoint, times(3)).readTo(any());
+      }
+    }
+  }
+
+  /**
+   * Pooled heap buffers are larger than requested, the reader must still see a buffer sized to the request and hand
+   * it back to the pool.
+   */
+  @Test
+  public void testReadWithHeapPooling() throws Exception {
+    TCByteBufferFactory.setHeapPooling(1024 * 1024);
+    try {
+      TCHeapByteBufferPool pool = TCByteBufferFactory.getHeapPool();
+      AtomicInteger next = new AtomicInteger();
+      SocketEndpoint endpoint = mock(SocketEndpoint.class);
+      when(endpoint.readTo(any())).then((InvocationOnMock iom) -> {
+        for (ByteBuffer b : ((ByteBuffer[])iom.getArgument(0))) {
+          while (b.hasRemaining()) {
+            b.put((byte)next.getAndIncrement());
+          }
+        }
+        return SocketEndpoint.ResultType.SUCCESS;
+      });
+      int read = 0;
+      try (TCSocketEndpointReader reader = new TCSocketEndpointReader()) {
+        for (int len : new int[] {100, 1000, 30, 5000}) {
+          try (TCReference ref = reader.readFromSocket(endpoint, len)) {
+            Assert.assertEquals(len, ref.available());
+            for (TCByteBuffer b : ref) {
+              while (b.hasRemaining()) {
+                Assert.assertEquals((byte)read++, b.get());
+              }
+            }
+          }
+        }
+      }
+      Assert.assertEquals(100 + 1000 + 30 + 5000, read);
+      Assert.assertTrue(pool.getMissCount() > 0);
+      Assert.assertTrue(pool.getPooledBytes() > 0);
+    } finally {
+      TCByteBufferFactory.setHeapPooling(0);
+    }
+  }
 }
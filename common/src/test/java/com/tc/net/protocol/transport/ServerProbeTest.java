@@ -0,0 +1,64 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.tc.net.protocol.transport;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *
+ */
+public class ServerProbeTest {
+
+  @Test
+  public void testOnlyAnsweringServersAreReturned() throws Exception {
+    InetSocketAddress dead;
+    try (ServerSocket closed = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+      dead = InetSocketAddress.createUnresolved("localhost", closed.getLocalPort());
+    }
+    try (ServerSocket live = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+      InetSocketAddress alive = InetSocketAddress.createUnresolved("localhost", live.getLocalPort());
+      try (ServerProbe probe = new ServerProbe(Arrays.asList(dead, alive), 5000)) {
+        assertTrue(probe.hasNext());
+        assertEquals(alive, probe.next());
+        assertFalse(probe.hasNext());
+        assertTrue(probe.anyAnswered());
+      }
+    }
+  }
+
+  @Test
+  public void testNothingAnswers() throws Exception {
+    InetSocketAddress dead;
+    try (ServerSocket closed = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+      dead = InetSocketAddress.createUnresolved("localhost", closed.getLocalPort());
+    }
+    try (ServerProbe probe = new ServerProbe(Collections.singletonList(dead), 5000)) {
+      assertFalse(probe.hasNext());
+      assertFalse(probe.anyAnswered());
+    }
+  }
+}
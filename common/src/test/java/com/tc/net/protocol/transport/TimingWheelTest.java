@@ -0,0 +1,97 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.tc.net.protocol.transport;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *
+ */
+public class TimingWheelTest {
+
+  @Test
+  public void testExpiresAtDeadline() {
+    TimingWheel<String> wheel = new TimingWheel<>(10, 1000);
+    wheel.schedule("soon", 1025);
+    wheel.schedule("later", 1700);
+    wheel.schedule("past", 500);
+    List<String> expired = new ArrayList<>();
+    wheel.advance(1010, expired::add);
+    assertEquals(1, expired.size());
+    assertEquals("past", expired.get(0));
+    wheel.advance(1020, expired::add);
+    assertEquals(1, expired.size());
+    wheel.advance(1030, expired::add);
+    assertEquals("soon", expired.get(1));
+    wheel.advance(1690, expired::add);
+    assertEquals(2, expired.size());
+    assertEquals(1, wheel.size());
+    wheel.advance(1700, expired::add);
+    assertEquals("later", expired.get(2));
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  public void testRandomDeadlinesAcrossLevels() {
+    Random r = new Random(7);
+    long start = 123_456;
+    TimingWheel<Integer> wheel = new TimingWheel<>(1, start);
+    Map<Integer, Long> deadlines = new HashMap<>();
+    for (int x = 0; x < 5000; x++) {
+      long deadline = start + 1 + (long)Math.pow(2, r.nextDouble() * 26);
+      deadlines.put(x, deadline);
+      wheel.schedule(x, deadline);
+    }
+    long now = start;
+    while (!deadlines.isEmpty()) {
+      long at = now += 1 + r.nextInt(5000);
+      wheel.advance(at, item -> {
+        long deadline = deadlines.remove(item);
+        assertTrue(deadline <= at);
+        assertTrue(at - deadline < 5000);
+      });
+    }
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  public void testRescheduleFromConsumer() {
+    TimingWheel<String> wheel = new TimingWheel<>(10, 0);
+    wheel.schedule("a", 10);
+    List<Long> seen = new ArrayList<>();
+    for (long now = 0; now <= 1000; now += 10) {
+      long t = now;
+      wheel.advance(now, item -> {
+        seen.add(t);
+        wheel.schedule(item, t + 100);
+      });
+    }
+    assertEquals(10, seen.size());
+    for (int x = 0; x < seen.size(); x++) {
+      assertEquals(10 + 100L * x, seen.get(x).longValue());
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.tc.stats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class LatencyHistogramTest {
+
+  @Test
+  public void testBucketsCoverValues() {
+    long[] values = {0, 1, 15, 16, 17, 31, 32, 33, 1000, 123456789L, LatencyHistogram.MAX_TRACKABLE};
+    for (long v : values) {
+      long high = LatencyHistogram.highestValue(LatencyHistogram.index(v));
+      assertTrue(v + " -> " + high, high >= v);
+      assertTrue(v + " -> " + high, high - v <= v / 16);
+    }
+  }
+
+  @Test
+  public void testPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long x = 1; x <= 1000; x++) {
+      histogram.record(x * 1000);
+    }
+    histogram.record(-5);
+    LatencyHistogram.Snapshot snap = histogram.snapshot();
+    assertEquals(1000, snap.getCount());
+    assertEquals(1000_000, snap.getMax());
+    assertEquals(500_500, snap.getMean());
+    assertNear(500_000, snap.getValueAtPercentile(50));
+    assertNear(990_000, snap.getValueAtPercentile(99));
+    assertEquals(1000_000, snap.getValueAtPercentile(100));
+  }
+
+  @Test
+  public void testIntervalReset() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(10);
+    histogram.record(Long.MAX_VALUE);
+    LatencyHistogram.Snapshot first = histogram.snapshotAndReset();
+    assertEquals(2, first.getCount());
+    assertEquals(LatencyHistogram.MAX_TRACKABLE, first.getMax());
+    assertEquals(0, histogram.snapshot().getCount());
+    histogram.record(20);
+    LatencyHistogram.Snapshot second = histogram.snapshotAndReset();
+    assertEquals(1, second.getCount());
+    assertEquals(20, second.getMax());
+    assertEquals(20, second.getValueAtPercentile(99.9));
+  }
+
+  private static void assertNear(long expected, long actual) {
+    assertTrue(expected + " vs " + actual, Math.abs(expected - actual) <= expected / 16);
+  }
+}
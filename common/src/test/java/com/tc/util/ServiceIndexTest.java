@@ -0,0 +1,132 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.tc.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ *
+ */
+public class ServiceIndexTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testPersistedIndexIsReused() throws Exception {
+    Path jar = folder.getRoot().toPath().resolve("plugin.jar");
+    writeJar(jar, "first.Impl", "second.Impl");
+    Path file = folder.getRoot().toPath().resolve("index.bin");
+    String location = jar.toUri().toURL().toString();
+
+    ServiceIndex index = new ServiceIndex(file);
+    assertEquals(Collections.singletonList("first.Impl"), index.lines(location, "com.example.First", resource(jar, "com.example.First")));
+    index.save();
+    assertTrue(Files.isRegularFile(file));
+
+    ServiceIndex reloaded = new ServiceIndex(file);
+    // the resource is never opened when the index already knows the jar
+    URL missing = new URL("file:/nonexistent/" + System.nanoTime());
+    assertEquals(Collections.singletonList("second.Impl"), reloaded.lines(location, "com.example.Second", missing));
+  }
+
+  @Test
+  public void testWritableByOthersIndexIsIgnored() throws Exception {
+    Path jar = folder.getRoot().toPath().resolve("plugin.jar");
+    writeJar(jar, "first.Impl", "second.Impl");
+    Path file = folder.getRoot().toPath().resolve("index.bin");
+    assumeTrue(Files.getFileStore(folder.getRoot().toPath()).supportsFileAttributeView(PosixFileAttributeView.class));
+    String location = jar.toUri().toURL().toString();
+
+    ServiceIndex index = new ServiceIndex(file);
+    index.lines(location, "com.example.First", resource(jar, "com.example.First"));
+    index.save();
+    Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-rw-rw-"));
+
+    // an ignored index rescans the jar and is replaced by a file only the owner can write to
+    ServiceIndex reloaded = new ServiceIndex(file);
+    assertEquals(Collections.singletonList("first.Impl"), reloaded.lines(location, "com.example.First", resource(jar, "com.example.First")));
+    reloaded.save();
+    assertFalse(Files.getPosixFilePermissions(file).contains(PosixFilePermission.OTHERS_WRITE));
+  }
+
+  @Test
+  public void testChangedJarIsRescanned() throws Exception {
+    Path jar = folder.getRoot().toPath().resolve("plugin.jar");
+    writeJar(jar, "first.Impl", "second.Impl");
+    String location = jar.toUri().toURL().toString();
+
+    ServiceIndex index = new ServiceIndex(null);
+    assertEquals(Collections.singletonList("first.Impl"), index.lines(location, "com.example.First", resource(jar, "com.example.First")));
+
+    writeJar(jar, "first.Other", "second.Impl");
+    Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() + 2000));
+    assertEquals(Collections.singletonList("first.Other"), index.lines(location, "com.example.First", resource(jar, "com.example.First")));
+  }
+
+  @Test
+  public void testDirectoriesAreReadDirectly() throws Exception {
+    Path services = folder.getRoot().toPath().resolve("classes/META-INF/services");
+    Files.createDirectories(services);
+    Path declaration = services.resolve("com.example.First");
+    Files.write(declaration, Arrays.asList("a.Impl", "# comment"), StandardCharsets.UTF_8);
+    String location = folder.getRoot().toPath().resolve("classes").toUri().toURL().toString();
+
+    ServiceIndex index = new ServiceIndex(null);
+    assertEquals(Arrays.asList("a.Impl", "# comment"), index.lines(location, "com.example.First", declaration.toUri().toURL()));
+  }
+
+  private static URL resource(Path jar, String service) throws IOException {
+    return new URL("jar:" + jar.toUri().toURL() + "!/META-INF/services/" + service);
+  }
+
+  private static void writeJar(Path jar, String first, String second) throws IOException {
+    try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+      entry(out, "META-INF/services/com.example.First", first);
+      entry(out, "META-INF/services/com.example.Second", second);
+    }
+  }
+
+  private static void entry(JarOutputStream out, String name, String content) throws IOException {
+    out.putNextEntry(new JarEntry(name));
+    OutputStream os = out;
+    os.write((content + "\n").getBytes(StandardCharsets.UTF_8));
+    out.closeEntry();
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.tc.util.concurrent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentSnapshotMapTest {
+
+  @Test
+  public void testSnapshotFollowsMutations() {
+    ConcurrentSnapshotMap<Integer, String> map = new ConcurrentSnapshotMap<>(String[]::new);
+    assertEquals(0, map.valuesToArray().length);
+    map.put(1, "one");
+    map.put(2, "two");
+    String[] values = map.valuesToArray();
+    Arrays.sort(values);
+    assertArrayEquals(new String[] {"one", "two"}, values);
+    map.remove(1);
+    assertArrayEquals(new String[] {"two"}, map.valuesToArray());
+    assertTrue(map.containsKey(2));
+    assertFalse(map.containsKey(1));
+  }
+
+  @Test
+  public void testEpochOnlyMovesOnChange() {
+    ConcurrentSnapshotMap<Integer, String> map = new ConcurrentSnapshotMap<>(String[]::new);
+    String value = "one";
+    map.put(1, value);
+    long epoch = map.getEpoch();
+    map.put(1, value);
+    map.remove(2);
+    assertEquals(epoch, map.getEpoch());
+    map.remove(1);
+    assertEquals(epoch + 1, map.getEpoch());
+  }
+
+  @Test
+  public void testCallerOwnsArray() {
+    ConcurrentSnapshotMap<Integer, String> map = new ConcurrentSnapshotMap<>(String[]::new);
+    map.put(1, "one");
+    String[] first = map.valuesToArray();
+    first[0] = null;
+    String[] second = map.valuesToArray();
+    assertNotSame(first, second);
+    assertEquals("one", second[0]);
+  }
+
+  @Test
+  public void testConcurrentPutAndRemove() throws Exception {
+    ConcurrentSnapshotMap<Integer, Integer> map = new ConcurrentSnapshotMap<>(Integer[]::new);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      int base = t * 10_000;
+      threads.add(new Thread(() -> {
+        for (int x = base; x < base + 10_000; x++) {
+          map.put(x, x);
+          if (x % 2 == 0) {
+            map.remove(x);
+          }
+          if (x % 100 == 0) {
+            for (Integer v : map.valuesToArray()) {
+              assertTrue(v != null);
+            }
+          }
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    for (Thread t : threads) {
+      t.join();
+    }
+    assertEquals(20_000, map.size());
+    assertEquals(20_000, map.valuesToArray().length);
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.tc.util.concurrent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MpscRingBufferQueueTest {
+
+  @Test
+  public void testCapacityIsExact() throws Exception {
+    MpscRingBufferQueue<Integer> queue = new MpscRingBufferQueue<>(3, MpscRingBufferQueue.WaitStrategy.PARK);
+    assertTrue(queue.offer(1));
+    assertTrue(queue.offer(2));
+    assertTrue(queue.offer(3));
+    assertFalse(queue.offer(4));
+    assertFalse(queue.offer(4, 10, TimeUnit.MILLISECONDS));
+    assertEquals(3, queue.size());
+    assertEquals(0, queue.remainingCapacity());
+    assertEquals(1, (int) queue.poll());
+    assertTrue(queue.offer(4));
+    assertEquals(2, (int) queue.poll());
+    assertEquals(3, (int) queue.poll());
+    assertEquals(4, (int) queue.poll());
+    assertNull(queue.poll());
+    assertTrue(queue.isEmpty());
+  }
+
+  @Test
+  public void testPollTimesOut() throws Exception {
+    MpscRingBufferQueue<Integer> queue = new MpscRingBufferQueue<>(4, MpscRingBufferQueue.WaitStrategy.YIELD);
+    long start = System.nanoTime();
+    assertNull(queue.poll(50, TimeUnit.MILLISECONDS));
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+  }
+
+  @Test
+  public void testPutBlocksUntilConsumed() throws Exception {
+    MpscRingBufferQueue<Integer> queue = new MpscRingBufferQueue<>(1, MpscRingBufferQueue.WaitStrategy.PARK);
+    queue.put(1);
+    AtomicBoolean added = new AtomicBoolean();
+    Thread producer = new Thread(() -> {
+      try {
+        queue.put(2);
+        added.set(true);
+      } catch (InterruptedException ie) {
+        throw new RuntimeException(ie);
+      }
+    });
+    producer.start();
+    Thread.sleep(100);
+    assertFalse(added.get());
+    assertEquals(1, (int) queue.take());
+    producer.join(5000);
+    assertTrue(added.get());
+    assertEquals(2, (int) queue.take());
+  }
+
+  @Test
+  public void testTakeWakesOnPut() throws Exception {
+    MpscRingBufferQueue<Integer> queue = new MpscRingBufferQueue<>(8, MpscRingBufferQueue.WaitStrategy.PARK);
+    CountDownLatch taken = new CountDownLatch(1);
+    Thread consumer = new Thread(() -> {
+      try {
+        if (queue.poll(30, TimeUnit.SECONDS) != null) {
+          taken.countDown();
+        }
+      } catch (InterruptedException ie) {
+        throw new RuntimeException(ie);
+      }
+    });
+    consumer.start();
+    Thread.sleep(100);
+    queue.put(1);
+    assertTrue(taken.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testMultipleProducersKeepPerProducerOrder() throws Exception {
+    final int producers = 4;
+    final int perProducer = 50_000;
+    MpscRingBufferQueue<long[]> queue = new MpscRingBufferQueue<>(100, MpscRingBufferQueue.WaitStrategy.PARK);
+    List<Thread> threads = new ArrayList<>();
+    for (int p = 0; p < producers; p++) {
+      final int id = p;
+      Thread t = new Thread(() -> {
+        try {
+          for (int x = 0; x < perProducer; x++) {
+            queue.put(new long[] {id, x});
+          }
+        } catch (InterruptedException ie) {
+          throw new RuntimeException(ie);
+        }
+      });
+      threads.add(t);
+      t.start();
+    }
+    long[] last = new long[producers];
+    Arrays.fill(last, -1);
+    for (int x = 0; x < producers * perProducer; x++) {
+      long[] e = queue.poll(10, TimeUnit.SECONDS);
+      assertTrue(e != null);
+      assertEquals(last[(int) e[0]] + 1, e[1]);
+      last[(int) e[0]] = e[1];
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    assertTrue(queue.isEmpty());
+  }
+
+  @Test
+  public void testDrainTo() throws Exception {
+    MpscRingBufferQueue<Integer> queue = new MpscRingBufferQueue<>(16, MpscRingBufferQueue.WaitStrategy.PARK);
+    for (int x = 0; x < 10; x++) {
+      queue.put(x);
+    }
+    List<Integer> drained = new ArrayList<>();
+    assertEquals(4, queue.drainTo(drained, 4));
+    assertEquals(6, queue.drainTo(drained));
+    assertEquals(10, drained.size());
+    for (int x = 0; x < 10; x++) {
+      assertEquals(x, (int) drained.get(x));
+    }
+  }
+}
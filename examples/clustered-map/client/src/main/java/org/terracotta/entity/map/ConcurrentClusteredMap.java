@@ -18,6 +18,11 @@
 package org.terracotta.entity.map;
 
 
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Future;
 import org.terracotta.connection.entity.Entity;
@@ -34,4 +39,57 @@ public interface ConcurrentClusteredMap<K, V> extends ConcurrentMap<K, V>, Entit
   void setTypes(Class<K> keyClass, Class<V> valueClass);
   
   Future<?> insert(K key, V value);
+
+  /**
+   * Reads several keys at once.  Keys are grouped by segment and each group is read concurrently.
+   *
+   * @param keys the keys to read
+   * @return the mappings of the keys present in the map
+   */
+  Map<K, V> getAll(Collection<? extends K> keys);
+
+  /**
+   * Removes several keys at once.  Keys are grouped by segment and each group is removed concurrently.
+   *
+   * @param keys the keys to remove
+   */
+  void removeAll(Collection<? extends K> keys);
+
+  /**
+   * Lazily iterates the keys, fetching one bounded page of a segment at a time.  The iterator is weakly consistent,
+   * keys present for the whole iteration are returned once while changes made meanwhile may or may not be seen.
+   *
+   * @param pageSize the maximum number of keys fetched per round trip
+   * @return an iterator over the keys
+   */
+  Iterator<K> keyIterator(int pageSize);
+
+  /**
+   * Lazily iterates the values, see {@link #keyIterator(int)}.  The iterator does not support removal.
+   *
+   * @param pageSize the maximum number of values fetched per round trip
+   * @return an iterator over the values
+   */
+  Iterator<V> valueIterator(int pageSize);
+
+  /**
+   * Lazily iterates the entries, see {@link #keyIterator(int)}.
+   *
+   * @param pageSize the maximum number of entries fetched per round trip
+   * @return an iterator over the entries
+   */
+  Iterator<Map.Entry<K, V>> entryIterator(int pageSize);
+
+  default Spliterator<Map.Entry<K, V>> entrySpliterator(int pageSize) {
+    return Spliterators.spliteratorUnknownSize(entryIterator(pageSize), Spliterator.CONCURRENT | Spliterator.NONNULL | Spliterator.DISTINCT);
+  }
+
+  /**
+   * Keeps up to {@code maxEntries} recently read values locally.  The server invalidates them when another client
+   * changes the keys so reads stay consistent with the clustered map.  A server that cannot push invalidations
+   * answers every read from the map itself and nothing is cached.
+   *
+   * @param maxEntries the maximum number of cached values
+   */
+  void enableNearCache(int maxEntries);
 }
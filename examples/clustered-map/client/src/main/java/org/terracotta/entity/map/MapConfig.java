@@ -26,20 +26,41 @@ public class MapConfig {
   
   private final int concurrency;
   private final String name;
+  private final long offHeapBytes;
+  // concurrency is positive, its sign bit marks configurations carrying an off-heap size
+  private static final int OFFHEAP_FLAG = 0x80000000;
 
   public MapConfig(byte[] configuration) {
-    concurrency = ByteBuffer.wrap(configuration).getInt();
-    name = new String(configuration, 4, configuration.length - 4);
+    ByteBuffer buf = ByteBuffer.wrap(configuration);
+    int header = buf.getInt();
+    concurrency = header & ~OFFHEAP_FLAG;
+    offHeapBytes = (header & OFFHEAP_FLAG) != 0 ? buf.getLong() : 0;
+    name = new String(configuration, buf.position(), buf.remaining());
   }
   
   public MapConfig(int concurrency, String name) {
+    this(concurrency, name, 0);
+  }
+
+  /**
+   * @param offHeapBytes the capacity of the off-heap storage shared by the segments, 0 to keep the map on heap
+   */
+  public MapConfig(int concurrency, String name, long offHeapBytes) {
     this.concurrency = concurrency;
     this.name = name;
+    this.offHeapBytes = offHeapBytes;
   }
   
   public byte[] getBytes() {
-    ByteBuffer buf = ByteBuffer.allocate(4 + name.getBytes().length);
-    buf.putInt(concurrency);
+    if (offHeapBytes <= 0) {
+      ByteBuffer buf = ByteBuffer.allocate(4 + name.getBytes().length);
+      buf.putInt(concurrency);
+      buf.put(name.getBytes());
+      return buf.array();
+    }
+    ByteBuffer buf = ByteBuffer.allocate(12 + name.getBytes().length);
+    buf.putInt(concurrency | OFFHEAP_FLAG);
+    buf.putLong(offHeapBytes);
     buf.put(name.getBytes());
     return buf.array();
   }
@@ -51,4 +72,8 @@ public class MapConfig {
   public String getName() {
     return name;
   }
+
+  public long getOffHeapBytes() {
+    return offHeapBytes;
+  }
 }
@@ -0,0 +1,78 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.terracotta.entity.map;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded least recently used cache of values read from the server, keyed by the encoded key.  Entries are dropped
+ * when the server pushes an invalidation for them.  The stamp protects against a read racing with an invalidation,
+ * a value read before an invalidation arrived is not cached.
+ */
+class NearCache {
+  private final Map<Object, Object> entries;
+  private long stamp;
+
+  NearCache(int maxEntries) {
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("near cache size must be positive: " + maxEntries);
+    }
+    this.entries = new LinkedHashMap<Object, Object>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  synchronized Object get(Object key) {
+    return entries.get(key);
+  }
+
+  synchronized long stamp() {
+    return stamp;
+  }
+
+  synchronized void putIfUnchanged(Object key, Object value, long readStamp) {
+    if (readStamp == stamp) {
+      entries.put(key, value);
+    }
+  }
+
+  synchronized void invalidate(Object key) {
+    stamp++;
+    entries.remove(key);
+  }
+
+  synchronized void invalidateAll(Collection<Object> keys) {
+    stamp++;
+    if (keys == null) {
+      entries.clear();
+    } else {
+      entries.keySet().removeAll(keys);
+    }
+  }
+
+  synchronized void clear() {
+    invalidateAll(null);
+  }
+}
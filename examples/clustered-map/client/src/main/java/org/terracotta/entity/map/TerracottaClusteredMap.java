@@ -17,42 +17,50 @@
  */
 package org.terracotta.entity.map;
 
+import org.terracotta.entity.EndpointDelegate;
 import org.terracotta.entity.EntityClientEndpoint;
 import org.terracotta.entity.map.common.BooleanResponse;
+import org.terracotta.entity.map.common.CachedGetOperation;
+import org.terracotta.entity.map.common.CachedValueResponse;
 import org.terracotta.entity.map.common.ClearOperation;
 import org.terracotta.entity.map.common.ConditionalRemoveOperation;
 import org.terracotta.entity.map.common.ConditionalReplaceOperation;
 import org.terracotta.entity.map.common.ContainsKeyOperation;
 import org.terracotta.entity.map.common.ContainsValueOperation;
-import org.terracotta.entity.map.common.EntrySetOperation;
-import org.terracotta.entity.map.common.EntrySetResponse;
+import org.terracotta.entity.map.common.GetAllOperation;
 import org.terracotta.entity.map.common.GetOperation;
-import org.terracotta.entity.map.common.KeySetOperation;
-import org.terracotta.entity.map.common.KeySetResponse;
+import org.terracotta.entity.map.common.InvalidationResponse;
 import org.terracotta.entity.map.common.MapOperation;
 import org.terracotta.entity.map.common.MapResponse;
 import org.terracotta.entity.map.common.MapValueResponse;
+import org.terracotta.entity.map.common.PageOperation;
+import org.terracotta.entity.map.common.PageResponse;
 import org.terracotta.entity.map.common.PutAllOperation;
 import org.terracotta.entity.map.common.PutIfAbsentOperation;
 import org.terracotta.entity.map.common.PutIfPresentOperation;
 import org.terracotta.entity.map.common.PutOperation;
+import org.terracotta.entity.map.common.RemoveAllOperation;
 import org.terracotta.entity.map.common.RemoveOperation;
 import org.terracotta.entity.map.common.SizeOperation;
 import org.terracotta.entity.map.common.SizeResponse;
-import org.terracotta.entity.map.common.ValueCollectionResponse;
-import org.terracotta.entity.map.common.ValuesOperation;
+import org.terracotta.entity.map.common.ValueMapResponse;
 
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.concurrent.Future;
 import org.terracotta.entity.InvocationCallback;
 
 import static org.terracotta.entity.map.ValueCodecFactory.getCodecForClass;
+import static org.terracotta.entity.map.common.MapConfig.segment;
 
 @SuppressWarnings("unchecked")
 public class TerracottaClusteredMap<K, V> implements ConcurrentClusteredMap<K, V> {
@@ -63,9 +71,46 @@ public class TerracottaClusteredMap<K, V> implements ConcurrentClusteredMap<K, V
   private Class<V> valueClass;
   private ValueCodec<K> keyValueCodec;
   private ValueCodec<V> valueValueCodec;
+  private volatile NearCache nearCache;
+  private final int concurrency;
+
+  private static final int DEFAULT_PAGE_SIZE = 1024;
 
   public TerracottaClusteredMap(EntityClientEndpoint<MapOperation, MapResponse> endpoint) {
     this.endpoint = endpoint;
+    this.concurrency = Math.max(1, new MapConfig(endpoint.getEntityConfiguration()).getConcurrency());
+    this.endpoint.setDelegate(new EndpointDelegate<MapResponse>() {
+      @Override
+      public void handleMessage(MapResponse messageFromServer) {
+        NearCache cache = nearCache;
+        if (cache != null && messageFromServer instanceof InvalidationResponse) {
+          cache.invalidateAll(((InvalidationResponse) messageFromServer).getKeys());
+        }
+      }
+
+      @Override
+      public byte[] createExtendedReconnectData() {
+        // the server only tracks cached keys while it is active, start over with the new one
+        NearCache cache = nearCache;
+        if (cache != null) {
+          cache.clear();
+        }
+        return new byte[0];
+      }
+
+      @Override
+      public void didDisconnectUnexpectedly() {
+        NearCache cache = nearCache;
+        if (cache != null) {
+          cache.clear();
+        }
+      }
+    });
+  }
+
+  @Override
+  public void enableNearCache(int maxEntries) {
+    this.nearCache = new NearCache(maxEntries);
   }
 
   @Override
@@ -119,19 +164,42 @@ public class TerracottaClusteredMap<K, V> implements ConcurrentClusteredMap<K, V
     if (!keyClass.isAssignableFrom(key.getClass())) {
       return null;
     }
-    MapValueResponse response = (MapValueResponse) invokeWithReturn(new GetOperation(keyValueCodec.encode((K) key)));
-    return valueValueCodec.decode(response.getValue());
+    Object encodedKey = keyValueCodec.encode((K) key);
+    NearCache cache = nearCache;
+    if (cache == null) {
+      MapValueResponse response = (MapValueResponse) invokeWithReturn(new GetOperation(encodedKey));
+      return valueValueCodec.decode(response.getValue());
+    }
+    Object cached = cache.get(encodedKey);
+    if (cached == null) {
+      long stamp = cache.stamp();
+      MapValueResponse response = (MapValueResponse) invokeWithReturn(new CachedGetOperation(encodedKey));
+      cached = response.getValue();
+      // a plain value means the server will not invalidate the key, caching it would serve it stale
+      if (cached != null && response instanceof CachedValueResponse) {
+        cache.putIfUnchanged(encodedKey, cached, stamp);
+      }
+    }
+    return valueValueCodec.decode(cached);
+  }
+
+  private Object invalidate(Object encodedKey) {
+    NearCache cache = nearCache;
+    if (cache != null) {
+      cache.invalidate(encodedKey);
+    }
+    return encodedKey;
   }
 
   @Override
   public V put(K key, V value) {
-    MapValueResponse response = (MapValueResponse) invokeWithReturn(new PutOperation(keyValueCodec.encode(key), valueValueCodec.encode(value)));
+    MapValueResponse response = (MapValueResponse) invokeWithReturn(new PutOperation(invalidate(keyValueCodec.encode(key)), valueValueCodec.encode(value)));
     return valueValueCodec.decode(response.getValue());
   }
   
   @Override
   public Future<?> insert(K key, V value) {
-    return fireAndForget(new PutOperation(keyValueCodec.encode(key), valueValueCodec.encode(value)));
+    return fireAndForget(new PutOperation(invalidate(keyValueCodec.encode(key)), valueValueCodec.encode(value)));
   }
 
   @Override
@@ -139,7 +207,7 @@ public class TerracottaClusteredMap<K, V> implements ConcurrentClusteredMap<K, V
     if (!keyClass.isAssignableFrom(key.getClass())) {
       return null;
     }
-    MapValueResponse mapValueResponse = (MapValueResponse) invokeWithReturn(new RemoveOperation(keyValueCodec.encode((K) key)));
+    MapValueResponse mapValueResponse = (MapValueResponse) invokeWithReturn(new RemoveOperation(invalidate(keyValueCodec.encode((K) key))));
     return valueValueCodec.decode(mapValueResponse.getValue());
   }
   
@@ -162,53 +230,204 @@ public class TerracottaClusteredMap<K, V> implements ConcurrentClusteredMap<K, V
     }
   }
 
+  /**
+   * Sends one operation per segment and waits for all of them, the server runs each on its segment's concurrency key.
+   */
+  private List<MapResponse> invokeAll(Collection<? extends MapOperation> operations) {
+    List<Future<MapResponse>> futures = new ArrayList<>(operations.size());
+    try {
+      for (MapOperation operation : operations) {
+        futures.add(endpoint.message(operation).invoke());
+      }
+      List<MapResponse> responses = new ArrayList<>(futures.size());
+      for (Future<MapResponse> future : futures) {
+        responses.add(future.get());
+      }
+      return responses;
+    } catch (Exception e) {
+      throw new RuntimeException("Exception while processing map operations " + operations, e);
+    }
+  }
+
+  private Map<Integer, Collection<Object>> encodeBySegment(Collection<? extends K> keys) {
+    Map<Integer, Collection<Object>> segments = new HashMap<>();
+    for (K key : keys) {
+      if (keyClass.isAssignableFrom(key.getClass())) {
+        Object encoded = keyValueCodec.encode(key);
+        segments.computeIfAbsent(segment(encoded, concurrency), s -> new ArrayList<>()).add(encoded);
+      }
+    }
+    return segments;
+  }
+
+  @Override
+  public Map<K, V> getAll(Collection<? extends K> keys) {
+    List<MapOperation> operations = new ArrayList<>();
+    encodeBySegment(keys).values().forEach(segmentKeys -> operations.add(new GetAllOperation(segmentKeys)));
+    Map<K, V> result = new HashMap<>();
+    for (MapResponse response : invokeAll(operations)) {
+      for (Entry<Object, Object> entry : ((ValueMapResponse) response).getValues().entrySet()) {
+        result.put(keyValueCodec.decode(entry.getKey()), valueValueCodec.decode(entry.getValue()));
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public void removeAll(Collection<? extends K> keys) {
+    List<MapOperation> operations = new ArrayList<>();
+    for (Collection<Object> segmentKeys : encodeBySegment(keys).values()) {
+      segmentKeys.forEach(this::invalidate);
+      operations.add(new RemoveAllOperation(segmentKeys));
+    }
+    invokeAll(operations);
+  }
+
   @Override
   public void putAll(Map<? extends K, ? extends V> m) {
-    HashMap<Object, Object> input = new HashMap<Object, Object>();
+    Map<Integer, Map<Object, Object>> segments = new HashMap<>();
     for (Entry<? extends K, ? extends V> entry : m.entrySet()) {
-      input.put(keyValueCodec.encode(entry.getKey()), valueValueCodec.encode(entry.getValue()));
+      Object key = invalidate(keyValueCodec.encode(entry.getKey()));
+      segments.computeIfAbsent(segment(key, concurrency), s -> new HashMap<>()).put(key, valueValueCodec.encode(entry.getValue()));
     }
-    invokeWithReturn(new PutAllOperation(input));
+    List<MapOperation> operations = new ArrayList<>();
+    segments.values().forEach(segmentMap -> operations.add(new PutAllOperation(segmentMap)));
+    invokeAll(operations);
   }
 
   @Override
   public void clear() {
+    NearCache cache = nearCache;
+    if (cache != null) {
+      cache.clear();
+    }
     invokeWithReturn(new ClearOperation());
   }
 
   @Override
   public Set<K> keySet() {
     Set<K> result = new HashSet<K>();
-    KeySetResponse keySetResponse = (KeySetResponse) invokeWithReturn(new KeySetOperation());
-    for (Object o : keySetResponse.getKeySet()) {
-      result.add(keyValueCodec.decode(o));
-    }
+    keyIterator(DEFAULT_PAGE_SIZE).forEachRemaining(result::add);
     return result;
   }
 
   @Override
   public Collection<V> values() {
     ArrayList<V> result = new ArrayList<V>();
-    ValueCollectionResponse response = (ValueCollectionResponse) invokeWithReturn(new ValuesOperation());
-    for (Object o : response.getValues()) {
-      result.add(valueValueCodec.decode(o));
-    }
+    valueIterator(DEFAULT_PAGE_SIZE).forEachRemaining(result::add);
     return result;
   }
 
   @Override
   public Set<Map.Entry<K, V>> entrySet() {
     HashSet<Entry<K, V>> result = new HashSet<Entry<K, V>>();
-    EntrySetResponse response = (EntrySetResponse) invokeWithReturn(new EntrySetOperation());
-    for (Entry<Object, Object> entry : response.getEntrySet()) {
-      result.add(new AbstractMap.SimpleEntry<K, V > (keyValueCodec.decode(entry.getKey()), valueValueCodec.decode(entry.getValue())));
-    }
+    entryIterator(DEFAULT_PAGE_SIZE).forEachRemaining(result::add);
     return result;
   }
 
+  @Override
+  public Iterator<K> keyIterator(int pageSize) {
+    return new PageIterator<K>(PageOperation.Kind.KEYS, pageSize) {
+      @Override
+      K next(Object key, Object value) {
+        return keyValueCodec.decode(key);
+      }
+    };
+  }
+
+  @Override
+  public Iterator<V> valueIterator(int pageSize) {
+    return new PageIterator<V>(PageOperation.Kind.VALUES, pageSize) {
+      @Override
+      V next(Object key, Object value) {
+        return valueValueCodec.decode(value);
+      }
+    };
+  }
+
+  @Override
+  public Iterator<Entry<K, V>> entryIterator(int pageSize) {
+    return new PageIterator<Entry<K, V>>(PageOperation.Kind.ENTRIES, pageSize) {
+      @Override
+      Entry<K, V> next(Object key, Object value) {
+        return new AbstractMap.SimpleEntry<K, V>(keyValueCodec.decode(key), valueValueCodec.decode(value));
+      }
+    };
+  }
+
+  /**
+   * Walks the segments one page at a time, only the current page is held.
+   */
+  private abstract class PageIterator<T> implements Iterator<T> {
+    private final PageOperation.Kind kind;
+    private final int pageSize;
+    private int segment = 0;
+    private long after = Long.MIN_VALUE;
+    private boolean segmentDone = false;
+    private List<Object> keys = Collections.emptyList();
+    private List<Object> values = Collections.emptyList();
+    private int index = 0;
+    private Object lastKey;
+
+    PageIterator(PageOperation.Kind kind, int pageSize) {
+      if (pageSize <= 0) {
+        throw new IllegalArgumentException("page size must be positive: " + pageSize);
+      }
+      this.kind = kind;
+      this.pageSize = pageSize;
+    }
+
+    abstract T next(Object key, Object value);
+
+    @Override
+    public boolean hasNext() {
+      while (index >= size()) {
+        if (segmentDone) {
+          segment++;
+          after = Long.MIN_VALUE;
+          segmentDone = false;
+        }
+        if (segment >= concurrency) {
+          return false;
+        }
+        PageResponse page = (PageResponse) invokeWithReturn(new PageOperation(segment, after, pageSize, kind));
+        keys = page.getKeys();
+        values = page.getValues();
+        index = 0;
+        after = page.getNext();
+        segmentDone = page.isLast();
+      }
+      return true;
+    }
+
+    private int size() {
+      return kind.hasKeys() ? keys.size() : values.size();
+    }
+
+    @Override
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      lastKey = kind.hasKeys() ? keys.get(index) : null;
+      Object value = kind.hasValues() ? values.get(index) : null;
+      index++;
+      return next(lastKey, value);
+    }
+
+    @Override
+    public void remove() {
+      if (lastKey == null) {
+        throw kind.hasKeys() ? new IllegalStateException() : new UnsupportedOperationException("remove");
+      }
+      invokeWithReturn(new RemoveOperation(invalidate(lastKey)));
+      lastKey = null;
+    }
+  }
+
   @Override
   public V putIfAbsent(K key, V value) {
-    MapValueResponse response = (MapValueResponse) invokeWithReturn(new PutIfAbsentOperation(keyValueCodec.encode(key), valueValueCodec.encode(value)));
+    MapValueResponse response = (MapValueResponse) invokeWithReturn(new PutIfAbsentOperation(invalidate(keyValueCodec.encode(key)), valueValueCodec.encode(value)));
     return valueValueCodec.decode(response.getValue());
   }
 
@@ -220,19 +439,19 @@ public class TerracottaClusteredMap<K, V> implements ConcurrentClusteredMap<K, V
     if (!valueClass.isAssignableFrom(value.getClass())) {
       return false;
     }
-    MapOperation operation = new ConditionalRemoveOperation(keyValueCodec.encode((K) key), valueValueCodec.encode((V) value));
+    MapOperation operation = new ConditionalRemoveOperation(invalidate(keyValueCodec.encode((K) key)), valueValueCodec.encode((V) value));
     return ((BooleanResponse) invokeWithReturn(operation)).isTrue();
   }
 
   @Override
   public boolean replace(K key, V oldValue, V newValue) {
-    MapOperation operation = new ConditionalReplaceOperation(keyValueCodec.encode(key), valueValueCodec.encode(oldValue), valueValueCodec.encode(newValue));
+    MapOperation operation = new ConditionalReplaceOperation(invalidate(keyValueCodec.encode(key)), valueValueCodec.encode(oldValue), valueValueCodec.encode(newValue));
     return ((BooleanResponse) invokeWithReturn(operation)).isTrue();
   }
 
   @Override
   public V replace(K key, V value) {
-    MapOperation operation = new PutIfPresentOperation(keyValueCodec.encode(key), valueValueCodec.encode(value));
+    MapOperation operation = new PutIfPresentOperation(invalidate(keyValueCodec.encode(key)), valueValueCodec.encode(value));
     MapValueResponse response = (MapValueResponse) invokeWithReturn(operation);
     return valueValueCodec.decode(response.getValue());
   }
@@ -0,0 +1,342 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.terracotta.entity.map;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import org.junit.Before;
+import org.junit.Test;
+import org.terracotta.entity.EndpointDelegate;
+import org.terracotta.entity.EntityClientEndpoint;
+import org.terracotta.entity.Invocation;
+import org.terracotta.entity.InvocationCallback;
+import org.terracotta.entity.MessageCodecException;
+import org.terracotta.entity.map.common.BulkOperation;
+import org.terracotta.entity.map.common.CachedGetOperation;
+import org.terracotta.entity.map.common.CachedValueResponse;
+import org.terracotta.entity.map.common.ClusteredMapCodec;
+import org.terracotta.entity.map.common.GetAllOperation;
+import org.terracotta.entity.map.common.GetOperation;
+import org.terracotta.entity.map.common.InvalidationResponse;
+import org.terracotta.entity.map.common.KeyedOperation;
+import org.terracotta.entity.map.common.MapOperation;
+import org.terracotta.entity.map.common.MapResponse;
+import org.terracotta.entity.map.common.MapValueResponse;
+import org.terracotta.entity.map.common.NullResponse;
+import org.terracotta.entity.map.common.PutAllOperation;
+import org.terracotta.entity.map.common.PutOperation;
+import org.terracotta.entity.map.common.RemoveAllOperation;
+import org.terracotta.entity.map.common.RemoveOperation;
+import org.terracotta.entity.map.common.ValueMapResponse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.terracotta.entity.map.common.MapConfig.segment;
+
+
+public class TerracottaClusteredMapTest {
+
+  private FakeEndpoint endpoint;
+  private TerracottaClusteredMap<String, String> map;
+
+  @Before
+  public void setUp() {
+    endpoint = new FakeEndpoint(4);
+    map = new TerracottaClusteredMap<>(endpoint);
+    map.setTypes(String.class, String.class);
+  }
+
+  @Test
+  public void testNearCacheIsFilledFromCachedValues() {
+    map.enableNearCache(16);
+    map.put("a", "1");
+    assertEquals("1", map.get("a"));
+    assertEquals("1", map.get("a"));
+    assertEquals(1, endpoint.count(MapOperation.Type.CACHED_GET));
+  }
+
+  @Test
+  public void testMissingKeysAreNotCached() {
+    map.enableNearCache(16);
+    assertNull(map.get("a"));
+    endpoint.store.put("a", "1");
+    assertEquals("1", map.get("a"));
+    assertEquals(2, endpoint.count(MapOperation.Type.CACHED_GET));
+  }
+
+  @Test
+  public void testPlainValuesAreNotCached() {
+    endpoint.canInvalidate = false;
+    map.enableNearCache(16);
+    map.put("a", "1");
+    assertEquals("1", map.get("a"));
+    // another client changes the key, this server has no way to tell us
+    endpoint.store.put("a", "2");
+    assertEquals("2", map.get("a"));
+    assertEquals(2, endpoint.count(MapOperation.Type.CACHED_GET));
+  }
+
+  @Test
+  public void testInvalidationDropsCachedKeys() {
+    map.enableNearCache(16);
+    map.put("a", "1");
+    map.put("b", "1");
+    assertEquals("1", map.get("a"));
+    assertEquals("1", map.get("b"));
+
+    endpoint.store.put("a", "2");
+    endpoint.store.put("b", "2");
+    endpoint.push(new InvalidationResponse(Collections.singletonList("a")));
+    assertEquals("2", map.get("a"));
+    assertEquals("1", map.get("b"));
+
+    endpoint.push(new InvalidationResponse(null));
+    assertEquals("2", map.get("b"));
+    assertEquals(4, endpoint.count(MapOperation.Type.CACHED_GET));
+  }
+
+  @Test
+  public void testOwnWritesDropCachedKeys() {
+    map.enableNearCache(16);
+    map.put("a", "1");
+    assertEquals("1", map.get("a"));
+    map.put("a", "2");
+    assertEquals("2", map.get("a"));
+    map.remove("a");
+    assertNull(map.get("a"));
+    assertEquals(3, endpoint.count(MapOperation.Type.CACHED_GET));
+  }
+
+  @Test
+  public void testReconnectClearsNearCache() {
+    map.enableNearCache(16);
+    map.put("a", "1");
+    assertEquals("1", map.get("a"));
+    // the new active does not know what we cached, anything may have changed during the failover
+    endpoint.store.put("a", "2");
+    endpoint.delegate.createExtendedReconnectData();
+    assertEquals("2", map.get("a"));
+  }
+
+  @Test
+  public void testUnexpectedDisconnectClearsNearCache() {
+    map.enableNearCache(16);
+    map.put("a", "1");
+    assertEquals("1", map.get("a"));
+    endpoint.store.put("a", "2");
+    endpoint.delegate.didDisconnectUnexpectedly();
+    assertEquals("2", map.get("a"));
+  }
+
+  @Test
+  public void testWithoutNearCacheReadsArePlainGets() {
+    map.put("a", "1");
+    assertEquals("1", map.get("a"));
+    assertEquals("1", map.get("a"));
+    assertEquals(0, endpoint.count(MapOperation.Type.CACHED_GET));
+    assertEquals(2, endpoint.count(MapOperation.Type.GET));
+  }
+
+  @Test
+  public void testBulkOperationsAreSplitBySegment() {
+    Map<String, String> entries = new HashMap<>();
+    for (int i = 0; i < 200; i++) {
+      entries.put("key-" + i, "value-" + i);
+    }
+    map.putAll(entries);
+    assertEquals(entries, endpoint.store);
+    assertSplitBySegment(MapOperation.Type.PUT_ALL, entries.keySet());
+
+    List<String> keys = new ArrayList<>(entries.keySet());
+    keys.add("missing");
+    assertEquals(entries, map.getAll(keys));
+    assertSplitBySegment(MapOperation.Type.GET_ALL, keys);
+
+    List<String> removed = keys.subList(0, 100);
+    map.removeAll(removed);
+    entries.keySet().removeAll(removed);
+    assertEquals(entries, endpoint.store);
+    assertSplitBySegment(MapOperation.Type.REMOVE_ALL, removed);
+  }
+
+  @Test
+  public void testEmptyBulkOperationsSendNothing() {
+    map.putAll(Collections.emptyMap());
+    assertTrue(map.getAll(Collections.emptyList()).isEmpty());
+    map.removeAll(Collections.emptyList());
+    assertTrue(endpoint.received.isEmpty());
+  }
+
+  @Test
+  public void testBulkWritesDropCachedKeys() {
+    map.enableNearCache(16);
+    map.put("a", "1");
+    map.put("b", "1");
+    assertEquals("1", map.get("a"));
+    assertEquals("1", map.get("b"));
+    map.putAll(Collections.singletonMap("a", "2"));
+    map.removeAll(Collections.singletonList("b"));
+    assertEquals("2", map.get("a"));
+    assertNull(map.get("b"));
+    assertEquals(4, endpoint.count(MapOperation.Type.CACHED_GET));
+  }
+
+  /**
+   * One operation of the type per segment holding the keys, each carrying every key of its segment.
+   */
+  private void assertSplitBySegment(MapOperation.Type type, Collection<String> keys) {
+    Map<Integer, Set<Object>> expected = new HashMap<>();
+    for (String key : keys) {
+      expected.computeIfAbsent(segment(key, 4), s -> new HashSet<>()).add(key);
+    }
+    Map<Integer, Set<Object>> sent = new HashMap<>();
+    for (MapOperation operation : endpoint.received) {
+      if (operation.operationType() == type) {
+        Set<Object> operationKeys = new HashSet<>(((BulkOperation) operation).getKeys());
+        Object first = operationKeys.iterator().next();
+        for (Object key : operationKeys) {
+          assertEquals(segment(first, 4), segment(key, 4));
+        }
+        assertNull(sent.put(segment(first, 4), operationKeys));
+      }
+    }
+    assertTrue(expected.size() > 1);
+    assertEquals(expected, sent);
+  }
+
+  /**
+   * Answers operations from a local map, every message and response goes through the wire codec.
+   */
+  static class FakeEndpoint implements EntityClientEndpoint<MapOperation, MapResponse> {
+    private final ClusteredMapCodec codec = new ClusteredMapCodec();
+    private final byte[] configuration;
+    final Map<Object, Object> store = new HashMap<>();
+    final List<MapOperation> received = new ArrayList<>();
+    boolean canInvalidate = true;
+    EndpointDelegate<MapResponse> delegate;
+
+    FakeEndpoint(int concurrency) {
+      this.configuration = new MapConfig(concurrency, "test").getBytes();
+    }
+
+    int count(MapOperation.Type type) {
+      int count = 0;
+      for (MapOperation operation : received) {
+        if (operation.operationType() == type) {
+          count++;
+        }
+      }
+      return count;
+    }
+
+    void push(MapResponse response) {
+      try {
+        delegate.handleMessage(codec.decodeResponse(codec.encodeResponse(response)));
+      } catch (MessageCodecException e) {
+        throw new AssertionError(e);
+      }
+    }
+
+    MapResponse handle(MapOperation operation) {
+      switch (operation.operationType()) {
+        case GET:
+          return new MapValueResponse(store.get(((GetOperation) operation).getKey()));
+        case CACHED_GET: {
+          Object value = store.get(((CachedGetOperation) operation).getKey());
+          return canInvalidate ? new CachedValueResponse(value) : new MapValueResponse(value);
+        }
+        case PUT: {
+          PutOperation put = (PutOperation) operation;
+          return new MapValueResponse(store.put(put.getKey(), put.getValue()));
+        }
+        case REMOVE:
+          return new MapValueResponse(store.remove(((RemoveOperation) operation).getKey()));
+        case GET_ALL: {
+          Map<Object, Object> values = new HashMap<>();
+          for (Object key : ((GetAllOperation) operation).getKeys()) {
+            if (store.containsKey(key)) {
+              values.put(key, store.get(key));
+            }
+          }
+          return new ValueMapResponse(values);
+        }
+        case PUT_ALL:
+          store.putAll((Map<?, ?>) ((PutAllOperation) operation).getMap());
+          return new NullResponse();
+        case REMOVE_ALL:
+          ((RemoveAllOperation) operation).getKeys().forEach(store::remove);
+          return new NullResponse();
+        default:
+          return new NullResponse();
+      }
+    }
+
+    @Override
+    public byte[] getEntityConfiguration() {
+      return configuration;
+    }
+
+    @Override
+    public void setDelegate(EndpointDelegate<MapResponse> delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public Invocation<MapResponse> message(MapOperation message) {
+      return new Invocation<MapResponse>() {
+        @Override
+        public Task invoke(InvocationCallback<MapResponse> callback, Set<InvocationCallback.Types> callbacks) {
+          try {
+            MapOperation operation = codec.decodeMessage(codec.encodeMessage(message));
+            MapResponse response;
+            synchronized (FakeEndpoint.this) {
+              received.add(operation);
+              response = handle(operation);
+            }
+            callback.sent();
+            callback.received();
+            callback.result(codec.decodeResponse(codec.encodeResponse(response)));
+          } catch (MessageCodecException e) {
+            callback.failure(e);
+          }
+          callback.complete();
+          callback.retired();
+          return () -> false;
+        }
+      };
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public Future<Void> release() {
+      return CompletableFuture.completedFuture(null);
+    }
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.terracotta.entity.map.common;
+
+import java.io.DataInput;
+import java.io.IOException;
+
+/**
+ * The answer to a {@link CachedGetOperation} when the server has registered the key for the client and will push an
+ * {@link InvalidationResponse} when it changes.  Only these values may be held in a near cache, a server that cannot
+ * reach its clients answers with a plain {@link MapValueResponse}.
+ */
+public class CachedValueResponse extends MapValueResponse {
+
+  public CachedValueResponse(Object value) {
+    super(value);
+  }
+
+  @Override
+  public Type responseType() {
+    return Type.CACHED_VALUE;
+  }
+
+  static CachedValueResponse readFrom(DataInput input) throws IOException {
+    return new CachedValueResponse(PrimitiveCodec.readFrom(input));
+  }
+}
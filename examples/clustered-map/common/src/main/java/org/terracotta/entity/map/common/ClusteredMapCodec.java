@@ -21,6 +21,7 @@ import org.terracotta.entity.MessageCodec;
 import org.terracotta.entity.MessageCodecException;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 
 public class ClusteredMapCodec implements MessageCodec<MapOperation, MapResponse> {
@@ -43,6 +44,17 @@ public class ClusteredMapCodec implements MessageCodec<MapOperation, MapResponse
     }
   }
 
+  /**
+   * Decodes an operation in place, without copying the payload out of the buffer first.
+   */
+  public MapOperation decodeMessage(ByteBuffer payload) throws MessageCodecException {
+    try {
+      return OperationCodec.decode(payload);
+    } catch (IOException e) {
+      throw new MessageCodecException("something wrong happend", e);
+    }
+  }
+
   @Override
   public byte[] encodeResponse(MapResponse response) throws MessageCodecException {
     try {
@@ -0,0 +1,58 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.terracotta.entity.map.common;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Pushed by the server to clients with a near cache when keys they may hold change.  A null key collection means
+ * every key, the map was cleared.
+ */
+public class InvalidationResponse implements MapResponse {
+  private final Collection<Object> keys;
+
+  public InvalidationResponse(Collection<Object> keys) {
+    this.keys = keys;
+  }
+
+  public boolean isAll() {
+    return this.keys == null;
+  }
+
+  public Collection<Object> getKeys() {
+    return this.keys;
+  }
+
+  @Override
+  public Type responseType() {
+    return Type.INVALIDATION;
+  }
+
+  @Override
+  public void writeTo(DataOutput output) throws IOException {
+    PrimitiveCodec.writeTo(output, this.keys);
+  }
+
+  @SuppressWarnings("unchecked")
+  static InvalidationResponse readFrom(DataInput input) throws IOException {
+    return new InvalidationResponse((Collection<Object>) PrimitiveCodec.readFrom(input));
+  }
+}
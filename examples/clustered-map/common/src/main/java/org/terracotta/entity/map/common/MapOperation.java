@@ -40,7 +40,11 @@ public interface MapOperation extends EntityMessage {
     PUT_IF_ABSENT,
     PUT_IF_PRESENT,
     CONDITIONAL_REMOVE,
-    CONDITIONAL_REPLACE;
+    CONDITIONAL_REPLACE,
+    CACHED_GET,
+    GET_ALL,
+    REMOVE_ALL,
+    PAGE;
   }
 
   Type operationType();
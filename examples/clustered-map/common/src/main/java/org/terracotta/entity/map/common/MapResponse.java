@@ -34,6 +34,12 @@ public interface MapResponse extends EntityResponse {
     KEY_SET,
     VALUE_COLLECTION,
     ENTRY_SET,
+    // Pushed from the server, not a reply to an operation.
+    INVALIDATION,
+    // Appended to keep the wire ordinals of the types above.
+    VALUE_MAP,
+    PAGE,
+    CACHED_VALUE,
   }
 
   Type responseType();
@@ -17,16 +17,23 @@
  */
 package org.terracotta.entity.map.common;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
 
 
 class OperationCodec {
   public static MapOperation decode(byte[] bytes) throws IOException {
-    ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes));
+    return decode(PrimitiveCodec.openInput(bytes));
+  }
+
+  public static MapOperation decode(ByteBuffer buffer) throws IOException {
+    return decode(PrimitiveCodec.openInput(buffer));
+  }
+
+  private static MapOperation decode(DataInput input) throws IOException {
     byte type = input.readByte();
 
     switch (MapOperation.Type.values()[type]) {
@@ -60,6 +67,14 @@ class OperationCodec {
         return ConditionalRemoveOperation.readFrom(input);
       case CONDITIONAL_REPLACE:
         return ConditionalReplaceOperation.readFrom(input);
+      case CACHED_GET:
+        return CachedGetOperation.readFrom(input);
+      case GET_ALL:
+        return GetAllOperation.readFrom(input);
+      case REMOVE_ALL:
+        return RemoveAllOperation.readFrom(input);
+      case PAGE:
+        return PageOperation.readFrom(input);
       default:
         throw new IllegalArgumentException("Unknown map operation type " + type);
     }
@@ -67,7 +82,8 @@ class OperationCodec {
 
   public static byte[] encode(MapOperation operation) throws IOException {
     ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
-    try (ObjectOutputStream output = new ObjectOutputStream(byteOut)) {
+    try (DataOutputStream output = new DataOutputStream(byteOut)) {
+      output.writeByte(PrimitiveCodec.BINARY_FORMAT);
       output.writeByte(operation.operationType().ordinal());
       operation.writeTo(output);
     }
@@ -0,0 +1,92 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.terracotta.entity.map.common;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Reads one bounded page of a segment.  Pages are cut in key hash order, a page holds the entries whose key hash is
+ * above {@link #getAfter()}, so iterating needs no state on the server and is weakly consistent: keys present for the
+ * whole iteration are returned once, keys added or removed meanwhile may or may not be.
+ */
+public class PageOperation implements MapOperation {
+  public enum Kind {
+    KEYS,
+    VALUES,
+    ENTRIES;
+
+    public boolean hasKeys() {
+      return this != VALUES;
+    }
+
+    public boolean hasValues() {
+      return this != KEYS;
+    }
+  }
+
+  private final int segment;
+  private final long after;
+  private final int size;
+  private final Kind kind;
+
+  public PageOperation(int segment, long after, int size, Kind kind) {
+    this.segment = segment;
+    this.after = after;
+    this.size = size;
+    this.kind = kind;
+  }
+
+  public int getSegment() {
+    return segment;
+  }
+
+  public long getAfter() {
+    return after;
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  @Override
+  public Type operationType() {
+    return Type.PAGE;
+  }
+
+  @Override
+  public void writeTo(DataOutput output) throws IOException {
+    PrimitiveCodec.writeTo(output, segment);
+    PrimitiveCodec.writeTo(output, after);
+    PrimitiveCodec.writeTo(output, size);
+    PrimitiveCodec.writeTo(output, (byte) kind.ordinal());
+  }
+
+  static PageOperation readFrom(DataInput input) throws IOException {
+    int segment = (Integer) PrimitiveCodec.readFrom(input);
+    long after = (Long) PrimitiveCodec.readFrom(input);
+    int size = (Integer) PrimitiveCodec.readFrom(input);
+    Kind kind = Kind.values()[(Byte) PrimitiveCodec.readFrom(input)];
+    return new PageOperation(segment, after, size, kind);
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.terracotta.entity.map.common;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+
+
+public class PageResponse implements MapResponse {
+  private final List<Object> keys;
+  private final List<Object> values;
+  private final long next;
+  private final boolean last;
+
+  /**
+   * @param keys the keys of the page, null unless keys were asked for
+   * @param values the values of the page, null unless values were asked for
+   * @param next the cursor for the following page of the segment
+   * @param last true when the segment has no entries after this page
+   */
+  public PageResponse(List<Object> keys, List<Object> values, long next, boolean last) {
+    this.keys = keys;
+    this.values = values;
+    this.next = next;
+    this.last = last;
+  }
+
+  public List<Object> getKeys() {
+    return keys;
+  }
+
+  public List<Object> getValues() {
+    return values;
+  }
+
+  public long getNext() {
+    return next;
+  }
+
+  public boolean isLast() {
+    return last;
+  }
+
+  @Override
+  public Type responseType() {
+    return Type.PAGE;
+  }
+
+  @Override
+  public void writeTo(DataOutput output) throws IOException {
+    PrimitiveCodec.writeTo(output, keys);
+    PrimitiveCodec.writeTo(output, values);
+    PrimitiveCodec.writeTo(output, next);
+    PrimitiveCodec.writeTo(output, last);
+  }
+
+  @SuppressWarnings("unchecked")
+  static PageResponse readFrom(DataInput input) throws IOException {
+    List<Object> keys = (List<Object>) PrimitiveCodec.readFrom(input);
+    List<Object> values = (List<Object>) PrimitiveCodec.readFrom(input);
+    long next = (Long) PrimitiveCodec.readFrom(input);
+    boolean last = (Boolean) PrimitiveCodec.readFrom(input);
+    return new PageResponse(keys, values, next, last);
+  }
+}
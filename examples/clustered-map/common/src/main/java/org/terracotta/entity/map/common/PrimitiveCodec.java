@@ -20,35 +20,352 @@ package org.terracotta.entity.map.common;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
+import java.io.DataInputStream;
 import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+/**
+ * Compact tagged binary encoding of the keys, values and collections carried by map operations and responses.
+ * Primitives, Strings, byte arrays and {@link ValueWrapper} are written with a one byte type tag and varint lengths,
+ * only other objects fall back to Java serialization.
+ * <p>
+ * Payloads start with {@link #BINARY_FORMAT}.  Payloads written by earlier versions are Java serialization streams,
+ * {@link #isSerializationStream(byte[])} recognises them and {@link #readFrom(DataInput)} still reads them from an
+ * {@link ObjectInputStream}.
+ */
 public class PrimitiveCodec {
 
+  public static final byte BINARY_FORMAT = 1;
+
+  private static final byte NULL = 0;
+  private static final byte FALSE = 1;
+  private static final byte TRUE = 2;
+  private static final byte BYTE = 3;
+  private static final byte SHORT = 4;
+  private static final byte CHAR = 5;
+  private static final byte INT = 6;
+  private static final byte LONG = 7;
+  private static final byte FLOAT = 8;
+  private static final byte DOUBLE = 9;
+  private static final byte STRING = 10;
+  private static final byte BYTES = 11;
+  private static final byte WRAPPER = 12;
+  private static final byte LIST = 13;
+  private static final byte SET = 14;
+  private static final byte MAP = 15;
+  private static final byte ENTRY = 16;
+  private static final byte SERIALIZED = 17;
+
   public static byte[] encode(Object o) throws IOException {
     ByteArrayOutputStream bytes = new ByteArrayOutputStream();
-    ObjectOutputStream output = new ObjectOutputStream(bytes);
+    DataOutputStream output = new DataOutputStream(bytes);
+    output.writeByte(BINARY_FORMAT);
     writeTo(output, o);
     output.close();
     return bytes.toByteArray();
   }
 
   public static Object decode(byte[] bytes) throws IOException {
-    ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes));
-    return readFrom(input);
+    return readFrom(openInput(bytes));
+  }
+
+  /**
+   * Opens a payload for reading, positioned after the format flag.
+   */
+  public static DataInput openInput(byte[] bytes) throws IOException {
+    if (isSerializationStream(bytes)) {
+      return new ObjectInputStream(new ByteArrayInputStream(bytes));
+    }
+    DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+    byte format = input.readByte();
+    if (format != BINARY_FORMAT) {
+      throw new IOException("Unknown map payload format " + format);
+    }
+    return input;
+  }
+
+  /**
+   * Opens a payload held in a buffer, reading it in place.  The buffer's position is left untouched.
+   */
+  public static DataInput openInput(ByteBuffer buffer) throws IOException {
+    ByteBuffer view = buffer.duplicate();
+    InputStream bytes = new ByteBufferInputStream(view);
+    if (view.remaining() >= 2 && view.get(view.position()) == (byte) 0xAC && view.get(view.position() + 1) == (byte) 0xED) {
+      return new ObjectInputStream(bytes);
+    }
+    DataInputStream input = new DataInputStream(bytes);
+    byte format = input.readByte();
+    if (format != BINARY_FORMAT) {
+      throw new IOException("Unknown map payload format " + format);
+    }
+    return input;
+  }
+
+  public static boolean isSerializationStream(byte[] bytes) {
+    // ObjectStreamConstants.STREAM_MAGIC
+    return bytes.length >= 2 && bytes[0] == (byte) 0xAC && bytes[1] == (byte) 0xED;
   }
 
   public static Object readFrom(DataInput inputStream) throws IOException {
-    try {
-      return ((ObjectInputStream) inputStream).readObject();
-    } catch (ClassNotFoundException e) {
-      throw new RuntimeException(e);
+    if (inputStream instanceof ObjectInputStream) {
+      try {
+        return ((ObjectInputStream) inputStream).readObject();
+      } catch (ClassNotFoundException e) {
+        throw new RuntimeException(e);
+      }
+    }
+    byte tag = inputStream.readByte();
+    switch (tag) {
+      case NULL:
+        return null;
+      case FALSE:
+        return Boolean.FALSE;
+      case TRUE:
+        return Boolean.TRUE;
+      case BYTE:
+        return inputStream.readByte();
+      case SHORT:
+        return inputStream.readShort();
+      case CHAR:
+        return inputStream.readChar();
+      case INT:
+        return readSignedVarInt(inputStream);
+      case LONG:
+        return readSignedVarLong(inputStream);
+      case FLOAT:
+        return inputStream.readFloat();
+      case DOUBLE:
+        return inputStream.readDouble();
+      case STRING:
+        return new String(readBytes(inputStream), StandardCharsets.UTF_8);
+      case BYTES:
+        return readBytes(inputStream);
+      case WRAPPER: {
+        int hashCode = inputStream.readInt();
+        return new ValueWrapper(hashCode, readBytes(inputStream));
+      }
+      case LIST: {
+        int size = readVarInt(inputStream);
+        List<Object> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+          list.add(readFrom(inputStream));
+        }
+        return list;
+      }
+      case SET: {
+        int size = readVarInt(inputStream);
+        Set<Object> set = new HashSet<>(capacity(size));
+        for (int i = 0; i < size; i++) {
+          set.add(readFrom(inputStream));
+        }
+        return set;
+      }
+      case MAP: {
+        int size = readVarInt(inputStream);
+        Map<Object, Object> map = new HashMap<>(capacity(size));
+        for (int i = 0; i < size; i++) {
+          Object key = readFrom(inputStream);
+          map.put(key, readFrom(inputStream));
+        }
+        return map;
+      }
+      case ENTRY: {
+        Object key = readFrom(inputStream);
+        return new AbstractMap.SimpleEntry<>(key, readFrom(inputStream));
+      }
+      case SERIALIZED:
+        try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(readBytes(inputStream)))) {
+          return objects.readObject();
+        } catch (ClassNotFoundException e) {
+          throw new RuntimeException(e);
+        }
+      default:
+        throw new IOException("Unknown value tag " + tag);
     }
   }
 
   public static void writeTo(DataOutput os, Object o) throws IOException {
-    ((ObjectOutputStream) os).writeObject(o);
+    if (os instanceof ObjectOutputStream) {
+      ((ObjectOutputStream) os).writeObject(o);
+    } else if (o == null) {
+      os.writeByte(NULL);
+    } else if (o instanceof Boolean) {
+      os.writeByte((Boolean) o ? TRUE : FALSE);
+    } else if (o instanceof Byte) {
+      os.writeByte(BYTE);
+      os.writeByte((Byte) o);
+    } else if (o instanceof Short) {
+      os.writeByte(SHORT);
+      os.writeShort((Short) o);
+    } else if (o instanceof Character) {
+      os.writeByte(CHAR);
+      os.writeChar((Character) o);
+    } else if (o instanceof Integer) {
+      os.writeByte(INT);
+      writeSignedVarInt(os, (Integer) o);
+    } else if (o instanceof Long) {
+      os.writeByte(LONG);
+      writeSignedVarLong(os, (Long) o);
+    } else if (o instanceof Float) {
+      os.writeByte(FLOAT);
+      os.writeFloat((Float) o);
+    } else if (o instanceof Double) {
+      os.writeByte(DOUBLE);
+      os.writeDouble((Double) o);
+    } else if (o instanceof String) {
+      os.writeByte(STRING);
+      writeBytes(os, ((String) o).getBytes(StandardCharsets.UTF_8));
+    } else if (o instanceof byte[]) {
+      os.writeByte(BYTES);
+      writeBytes(os, (byte[]) o);
+    } else if (o instanceof ValueWrapper) {
+      ValueWrapper wrapper = (ValueWrapper) o;
+      os.writeByte(WRAPPER);
+      os.writeInt(wrapper.hashCode());
+      writeBytes(os, wrapper.getValue());
+    } else if (o instanceof Set<?>) {
+      os.writeByte(SET);
+      writeElements(os, (Set<?>) o);
+    } else if (o instanceof Collection<?>) {
+      os.writeByte(LIST);
+      writeElements(os, (Collection<?>) o);
+    } else if (o instanceof Map<?, ?>) {
+      Map<?, ?> map = (Map<?, ?>) o;
+      os.writeByte(MAP);
+      writeVarInt(os, map.size());
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        writeTo(os, entry.getKey());
+        writeTo(os, entry.getValue());
+      }
+    } else if (o instanceof Map.Entry<?, ?>) {
+      Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+      os.writeByte(ENTRY);
+      writeTo(os, entry.getKey());
+      writeTo(os, entry.getValue());
+    } else {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+        objects.writeObject(o);
+      }
+      os.writeByte(SERIALIZED);
+      writeBytes(os, bytes.toByteArray());
+    }
+  }
+
+  private static class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int count = Math.min(len, buffer.remaining());
+      buffer.get(b, off, count);
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+
+  private static void writeElements(DataOutput os, Collection<?> elements) throws IOException {
+    writeVarInt(os, elements.size());
+    for (Object element : elements) {
+      writeTo(os, element);
+    }
+  }
+
+  private static int capacity(int size) {
+    return Math.max(16, (int) (size / 0.75f) + 1);
+  }
+
+  private static void writeBytes(DataOutput os, byte[] bytes) throws IOException {
+    writeVarInt(os, bytes.length);
+    os.write(bytes);
+  }
+
+  private static byte[] readBytes(DataInput input) throws IOException {
+    byte[] bytes = new byte[readVarInt(input)];
+    input.readFully(bytes);
+    return bytes;
+  }
+
+  public static void writeVarInt(DataOutput os, int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      os.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    os.writeByte(value);
+  }
+
+  public static int readVarInt(DataInput input) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      byte b = input.readByte();
+      value |= (b & 0x7F) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed varint");
+  }
+
+  private static void writeSignedVarInt(DataOutput os, int value) throws IOException {
+    writeVarInt(os, (value << 1) ^ (value >> 31));
+  }
+
+  private static int readSignedVarInt(DataInput input) throws IOException {
+    int raw = readVarInt(input);
+    return (raw >>> 1) ^ -(raw & 1);
+  }
+
+  private static void writeSignedVarLong(DataOutput os, long value) throws IOException {
+    long raw = (value << 1) ^ (value >> 63);
+    while ((raw & ~0x7FL) != 0) {
+      os.writeByte((int) ((raw & 0x7F) | 0x80));
+      raw >>>= 7;
+    }
+    os.writeByte((int) raw);
+  }
+
+  private static long readSignedVarLong(DataInput input) throws IOException {
+    long raw = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte b = input.readByte();
+      raw |= (long) (b & 0x7F) << shift;
+      if (b >= 0) {
+        return (raw >>> 1) ^ -(raw & 1);
+      }
+    }
+    throw new IOException("Malformed varint");
   }
 }
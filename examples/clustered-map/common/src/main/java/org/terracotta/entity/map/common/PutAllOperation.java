@@ -20,9 +20,10 @@ package org.terracotta.entity.map.common;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Map;
 
-public class PutAllOperation implements MapOperation {
+public class PutAllOperation implements BulkOperation {
   private final Map<Object, Object> map;
 
   public PutAllOperation(Map<Object, Object> map) {
@@ -33,6 +34,11 @@ public class PutAllOperation implements MapOperation {
     return map;
   }
 
+  @Override
+  public Collection<Object> getKeys() {
+    return map.keySet();
+  }
+
   @Override
   public Type operationType() {
     return Type.PUT_ALL;
@@ -17,16 +17,15 @@
  */
 package org.terracotta.entity.map.common;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 
 
 class ResponseCodec {
   public static MapResponse decode(byte[] bytes) throws IOException {
-    ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes));
+    DataInput input = PrimitiveCodec.openInput(bytes);
     byte type = input.readByte();
 
     switch (MapResponse.Type.values()[type]) {
@@ -44,6 +43,14 @@ class ResponseCodec {
         return ValueCollectionResponse.readFrom(input);
       case ENTRY_SET:
         return EntrySetResponse.readFrom(input);
+      case VALUE_MAP:
+        return ValueMapResponse.readFrom(input);
+      case PAGE:
+        return PageResponse.readFrom(input);
+      case INVALIDATION:
+        return InvalidationResponse.readFrom(input);
+      case CACHED_VALUE:
+        return CachedValueResponse.readFrom(input);
       default:
         throw new IllegalArgumentException("Unknown map response type " + type);
     }
@@ -51,8 +58,9 @@ class ResponseCodec {
 
   public static byte[] encode(MapResponse response) throws IOException {
     ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
-    ObjectOutputStream output = new ObjectOutputStream(byteOut);
+    DataOutputStream output = new DataOutputStream(byteOut);
 
+    output.writeByte(PrimitiveCodec.BINARY_FORMAT);
     output.writeByte(response.responseType().ordinal());
     response.writeTo(output);
 
@@ -0,0 +1,219 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.terracotta.entity.map.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+
+public class PrimitiveCodecTest {
+
+  @Test
+  public void testPrimitivesRoundTrip() throws Exception {
+    for (Object value : Arrays.asList(null, true, false,
+        Byte.MIN_VALUE, Byte.MAX_VALUE, Short.MIN_VALUE, Short.MAX_VALUE, Character.MIN_VALUE, Character.MAX_VALUE,
+        0, 1, -1, 63, -64, 64, -65, Integer.MIN_VALUE, Integer.MAX_VALUE,
+        0L, -1L, Long.MIN_VALUE, Long.MAX_VALUE, (long) Integer.MIN_VALUE - 1, (long) Integer.MAX_VALUE + 1,
+        Float.MIN_VALUE, Float.NaN, Float.NEGATIVE_INFINITY, -0.0f, Double.MAX_VALUE, Double.NaN, -0.0d,
+        "", "key", "\u00e9\u4e2d\ud83d\ude00")) {
+      Object decoded = roundTrip(value);
+      assertEquals(value, decoded);
+      if (value != null) {
+        assertEquals(value.getClass(), decoded.getClass());
+      }
+    }
+  }
+
+  @Test
+  public void testByteArraysRoundTrip() throws Exception {
+    assertArrayEquals(new byte[0], (byte[]) roundTrip(new byte[0]));
+    byte[] bytes = new byte[300];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) i;
+    }
+    assertArrayEquals(bytes, (byte[]) roundTrip(bytes));
+  }
+
+  @Test
+  public void testVarIntBoundaries() throws Exception {
+    int[] values = {0, 0x7F, 0x80, 0x3FFF, 0x4000, 0x1FFFFF, 0x200000, 0xFFFFFFF, 0x10000000, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+    int[] lengths = {1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 5, 5};
+    for (int i = 0; i < values.length; i++) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      PrimitiveCodec.writeVarInt(new DataOutputStream(bytes), values[i]);
+      assertEquals(lengths[i], bytes.size());
+      assertEquals(values[i], PrimitiveCodec.readVarInt(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+    }
+  }
+
+  @Test
+  public void testZigZagKeepsSmallNegativesShort() throws Exception {
+    // format flag, tag and a single varint byte
+    assertEquals(3, PrimitiveCodec.encode(-1).length);
+    assertEquals(3, PrimitiveCodec.encode(-64).length);
+    assertEquals(4, PrimitiveCodec.encode(-65).length);
+    assertEquals(3, PrimitiveCodec.encode(-1L).length);
+    assertEquals(7, PrimitiveCodec.encode(Integer.MIN_VALUE).length);
+    assertEquals(12, PrimitiveCodec.encode(Long.MIN_VALUE).length);
+    assertEquals(12, PrimitiveCodec.encode(Long.MAX_VALUE).length);
+  }
+
+  @Test
+  public void testMalformedVarIntIsRejected() {
+    byte[] bytes = {PrimitiveCodec.BINARY_FORMAT, 6, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 1};
+    try {
+      PrimitiveCodec.decode(bytes);
+      fail();
+    } catch (IOException expected) {
+    }
+  }
+
+  @Test
+  public void testUnknownFormatIsRejected() {
+    try {
+      PrimitiveCodec.decode(new byte[] {(byte) 0x7F, 0});
+      fail();
+    } catch (IOException expected) {
+    }
+  }
+
+  @Test
+  public void testValueWrapperRoundTrip() throws Exception {
+    ValueWrapper wrapper = new ValueWrapper(Integer.MIN_VALUE, new byte[] {1, 2, 3});
+    Object decoded = roundTrip(wrapper);
+    assertEquals(wrapper, decoded);
+    assertEquals(Integer.MIN_VALUE, decoded.hashCode());
+    assertArrayEquals(new byte[] {1, 2, 3}, ((ValueWrapper) decoded).getValue());
+    assertEquals(new ValueWrapper(7, new byte[0]), roundTrip(new ValueWrapper(7, new byte[0])));
+  }
+
+  @Test
+  public void testNestedCollectionsRoundTrip() throws Exception {
+    Map<Object, Object> inner = new HashMap<>();
+    inner.put("a", Arrays.asList(1, 2L, null));
+    inner.put(3, new HashSet<>(Arrays.asList("x", new ValueWrapper(1, new byte[] {9}))));
+    inner.put(null, Collections.emptyMap());
+    List<Object> list = new ArrayList<>();
+    list.add(inner);
+    list.add(new AbstractMap.SimpleEntry<Object, Object>("k", Collections.singletonList(Collections.emptySet())));
+    list.add(new LinkedList<>(Arrays.asList(Long.MIN_VALUE, Integer.MIN_VALUE)));
+
+    Object decoded = roundTrip(list);
+    assertEquals(list, decoded);
+    assertTrue(decoded instanceof ArrayList);
+    Map<?, ?> decodedInner = (Map<?, ?>) ((List<?>) decoded).get(0);
+    assertTrue(decodedInner.get(3) instanceof HashSet);
+    assertTrue(((List<?>) decoded).get(1) instanceof Map.Entry);
+  }
+
+  @Test
+  public void testSetsDecodeAsSetsAndOtherCollectionsAsLists() throws Exception {
+    Set<Object> sorted = new TreeSet<>(Arrays.asList(3, 1, 2));
+    assertEquals(sorted, roundTrip(sorted));
+    assertEquals(Arrays.asList(1, 2), roundTrip(new LinkedList<>(Arrays.asList(1, 2))));
+  }
+
+  @Test
+  public void testOtherObjectsAreSerialized() throws Exception {
+    BigInteger big = BigInteger.ONE.shiftLeft(100);
+    assertEquals(big, roundTrip(big));
+    Point point = new Point(1, -2);
+    Object decoded = roundTrip(Collections.singletonMap("p", point));
+    assertEquals(Collections.singletonMap("p", point), decoded);
+    assertNotSame(point, ((Map<?, ?>) decoded).get("p"));
+  }
+
+  @Test
+  public void testLegacySerializationStreamsAreRead() throws Exception {
+    Map<Object, Object> map = new HashMap<>();
+    map.put("k", new ValueWrapper(5, new byte[] {1}));
+    map.put(Long.MIN_VALUE, Arrays.asList(1, "two"));
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+      output.writeObject(map);
+    }
+    byte[] legacy = bytes.toByteArray();
+    assertTrue(PrimitiveCodec.isSerializationStream(legacy));
+    assertFalse(PrimitiveCodec.isSerializationStream(PrimitiveCodec.encode(map)));
+    assertEquals(map, PrimitiveCodec.decode(legacy));
+
+    ByteBuffer buffer = ByteBuffer.wrap(legacy);
+    assertEquals(map, PrimitiveCodec.readFrom(PrimitiveCodec.openInput(buffer)));
+    assertEquals(0, buffer.position());
+  }
+
+  @Test
+  public void testBufferInputIsReadInPlace() throws Exception {
+    byte[] encoded = PrimitiveCodec.encode(Arrays.asList("a", 1));
+    ByteBuffer buffer = ByteBuffer.allocate(encoded.length + 4);
+    buffer.putInt(42).put(encoded).flip().position(4);
+    assertEquals(Arrays.asList("a", 1), PrimitiveCodec.readFrom(PrimitiveCodec.openInput(buffer)));
+    assertEquals(4, buffer.position());
+  }
+
+  private static Object roundTrip(Object value) throws IOException {
+    return PrimitiveCodec.decode(PrimitiveCodec.encode(value));
+  }
+
+  private static final class Point implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private final int x;
+    private final int y;
+
+    Point(int x, int y) {
+      this.x = x;
+      this.y = y;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Point && ((Point) o).x == x && ((Point) o).y == y;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * x + y;
+    }
+  }
+}
@@ -19,34 +19,51 @@ package org.terracotta.entity.map.server;
 
 import org.terracotta.entity.ActiveInvokeContext;
 import org.terracotta.entity.ActiveServerEntity;
+import org.terracotta.entity.ClientCommunicator;
 import org.terracotta.entity.ClientDescriptor;
+import org.terracotta.entity.MessageCodecException;
 import org.terracotta.entity.PassiveSynchronizationChannel;
 import org.terracotta.entity.map.common.BooleanResponse;
+import org.terracotta.entity.map.common.BulkOperation;
+import org.terracotta.entity.map.common.CachedGetOperation;
+import org.terracotta.entity.map.common.CachedValueResponse;
 import org.terracotta.entity.map.common.ConditionalRemoveOperation;
 import org.terracotta.entity.map.common.ConditionalReplaceOperation;
 import org.terracotta.entity.map.common.ContainsKeyOperation;
 import org.terracotta.entity.map.common.ContainsValueOperation;
 import org.terracotta.entity.map.common.EntrySetResponse;
+import org.terracotta.entity.map.common.GetAllOperation;
 import org.terracotta.entity.map.common.GetOperation;
+import org.terracotta.entity.map.common.InvalidationResponse;
+import org.terracotta.entity.map.common.KeyedOperation;
 import org.terracotta.entity.map.common.KeySetResponse;
+import org.terracotta.entity.map.common.MapConfig;
 import org.terracotta.entity.map.common.MapOperation;
 import org.terracotta.entity.map.common.MapResponse;
 import org.terracotta.entity.map.common.MapValueResponse;
 import org.terracotta.entity.map.common.NullResponse;
+import org.terracotta.entity.map.common.PageOperation;
+import org.terracotta.entity.map.common.PageResponse;
 import org.terracotta.entity.map.common.PutAllOperation;
 import org.terracotta.entity.map.common.PutIfAbsentOperation;
 import org.terracotta.entity.map.common.PutIfPresentOperation;
 import org.terracotta.entity.map.common.PutOperation;
+import org.terracotta.entity.map.common.RemoveAllOperation;
 import org.terracotta.entity.map.common.RemoveOperation;
 import org.terracotta.entity.map.common.SizeResponse;
 import org.terracotta.entity.map.common.ValueCollectionResponse;
+import org.terracotta.entity.map.common.ValueMapResponse;
 
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 public class ActiveTerracottaClusteredMap implements ActiveServerEntity<MapOperation, MapResponse>  {
@@ -54,11 +71,20 @@ public class ActiveTerracottaClusteredMap implements ActiveServerEntity<MapOpera
   private final String name;
   private final Map<String, CompoundMap<Object, Object>> root;
   private final CompoundMap<Object, Object> map;
+  private final ClientCommunicator communicator;
+  // which clients may hold each key in a near cache, keyed operations on a key run on one concurrency key
+  private final Map<Object, Set<ClientDescriptor>> cachedBy = new ConcurrentHashMap<>();
+  private final Set<ClientDescriptor> cachingClients = ConcurrentHashMap.newKeySet();
 
   public ActiveTerracottaClusteredMap(String name, int concurrency, Map<String, CompoundMap<Object, Object>> root) {
-    this.name = name;
+    this(new MapConfig(concurrency, name), root, null);
+  }
+
+  public ActiveTerracottaClusteredMap(MapConfig config, Map<String, CompoundMap<Object, Object>> root, ClientCommunicator communicator) {
+    this.name = config.getName();
     this.root = root;
-    this.map = root.computeIfAbsent(name, v->new CompoundMap<>(concurrency));
+    this.map = root.computeIfAbsent(name, v->CompoundMap.create(config));
+    this.communicator = communicator;
   }
   
   @Override
@@ -74,12 +100,16 @@ public class ActiveTerracottaClusteredMap implements ActiveServerEntity<MapOpera
 
   @Override
   public void disconnected(ClientDescriptor clientDescriptor) {
+    if (cachingClients.remove(clientDescriptor)) {
+      cachedBy.values().forEach(clients->clients.remove(clientDescriptor));
+    }
   }
 
   @Override
   public MapResponse invokeActive(ActiveInvokeContext<MapResponse> context, MapOperation input) {
     MapResponse response;
     
+    invalidate(input);
     switch (input.operationType()) {
       case PUT: {
         PutOperation putOperation = (PutOperation) input;
@@ -94,6 +124,19 @@ public class ActiveTerracottaClusteredMap implements ActiveServerEntity<MapOpera
         response = new MapValueResponse(map.get(key));
         break;
       }
+      case CACHED_GET: {
+        Object key = ((CachedGetOperation) input).getKey();
+        if (communicator == null) {
+          // no invalidation could ever reach the client, answer as a plain get so it does not cache the value
+          response = new MapValueResponse(map.get(key));
+        } else {
+          ClientDescriptor client = context.getClientDescriptor();
+          cachingClients.add(client);
+          cachedBy.computeIfAbsent(key, k->ConcurrentHashMap.newKeySet()).add(client);
+          response = new CachedValueResponse(map.get(key));
+        }
+        break;
+      }
       case REMOVE: {
         Object key = ((RemoveOperation) input).getKey();
         response = new MapValueResponse(map.remove(key));
@@ -123,6 +166,27 @@ public class ActiveTerracottaClusteredMap implements ActiveServerEntity<MapOpera
         response = new NullResponse();
         break;
       }
+      case GET_ALL: {
+        Map<Object, Object> values = new HashMap<>();
+        for (Object key : ((GetAllOperation) input).getKeys()) {
+          Object value = map.get(key);
+          if (value != null) {
+            values.put(key, value);
+          }
+        }
+        response = new ValueMapResponse(values);
+        break;
+      }
+      case REMOVE_ALL: {
+        ((RemoveAllOperation) input).getKeys().forEach(map::remove);
+        response = new NullResponse();
+        break;
+      }
+      case PAGE: {
+        PageOperation page = (PageOperation) input;
+        response = page(map.mapForSegment(page.getSegment() + 1), page);
+        break;
+      }
       case KEY_SET: {
         Set<Object> keySet = new HashSet<Object>();
         keySet.addAll(map.keySet());
@@ -174,6 +238,87 @@ public class ActiveTerracottaClusteredMap implements ActiveServerEntity<MapOpera
     return response;
   }
 
+  /**
+   * Cut the page of a segment following the cursor, walking its keys in hash order.  Entries sharing the last hash
+   * all land in this page so the next one can start strictly after it.
+   */
+  private static PageResponse page(Map<Object, Object> segment, PageOperation page) {
+    HashOrderedSegment ordered = (HashOrderedSegment) segment;
+    int size = Math.max(1, page.getSize());
+    List<Object> keys = page.getKind().hasKeys() ? new ArrayList<>() : null;
+    List<Object> values = page.getKind().hasValues() ? new ArrayList<>() : null;
+    List<Object> counted = keys != null ? keys : values;
+    long next = page.getAfter();
+    Integer hash;
+    while (counted.size() < size && (hash = ordered.higherHash(next)) != null) {
+      ordered.forEachWithHash(hash, (key, value)->{
+        if (keys != null) {
+          keys.add(key);
+        }
+        if (values != null) {
+          values.add(value);
+        }
+      });
+      next = hash;
+    }
+    return new PageResponse(keys, values, next, ordered.higherHash(next) == null);
+  }
+
+  /**
+   * Tell the near caches holding keys that this operation may change to drop them.  The invoking client is included,
+   * a read it raced with this write may have registered the key after it dropped its own entry.
+   */
+  private void invalidate(MapOperation input) {
+    if (cachingClients.isEmpty()) {
+      return;
+    }
+    switch (input.operationType()) {
+      case PUT:
+      case REMOVE:
+      case PUT_IF_ABSENT:
+      case PUT_IF_PRESENT:
+      case CONDITIONAL_REMOVE:
+      case CONDITIONAL_REPLACE: {
+        Object key = ((KeyedOperation) input).getKey();
+        Set<ClientDescriptor> clients = cachedBy.remove(key);
+        if (clients != null) {
+          sendInvalidation(clients, Collections.singletonList(key));
+        }
+        break;
+      }
+      case PUT_ALL:
+      case REMOVE_ALL: {
+        Map<ClientDescriptor, Collection<Object>> keysByClient = new HashMap<>();
+        for (Object key : ((BulkOperation) input).getKeys()) {
+          Set<ClientDescriptor> clients = cachedBy.remove(key);
+          if (clients != null) {
+            clients.forEach(c->keysByClient.computeIfAbsent(c, x->new ArrayList<>()).add(key));
+          }
+        }
+        keysByClient.forEach((c, keys)->sendInvalidation(Collections.singleton(c), keys));
+        break;
+      }
+      case CLEAR: {
+        cachedBy.clear();
+        sendInvalidation(cachingClients, null);
+        break;
+      }
+      default:
+        break;
+    }
+  }
+
+  private void sendInvalidation(Set<ClientDescriptor> clients, Collection<Object> keys) {
+    InvalidationResponse invalidation = new InvalidationResponse(keys);
+    for (ClientDescriptor client : clients) {
+      try {
+        communicator.sendNoResponse(client, invalidation);
+      } catch (MessageCodecException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
   @Override
   public void createNew() {
   }
@@ -18,22 +18,24 @@
 package org.terracotta.entity.map.server;
 
 
+import com.tc.spi.BufferSyncMessageCodec;
 import org.terracotta.entity.MessageCodecException;
 import org.terracotta.entity.SyncMessageCodec;
 import org.terracotta.entity.map.common.MapOperation;
+import org.terracotta.entity.map.common.PrimitiveCodec;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 
 
-class ClusteredMapSyncCodec implements SyncMessageCodec<MapOperation> {
+class ClusteredMapSyncCodec implements SyncMessageCodec<MapOperation>, BufferSyncMessageCodec<MapOperation> {
     @Override
     public byte[] encode(int concurrencyKey, MapOperation message) throws MessageCodecException {
         // Note that we only expect that a sync will operate on SYNC operations.
@@ -43,23 +45,39 @@ class ClusteredMapSyncCodec implements SyncMessageCodec<MapOperation> {
 
         SyncOperation operation = (SyncOperation)message;
         try {
-            ByteArrayOutputStream raw = new ByteArrayOutputStream();
-            ObjectOutputStream out = new ObjectOutputStream(raw);
-            Map<Object, Object> elements = operation.getObjectMap();
-            for (Map.Entry<Object, Object> next : elements.entrySet()) {
-                out.writeObject(next.getKey());
-                out.writeObject(next.getValue());
+            return PrimitiveCodec.encode(operation.getObjectMap());
+        } catch (IOException ioe) {
+            throw new MessageCodecException("io error", ioe);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public MapOperation decode(int concurrencyKey, ByteBuffer payload) throws MessageCodecException {
+        try {
+            DataInput input = PrimitiveCodec.openInput(payload);
+            if (input instanceof ObjectInputStream) {
+                byte[] legacy = new byte[payload.remaining()];
+                payload.duplicate().get(legacy);
+                return decode(concurrencyKey, legacy);
             }
-            out.close();
-            byte[] bytes = raw.toByteArray();
-            return bytes;
+            return new SyncOperation(concurrencyKey, (Map<Object, Object>) PrimitiveCodec.readFrom(input));
         } catch (IOException ioe) {
             throw new MessageCodecException("io error", ioe);
         }
     }
 
+    @SuppressWarnings("unchecked")
     @Override
     public MapOperation decode(int concurrencyKey, byte[] payload) throws MessageCodecException {
+        if (!PrimitiveCodec.isSerializationStream(payload)) {
+            try {
+                return new SyncOperation(concurrencyKey, (Map<Object, Object>) PrimitiveCodec.decode(payload));
+            } catch (IOException ioe) {
+                throw new MessageCodecException("io error", ioe);
+            }
+        }
+        // payload from a server still writing the serialization stream format
         try {
             InputStream is = new ByteArrayInputStream(payload);
             ObjectInputStream dis = new ObjectInputStream(is);
@@ -17,12 +17,14 @@
  */
 package org.terracotta.entity.map.server;
 
+import org.terracotta.entity.map.common.MapConfig;
+
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -31,12 +33,34 @@ import java.util.stream.Collectors;
 public class CompoundMap<K, V> implements Map<K, V> {
   
   private final List<Map<K,V>> segments;
-  private static final int MIXER = 31;
+  private final Supplier<Map<K,V>> segmentFactory;
 
+  @SuppressWarnings("unchecked")
   public CompoundMap(int concurrency) {
+    this(concurrency, ()->(Map<K, V>) new HashOrderedMap());
+  }
+
+  /**
+   * @param segmentFactory makes the segments, they must be {@link HashOrderedSegment}s for the map to be paged
+   */
+  public CompoundMap(int concurrency, Supplier<Map<K,V>> segmentFactory) {
+    this.segmentFactory = segmentFactory;
     this.segments = new ArrayList<>(concurrency);
     for (int x=0;x<concurrency;x++) {
-      segments.add(new HashMap<>());
+      segments.add(segmentFactory.get());
+    }
+  }
+
+  /**
+   * A map stored as the configuration asks, on heap or split evenly across off-heap segments.
+   */
+  public static CompoundMap<Object, Object> create(MapConfig config) {
+    int concurrency = config.getConcurrency();
+    long offHeapBytes = config.getOffHeapBytes();
+    if (offHeapBytes > 0) {
+      return new CompoundMap<>(concurrency, ()->new OffHeapSegment(offHeapBytes / concurrency));
+    } else {
+      return new CompoundMap<>(concurrency);
     }
   }
 
@@ -105,7 +129,7 @@ public class CompoundMap<K, V> implements Map<K, V> {
   }
   
   public static int segment(Object key, int segments) {
-    return Math.abs(key.hashCode() * MIXER) % segments;
+    return MapConfig.segment(key, segments);
   }
   
   public Map<K, V> mapForSegment(int seg) {
@@ -115,11 +139,13 @@ public class CompoundMap<K, V> implements Map<K, V> {
     return segments.get(seg - 1);
   }
   
-  public Map<K, V> putMapForSegment(int seg, Map map) {
+  public Map<K, V> putMapForSegment(int seg, Map<K, V> map) {
     if (seg < 1 || seg > segments.size()) {
       throw new IllegalArgumentException();
     }
-    return segments.set(seg - 1, map);
+    Map<K, V> segment = segmentFactory.get();
+    segment.putAll(map);
+    return segments.set(seg - 1, segment);
   }
   
   public int concurrency() {
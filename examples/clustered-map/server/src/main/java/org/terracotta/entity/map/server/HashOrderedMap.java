@@ -0,0 +1,129 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.terracotta.entity.map.server;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * A heap segment of a {@link CompoundMap}, a hash map whose keys are sorted by hash when it is paged.
+ */
+class HashOrderedMap extends AbstractMap<Object, Object> implements HashOrderedSegment {
+
+  private final Map<Object, Object> entries = new HashMap<>();
+  private final SortedHashes sorted = new SortedHashes();
+
+  @Override
+  public int size() {
+    return entries.size();
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return entries.containsKey(key);
+  }
+
+  @Override
+  public boolean containsValue(Object value) {
+    return entries.containsValue(value);
+  }
+
+  @Override
+  public Object get(Object key) {
+    return entries.get(key);
+  }
+
+  @Override
+  public Object put(Object key, Object value) {
+    int size = entries.size();
+    Object old = entries.put(key, value);
+    if (entries.size() != size) {
+      sorted.invalidate();
+    }
+    return old;
+  }
+
+  @Override
+  public Object remove(Object key) {
+    if (!entries.containsKey(key)) {
+      return null;
+    }
+    sorted.invalidate();
+    return entries.remove(key);
+  }
+
+  @Override
+  public void clear() {
+    entries.clear();
+    sorted.invalidate();
+  }
+
+  @Override
+  public Set<Entry<Object, Object>> entrySet() {
+    return new AbstractSet<Entry<Object, Object>>() {
+      @Override
+      public Iterator<Entry<Object, Object>> iterator() {
+        Iterator<Entry<Object, Object>> iterator = entries.entrySet().iterator();
+        return new Iterator<Entry<Object, Object>>() {
+          @Override
+          public boolean hasNext() {
+            return iterator.hasNext();
+          }
+
+          @Override
+          public Entry<Object, Object> next() {
+            return iterator.next();
+          }
+
+          @Override
+          public void remove() {
+            iterator.remove();
+            sorted.invalidate();
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return entries.size();
+      }
+    };
+  }
+
+  @Override
+  public Integer higherHash(long after) {
+    return sortedHashes().higher(after);
+  }
+
+  @Override
+  public void forEachWithHash(int hash, BiConsumer<Object, Object> action) {
+    sortedHashes().forEachKey(hash, key -> action.accept(key, entries.get(key)));
+  }
+
+  private SortedHashes sortedHashes() {
+    if (sorted.isStale()) {
+      sorted.sort(entries.keySet().toArray());
+    }
+    return sorted;
+  }
+}
@@ -0,0 +1,37 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.terracotta.entity.map.server;
+
+import java.util.function.BiConsumer;
+
+/**
+ * A segment of a {@link CompoundMap} that walks its keys in hash order, so consecutive pages of it are cut without
+ * scanning it again unless keys were added or removed in between.
+ */
+interface HashOrderedSegment {
+
+  /**
+   * @return the lowest key hash above {@code after}, null when there is none
+   */
+  Integer higherHash(long after);
+
+  /**
+   * Pass every entry whose key has the given hash to the action.
+   */
+  void forEachWithHash(int hash, BiConsumer<Object, Object> action);
+}
@@ -21,8 +21,10 @@ import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import org.terracotta.entity.ConcurrencyStrategy;
+import org.terracotta.entity.map.common.BulkOperation;
 import org.terracotta.entity.map.common.KeyedOperation;
 import org.terracotta.entity.map.common.MapOperation;
+import org.terracotta.entity.map.common.PageOperation;
 
 /**
  *
@@ -42,16 +44,40 @@ public class MapConcurrencyStrategy implements ConcurrencyStrategy<MapOperation>
       case PUT_IF_ABSENT:
       case PUT_IF_PRESENT:
       case GET:
+      case CACHED_GET:
       case CONDITIONAL_REMOVE:
       case CONDITIONAL_REPLACE:
       case CONTAINS_KEY:
       case REMOVE:
         return CompoundMap.segment(((KeyedOperation)operation).getKey().hashCode(), concurrency);
+      case GET_ALL:
+      case PUT_ALL:
+      case REMOVE_ALL:
+        return bulkKey((BulkOperation) operation);
+      case PAGE:
+        return ((PageOperation) operation).getSegment();
       default:
         return ConcurrencyStrategy.MANAGEMENT_KEY;
     }
   }
 
+  /**
+   * Bulk operations split by segment on the client run on that segment's key, any other bulk operation needs the
+   * whole map.
+   */
+  private int bulkKey(BulkOperation operation) {
+    int key = -1;
+    for (Object next : operation.getKeys()) {
+      int segment = CompoundMap.segment(next.hashCode(), concurrency);
+      if (key < 0) {
+        key = segment;
+      } else if (key != segment) {
+        return ConcurrencyStrategy.MANAGEMENT_KEY;
+      }
+    }
+    return key < 0 ? ConcurrencyStrategy.MANAGEMENT_KEY : key;
+  }
+
   @Override
   public Set<Integer> getKeysForSynchronization() {
     return IntStream.range(1, concurrency+1).mapToObj(Integer::valueOf).collect(Collectors.toSet());
@@ -36,6 +36,7 @@ public class MapExecutionStrategy implements ExecutionStrategy<MapOperation> {
       case PUT_IF_ABSENT:
       case PUT_IF_PRESENT:
       case REMOVE:
+      case REMOVE_ALL:
         return Location.ALL;
       default:
         return Location.ACTIVE;
@@ -0,0 +1,444 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.terracotta.entity.map.server;
+
+import org.terracotta.entity.map.common.PrimitiveCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * A segment of a {@link CompoundMap} holding its keys and values serialized in a direct buffer.  Records are appended
+ * to the buffer, replaced and removed records are reclaimed by compacting it in place when it fills up, and the buffer
+ * is only reallocated to grow up to the configured capacity.  Live records may fill all but a sixteenth of the
+ * capacity, the rest is slack so that each compaction of a full buffer frees at least that much.  Keys are found through an open-addressing index of key hashes and record offsets,
+ * which is also sorted into a primitive array for paging, so the heap holds a few ints per entry rather than the
+ * entries.
+ * <p>
+ * Keys compare by their encoded form, lookups return freshly decoded copies.
+ */
+class OffHeapSegment extends AbstractMap<Object, Object> implements HashOrderedSegment {
+
+  private static final int INITIAL_BYTES = 64 * 1024;
+  private static final int INITIAL_SLOTS = 16;
+  private static final int EMPTY = -1;
+  // [byte live][int hash][int key length][int value length][key][value]
+  private static final int HEADER = 13;
+  private static final int SLACK_RATIO = 16;
+  private static final int MOVE_CHUNK = 8 * 1024;
+
+  private final int maxBytes;
+  private final int maxLiveBytes;
+  private ByteBuffer data;
+  private int tail;
+  private int garbage;
+  private int[] hashes = new int[INITIAL_SLOTS];
+  private int[] offsets = new int[INITIAL_SLOTS];
+  private final SortedHashes sorted = new SortedHashes();
+  private int size;
+  private int compactions;
+
+  private final ByteArrayOutputStream scratch = new ByteArrayOutputStream();
+  private final DataOutputStream scratchOut = new DataOutputStream(scratch);
+
+  OffHeapSegment(long capacity) {
+    if (capacity <= HEADER) {
+      throw new IllegalArgumentException("off-heap segment capacity too small: " + capacity);
+    }
+    this.maxBytes = (int) Math.min(capacity, Integer.MAX_VALUE - 8);
+    this.maxLiveBytes = maxBytes - maxBytes / SLACK_RATIO;
+    this.data = ByteBuffer.allocateDirect(Math.min(maxBytes, INITIAL_BYTES));
+    Arrays.fill(offsets, EMPTY);
+  }
+
+  @Override
+  public synchronized int size() {
+    return size;
+  }
+
+  @Override
+  public synchronized boolean containsKey(Object key) {
+    return find(key.hashCode(), encode(key)) >= 0;
+  }
+
+  @Override
+  public synchronized Object get(Object key) {
+    int slot = find(key.hashCode(), encode(key));
+    return slot < 0 ? null : readValue(offsets[slot]);
+  }
+
+  @Override
+  public synchronized Object put(Object key, Object value) {
+    int hash = key.hashCode();
+    byte[] keyBytes = encode(key);
+    byte[] valueBytes = encode(value);
+    int slot = find(hash, keyBytes);
+    Object old = slot >= 0 ? readValue(offsets[slot]) : null;
+    int length = HEADER + keyBytes.length + valueBytes.length;
+    long live = (long) tail - garbage + length - (slot >= 0 ? end(offsets[slot]) - offsets[slot] : 0);
+    if (live > maxLiveBytes) {
+      throw new IllegalStateException("Off-heap segment is full: " + live + " bytes needed, capacity " + maxBytes);
+    }
+    if (slot >= 0) {
+      release(offsets[slot]);
+    }
+    if ((long) tail + length > data.capacity()) {
+      compact(live);
+    }
+    int offset = append(hash, keyBytes, valueBytes);
+    if (slot >= 0) {
+      offsets[slot] = offset;
+    } else {
+      if ((size + 1) * 2 > offsets.length) {
+        rehash(offsets.length * 2);
+      }
+      slot = ~find(hash, keyBytes);
+      hashes[slot] = hash;
+      offsets[slot] = offset;
+      sorted.invalidate();
+      size++;
+    }
+    return old;
+  }
+
+  @Override
+  public synchronized Object remove(Object key) {
+    int slot = find(key.hashCode(), encode(key));
+    if (slot < 0) {
+      return null;
+    }
+    Object old = readValue(offsets[slot]);
+    release(offsets[slot]);
+    sorted.invalidate();
+    deleteSlot(slot);
+    return old;
+  }
+
+  @Override
+  public synchronized void clear() {
+    Arrays.fill(offsets, EMPTY);
+    sorted.invalidate();
+    size = 0;
+    tail = 0;
+    garbage = 0;
+    compactions++;
+  }
+
+  synchronized int getCompactionCount() {
+    return compactions;
+  }
+
+  @Override
+  public Set<Entry<Object, Object>> entrySet() {
+    return new AbstractSet<Entry<Object, Object>>() {
+      @Override
+      public Iterator<Entry<Object, Object>> iterator() {
+        return new RecordIterator();
+      }
+
+      @Override
+      public int size() {
+        return OffHeapSegment.this.size();
+      }
+    };
+  }
+
+  @Override
+  public synchronized Integer higherHash(long after) {
+    if (sorted.isStale()) {
+      int[] collected = sorted.buffer(size);
+      int count = 0;
+      for (int slot = 0; slot < offsets.length; slot++) {
+        if (offsets[slot] != EMPTY) {
+          collected[count++] = hashes[slot];
+        }
+      }
+      sorted.sort(collected, count);
+    }
+    return sorted.higher(after);
+  }
+
+  /**
+   * Keys sharing a hash share a home slot, they all sit in its probe sequence.
+   */
+  @Override
+  public synchronized void forEachWithHash(int hash, BiConsumer<Object, Object> action) {
+    int mask = offsets.length - 1;
+    for (int slot = mix(hash) & mask; offsets[slot] != EMPTY; slot = (slot + 1) & mask) {
+      if (hashes[slot] == hash) {
+        action.accept(readKey(offsets[slot]), readValue(offsets[slot]));
+      }
+    }
+  }
+
+  /**
+   * Walks the records in the order they were written, skipping released ones.
+   */
+  private class RecordIterator implements Iterator<Entry<Object, Object>> {
+    private int position;
+    private int expectedCompactions;
+    private Object lastKey;
+
+    RecordIterator() {
+      synchronized (OffHeapSegment.this) {
+        this.expectedCompactions = compactions;
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      synchronized (OffHeapSegment.this) {
+        checkCompactions();
+        while (position < tail && data.get(position) == 0) {
+          position = end(position);
+        }
+        return position < tail;
+      }
+    }
+
+    @Override
+    public Entry<Object, Object> next() {
+      synchronized (OffHeapSegment.this) {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        lastKey = readKey(position);
+        Object value = readValue(position);
+        position = end(position);
+        return new SimpleImmutableEntry<>(lastKey, value);
+      }
+    }
+
+    @Override
+    public void remove() {
+      synchronized (OffHeapSegment.this) {
+        if (lastKey == null) {
+          throw new IllegalStateException();
+        }
+        checkCompactions();
+        OffHeapSegment.this.remove(lastKey);
+        lastKey = null;
+      }
+    }
+
+    private void checkCompactions() {
+      if (expectedCompactions != compactions) {
+        throw new ConcurrentModificationException();
+      }
+    }
+  }
+
+  private byte[] encode(Object o) {
+    scratch.reset();
+    try {
+      PrimitiveCodec.writeTo(scratchOut, o);
+      scratchOut.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return scratch.toByteArray();
+  }
+
+  private Object decode(int position, int length) {
+    byte[] bytes = new byte[length];
+    ByteBuffer view = data.duplicate();
+    view.position(position);
+    view.get(bytes);
+    try {
+      return PrimitiveCodec.readFrom(new DataInputStream(new ByteArrayInputStream(bytes)));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private Object readKey(int offset) {
+    return decode(offset + HEADER, data.getInt(offset + 5));
+  }
+
+  private Object readValue(int offset) {
+    return decode(offset + HEADER + data.getInt(offset + 5), data.getInt(offset + 9));
+  }
+
+  private int end(int offset) {
+    return offset + HEADER + data.getInt(offset + 5) + data.getInt(offset + 9);
+  }
+
+  private static int mix(int hash) {
+    int h = hash * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * @return the slot holding the key, or the complement of the empty slot where it would go
+   */
+  private int find(int hash, byte[] keyBytes) {
+    int mask = offsets.length - 1;
+    int slot = mix(hash) & mask;
+    while (offsets[slot] != EMPTY) {
+      if (hashes[slot] == hash && keyEquals(offsets[slot], keyBytes)) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return ~slot;
+  }
+
+  private boolean keyEquals(int offset, byte[] keyBytes) {
+    if (data.getInt(offset + 5) != keyBytes.length) {
+      return false;
+    }
+    int start = offset + HEADER;
+    for (int i = 0; i < keyBytes.length; i++) {
+      if (data.get(start + i) != keyBytes[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Backward shift deletion, keeps probe sequences intact without tombstones.
+   */
+  private void deleteSlot(int slot) {
+    int mask = offsets.length - 1;
+    int hole = slot;
+    int next = slot;
+    while (true) {
+      next = (next + 1) & mask;
+      if (offsets[next] == EMPTY) {
+        break;
+      }
+      int home = mix(hashes[next]) & mask;
+      boolean stays = hole <= next ? (hole < home && home <= next) : (hole < home || home <= next);
+      if (!stays) {
+        hashes[hole] = hashes[next];
+        offsets[hole] = offsets[next];
+        hole = next;
+      }
+    }
+    offsets[hole] = EMPTY;
+    size--;
+  }
+
+  private void rehash(int slots) {
+    int[] oldHashes = hashes;
+    int[] oldOffsets = offsets;
+    hashes = new int[slots];
+    offsets = new int[slots];
+    Arrays.fill(offsets, EMPTY);
+    int mask = slots - 1;
+    for (int i = 0; i < oldOffsets.length; i++) {
+      if (oldOffsets[i] != EMPTY) {
+        int slot = mix(oldHashes[i]) & mask;
+        while (offsets[slot] != EMPTY) {
+          slot = (slot + 1) & mask;
+        }
+        hashes[slot] = oldHashes[i];
+        offsets[slot] = oldOffsets[i];
+      }
+    }
+  }
+
+  private void release(int offset) {
+    data.put(offset, (byte) 0);
+    garbage += end(offset) - offset;
+  }
+
+  /**
+   * Write a record at the tail, the caller has made room for it.
+   */
+  private int append(int hash, byte[] keyBytes, byte[] valueBytes) {
+    int offset = tail;
+    ByteBuffer view = data.duplicate();
+    view.position(offset);
+    view.put((byte) 1).putInt(hash).putInt(keyBytes.length).putInt(valueBytes.length).put(keyBytes).put(valueBytes);
+    tail = view.position();
+    return offset;
+  }
+
+  /**
+   * Move the live records to the start of the buffer, into a larger buffer while they would fill more than three
+   * quarters of it.  Once the buffer is at its capacity this frees at least the slack kept above the live records.
+   */
+  private void compact(long needed) {
+    long capacity = data.capacity();
+    while (capacity < maxBytes && needed > capacity * 3 / 4) {
+      capacity = Math.min(maxBytes, capacity * 2);
+    }
+    ByteBuffer target = capacity > data.capacity() ? ByteBuffer.allocateDirect((int) capacity) : data;
+    byte[] chunk = new byte[MOVE_CHUNK];
+    int into = 0;
+    for (int from = 0; from < tail; ) {
+      int next = end(from);
+      if (data.get(from) != 0) {
+        if (target != data || into != from) {
+          relocate(from, into);
+          move(target, from, into, next - from, chunk);
+        }
+        into += next - from;
+      }
+      from = next;
+    }
+    tail = into;
+    garbage = 0;
+    data = target;
+    compactions++;
+  }
+
+  /**
+   * Point the slot of the live record at {@code from} to {@code into}.  Records only move towards the start so no
+   * other slot can hold {@code from} yet.
+   */
+  private void relocate(int from, int into) {
+    int mask = offsets.length - 1;
+    int slot = mix(data.getInt(from + 1)) & mask;
+    while (offsets[slot] != from) {
+      slot = (slot + 1) & mask;
+    }
+    offsets[slot] = into;
+  }
+
+  /**
+   * Copy forward in chunks, each read completely before it is written, so moving left within one buffer is safe.
+   */
+  private void move(ByteBuffer target, int from, int into, int length, byte[] chunk) {
+    ByteBuffer source = data.duplicate();
+    ByteBuffer destination = target.duplicate();
+    destination.position(into);
+    for (int done = 0; done < length; ) {
+      int step = Math.min(chunk.length, length - done);
+      source.position(from + done);
+      source.get(chunk, 0, step);
+      destination.put(chunk, 0, step);
+      done += step;
+    }
+  }
+}
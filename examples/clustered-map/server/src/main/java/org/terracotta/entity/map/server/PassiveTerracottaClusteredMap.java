@@ -20,6 +20,7 @@ package org.terracotta.entity.map.server;
 import java.util.Map;
 import org.terracotta.entity.InvokeContext;
 import org.terracotta.entity.PassiveServerEntity;
+import org.terracotta.entity.map.common.MapConfig;
 import org.terracotta.entity.map.common.MapOperation;
 import org.terracotta.entity.map.common.MapResponse;
 
@@ -29,6 +30,7 @@ import org.terracotta.entity.map.common.PutAllOperation;
 import org.terracotta.entity.map.common.PutIfAbsentOperation;
 import org.terracotta.entity.map.common.PutIfPresentOperation;
 import org.terracotta.entity.map.common.PutOperation;
+import org.terracotta.entity.map.common.RemoveAllOperation;
 import org.terracotta.entity.map.common.RemoveOperation;
 
 /**
@@ -41,9 +43,13 @@ class PassiveTerracottaClusteredMap implements PassiveServerEntity<MapOperation,
   private final CompoundMap<Object, Object> map;
 
   public PassiveTerracottaClusteredMap(String name, int concurrency, Map<String, CompoundMap<Object, Object>> root) {
-    this.name = name;
+    this(new MapConfig(concurrency, name), root);
+  }
+
+  public PassiveTerracottaClusteredMap(MapConfig config, Map<String, CompoundMap<Object, Object>> root) {
+    this.name = config.getName();
     this.root = root;
-    this.map = root.computeIfAbsent(name, v -> new CompoundMap<>(concurrency));
+    this.map = root.computeIfAbsent(name, v -> CompoundMap.create(config));
   }
 
   @Override
@@ -72,6 +78,10 @@ class PassiveTerracottaClusteredMap implements PassiveServerEntity<MapOperation,
         // There is no response from a put all.
         break;
       }
+      case REMOVE_ALL: {
+        ((RemoveAllOperation) input).getKeys().forEach(map::remove);
+        break;
+      }
       case PUT_IF_ABSENT: {
         PutIfAbsentOperation operation = (PutIfAbsentOperation) input;
         map.putIfAbsent(operation.getKey(), operation.getValue());
@@ -0,0 +1,115 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.terracotta.entity.map.server;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.Consumer;
+
+/**
+ * The key hashes of a segment in sorted order for paging.  The hashes are a primitive array that is only sorted again
+ * for a page after keys were added or removed, replacing values leaves it as is.  Heap segments keep their keys in a
+ * parallel array since they have no other way to find the keys of a hash.
+ */
+final class SortedHashes {
+
+  private static final int[] NONE = new int[0];
+  private static final Comparator<Object> BY_HASH = Comparator.comparingInt(Object::hashCode);
+
+  private int[] hashes = NONE;
+  private Object[] keys;
+  private int count;
+  private boolean stale;
+
+  /**
+   * Keys were added or removed, the next page sorts the hashes again.
+   */
+  void invalidate() {
+    stale = true;
+    keys = null;
+  }
+
+  boolean isStale() {
+    return stale;
+  }
+
+  /**
+   * An array of at least {@code length} ints to collect the hashes into before {@link #sort(int[], int)}.
+   */
+  int[] buffer(int length) {
+    return hashes.length >= length ? hashes : new int[length];
+  }
+
+  /**
+   * Sort the first {@code length} collected hashes, one for each key.
+   */
+  void sort(int[] collected, int length) {
+    Arrays.sort(collected, 0, length);
+    hashes = collected;
+    keys = null;
+    count = length;
+    stale = false;
+  }
+
+  /**
+   * Sort the keys themselves, their hashes follow them.
+   */
+  void sort(Object[] collected) {
+    Arrays.sort(collected, BY_HASH);
+    int[] sorted = buffer(collected.length);
+    for (int i = 0; i < collected.length; i++) {
+      sorted[i] = collected[i].hashCode();
+    }
+    hashes = sorted;
+    keys = collected;
+    count = collected.length;
+    stale = false;
+  }
+
+  /**
+   * @return the lowest hash above {@code after}, null when there is none; cursors are longs so the first page can
+   * start below every int
+   */
+  Integer higher(long after) {
+    int index = firstAbove(after);
+    return index < count ? hashes[index] : null;
+  }
+
+  /**
+   * Pass every sorted key with the given hash to the action, only for hashes sorted from keys.
+   */
+  void forEachKey(int hash, Consumer<Object> action) {
+    for (int i = firstAbove((long) hash - 1); i < count && hashes[i] == hash; i++) {
+      action.accept(keys[i]);
+    }
+  }
+
+  private int firstAbove(long after) {
+    int low = 0;
+    int high = count;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (hashes[mid] <= after) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+}
@@ -19,6 +19,7 @@ package org.terracotta.entity.map.server;
 
 import java.util.Map;
 import org.terracotta.entity.ActiveServerEntity;
+import org.terracotta.entity.ClientCommunicator;
 import org.terracotta.entity.ConcurrencyStrategy;
 import org.terracotta.entity.EntityServerService;
 import org.terracotta.entity.ExecutionStrategy;
@@ -27,7 +28,6 @@ import org.terracotta.entity.PassiveServerEntity;
 import org.terracotta.entity.ServiceException;
 import org.terracotta.entity.ServiceRegistry;
 import org.terracotta.entity.SyncMessageCodec;
-import org.terracotta.entity.map.common.ClusteredMapCodec;
 import org.terracotta.entity.map.common.MapConfig;
 import org.terracotta.entity.map.common.MapOperation;
 import org.terracotta.entity.map.common.MapResponse;
@@ -50,7 +50,14 @@ public class TerracottaClusteredMapService implements EntityServerService<MapOpe
   public ActiveServerEntity<MapOperation, MapResponse> createActiveEntity(ServiceRegistry registry, byte[] configuration) {
     try {
       MapConfig config = new MapConfig(configuration);
-      return new ActiveTerracottaClusteredMap(config.getName(), config.getConcurrency(), registry.getService(()->Map.class));
+      ClientCommunicator communicator;
+      try {
+        communicator = registry.getService(()->ClientCommunicator.class);
+      } catch (ServiceException notAvailable) {
+        // cached gets are answered as plain gets, clients only cache values the server can invalidate
+        communicator = null;
+      }
+      return new ActiveTerracottaClusteredMap(config, registry.getService(()->Map.class), communicator);
     } catch (ServiceException se) {
       return null;
     }
@@ -60,7 +67,7 @@ public class TerracottaClusteredMapService implements EntityServerService<MapOpe
   public PassiveServerEntity<MapOperation, MapResponse> createPassiveEntity(ServiceRegistry registry, byte[] configuration) {
     try {
       MapConfig config = new MapConfig(configuration);
-      return new PassiveTerracottaClusteredMap(config.getName(), config.getConcurrency(), registry.getService(()->Map.class));
+      return new PassiveTerracottaClusteredMap(config, registry.getService(()->Map.class));
     } catch (ServiceException se) {
       return null;
     }
@@ -73,7 +80,7 @@ public class TerracottaClusteredMapService implements EntityServerService<MapOpe
 
   @Override
   public MessageCodec<MapOperation, MapResponse> getMessageCodec() {
-    return new ClusteredMapCodec();
+    return new ServerClusteredMapCodec();
   }
 
   @Override
@@ -0,0 +1,237 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.terracotta.entity.map.server;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+import org.terracotta.entity.ActiveInvokeContext;
+import org.terracotta.entity.ClientCommunicator;
+import org.terracotta.entity.ClientDescriptor;
+import org.terracotta.entity.map.common.CachedGetOperation;
+import org.terracotta.entity.map.common.CachedValueResponse;
+import org.terracotta.entity.map.common.GetAllOperation;
+import org.terracotta.entity.map.common.InvalidationResponse;
+import org.terracotta.entity.map.common.MapConfig;
+import org.terracotta.entity.map.common.MapResponse;
+import org.terracotta.entity.map.common.MapValueResponse;
+import org.terracotta.entity.map.common.PageOperation;
+import org.terracotta.entity.map.common.PageResponse;
+import org.terracotta.entity.map.common.PutAllOperation;
+import org.terracotta.entity.map.common.PutOperation;
+import org.terracotta.entity.map.common.RemoveAllOperation;
+import org.terracotta.entity.map.common.RemoveOperation;
+import org.terracotta.entity.map.common.SizeOperation;
+import org.terracotta.entity.map.common.SizeResponse;
+import org.terracotta.entity.map.common.ValueMapResponse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+public class ActiveTerracottaClusteredMapTest {
+
+  @Test
+  public void testCachedGetWithoutCommunicatorIsNotCacheable() throws Exception {
+    ActiveTerracottaClusteredMap map = new ActiveTerracottaClusteredMap("map", 4, new HashMap<>());
+    map.invokeActive(null, new PutOperation("a", "1"));
+    MapResponse response = map.invokeActive(null, new CachedGetOperation("a"));
+    assertFalse(response instanceof CachedValueResponse);
+    assertEquals("1", ((MapValueResponse) response).getValue());
+  }
+
+  @Test
+  public void testCachedGetRegistersKeyForInvalidation() throws Exception {
+    List<Object[]> sent = new ArrayList<>();
+    ClientCommunicator communicator = fake(ClientCommunicator.class, sent);
+    ClientDescriptor reader = fake(ClientDescriptor.class, null);
+    ActiveTerracottaClusteredMap map = new ActiveTerracottaClusteredMap(new MapConfig(4, "map"), new HashMap<>(), communicator);
+    map.invokeActive(context(reader), new PutOperation("a", "1"));
+    MapResponse response = map.invokeActive(context(reader), new CachedGetOperation("a"));
+    assertTrue(response instanceof CachedValueResponse);
+    assertEquals("1", ((MapValueResponse) response).getValue());
+    assertTrue(sent.isEmpty());
+
+    map.invokeActive(context(fake(ClientDescriptor.class, null)), new PutOperation("a", "2"));
+    assertEquals(1, sent.size());
+    assertEquals(reader, sent.get(0)[0]);
+    assertEquals(Collections.singletonList("a"), ((InvalidationResponse) sent.get(0)[1]).getKeys());
+
+    // the key is registered again only by the next cached get
+    map.invokeActive(context(reader), new PutOperation("a", "3"));
+    assertEquals(1, sent.size());
+  }
+
+  @Test
+  public void testBulkOperations() throws Exception {
+    ActiveTerracottaClusteredMap map = new ActiveTerracottaClusteredMap("map", 4, new HashMap<>());
+    Map<Object, Object> entries = new HashMap<>();
+    entries.put("a", 1);
+    entries.put("b", 2);
+    entries.put(3, "c");
+    map.invokeActive(null, new PutAllOperation(entries));
+    Map<?, ?> values = ((ValueMapResponse) map.invokeActive(null, new GetAllOperation(Arrays.asList("a", 3, "missing")))).getValues();
+    assertEquals(2, values.size());
+    assertEquals(1, values.get("a"));
+    assertEquals("c", values.get(3));
+    map.invokeActive(null, new RemoveAllOperation(Arrays.asList("a", "missing")));
+    assertEquals(2L, ((SizeResponse) map.invokeActive(null, new SizeOperation())).getSize());
+  }
+
+  @Test
+  public void testPagesVisitEveryEntryOnce() throws Exception {
+    for (long offHeapBytes : new long[] {0, 4 * 1024 * 1024}) {
+      ActiveTerracottaClusteredMap map = new ActiveTerracottaClusteredMap(new MapConfig(4, "map", offHeapBytes), new HashMap<>(), null);
+      Map<Object, Object> expected = new HashMap<>();
+      Random r = new Random(7);
+      for (int i = 0; i < 5000; i++) {
+        Object key = r.nextBoolean() ? (Object) r.nextInt() : (Object) Long.toString(r.nextLong(), 36);
+        expected.put(key, i);
+        map.invokeActive(null, new PutOperation(key, i));
+      }
+      for (int size : new int[] {1, 7, 1000, 100000}) {
+        Map<Object, Object> seen = new HashMap<>();
+        for (int segment = 0; segment < 4; segment++) {
+          for (PageResponse page : pages(map, segment, size, PageOperation.Kind.ENTRIES)) {
+            assertTrue(page.getKeys().size() <= size || sameHash(page.getKeys()));
+            for (int i = 0; i < page.getKeys().size(); i++) {
+              assertNull(seen.put(page.getKeys().get(i), page.getValues().get(i)));
+            }
+          }
+        }
+        assertEquals(expected, seen);
+      }
+    }
+  }
+
+  @Test
+  public void testKeysSharingAHashStayInOnePage() throws Exception {
+    for (long offHeapBytes : new long[] {0, 1024 * 1024}) {
+      ActiveTerracottaClusteredMap map = new ActiveTerracottaClusteredMap(new MapConfig(1, "map", offHeapBytes), new HashMap<>(), null);
+      List<String> colliding = Arrays.asList("AaAa", "AaBB", "BBAa", "BBBB");
+      for (String key : colliding) {
+        assertEquals(colliding.get(0).hashCode(), key.hashCode());
+        map.invokeActive(null, new PutOperation(key, key));
+      }
+      map.invokeActive(null, new PutOperation(Integer.MIN_VALUE, "min"));
+      map.invokeActive(null, new PutOperation(Integer.MAX_VALUE, "max"));
+
+      List<PageResponse> pages = pages(map, 0, 2, PageOperation.Kind.KEYS);
+      assertEquals(2, pages.size());
+      // the page bound falls on the shared hash, all of its keys come in that page
+      assertEquals(new HashSet<Object>(Arrays.asList(Integer.MIN_VALUE, "AaAa", "AaBB", "BBAa", "BBBB")), new HashSet<>(pages.get(0).getKeys()));
+      assertEquals(colliding.get(0).hashCode(), pages.get(0).getNext());
+      assertFalse(pages.get(0).isLast());
+      assertEquals(Collections.singletonList(Integer.MAX_VALUE), pages.get(1).getKeys());
+      assertEquals(Integer.MAX_VALUE, pages.get(1).getNext());
+      assertTrue(pages.get(1).isLast());
+    }
+  }
+
+  @Test
+  public void testPageOfEmptySegmentIsLast() throws Exception {
+    ActiveTerracottaClusteredMap map = new ActiveTerracottaClusteredMap("map", 1, new HashMap<>());
+    PageResponse page = (PageResponse) map.invokeActive(null, new PageOperation(0, Long.MIN_VALUE, 10, PageOperation.Kind.VALUES));
+    assertNull(page.getKeys());
+    assertTrue(page.getValues().isEmpty());
+    assertTrue(page.isLast());
+  }
+
+  @Test
+  public void testPagesFollowRemovals() throws Exception {
+    ActiveTerracottaClusteredMap map = new ActiveTerracottaClusteredMap("map", 1, new HashMap<>());
+    for (String key : Arrays.asList("AaAa", "AaBB", "BBAa", "BBBB", "x", "y")) {
+      map.invokeActive(null, new PutOperation(key, key));
+    }
+    map.invokeActive(null, new RemoveOperation("AaBB"));
+    map.invokeActive(null, new RemoveOperation("y"));
+    Set<Object> keys = new HashSet<>();
+    for (PageResponse page : pages(map, 0, 1, PageOperation.Kind.KEYS)) {
+      keys.addAll(page.getKeys());
+    }
+    assertEquals(new HashSet<Object>(Arrays.asList("AaAa", "BBAa", "BBBB", "x")), keys);
+  }
+
+  /**
+   * Every page of a segment up to and including the last one, as a client iterator reads them.
+   */
+  private static List<PageResponse> pages(ActiveTerracottaClusteredMap map, int segment, int size, PageOperation.Kind kind) throws Exception {
+    List<PageResponse> pages = new ArrayList<>();
+    long after = Long.MIN_VALUE;
+    PageResponse page;
+    do {
+      page = (PageResponse) map.invokeActive(null, new PageOperation(segment, after, size, kind));
+      pages.add(page);
+      after = page.getNext();
+    } while (!page.isLast());
+    return pages;
+  }
+
+  private static boolean sameHash(List<Object> keys) {
+    return keys.stream().mapToInt(Object::hashCode).distinct().count() == 1;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static ActiveInvokeContext<MapResponse> context(ClientDescriptor client) {
+    return (ActiveInvokeContext<MapResponse>) Proxy.newProxyInstance(ActiveTerracottaClusteredMapTest.class.getClassLoader(),
+        new Class<?>[] {ActiveInvokeContext.class}, (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getClientDescriptor":
+              return client;
+            case "equals":
+              return proxy == args[0];
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            default:
+              return null;
+          }
+        });
+  }
+
+  /**
+   * An implementation with identity equality, every other call is recorded in {@code calls} when it is given.
+   */
+  private static <T> T fake(Class<T> type, List<Object[]> calls) {
+    return type.cast(Proxy.newProxyInstance(ActiveTerracottaClusteredMapTest.class.getClassLoader(),
+        new Class<?>[] {type}, (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "equals":
+              return proxy == args[0];
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            case "toString":
+              return type.getSimpleName() + "@" + System.identityHashCode(proxy);
+            default:
+              if (calls != null) {
+                calls.add(args);
+              }
+              return null;
+          }
+        }));
+  }
+}
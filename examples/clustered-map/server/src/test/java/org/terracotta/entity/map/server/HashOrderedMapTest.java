@@ -0,0 +1,104 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.terracotta.entity.map.server;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+public class HashOrderedMapTest {
+
+  @Test
+  public void testIndexFollowsUpdates() {
+    HashOrderedMap map = new HashOrderedMap();
+    Map<Object, Object> expected = new HashMap<>();
+    Random r = new Random(11);
+    for (int x = 0; x < 20_000; x++) {
+      // few distinct hashes so most of them collide
+      Object key = r.nextBoolean() ? (Object) r.nextInt(300) : (Object) Long.valueOf(r.nextInt(300) + (((long) r.nextInt(4)) << 32));
+      if (r.nextInt(3) == 0) {
+        assertEquals(expected.remove(key), map.remove(key));
+      } else {
+        assertEquals(expected.put(key, x), map.put(key, x));
+      }
+    }
+    assertEquals(expected, map);
+    assertEquals(expected, inHashOrder(map));
+  }
+
+  @Test
+  public void testIteratorRemoveUpdatesIndex() {
+    HashOrderedMap map = new HashOrderedMap();
+    for (int i = 0; i < 100; i++) {
+      map.put(i, i);
+      map.put((long) i << 32 | i, i);
+    }
+    for (Iterator<Map.Entry<Object, Object>> it = map.entrySet().iterator(); it.hasNext(); ) {
+      if (it.next().getKey() instanceof Long) {
+        it.remove();
+      }
+    }
+    Map<Object, Object> ordered = inHashOrder(map);
+    assertEquals(100, ordered.size());
+    assertTrue(ordered.keySet().stream().allMatch(k -> k instanceof Integer));
+    map.clear();
+    assertNull(map.higherHash(Long.MIN_VALUE));
+  }
+
+  @Test
+  public void testChangesBetweenPagesAreSeen() {
+    HashOrderedMap map = new HashOrderedMap();
+    for (int i = 0; i < 10; i++) {
+      map.put(i, i);
+    }
+    assertEquals(Integer.valueOf(0), map.higherHash(Long.MIN_VALUE));
+    assertEquals(Integer.valueOf(5), map.higherHash(4));
+    // above the cursor, added and removed keys show up in the next page
+    map.put(1L << 32 | 6, "collides");
+    map.remove(8);
+    map.put(20, 20);
+    Map<Object, Object> seen = new HashMap<>();
+    map.forEachWithHash(7, seen::put);
+    assertEquals(2, seen.size());
+    assertEquals(Integer.valueOf(9), map.higherHash(7));
+    assertEquals(Integer.valueOf(20), map.higherHash(9));
+    assertNull(map.higherHash(20));
+  }
+
+  private static Map<Object, Object> inHashOrder(HashOrderedSegment segment) {
+    Map<Object, Object> entries = new HashMap<>();
+    long after = Long.MIN_VALUE;
+    for (Integer hash = segment.higherHash(after); hash != null; hash = segment.higherHash(after)) {
+      assertTrue(hash > after);
+      int expected = hash;
+      segment.forEachWithHash(hash, (k, v) -> {
+        assertEquals(expected, k.hashCode());
+        assertNull(entries.put(k, v));
+      });
+      after = hash;
+    }
+    return entries;
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.terracotta.entity.map.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.terracotta.entity.ConcurrencyStrategy;
+import org.terracotta.entity.map.common.ClearOperation;
+import org.terracotta.entity.map.common.GetAllOperation;
+import org.terracotta.entity.map.common.GetOperation;
+import org.terracotta.entity.map.common.MapConfig;
+import org.terracotta.entity.map.common.PageOperation;
+import org.terracotta.entity.map.common.PutAllOperation;
+import org.terracotta.entity.map.common.PutOperation;
+import org.terracotta.entity.map.common.RemoveAllOperation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+
+public class MapConcurrencyStrategyTest {
+
+  private static final int CONCURRENCY = 8;
+  private final MapConcurrencyStrategy strategy = new MapConcurrencyStrategy(CONCURRENCY);
+
+  @Test
+  public void testKeyedOperationsRunOnTheirSegment() {
+    for (int i = 0; i < 1000; i++) {
+      Object key = "key-" + i;
+      assertEquals(MapConfig.segment(key, CONCURRENCY), strategy.concurrencyKey(new GetOperation(key)));
+      assertEquals(MapConfig.segment(key, CONCURRENCY), strategy.concurrencyKey(new PutOperation(key, i)));
+    }
+  }
+
+  @Test
+  public void testBulkOperationsOnOneSegmentRunOnIt() {
+    for (Map.Entry<Integer, List<Object>> segment : keysBySegment(1000).entrySet()) {
+      List<Object> keys = segment.getValue();
+      int expected = strategy.concurrencyKey(new GetOperation(keys.get(0)));
+      assertEquals(segment.getKey().intValue(), expected);
+      assertEquals(expected, strategy.concurrencyKey(new GetAllOperation(keys)));
+      assertEquals(expected, strategy.concurrencyKey(new RemoveAllOperation(keys)));
+      assertEquals(expected, strategy.concurrencyKey(new PutAllOperation(toMap(keys))));
+    }
+  }
+
+  @Test
+  public void testBulkOperationsAcrossSegmentsRunOnManagementKey() {
+    Map<Integer, List<Object>> bySegment = keysBySegment(1000);
+    Integer nonZero = bySegment.keySet().stream().filter(s -> s != ConcurrencyStrategy.MANAGEMENT_KEY).findFirst().get();
+    Integer other = bySegment.keySet().stream().filter(s -> !s.equals(nonZero)).findFirst().get();
+    List<Object> mixed = new ArrayList<>(bySegment.get(nonZero));
+    mixed.add(bySegment.get(other).get(0));
+    assertNotEquals(ConcurrencyStrategy.MANAGEMENT_KEY, strategy.concurrencyKey(new GetAllOperation(bySegment.get(nonZero))));
+    // a putAll from a client that does not split by segment, it needs the whole map
+    assertEquals(ConcurrencyStrategy.MANAGEMENT_KEY, strategy.concurrencyKey(new PutAllOperation(toMap(mixed))));
+    assertEquals(ConcurrencyStrategy.MANAGEMENT_KEY, strategy.concurrencyKey(new GetAllOperation(mixed)));
+    assertEquals(ConcurrencyStrategy.MANAGEMENT_KEY, strategy.concurrencyKey(new RemoveAllOperation(mixed)));
+  }
+
+  @Test
+  public void testEmptyBulkOperationsRunOnManagementKey() {
+    assertEquals(ConcurrencyStrategy.MANAGEMENT_KEY, strategy.concurrencyKey(new GetAllOperation(Collections.emptyList())));
+    assertEquals(ConcurrencyStrategy.MANAGEMENT_KEY, strategy.concurrencyKey(new PutAllOperation(Collections.emptyMap())));
+  }
+
+  @Test
+  public void testOtherOperations() {
+    assertEquals(3, strategy.concurrencyKey(new PageOperation(3, Long.MIN_VALUE, 10, PageOperation.Kind.KEYS)));
+    assertEquals(ConcurrencyStrategy.MANAGEMENT_KEY, strategy.concurrencyKey(new ClearOperation()));
+  }
+
+  private static Map<Integer, List<Object>> keysBySegment(int count) {
+    Map<Integer, List<Object>> bySegment = new HashMap<>();
+    for (int i = 0; i < count; i++) {
+      Object key = i % 2 == 0 ? (Object) i : (Object) ("key-" + i);
+      bySegment.computeIfAbsent(MapConfig.segment(key, CONCURRENCY), s -> new ArrayList<>()).add(key);
+    }
+    assertEquals(CONCURRENCY, bySegment.size());
+    return bySegment;
+  }
+
+  private static Map<Object, Object> toMap(Collection<Object> keys) {
+    Map<Object, Object> map = new HashMap<>();
+    keys.forEach(k -> map.put(k, Arrays.asList(k)));
+    return map;
+  }
+}
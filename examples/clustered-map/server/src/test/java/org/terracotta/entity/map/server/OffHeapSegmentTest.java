@@ -0,0 +1,210 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.terracotta.entity.map.server;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+
+public class OffHeapSegmentTest {
+
+  @Test
+  public void testPutReplaceRemove() {
+    OffHeapSegment segment = new OffHeapSegment(1024 * 1024);
+    assertNull(segment.put("a", 1L));
+    assertNull(segment.put(2, "two"));
+    assertEquals(1L, segment.put("a", "one"));
+    assertEquals("one", segment.get("a"));
+    assertEquals("two", segment.get(2));
+    assertEquals(2, segment.size());
+    assertTrue(segment.containsKey(2));
+    assertEquals("two", segment.remove(2));
+    assertFalse(segment.containsKey(2));
+    assertNull(segment.remove(2));
+    assertEquals(1, segment.size());
+  }
+
+  @Test
+  public void testCompactionKeepsLiveRecords() {
+    OffHeapSegment segment = new OffHeapSegment(1024 * 1024);
+    Map<Object, Object> expected = new HashMap<>();
+    Random r = new Random(3);
+    for (int x = 0; x < 50_000; x++) {
+      Integer key = r.nextInt(2000);
+      if (r.nextInt(4) == 0) {
+        assertEquals(expected.remove(key), segment.remove(key));
+      } else {
+        String value = "value-" + x;
+        assertEquals(expected.put(key, value), segment.put(key, value));
+      }
+    }
+    assertEquals(expected, new HashMap<>(segment));
+    for (Map.Entry<Object, Object> e : expected.entrySet()) {
+      assertEquals(e.getValue(), segment.get(e.getKey()));
+    }
+  }
+
+  @Test
+  public void testHashOrderFollowsUpdates() {
+    OffHeapSegment segment = new OffHeapSegment(1024 * 1024);
+    Map<Object, Object> expected = new HashMap<>();
+    Random r = new Random(5);
+    for (int x = 0; x < 20_000; x++) {
+      // longs differing in the high word share a hash
+      Long key = r.nextInt(500) + (((long) r.nextInt(4)) << 32);
+      if (r.nextInt(3) == 0) {
+        assertEquals(expected.remove(key), segment.remove(key));
+      } else {
+        assertEquals(expected.put(key, x), segment.put(key, x));
+      }
+    }
+    Map<Object, Object> ordered = new HashMap<>();
+    long after = Long.MIN_VALUE;
+    for (Integer hash = segment.higherHash(after); hash != null; hash = segment.higherHash(after)) {
+      assertTrue(hash > after);
+      int current = hash;
+      segment.forEachWithHash(hash, (k, v) -> {
+        assertEquals(current, k.hashCode());
+        assertNull(ordered.put(k, v));
+      });
+      after = hash;
+    }
+    assertEquals(expected, ordered);
+    segment.clear();
+    assertNull(segment.higherHash(Long.MIN_VALUE));
+  }
+
+  @Test
+  public void testFullSegmentIsLeftIntact() {
+    OffHeapSegment segment = new OffHeapSegment(4096);
+    int stored = 0;
+    try {
+      while (true) {
+        segment.put(stored, "0123456789012345678901234567890123456789");
+        stored++;
+      }
+    } catch (IllegalStateException full) {
+      // expected
+    }
+    assertTrue(stored > 0);
+    assertEquals(stored, segment.size());
+    // a replacement that does not fit leaves the old value in place
+    String large = new String(new char[2048]).replace('\0', 'x');
+    try {
+      segment.put(0, large);
+      fail();
+    } catch (IllegalStateException full) {
+      // expected
+    }
+    assertEquals("0123456789012345678901234567890123456789", segment.get(0));
+    // the next compaction must still carry the record of the failed replacement
+    segment.remove(1);
+    segment.put(1, "0123456789012345678901234567890123456789");
+    for (int x = 0; x < stored; x++) {
+      assertEquals("0123456789012345678901234567890123456789", segment.get(x));
+    }
+    // freed space is reused, repeatedly replacing the same keys must not run out of room
+    for (int round = 0; round < 10; round++) {
+      for (int x = 0; x < stored; x++) {
+        segment.put(x, "9876543210987654321098765432109876543210");
+      }
+    }
+    for (int x = 0; x < stored / 2; x++) {
+      segment.remove(x);
+    }
+    assertEquals(stored - stored / 2, segment.size());
+    // the same keys so the records are as large as the removed ones, larger varint keys would need more room
+    for (int x = 0; x < stored / 2; x++) {
+      segment.put(x, "0123456789012345678901234567890123456789");
+    }
+    for (int x = 0; x < stored; x++) {
+      assertTrue(segment.containsKey(x));
+    }
+  }
+
+  @Test
+  public void testSteadyReplacementWhenFull() {
+    int capacity = 64 * 1024;
+    OffHeapSegment segment = new OffHeapSegment(capacity);
+    String value = "0123456789012345678901234567890123456789";
+    int stored = 0;
+    try {
+      while (true) {
+        segment.put(stored, value);
+        stored++;
+      }
+    } catch (IllegalStateException full) {
+      // expected
+    }
+    int before = segment.getCompactionCount();
+    int replacements = 100_000;
+    Random r = new Random(7);
+    for (int x = 0; x < replacements; x++) {
+      segment.put(r.nextInt(stored), value);
+    }
+    assertEquals(stored, segment.size());
+    // every compaction frees at least the slack, a sixteenth of the capacity
+    int record = (capacity - capacity / 16) / stored + 1;
+    long bound = (long) replacements * record / (capacity / 16) + 1;
+    assertTrue(segment.getCompactionCount() - before <= bound);
+  }
+
+  @Test
+  public void testIteratorRemove() {
+    OffHeapSegment segment = new OffHeapSegment(1024 * 1024);
+    for (int x = 0; x < 100; x++) {
+      segment.put(x, x);
+    }
+    Iterator<Map.Entry<Object, Object>> it = segment.entrySet().iterator();
+    int seen = 0;
+    while (it.hasNext()) {
+      Map.Entry<Object, Object> e = it.next();
+      assertEquals(e.getKey(), e.getValue());
+      if ((Integer) e.getKey() % 2 == 0) {
+        it.remove();
+      }
+      seen++;
+    }
+    assertEquals(100, seen);
+    assertEquals(50, segment.size());
+    assertFalse(segment.containsKey(4));
+    assertTrue(segment.containsKey(5));
+  }
+
+  @Test
+  public void testClear() {
+    OffHeapSegment segment = new OffHeapSegment(1024 * 1024);
+    for (int x = 0; x < 100; x++) {
+      segment.put(x, x);
+    }
+    segment.clear();
+    assertEquals(0, segment.size());
+    assertNull(segment.get(1));
+    segment.put(1, "again");
+    assertEquals("again", segment.get(1));
+  }
+}
@@ -0,0 +1,33 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.tc.spi;
+
+import java.nio.ByteBuffer;
+import org.terracotta.entity.EntityMessage;
+import org.terracotta.entity.MessageCodecException;
+
+/**
+ * Optional extension of an entity's {@link org.terracotta.entity.MessageCodec}.  When the codec implements it, the
+ * server decodes invokes straight from the received message instead of copying the payload into a byte array first.
+ * <p>
+ * The buffer is a read-only view that is only valid for the duration of the call, a decoded message must copy any
+ * bytes it keeps.
+ */
+public interface BufferMessageCodec<M extends EntityMessage> {
+  M decodeMessage(ByteBuffer payload) throws MessageCodecException;
+}
@@ -99,6 +99,7 @@ public class ClientEntityManagerImpl implements ClientEntityManager {
   private final LongAdder msgCount = new LongAdder();
   private final LongAdder inflights = new LongAdder();
   private final LongAdder addWindow = new LongAdder();
+  private final ConcurrentMap<String, InFlightStats> latencies = new ConcurrentHashMap<>();
 
   public ClientEntityManagerImpl(ClientMessageChannel channel) {
     this.channel = channel;
@@ -259,9 +260,9 @@ public class ClientEntityManagerImpl implements ClientEntityManager {
   @Override
   public Map<String, ?> getStateMap() {
     Map<String, Object> map = new LinkedHashMap<>();
-    for (EntityClientEndpointImpl<?,?> s : objectStoreMap.values()) {
-      map.put(s.getEntityID().toString(), s.getStatistics().getStateMap());
-    }
+    Map<String, Object> types = new LinkedHashMap<>();
+    latencies.forEach((type, stats)->types.put(type, stats.getStateMap()));
+    map.put("latencies", types);
     map.put("messagesOut", msgCount.sum());
     if (msgCount.sum() > 0) {
       map.put("averagePending", inflights.sum()/msgCount.sum());
@@ -334,6 +335,7 @@ public class ClientEntityManagerImpl implements ClientEntityManager {
       InFlightMessage inFlight = inFlightMessages.remove(id);
       if (inFlight != null) {
         inFlight.retired();
+        recordLatencies(inFlight);
       } else {
         // resend result or stop
       }
@@ -412,6 +414,15 @@ public class ClientEntityManagerImpl implements ClientEntityManager {
     this.objectStoreMap.clear();
   }
   
+  /**
+   * Latencies of invokes are kept per entity type, feeding them the timing vector of each message as it retires.
+   */
+  private void recordLatencies(InFlightMessage msg) {
+    if (msg.getMessage().getVoltronType() == VoltronEntityMessage.Type.INVOKE_ACTION) {
+      latencies.computeIfAbsent(msg.getEntityID().getClassName(), type->new InFlightStats()).collect(msg.collect());
+    }
+  }
+
   private void throwClosedExceptionOnMessage(InFlightMessage msg, String description) {
     msg.received();
     // Synthesize the disconnect runtime exception for this message.
@@ -491,9 +502,10 @@ public class ClientEntityManagerImpl implements ClientEntityManager {
     // the case where a reconnect might happen before the message completes, thus causing a re-send.  If we don't include
     // this reference in the reconnect handshake, the re-sent release will try to release a non-fetched entity.
     EntityClientEndpointImpl<?, ?> ref = this.objectStoreMap.remove(entityDescriptor.getClientInstanceID());
-    if (ref != null && logger.isDebugEnabled()) {
+    InFlightStats stats = ref != null ? latencies.get(ref.getEntityID().getClassName()) : null;
+    if (stats != null && logger.isDebugEnabled()) {
       MapListPrettyPrint print = new MapListPrettyPrint();
-      ref.getStatistics().prettyPrint(print);
+      stats.prettyPrint(print);
       logger.debug("Releasing " + ref.getEntityID() + "=" + print.toString());
     }
   }
@@ -23,6 +23,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.tc.async.api.Sink;
+import com.tc.bytes.TCByteBufferFactory;
 import com.tc.entity.DiagnosticMessageImpl;
 import com.tc.entity.DiagnosticResponseImpl;
 import com.tc.entity.NetworkVoltronEntityMessageImpl;
@@ -195,6 +196,7 @@ public class DistributedObjectClient {
 
   private synchronized ClientMessageChannel internalStart(int socketTimeout) {
     final TCProperties tcProperties = TCPropertiesImpl.getProperties();
+    TCByteBufferFactory.configureHeapPooling(tcProperties.getLong(TCPropertiesConsts.TC_BYTEBUFFER_HEAP_POOL_MAX_MB, 0) * 1024 * 1024);
 
     final NetworkStackHarnessFactory networkStackHarnessFactory = new PlainNetworkStackHarnessFactory();
 
@@ -56,7 +56,6 @@ public class EntityClientEndpointImpl<M extends EntityMessage, R extends EntityR
   private EndpointDelegate<R> delegate;
   private boolean isOpen;
   private Future<Void> releaseFuture;
-  private final InFlightStats stats = new InFlightStats();
   /**
    * @param eid The type name name of the target entity
    * @param version the version of the entity targeted
@@ -116,10 +115,6 @@ public class EntityClientEndpointImpl<M extends EntityMessage, R extends EntityR
     }
   }
     
-  public InFlightStats getStatistics() {
-    return stats;
-  }
-    
   @Override
   public Invocation<R> message(M message) {
     // We can't create new invocations when the endpoint is closed.
@@ -22,29 +22,12 @@ import com.tc.entity.VoltronEntityMessage;
 import com.tc.net.protocol.tcm.NetworkRecall;
 import com.tc.object.tx.TransactionID;
 import com.tc.util.Assert;
-import static com.tc.object.StatType.CLIENT_COMPLETE;
-import static com.tc.object.StatType.CLIENT_DECODED;
-import static com.tc.object.StatType.CLIENT_ENCODE;
-import static com.tc.object.StatType.CLIENT_GOT;
-import static com.tc.object.StatType.CLIENT_RECEIVED;
-import static com.tc.object.StatType.CLIENT_RETIRED;
-import static com.tc.object.StatType.CLIENT_SEND;
-import static com.tc.object.StatType.CLIENT_SENT;
-import static com.tc.object.StatType.SERVER_ADD;
-import static com.tc.object.StatType.SERVER_BEGININVOKE;
-import static com.tc.object.StatType.SERVER_COMPLETE;
-import static com.tc.object.StatType.SERVER_ENDINVOKE;
-import static com.tc.object.StatType.SERVER_RECEIVED;
-import static com.tc.object.StatType.SERVER_RETIRED;
-import static com.tc.object.StatType.SERVER_SCHEDULE;
 import static java.util.Objects.requireNonNull;
 
 import com.tc.text.PrettyPrintable;
-import java.util.ArrayList;
 
 import java.util.EnumSet;
 import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
@@ -120,22 +103,7 @@ public class InFlightMessage implements PrettyPrintable {
   
   @Override
   public Map<String, ?> getStateMap() {
-    List<InFlightStats.Combo> values = new ArrayList<>(20);
     long[] collect = collect();
-    values.add(new InFlightStats.Combo(CLIENT_ENCODE, CLIENT_SEND).add(collect));
-    values.add(new InFlightStats.Combo(CLIENT_SEND, CLIENT_SENT).add(collect));
-    values.add(new InFlightStats.Combo(CLIENT_SENT, CLIENT_RECEIVED).add(collect));
-    values.add(new InFlightStats.Combo(CLIENT_RECEIVED, CLIENT_COMPLETE).add(collect));
-    values.add(new InFlightStats.Combo(CLIENT_COMPLETE, CLIENT_GOT).add(collect));
-    values.add(new InFlightStats.Combo(CLIENT_GOT, CLIENT_DECODED).add(collect));
-    values.add(new InFlightStats.Combo(CLIENT_COMPLETE, CLIENT_RETIRED).add(collect));
-    values.add(new InFlightStats.Combo(CLIENT_SENT, CLIENT_RETIRED).add(collect));
-    values.add(new InFlightStats.Combo(CLIENT_ENCODE, CLIENT_DECODED).add(collect));
-    values.add(new InFlightStats.Combo(SERVER_ADD, SERVER_SCHEDULE).add(collect));
-    values.add(new InFlightStats.Combo(SERVER_SCHEDULE, SERVER_BEGININVOKE).add(collect));
-    values.add(new InFlightStats.Combo(SERVER_BEGININVOKE, SERVER_ENDINVOKE).add(collect));
-    values.add(new InFlightStats.Combo(SERVER_RECEIVED, SERVER_COMPLETE).add(collect));
-    values.add(new InFlightStats.Combo(SERVER_COMPLETE, SERVER_RETIRED).add(collect));
 
     Map<String, Object> map = new LinkedHashMap<>();
     map.put("entity", eid);
@@ -148,7 +116,7 @@ public class InFlightMessage implements PrettyPrintable {
     timing.put("retired", retired);
     map.put("marks", timing);
     Map<String, Object> offset = new LinkedHashMap<>();
-    values.forEach(c->offset.put(c.toString(), c.value()));
+    InFlightStats.COMBOS.forEach(c->offset.put(c.toString(), c.delta(collect)));
     map.put("timing", offset);
     return map;
   }
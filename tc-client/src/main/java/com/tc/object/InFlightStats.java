@@ -36,17 +36,19 @@ import static com.tc.object.StatType.SERVER_ENDINVOKE;
 import static com.tc.object.StatType.SERVER_RECEIVED;
 import static com.tc.object.StatType.SERVER_RETIRED;
 import static com.tc.object.StatType.SERVER_SCHEDULE;
+import com.tc.stats.LatencyHistogram;
 import com.tc.text.PrettyPrintable;
 import java.util.Arrays;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 /**
- *
+ * Latency of each phase of an invoke, from the timing vectors of retired messages.
  */
 class InFlightStats implements PrettyPrintable {
   
-  private static final List<Combo> values = Arrays.asList(
+  /**
+   * Phases reported, also used by {@link InFlightMessage} to show the timings of a single message.
+   */
+  static final List<Combo> COMBOS = Arrays.asList(
     new Combo(CLIENT_ENCODE, CLIENT_SEND),
     new Combo(CLIENT_SEND, CLIENT_SENT),
     new Combo(CLIENT_SENT, CLIENT_RECEIVED),
@@ -62,11 +64,16 @@ class InFlightStats implements PrettyPrintable {
     new Combo(SERVER_RECEIVED, SERVER_COMPLETE),
     new Combo(SERVER_COMPLETE, SERVER_RETIRED)
   );
+  private final Map<Combo, LatencyHistogram> values = new LinkedHashMap<>();
   private final LongAdder totalCount = new LongAdder();
+
+  InFlightStats() {
+    COMBOS.forEach(c->values.put(c, new LatencyHistogram()));
+  }
   
   public void collect(long[] input) {
     if (input != null) {
-      values.forEach(c->c.add(input));
+      values.forEach((c, h)->h.record(c.delta(input)));
     }
     totalCount.increment();
   }
@@ -74,34 +81,36 @@ class InFlightStats implements PrettyPrintable {
   @Override
   public Map<String, ?> getStateMap() {
     Map<String, Object> map = new LinkedHashMap<>();
-    if (totalCount.sum() > 0) {
-      values.forEach(c->map.put(c.toString(), c.value()/totalCount.sum()));
-    }
+    map.put("count", totalCount.sum());
+    values.forEach((c, h)->put(map, c, h.snapshot()));
     return map;
-  } 
+  }
+
+  private static void put(Map<String, Object> map, Combo c, LatencyHistogram.Snapshot snap) {
+    if (snap.getCount() > 0) {
+      map.put(c.toString(), snap.toMap());
+    }
+  }
   
+  /**
+   * A phase between two marks of the timing vector.  Holds no state, the accumulation lives in the histograms.
+   */
   static class Combo {
-    Logger LOG = LoggerFactory.getLogger(Combo.class);
     private final StatType from;
     private final StatType to;
-    private final LongAdder value = new LongAdder();
 
     Combo(StatType from, StatType to) {
       this.from = from;
       this.to = to;
     }
     
-    Combo add(long[] vals) {
-      try {
-        value.add(vals[to.ordinal()] - vals[from.ordinal()]);
-      } catch (Throwable t) {
-        LOG.warn("error collecting stats", t);
-      }
-      return this;
-    }
-    
-    long value() {
-      return value.sum();
+    /**
+     * @return the time between the two marks or -1 if either was not recorded
+     */
+    long delta(long[] vals) {
+      long start = vals[from.ordinal()];
+      long finish = vals[to.ordinal()];
+      return start == 0 || finish == 0 ? -1 : finish - start;
     }
 
     @Override
@@ -23,6 +23,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 /**
@@ -31,6 +32,7 @@ import java.util.function.Supplier;
 public class TCByteBufferAllocator {
   private final Supplier<TCByteBuffer> newBuffers;
   private final Queue<TCByteBuffer> returns;
+  private final Consumer<TCByteBuffer> recycle;
   private final List<TCByteBuffer> items = new ArrayList<>();
   private final SetOnceFlag complete = new SetOnceFlag();
   
@@ -41,6 +43,17 @@ public class TCByteBufferAllocator {
   public TCByteBufferAllocator(Supplier<TCByteBuffer> tracked, Queue<TCByteBuffer> returns) {
     this.newBuffers = tracked;
     this.returns = returns;
+    this.recycle = returns::add;
+  }
+
+  /**
+   * Buffers dropped by a rewind are reused by this allocator, once the completed reference is closed the buffers are
+   * handed to {@code recycle}.
+   */
+  public TCByteBufferAllocator(Supplier<TCByteBuffer> tracked, Consumer<TCByteBuffer> recycle) {
+    this.newBuffers = tracked;
+    this.returns = new LinkedList<>();
+    this.recycle = recycle;
   }
   
   public TCByteBuffer add() {
@@ -81,6 +94,6 @@ public class TCByteBufferAllocator {
   
   public TCReference complete() {
     complete.set();
-    return TCReferenceSupport.createReference(items, returns::add);
+    return TCReferenceSupport.createReference(items, recycle);
   }
 }
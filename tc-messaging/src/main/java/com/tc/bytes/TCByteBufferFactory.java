@@ -18,6 +18,7 @@
 package com.tc.bytes;
 
 import com.tc.util.Assert;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,11 +34,14 @@ public class TCByteBufferFactory {
   private static final int                 WARN_THRESHOLD          = 10 * 1024 * 1024;                                                // 10MiB
   private static final TCByteBuffer        ZERO_BYTE_BUFFER        = TCByteBufferImpl.wrap(new byte[0]);
   private static final Logger logger = LoggerFactory.getLogger(TCByteBufferFactory.class);
+  private static volatile TCHeapByteBufferPool heapPool;
+  private static final AtomicBoolean heapPoolingConfigured = new AtomicBoolean();
   /**
-   * Get a single variable sized TCByteBuffer instance Note: These are not pooled (yet)
+   * Get a single variable sized TCByteBuffer instance.  When heap pooling is enabled the buffer comes from the pool and
+   * can be handed back with {@link #release(TCByteBuffer)}.
    * 
-   * @param size The desired minimum capacity of the buffer. The actual capacity may be higher. The buffer's limit will
-   *        be equal to it's capacity.
+   * @param size The capacity of the buffer. The buffer's limit and capacity are both equal to the requested size, a
+   *        pooled buffer is a slice of a larger one.
    */
   public static TCByteBuffer getInstance(int size) {
 
@@ -47,12 +51,51 @@ public class TCByteBufferFactory {
     if (size < 0) { throw new IllegalArgumentException("Requested length cannot be less than zero"); }
     if (size == 0) { return ZERO_BYTE_BUFFER; }
 
-    // Don't give 4k ByteBuffer from pool for smaller size requests.
-    TCByteBufferImpl buf = new TCByteBufferImpl(size, false);
+    TCHeapByteBufferPool pool = heapPool;
+    TCByteBuffer buf = pool == null ? new TCByteBufferImpl(size, false) : pool.allocate(size);
     Assert.assertTrue(buf.position() == 0);
     return buf;
   }
 
+  /**
+   * Return a buffer obtained from {@link #getInstance(int)} once nothing references it anymore, usually as the return
+   * consumer of a {@link TCReferenceSupport} reference.  Does nothing unless heap pooling is enabled.
+   */
+  public static void release(TCByteBuffer buffer) {
+    TCHeapByteBufferPool pool = heapPool;
+    if (pool != null) {
+      pool.release(buffer);
+    }
+  }
+
+  /**
+   * Configure heap pooling for the process.  Only the first call takes effect, every client and server in a JVM shares
+   * the pool and a later one must not replace or disable it under the buffers the others have in flight.
+   */
+  public static void configureHeapPooling(long maxPooledBytes) {
+    if (heapPoolingConfigured.compareAndSet(false, true)) {
+      setHeapPooling(maxPooledBytes);
+    } else {
+      TCHeapByteBufferPool pool = heapPool;
+      long current = pool == null ? 0 : pool.getMaxPooledBytes();
+      if (current != Math.max(0, maxPooledBytes)) {
+        logger.info("heap buffer pooling already configured with {} bytes, ignoring {}", current, maxPooledBytes);
+      }
+    }
+  }
+
+  /**
+   * Pool heap buffers handed out by {@link #getInstance(int)}, keeping at most {@code maxPooledBytes} of free buffers.
+   * A value of zero or less turns pooling off.  Buffers of a replaced pool are dropped when they are released.
+   */
+  public static void setHeapPooling(long maxPooledBytes) {
+    heapPool = maxPooledBytes > 0 ? new TCHeapByteBufferPool(maxPooledBytes) : null;
+  }
+
+  public static TCHeapByteBufferPool getHeapPool() {
+    return heapPool;
+  }
+
   public static void setFixedBufferSize(int size) {
     if (size > 512 && size < 32 * 1024 *1024) {
       FIXED_BUFFER_SIZE = size;
@@ -49,6 +49,13 @@ public class TCByteBufferImpl implements TCByteBuffer {
     return new TCByteBufferImpl(null, ByteBuffer.wrap(data));
   }
 
+  /**
+   * The buffer this one was sliced or duplicated from, null if it owns its storage.
+   */
+  TCByteBuffer getSource() {
+    return source;
+  }
+
   protected ByteBuffer getBuffer() {
     return accessBuffer();
   }
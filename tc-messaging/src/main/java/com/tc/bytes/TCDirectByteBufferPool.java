@@ -0,0 +1,360 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.tc.bytes;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A bounded pool of direct byte buffers shared by all connections of the process.
+ * <p>
+ * Buffers come in power of two size classes starting at the base size.  Each thread that allocates keeps a small
+ * magazine of free buffers per size class so the common allocate/return cycle on the same thread does not touch shared
+ * state; full magazines spill into a shared depot.  Buffers returned by a thread that does not allocate from their
+ * size class, like a stage worker closing references handed to it, go straight to the depot so they do not sit idle
+ * where no allocation will ever find them.  The total amount of direct memory created by the pool never exceeds the
+ * configured maximum, once it is reached new requests are served with heap buffers until direct buffers are returned.
+ * <p>
+ * Buffers must be handed back explicitly with {@link #offer(TCByteBuffer)} after {@link TCByteBuffer#reInit()}, which
+ * is what the return consumers of {@link TCReferenceSupport} references do on close.  Only buffers created by this pool
+ * are kept, each at most once.  Each direct buffer holds its share of the maximum until it is garbage collected, so
+ * buffers that are never returned or that are stranded in the magazine of a thread that died give their share back
+ * once the collector finds them.
+ */
+public class TCDirectByteBufferPool extends AbstractQueue<TCByteBuffer> {
+
+  public static final int DEFAULT_SIZE_CLASSES = 5;
+  public static final int DEFAULT_MAGAZINE_SIZE = 16;
+
+  private final int baseSize;
+  private final long maxBytes;
+  private final int magazineSize;
+  private final Depot[] depots;
+  private final ThreadLocal<Magazine[]> magazines;
+
+  private final AtomicLong directBytes = new AtomicLong();
+  private final AtomicInteger directCount = new AtomicInteger();
+  // keeps the reservation of every live direct buffer reachable until the buffer is collected
+  private final Set<Reservation> reservations = ConcurrentHashMap.newKeySet();
+  private final ReferenceQueue<PooledBuffer> collected = new ReferenceQueue<>();
+  private final LongAdder allocations = new LongAdder();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder heapAllocations = new LongAdder();
+  private final LongAdder discards = new LongAdder();
+  private final LongAdder reclaims = new LongAdder();
+
+  public TCDirectByteBufferPool(long maxBytes) {
+    this(TCByteBufferFactory.getFixedBufferSize(), DEFAULT_SIZE_CLASSES, maxBytes, DEFAULT_MAGAZINE_SIZE);
+  }
+
+  public TCDirectByteBufferPool(int baseSize, int sizeClasses, long maxBytes, int magazineSize) {
+    if (baseSize <= 0 || sizeClasses <= 0 || sizeClasses > 16 || maxBytes < 0 || magazineSize < 0) {
+      throw new IllegalArgumentException("invalid pool configuration base:" + baseSize + " classes:" + sizeClasses
+          + " max:" + maxBytes + " magazine:" + magazineSize);
+    }
+    this.baseSize = baseSize;
+    this.maxBytes = maxBytes;
+    this.magazineSize = magazineSize;
+    this.depots = new Depot[sizeClasses];
+    for (int x = 0; x < sizeClasses; x++) {
+      this.depots[x] = new Depot(baseSize << x);
+    }
+    this.magazines = new ThreadLocal<>();
+  }
+
+  public int getBaseSize() {
+    return baseSize;
+  }
+
+  public int getMaxSize() {
+    return depots[depots.length - 1].size;
+  }
+
+  /**
+   * Get a buffer with a capacity of at least {@code size} bytes or, for requests larger than the largest size class,
+   * a buffer of the largest size class.  The buffer's limit is equal to its capacity.
+   */
+  public TCByteBuffer allocate(int size) {
+    return allocateFrom(classOf(size));
+  }
+
+  /**
+   * Get a buffer of the base size.
+   */
+  @Override
+  public TCByteBuffer poll() {
+    return allocateFrom(0);
+  }
+
+  private TCByteBuffer allocateFrom(int sizeClass) {
+    allocations.increment();
+    TCByteBuffer buffer = allocatingMagazines()[sizeClass].pop();
+    if (buffer == null) {
+      buffer = depots[sizeClass].poll();
+    }
+    if (buffer != null) {
+      hits.increment();
+      ((PooledBuffer) buffer).pooled.set(false);
+      return buffer.unlock();
+    }
+    misses.increment();
+    int capacity = depots[sizeClass].size;
+    if (reserve(capacity)) {
+      PooledBuffer pooled = new PooledBuffer(this, sizeClass);
+      reservations.add(new Reservation(pooled, capacity, collected));
+      return pooled;
+    } else {
+      heapAllocations.increment();
+      return new TCByteBufferImpl(capacity, false);
+    }
+  }
+
+  /**
+   * Return a buffer to the pool.  Buffers this pool did not create, heap fallbacks among them, and buffers already
+   * returned are dropped.  Always succeeds so the pool can be used as the return queue of a
+   * {@link TCByteBufferAllocator}.
+   */
+  @Override
+  public boolean offer(TCByteBuffer buffer) {
+    if (buffer instanceof TCByteBufferImpl) {
+      ((TCByteBufferImpl)buffer).verifyLocked();
+    }
+    if (!(buffer instanceof PooledBuffer) || ((PooledBuffer) buffer).owner != this
+        || !((PooledBuffer) buffer).pooled.compareAndSet(false, true)) {
+      discards.increment();
+      return true;
+    }
+    int sizeClass = ((PooledBuffer) buffer).sizeClass;
+    Magazine[] local = magazines.get();
+    if (local == null || !local[sizeClass].push(buffer)) {
+      depots[sizeClass].offer(buffer);
+    }
+    return true;
+  }
+
+  private Magazine[] allocatingMagazines() {
+    Magazine[] local = magazines.get();
+    if (local == null) {
+      local = new Magazine[depots.length];
+      for (int x = 0; x < depots.length; x++) {
+        local[x] = new Magazine(magazineSize);
+      }
+      magazines.set(local);
+    }
+    return local;
+  }
+
+  private boolean reserve(int capacity) {
+    expunge();
+    long current = directBytes.get();
+    while (current + capacity <= maxBytes) {
+      if (directBytes.compareAndSet(current, current + capacity)) {
+        directCount.incrementAndGet();
+        return true;
+      }
+      current = directBytes.get();
+    }
+    return false;
+  }
+
+  private int classOf(int size) {
+    for (int x = 0; x < depots.length; x++) {
+      if (depots[x].size >= size) {
+        return x;
+      }
+    }
+    return depots.length - 1;
+  }
+
+  /**
+   * Give back the share of the maximum held by direct buffers that were collected without being returned.
+   */
+  private void expunge() {
+    Reservation reservation = (Reservation) collected.poll();
+    while (reservation != null) {
+      if (reservations.remove(reservation)) {
+        directBytes.addAndGet(-reservation.capacity);
+        directCount.decrementAndGet();
+        reclaims.increment();
+      }
+      reservation = (Reservation) collected.poll();
+    }
+  }
+
+  /**
+   * The number of direct buffers created by the pool, both pooled and in use.
+   */
+  public int referenced() {
+    expunge();
+    return directCount.get();
+  }
+
+  public long getDirectBytes() {
+    expunge();
+    return directBytes.get();
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  public long getAllocationCount() {
+    return allocations.sum();
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  public long getHeapAllocationCount() {
+    return heapAllocations.sum();
+  }
+
+  public Map<String, ?> getStateMap() {
+    Map<String, Object> state = new LinkedHashMap<>();
+    state.put("sizeClasses", Arrays.stream(depots).map(d -> d.size).collect(Collectors.toList()));
+    state.put("magazineSize", magazineSize);
+    state.put("maxBytes", maxBytes);
+    state.put("directBytes", directBytes.get());
+    state.put("directBuffers", directCount.get());
+    state.put("pooled", size());
+    state.put("allocations", allocations.sum());
+    state.put("hits", hits.sum());
+    state.put("misses", misses.sum());
+    state.put("heapAllocations", heapAllocations.sum());
+    state.put("discards", discards.sum());
+    state.put("reclaims", reclaims.sum());
+    return state;
+  }
+
+  /**
+   * Buffers in the shared depot.  Buffers held in thread magazines are not visible.
+   */
+  @Override
+  public Iterator<TCByteBuffer> iterator() {
+    return Stream.of(depots).flatMap(d -> d.buffers.stream()).iterator();
+  }
+
+  @Override
+  public int size() {
+    return Stream.of(depots).mapToInt(d -> d.count.get()).sum();
+  }
+
+  @Override
+  public TCByteBuffer peek() {
+    return depots[0].buffers.peek();
+  }
+
+  @Override
+  public String toString() {
+    return "TCDirectByteBufferPool{" + getStateMap() + '}';
+  }
+
+  /**
+   * A direct buffer created by a pool, only its pool takes it back.
+   */
+  private static final class PooledBuffer extends TCByteBufferImpl {
+    private final TCDirectByteBufferPool owner;
+    private final int sizeClass;
+    private final AtomicBoolean pooled = new AtomicBoolean();
+
+    PooledBuffer(TCDirectByteBufferPool owner, int sizeClass) {
+      super(owner.depots[sizeClass].size, true);
+      this.owner = owner;
+      this.sizeClass = sizeClass;
+    }
+  }
+
+  private static final class Reservation extends PhantomReference<PooledBuffer> {
+    private final int capacity;
+
+    Reservation(PooledBuffer buffer, int capacity, ReferenceQueue<? super PooledBuffer> queue) {
+      super(buffer, queue);
+      this.capacity = capacity;
+    }
+  }
+
+  private static class Depot {
+    private final int size;
+    private final Queue<TCByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger count = new AtomicInteger();
+
+    Depot(int size) {
+      this.size = size;
+    }
+
+    TCByteBuffer poll() {
+      TCByteBuffer buffer = buffers.poll();
+      if (buffer != null) {
+        count.decrementAndGet();
+      }
+      return buffer;
+    }
+
+    void offer(TCByteBuffer buffer) {
+      buffers.offer(buffer);
+      count.incrementAndGet();
+    }
+  }
+
+  private static class Magazine {
+    private final ArrayDeque<TCByteBuffer> buffers;
+    private final int limit;
+    // only a thread that allocates from the size class keeps returned buffers of it
+    private boolean allocating;
+
+    Magazine(int limit) {
+      this.limit = limit;
+      this.buffers = new ArrayDeque<>(Math.max(limit, 1));
+    }
+
+    TCByteBuffer pop() {
+      allocating = true;
+      return buffers.pollLast();
+    }
+
+    boolean push(TCByteBuffer buffer) {
+      if (allocating && buffers.size() < limit) {
+        buffers.addLast(buffer);
+        return true;
+      }
+      return false;
+    }
+  }
+}
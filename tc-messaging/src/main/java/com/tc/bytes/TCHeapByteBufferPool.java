@@ -0,0 +1,166 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.tc.bytes;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of heap byte buffers in power of two size classes.  A request is served from the smallest class that fits
+ * and handed out as a slice of exactly the requested size, so limit and capacity match as for an unpooled buffer.
+ * Requests larger than the largest class are not pooled.
+ * <p>
+ * Buffers only come back through {@link #release(TCByteBuffer)} with the slice that was handed out, normally as the
+ * return consumer of a {@link TCReferenceSupport} reference once every duplicate has been closed.  Only slices of
+ * buffers this pool created are taken back, each slice at most once.  A buffer that is never
+ * released is simply collected.  The pool keeps at most {@code maxPooledBytes} of free buffers.
+ */
+public class TCHeapByteBufferPool {
+
+  public static final int MIN_SIZE = 64;
+  public static final int MAX_SIZE = 1024 * 1024;
+
+  private final long maxPooledBytes;
+  private final Queue<TCByteBuffer>[] classes;
+  private final AtomicLong pooledBytes = new AtomicLong();
+  private final LongAdder allocations = new LongAdder();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder discards = new LongAdder();
+
+  @SuppressWarnings("unchecked")
+  public TCHeapByteBufferPool(long maxPooledBytes) {
+    this.maxPooledBytes = maxPooledBytes;
+    this.classes = new Queue[classOf(MAX_SIZE) + 1];
+    for (int x = 0; x < classes.length; x++) {
+      classes[x] = new ConcurrentLinkedQueue<>();
+    }
+  }
+
+  public TCByteBuffer allocate(int size) {
+    allocations.increment();
+    if (size > MAX_SIZE) {
+      misses.increment();
+      return new TCByteBufferImpl(size, false);
+    }
+    int sizeClass = classOf(size);
+    PooledBuffer buffer = (PooledBuffer) classes[sizeClass].poll();
+    if (buffer != null) {
+      hits.increment();
+      buffer.unlock();
+      pooledBytes.addAndGet(-buffer.capacity());
+    } else {
+      misses.increment();
+      buffer = new PooledBuffer(this, MIN_SIZE << sizeClass);
+    }
+    buffer.limit(size);
+    TCByteBuffer slice = buffer.slice();
+    buffer.lease.set(slice);
+    return slice;
+  }
+
+  /**
+   * Take back a buffer handed out by {@link #allocate(int)} that was cleared and locked by
+   * {@link TCByteBuffer#reInit()}.  Buffers the pool did not slice from one of its own, slices that were already
+   * released, even if their storage has been handed out again since, and buffers beyond the pool limit are dropped.
+   */
+  public void release(TCByteBuffer buffer) {
+    TCByteBuffer source = buffer instanceof TCByteBufferImpl ? ((TCByteBufferImpl)buffer).getSource() : null;
+    if (!(source instanceof PooledBuffer) || ((PooledBuffer) source).owner != this) {
+      discards.increment();
+      return;
+    }
+    ((TCByteBufferImpl)buffer).verifyLocked();
+    PooledBuffer pooled = (PooledBuffer) source;
+    // only the slice of the current lease comes back, once
+    if (!pooled.lease.compareAndSet(buffer, null)) {
+      discards.increment();
+      return;
+    }
+    int capacity = pooled.capacity();
+    pooled.reInit();
+    if (pooledBytes.addAndGet(capacity) > maxPooledBytes) {
+      pooledBytes.addAndGet(-capacity);
+      discards.increment();
+      return;
+    }
+    classes[classOf(capacity)].offer(pooled);
+  }
+
+  private static int classOf(int size) {
+    if (size <= MIN_SIZE) {
+      return 0;
+    }
+    return 32 - Integer.numberOfLeadingZeros(size - 1) - Integer.numberOfTrailingZeros(MIN_SIZE);
+  }
+
+  public long getMaxPooledBytes() {
+    return maxPooledBytes;
+  }
+
+  public long getPooledBytes() {
+    return pooledBytes.get();
+  }
+
+  public long getAllocationCount() {
+    return allocations.sum();
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  public Map<String, ?> getStateMap() {
+    Map<String, Object> state = new LinkedHashMap<>();
+    state.put("maxPooledBytes", maxPooledBytes);
+    state.put("pooledBytes", pooledBytes.get());
+    state.put("allocations", allocations.sum());
+    state.put("hits", hits.sum());
+    state.put("misses", misses.sum());
+    state.put("discards", discards.sum());
+    return state;
+  }
+
+  @Override
+  public String toString() {
+    return "TCHeapByteBufferPool{" + getStateMap() + '}';
+  }
+
+  /**
+   * A heap buffer created by a pool, the buffers handed out are slices of it and only its pool takes them back.
+   */
+  private static final class PooledBuffer extends TCByteBufferImpl {
+    private final TCHeapByteBufferPool owner;
+    // the slice currently handed out, null while the buffer is pooled
+    private final AtomicReference<TCByteBuffer> lease = new AtomicReference<>();
+
+    PooledBuffer(TCHeapByteBufferPool owner, int capacity) {
+      super(capacity, false);
+      this.owner = owner;
+    }
+  }
+}
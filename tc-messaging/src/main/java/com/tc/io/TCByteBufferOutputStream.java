@@ -75,7 +75,7 @@ public class TCByteBufferOutputStream extends OutputStream implements TCByteBuff
           }
         }
       }
-    }));
+    }, TCByteBufferFactory::release));
     if (init < 1) { throw new IllegalArgumentException("Max block size must be greater than or equal to 1"); }
     if (max < 1) { throw new IllegalArgumentException(
                                                                    "Initial block size must be greater than or equal to 1"); }
@@ -17,6 +17,8 @@
  */
 package com.tc.net.groups;
 
+import com.tc.bytes.TCReference;
+import com.tc.bytes.TCReferenceSupport;
 import com.tc.io.TCByteBufferInputStream;
 import com.tc.io.TCByteBufferOutputStream;
 import com.tc.net.protocol.tcm.MessageChannel;
@@ -38,6 +40,7 @@ public class TCGroupMessageWrapper extends DSOMessageBase {
   private final static byte GROUP_MESSAGE_ID = 1;
   private AbstractGroupMessage message;
   private Runnable sentCallback;
+  private TCReference serialized;
 
   public TCGroupMessageWrapper(SessionID sessionID, MessageMonitor monitor, TCByteBufferOutputStream out,
                                MessageChannel channel, TCMessageType type) {
@@ -53,6 +56,15 @@ public class TCGroupMessageWrapper extends DSOMessageBase {
     this.message = message;
   }
 
+  /**
+   * Send a group message that was already serialized, used when the same message goes to several members.  The
+   * wrapper takes ownership of the reference and closes it once the message is written or dropped.
+   */
+  public void setSerializedGroupMessage(AbstractGroupMessage message, TCReference serialized) {
+    this.message = message;
+    this.serialized = serialized;
+  }
+
   public AbstractGroupMessage getGroupMessage() {
     return this.message;
   }
@@ -60,7 +72,20 @@ public class TCGroupMessageWrapper extends DSOMessageBase {
   @Override
   protected void dehydrateValues() {
     putNVPair(GROUP_MESSAGE_ID, this.message.getClass().getName());
-    this.message.serializeTo(getOutputStream());
+    if (this.serialized == null) {
+      this.message.serializeTo(getOutputStream());
+    }
+  }
+
+  @Override
+  public TCReference getDataBuffers() {
+    TCReference values = super.getDataBuffers();
+    if (this.serialized == null) {
+      return values;
+    }
+    try (TCReference header = values) {
+      return TCReferenceSupport.createAggregateReference(header, this.serialized);
+    }
   }
 
   @Override
@@ -92,8 +117,9 @@ public class TCGroupMessageWrapper extends DSOMessageBase {
     if (sentCallback != null) {
       msg.addCompleteCallback(sentCallback);
     }
+    if (serialized != null) {
+      msg.addCompleteCallback(serialized::close);
+    }
     return msg;
   }
-  
-  
 }
\ No newline at end of file
@@ -117,7 +117,7 @@ public abstract class TCActionImpl implements TCAction {
 
     out.close();
     //  header with nvCount
-    try (TCReference header = TCReferenceSupport.createGCReference(
+    try (TCReference header = TCReferenceSupport.createReference(TCByteBufferFactory::release,
               TCByteBufferFactory.getInstance(Integer.BYTES).putInt(0, nvCount)); 
           TCReference nvData = out.accessBuffers()) {
       return TCReferenceSupport.createAggregateReference(header, nvData);
@@ -0,0 +1,175 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.tc.bytes;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+
+public class TCDirectByteBufferPoolTest {
+
+  @Test
+  public void testSizeClasses() {
+    TCDirectByteBufferPool pool = new TCDirectByteBufferPool(1024, 3, 1024 * 1024, 4);
+    assertEquals(1024, pool.poll().capacity());
+    assertEquals(1024, pool.allocate(1).capacity());
+    assertEquals(2048, pool.allocate(1025).capacity());
+    assertEquals(4096, pool.allocate(4096).capacity());
+    // larger than the largest class, the caller asks for more
+    assertEquals(4096, pool.allocate(100_000).capacity());
+    assertEquals(4096, pool.getMaxSize());
+  }
+
+  @Test
+  public void testReturnedBuffersAreReused() {
+    TCDirectByteBufferPool pool = new TCDirectByteBufferPool(1024, 2, 1024 * 1024, 4);
+    TCByteBuffer buffer = pool.allocate(2048);
+    TCReference ref = TCReferenceSupport.createReference(pool::offer, buffer);
+    ref.close();
+    assertSame(buffer, pool.allocate(2000));
+    assertEquals(2, pool.getAllocationCount());
+    assertEquals(1, pool.getHitCount());
+    assertEquals(1, pool.getMissCount());
+    assertEquals(1, pool.referenced());
+  }
+
+  @Test
+  public void testMaxBytesFallsBackToHeap() {
+    TCDirectByteBufferPool pool = new TCDirectByteBufferPool(1024, 1, 2048, 4);
+    TCByteBuffer one = pool.poll();
+    TCByteBuffer two = pool.poll();
+    TCByteBuffer three = pool.poll();
+    assertTrue(one.isDirect());
+    assertTrue(two.isDirect());
+    assertFalse(three.isDirect());
+    assertEquals(2048, pool.getDirectBytes());
+    assertEquals(1, pool.getHeapAllocationCount());
+    // heap buffers are not kept
+    pool.offer(three.reInit());
+    assertEquals(0, pool.size());
+    pool.offer(one.reInit());
+    assertTrue(pool.poll().isDirect());
+    assertEquals(2048, pool.getDirectBytes());
+  }
+
+  @Test
+  public void testMagazineSpillsToSharedDepot() throws Exception {
+    TCDirectByteBufferPool pool = new TCDirectByteBufferPool(1024, 1, 1024 * 1024, 1);
+    TCByteBuffer one = pool.poll();
+    TCByteBuffer two = pool.poll();
+    pool.offer(one.reInit());
+    pool.offer(two.reInit());
+    // one buffer stays in this thread's magazine, the other is shared
+    assertEquals(1, pool.size());
+    AtomicReference<TCByteBuffer> other = new AtomicReference<>();
+    Thread t = new Thread(() -> other.set(pool.poll()));
+    t.start();
+    t.join();
+    assertSame(two, other.get());
+    assertSame(one, pool.poll());
+    assertEquals(2, pool.referenced());
+  }
+
+  @Test
+  public void testBuffersFreedByOtherThreadsAreShared() throws Exception {
+    TCDirectByteBufferPool pool = new TCDirectByteBufferPool(1024, 2, 1024 * 1024, 4);
+    TCByteBuffer one = pool.poll();
+    TCByteBuffer two = pool.poll();
+    TCByteBuffer large = pool.allocate(2048);
+    // a worker that only closes references keeps nothing for itself
+    Thread worker = new Thread(() -> {
+      pool.offer(one.reInit());
+      pool.offer(two.reInit());
+      pool.offer(large.reInit());
+    });
+    worker.start();
+    worker.join();
+    assertEquals(3, pool.size());
+    assertSame(one, pool.poll());
+    assertSame(two, pool.poll());
+    assertSame(large, pool.allocate(2048));
+    assertEquals(0, pool.size());
+    assertEquals(3, pool.getMissCount());
+    assertEquals(3, pool.referenced());
+  }
+
+  @Test
+  public void testForeignBuffersAreDropped() {
+    TCDirectByteBufferPool pool = new TCDirectByteBufferPool(1024, 1, 1024 * 1024, 4);
+    TCDirectByteBufferPool other = new TCDirectByteBufferPool(1024, 1, 1024 * 1024, 4);
+    TCByteBuffer foreign = new TCByteBufferImpl(1024, true);
+    TCByteBuffer others = other.poll();
+    pool.offer(foreign.reInit());
+    pool.offer(others.reInit());
+    TCByteBuffer next = pool.poll();
+    assertNotSame(foreign, next);
+    assertNotSame(others, next);
+    assertEquals(1, pool.referenced());
+    assertEquals(1024, pool.getDirectBytes());
+  }
+
+  @Test
+  public void testBufferIsPooledOnce() {
+    TCDirectByteBufferPool pool = new TCDirectByteBufferPool(1024, 1, 1024 * 1024, 4);
+    TCByteBuffer buffer = pool.poll();
+    pool.offer(buffer.reInit());
+    pool.offer(buffer);
+    assertSame(buffer, pool.poll());
+    assertNotSame(buffer, pool.poll());
+    assertEquals(2, pool.referenced());
+  }
+
+  @Test
+  public void testLostBuffersGiveBackTheirShare() throws Exception {
+    TCDirectByteBufferPool pool = new TCDirectByteBufferPool(1024, 1, 1024, 4);
+    assertTrue(pool.poll().isDirect());
+    assertFalse(pool.poll().isDirect());
+    awaitCollected(pool);
+    assertEquals(0, pool.referenced());
+    assertTrue(pool.poll().isDirect());
+  }
+
+  @Test
+  public void testMagazinesOfDeadThreadsGiveBackTheirShare() throws Exception {
+    TCDirectByteBufferPool pool = new TCDirectByteBufferPool(1024, 1, 1024, 4);
+    Thread t = new Thread(() -> pool.offer(pool.poll().reInit()));
+    t.start();
+    t.join();
+    // the buffer sits in the magazine of the dead thread, out of reach of the others
+    assertEquals(0, pool.size());
+    assertEquals(1024, pool.getDirectBytes());
+    awaitCollected(pool);
+    assertTrue(pool.poll().isDirect());
+    assertEquals(1, pool.referenced());
+  }
+
+  private static void awaitCollected(TCDirectByteBufferPool pool) throws InterruptedException {
+    long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+    while (pool.getDirectBytes() > 0) {
+      assertTrue("direct buffers were not collected", System.nanoTime() < end);
+      System.gc();
+      Thread.sleep(10);
+    }
+  }
+}
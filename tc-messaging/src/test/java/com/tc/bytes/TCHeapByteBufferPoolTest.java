@@ -0,0 +1,156 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.tc.bytes;
+
+import com.tc.io.TCByteBufferOutputStream;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import org.junit.After;
+import org.junit.Test;
+
+
+public class TCHeapByteBufferPoolTest {
+
+  @After
+  public void tearDown() {
+    TCByteBufferFactory.setHeapPooling(0);
+  }
+
+  @Test
+  public void testSizeClasses() {
+    TCHeapByteBufferPool pool = new TCHeapByteBufferPool(1024 * 1024);
+    TCByteBuffer small = pool.allocate(4);
+    assertEquals(TCHeapByteBufferPool.MIN_SIZE, small.array().length);
+    assertEquals(4, small.limit());
+    assertEquals(4, small.capacity());
+    TCByteBuffer odd = pool.allocate(1000);
+    assertEquals(1024, odd.array().length);
+    assertEquals(1000, odd.limit());
+    assertEquals(1000, odd.capacity());
+    assertEquals(1024, pool.allocate(1024).capacity());
+    TCByteBuffer large = pool.allocate(TCHeapByteBufferPool.MAX_SIZE + 1);
+    assertEquals(TCHeapByteBufferPool.MAX_SIZE + 1, large.capacity());
+  }
+
+  @Test
+  public void testReleasedOnReferenceClose() {
+    TCHeapByteBufferPool pool = new TCHeapByteBufferPool(1024 * 1024);
+    TCByteBuffer buffer = pool.allocate(100);
+    byte[] array = buffer.array();
+    buffer.put(new byte[100]).flip();
+    TCReference ref = TCReferenceSupport.createReference(pool::release, buffer);
+    TCReference dup = ref.duplicate();
+    ref.close();
+    assertEquals(0, pool.getPooledBytes());
+    dup.close();
+    assertEquals(128, pool.getPooledBytes());
+    TCByteBuffer reused = pool.allocate(120);
+    assertSame(array, reused.array());
+    assertEquals(0, reused.position());
+    assertEquals(120, reused.limit());
+    assertEquals(1, pool.getHitCount());
+  }
+
+  @Test
+  public void testForeignBuffersAreDropped() {
+    TCHeapByteBufferPool pool = new TCHeapByteBufferPool(1024 * 1024);
+    pool.release(TCByteBufferFactory.wrap(new byte[1024]).reInit());
+    pool.release(new TCByteBufferImpl(1024, false).reInit());
+    assertEquals(0, pool.getPooledBytes());
+  }
+
+  @Test
+  public void testSlicesOfForeignBuffersAreDropped() {
+    TCHeapByteBufferPool pool = new TCHeapByteBufferPool(1024 * 1024);
+    TCHeapByteBufferPool other = new TCHeapByteBufferPool(1024 * 1024);
+    // power of two storage that the pool did not create
+    pool.release(TCByteBufferFactory.wrap(new byte[1024]).slice().reInit());
+    pool.release(other.allocate(1024).reInit());
+    assertEquals(0, pool.getPooledBytes());
+  }
+
+  @Test
+  public void testBufferIsReleasedOnce() {
+    TCHeapByteBufferPool pool = new TCHeapByteBufferPool(1024 * 1024);
+    TCByteBuffer buffer = pool.allocate(1024);
+    pool.release(buffer.reInit());
+    pool.release(buffer);
+    assertEquals(1024, pool.getPooledBytes());
+    TCByteBuffer first = pool.allocate(1024);
+    TCByteBuffer second = pool.allocate(1024);
+    assertNotSame(first.array(), second.array());
+  }
+
+  @Test
+  public void testStaleSliceIsDropped() {
+    TCHeapByteBufferPool pool = new TCHeapByteBufferPool(1024 * 1024);
+    TCByteBuffer stale = pool.allocate(1024);
+    byte[] storage = stale.array();
+    pool.release(stale.reInit());
+    TCByteBuffer current = pool.allocate(1024);
+    assertSame(storage, current.array());
+    // releasing the old slice again must not pool the storage now owned by current
+    pool.release(stale);
+    assertEquals(0, pool.getPooledBytes());
+    assertNotSame(current.array(), pool.allocate(1024).array());
+    pool.release(current.reInit());
+    assertEquals(1024, pool.getPooledBytes());
+  }
+
+  @Test
+  public void testHeapPoolingIsConfiguredOnce() {
+    TCByteBufferFactory.configureHeapPooling(1024 * 1024);
+    TCHeapByteBufferPool pool = TCByteBufferFactory.getHeapPool();
+    TCByteBufferFactory.configureHeapPooling(0);
+    assertSame(pool, TCByteBufferFactory.getHeapPool());
+    TCByteBufferFactory.configureHeapPooling(2 * 1024 * 1024);
+    assertSame(pool, TCByteBufferFactory.getHeapPool());
+  }
+
+  @Test
+  public void testPoolLimit() {
+    TCHeapByteBufferPool pool = new TCHeapByteBufferPool(1024);
+    TCByteBuffer one = pool.allocate(1024);
+    TCByteBuffer two = pool.allocate(1024);
+    byte[] oneArray = one.array();
+    byte[] twoArray = two.array();
+    pool.release(one.reInit());
+    pool.release(two.reInit());
+    assertEquals(1024, pool.getPooledBytes());
+    assertSame(oneArray, pool.allocate(1024).array());
+    assertNotSame(twoArray, pool.allocate(1024).array());
+  }
+
+  @Test
+  public void testOutputStreamReturnsBuffers() {
+    TCByteBufferFactory.setHeapPooling(1024 * 1024);
+    TCHeapByteBufferPool pool = TCByteBufferFactory.getHeapPool();
+    TCByteBufferOutputStream out = new TCByteBufferOutputStream(1024, 1024);
+    out.write(new byte[3000]);
+    try (TCReference ref = out.accessBuffers()) {
+      assertEquals(3000, ref.available());
+    }
+    assertEquals(3 * 1024, pool.getPooledBytes());
+    TCByteBufferOutputStream next = new TCByteBufferOutputStream(1024, 1024);
+    next.write(new byte[10]);
+    next.accessBuffers().close();
+    assertEquals(3, pool.getMissCount());
+    assertEquals(1, pool.getHitCount());
+  }
+}
@@ -17,6 +17,7 @@
  */
 package com.tc.classloader;
 
+import com.tc.properties.TCProperties;
 import com.tc.properties.TCPropertiesConsts;
 import com.tc.properties.TCPropertiesImpl;
 import org.slf4j.Logger;
@@ -33,6 +34,7 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -51,8 +53,25 @@ public class ServiceLocator extends ManagedServiceLoader {
   private final Map<String, ClassLoader> locationCache = new ConcurrentHashMap<>();
 
   public ServiceLocator(ClassLoader parent) {
+    super(indexFile());
     defaultClassLoader = parent;
   }
+
+  /**
+   * Plugin service declarations are indexed across restarts unless disabled, by default in the working directory of
+   * the server so that the index is neither shared with other servers on the host nor writable by other users.
+   */
+  private static Path indexFile() {
+    TCProperties props = TCPropertiesImpl.getProperties();
+    if (!props.getBoolean(TCPropertiesConsts.PLUGIN_SERVICE_INDEX_ENABLED, true)) {
+      return null;
+    }
+    String file = props.getProperty(TCPropertiesConsts.PLUGIN_SERVICE_INDEX_FILE, true);
+    if (file == null || file.trim().isEmpty()) {
+      return Paths.get(System.getProperty("user.dir"), "terracotta-service-index.bin");
+    }
+    return Paths.get(file.trim());
+  }
   
   @Override
   protected Class<?> loadClass(String className, String location, ClassLoader loader) {
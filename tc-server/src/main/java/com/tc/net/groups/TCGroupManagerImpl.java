@@ -21,10 +21,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.tc.async.api.Sink;
+import com.tc.bytes.TCReference;
 import com.tc.async.api.Stage;
 import com.tc.async.api.StageManager;
 import com.tc.config.ServerConfigurationManager;
 import com.tc.config.GroupConfiguration;
+import com.tc.io.TCByteBufferOutputStream;
 import com.tc.l2.L2DebugLogging;
 import com.tc.l2.L2DebugLogging.LogLevel;
 import com.tc.l2.ha.L2HAZapNodeRequestProcessor;
@@ -536,6 +538,7 @@ public class TCGroupManagerImpl implements GroupManager<AbstractGroupMessage>, C
   @Override
   public void sendAll(AbstractGroupMessage msg, Set<? extends NodeID> nodeIDs) {
     final boolean debug = msg instanceof L2StateMessage;
+    List<TCGroupMember> targets = new ArrayList<>(nodeIDs.size());
     for (TCGroupMember m : members.values()) {
       if (!nodeIDs.contains(m.getPeerNodeID())) {
         if (debug) {
@@ -551,11 +554,30 @@ public class TCGroupManagerImpl implements GroupManager<AbstractGroupMessage>, C
             debugInfo("Sending msg to " + m.getPeerNodeID() + ", " + msg + ", channel: " + m.getChannel());
           }
         }
-        m.sendIgnoreNotReady(msg);
+        targets.add(m);
       } else {
         logger.warn("Ignored sending msg to a not ready member=" + m + ", msg=" + msg);
       }
     }
+    sendToMembers(msg, targets);
+  }
+
+  /**
+   * Send the same message to several members.  With more than one target the message is serialized once and every
+   * channel writes a duplicate of the same read-only buffers, the buffers are released when the last channel is done.
+   */
+  private static void sendToMembers(AbstractGroupMessage msg, List<TCGroupMember> targets) {
+    if (targets.size() == 1) {
+      targets.get(0).sendIgnoreNotReady(msg);
+    } else if (!targets.isEmpty()) {
+      TCByteBufferOutputStream out = new TCByteBufferOutputStream();
+      msg.serializeTo(out);
+      try (TCReference serialized = out.accessBuffers()) {
+        for (TCGroupMember m : targets) {
+          m.sendIgnoreNotReady(msg, serialized.duplicate());
+        }
+      }
+    }
   }
 
   @Override
@@ -917,6 +939,7 @@ public class TCGroupManagerImpl implements GroupManager<AbstractGroupMessage>, C
 
     public synchronized void sendAll(AbstractGroupMessage msg, Set<? extends NodeID> nodeIDs) throws GroupException {
       final boolean debug = msg instanceof L2StateMessage;
+      List<TCGroupMember> targets = new ArrayList<>(nodeIDs.size());
       for (TCGroupMember m : getMembers()) {
         if (!nodeIDs.contains(m.getPeerNodeID())) {
           if (debug) {
@@ -934,11 +957,12 @@ public class TCGroupManagerImpl implements GroupManager<AbstractGroupMessage>, C
               debugInfo("Sending msg to " + m.getPeerNodeID() + ", msg: " + msg + ", channel: " + m.getChannel());
             }
           }
-          m.sendIgnoreNotReady(msg);
+          targets.add(m);
         } else {
           logger.warn("SendAllAndWait to a not ready member " + m);
         }
       }
+      sendToMembers(msg, targets);
       waitForResponses(getNodeID());
     }
 
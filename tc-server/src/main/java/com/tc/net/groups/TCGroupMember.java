@@ -17,6 +17,7 @@
  */
 package com.tc.net.groups;
 
+import com.tc.bytes.TCReference;
 import com.tc.net.ServerID;
 import com.tc.net.protocol.tcm.MessageChannel;
 
@@ -32,6 +33,11 @@ public interface TCGroupMember {
   
   public void sendIgnoreNotReady(AbstractGroupMessage msg);
 
+  /**
+   * Send a message whose body was already serialized.  The member takes ownership of the reference.
+   */
+  public void sendIgnoreNotReady(AbstractGroupMessage msg, TCReference serialized);
+
   public void setTCGroupManager(TCGroupManagerImpl manager);
 
   public TCGroupManagerImpl getTCGroupManager();
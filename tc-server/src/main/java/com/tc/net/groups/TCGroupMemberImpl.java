@@ -20,6 +20,7 @@ package com.tc.net.groups;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.tc.bytes.TCReference;
 import com.tc.l2.L2DebugLogging;
 import com.tc.l2.L2DebugLogging.LogLevel;
 import com.tc.net.ServerID;
@@ -84,9 +85,30 @@ public class TCGroupMemberImpl implements TCGroupMember, ChannelEventListener {
     }
   }
 
+  @Override
+  public void sendIgnoreNotReady(AbstractGroupMessage msg, TCReference serialized) {
+    if (!channel.isOpen()) {
+      serialized.close();
+      logger.warn("Attempting send to a not ready member " + this + ", msg will not be sent: " + msg);
+      return;
+    }
+    TCGroupMessageWrapper wrapper = (TCGroupMessageWrapper) channel.createMessage(TCMessageType.GROUP_WRAPPER_MESSAGE);
+    wrapper.setSerializedGroupMessage(msg, serialized);
+    try {
+      sendWrapper(wrapper, null);
+    } catch (GroupException ge) {
+      logger.warn("Attempting send to a not ready member " + this + ", msg will not be sent: " + msg, ge);
+    }
+  }
+
   private void sendMessage(AbstractGroupMessage msg, Runnable sentCallback) throws GroupException {
     TCGroupMessageWrapper wrapper = (TCGroupMessageWrapper) channel.createMessage(TCMessageType.GROUP_WRAPPER_MESSAGE);
     wrapper.setGroupMessage(msg);
+    sendWrapper(wrapper, sentCallback);
+  }
+
+  private void sendWrapper(TCGroupMessageWrapper wrapper, Runnable sentCallback) throws GroupException {
+    AbstractGroupMessage msg = wrapper.getGroupMessage();
     if (wrapper.send(sentCallback) == null) {
       throw new GroupException("message not sent:" + msg);
     }
@@ -22,6 +22,7 @@ import com.tc.net.protocol.transport.ConnectionPolicy;
 import com.tc.object.net.ChannelStats;
 import com.tc.object.net.DSOChannelManagerMBean;
 import com.tc.objectserver.entity.VoltronMessageSink;
+import com.tc.objectserver.handler.InvokeLatencies;
 import com.tc.objectserver.handler.VoltronMessageHandler;
 import com.tc.spi.Guardian;
 import java.util.LinkedHashMap;
@@ -37,10 +38,11 @@ public class ServerManagementContext implements PrettyPrintable {
   private final Guardian           guardian;
   private final VoltronMessageHandler handler;
   private final VoltronMessageSink msgSink;
+  private final InvokeLatencies latencies;
 
   public ServerManagementContext(DSOChannelManagerMBean channelMgr, TCConnectionManager connections, ChannelStats channelStats,
                                  ConnectionPolicy connectionPolicy, Guardian guard, VoltronMessageHandler handler,
-                                 VoltronMessageSink msgs) {
+                                 VoltronMessageSink msgs, InvokeLatencies latencies) {
     this.channelMgr = channelMgr;
     this.connections = connections;
     this.channelStats = channelStats;
@@ -48,6 +50,7 @@ public class ServerManagementContext implements PrettyPrintable {
     this.guardian = guard;
     this.handler = handler;
     this.msgSink = msgs;
+    this.latencies = latencies;
   }
 
   public DSOChannelManagerMBean getChannelManager() {
@@ -78,10 +81,15 @@ public class ServerManagementContext implements PrettyPrintable {
     return this.msgSink;
   }
 
+  public InvokeLatencies getInvokeLatencies() {
+    return this.latencies;
+  }
+
   @Override
   public Map<String, ?> getStateMap() {
     LinkedHashMap<String, Object> map = new LinkedHashMap<>();
     map.put("messageHandler", this.handler.getStateMap());
+    map.put("invokeLatencies", this.latencies.getStateMap());
     return map;
   }
 }
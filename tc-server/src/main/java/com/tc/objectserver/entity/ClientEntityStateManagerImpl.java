@@ -26,16 +26,27 @@ import com.tc.object.ClientInstanceID;
 import com.tc.object.EntityDescriptor;
 import com.tc.object.FetchID;
 import com.tc.util.Assert;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 
+/**
+ * References are indexed by client and by entity as well as by descriptor so that disconnects and verification only
+ * look at the references of the client or entity involved.  The indexes are only changed while holding the
+ * descriptor's entry in the primary map so adds and removes of the same descriptor cannot interleave, and an index
+ * entry is dropped in the same step that removes its last reference.
+ */
 public class ClientEntityStateManagerImpl implements ClientEntityStateManager {
   private final Map<ClientDescriptorImpl, FetchID> clientStates = new ConcurrentHashMap<>();
+  private final Map<ClientID, Map<ClientDescriptorImpl, FetchID>> byClient = new ConcurrentHashMap<>();
+  private final Map<FetchID, Set<ClientDescriptorImpl>> byFetch = new ConcurrentHashMap<>();
   private static final Logger logger    = LoggerFactory.getLogger(ClientEntityStateManagerImpl.class);
 
   public ClientEntityStateManagerImpl() {
@@ -44,48 +55,85 @@ public class ClientEntityStateManagerImpl implements ClientEntityStateManager {
   @Override
   public boolean addReference(ClientDescriptorImpl instance, FetchID eid) {
     Assert.assertFalse(instance.getClientInstanceID() == ClientInstanceID.NULL_ID);
-    FetchID check = clientStates.put(instance, eid);
-    return Objects.isNull(check);
+    AtomicReference<FetchID> check = new AtomicReference<>();
+    clientStates.compute(instance, (d, current) -> {
+      if (current != null) {
+        unindex(d, current);
+      }
+      check.set(current);
+      index(d, eid);
+      return eid;
+    });
+    return Objects.isNull(check.get());
   }
 
   @Override
   public boolean removeReference(ClientDescriptorImpl descriptor) {
     Assert.assertFalse(descriptor.getClientInstanceID() == ClientInstanceID.NULL_ID);
-    FetchID eid = clientStates.remove(descriptor);
-    return Objects.nonNull(eid);
+    AtomicReference<FetchID> eid = new AtomicReference<>();
+    clientStates.computeIfPresent(descriptor, (d, current) -> {
+      unindex(d, current);
+      eid.set(current);
+      return null;
+    });
+    return Objects.nonNull(eid.get());
+  }
+
+  private void index(ClientDescriptorImpl descriptor, FetchID eid) {
+    byClient.compute(descriptor.getNodeID(), (c, refs) -> {
+      Map<ClientDescriptorImpl, FetchID> map = refs == null ? new ConcurrentHashMap<>() : refs;
+      map.put(descriptor, eid);
+      return map;
+    });
+    byFetch.compute(eid, (f, refs) -> {
+      Set<ClientDescriptorImpl> set = refs == null ? ConcurrentHashMap.newKeySet() : refs;
+      set.add(descriptor);
+      return set;
+    });
+  }
+
+  private void unindex(ClientDescriptorImpl descriptor, FetchID eid) {
+    byClient.computeIfPresent(descriptor.getNodeID(), (c, refs) -> {
+      refs.remove(descriptor);
+      return refs.isEmpty() ? null : refs;
+    });
+    byFetch.computeIfPresent(eid, (f, refs) -> {
+      refs.remove(descriptor);
+      return refs.isEmpty() ? null : refs;
+    });
   }
 
   @Override
   public boolean verifyNoEntityReferences(FetchID eid) {
-    return !clientStates.values().stream().anyMatch((led)->led.equals(eid));
+    return !byFetch.containsKey(eid);
   }
 
   @Override
   public boolean verifyNoClientReferences(ClientID eid) {
-    return !clientStates.keySet().stream().anyMatch((led)->led.getNodeID().equals(eid));
+    return !byClient.containsKey(eid);
   }
   
   @Override
   public List<FetchID> clientDisconnected(ClientID client) {
-    return clientStates.entrySet().stream()
-        .filter(e->e.getKey().getNodeID().equals(client))
-        .map(e->e.getValue())
+    return byClient.getOrDefault(client, Collections.emptyMap()).values().stream()
         .distinct()
         .collect(Collectors.toList());
   }
   
   @Override
   public List<EntityDescriptor> clientDisconnectedFromEntity(ClientID client, FetchID entity) {
-    return clientStates.entrySet().stream()
-        .filter(e->(e.getKey().getNodeID().equals(client) && e.getValue().equals(entity)))
+    return byClient.getOrDefault(client, Collections.emptyMap()).entrySet().stream()
+        .filter(e->e.getValue().equals(entity))
         .map(e->EntityDescriptor.createDescriptorForInvoke(e.getValue(), e.getKey().getClientInstanceID()))
         .collect(Collectors.toList());
   }
 
   @Override
   public Set<ClientID> clearClientReferences() {
-    Set<ClientID> msgs = clientStates.keySet().stream().map(ClientDescriptorImpl::getNodeID).distinct().collect(Collectors.toSet());
+    Set<ClientID> msgs = new HashSet<>(byClient.keySet());
     clientStates.clear();
+    byClient.clear();
+    byFetch.clear();
     return msgs;
   }
 }
@@ -50,6 +50,8 @@ import com.tc.properties.TCPropertiesConsts;
 import com.tc.properties.TCPropertiesImpl;
 import com.tc.services.InternalServiceRegistry;
 import com.tc.services.MappedStateCollector;
+import com.tc.spi.BufferMessageCodec;
+import com.tc.spi.BufferSyncMessageCodec;
 import com.tc.spi.Guardian;
 import com.tc.tracing.Trace;
 import com.tc.util.Assert;
@@ -123,11 +125,14 @@ public class ManagedEntityImpl implements ManagedEntity {
 
   private final MessageCodec<EntityMessage, EntityResponse> codec;
   private final SyncMessageCodec<EntityMessage> syncCodec;
+  private final MessageDecoder decoder;
   private volatile ActiveServerEntity<EntityMessage, EntityResponse> activeServerEntity;
   private volatile ConcurrencyStrategy<EntityMessage> concurrencyStrategy;
   private volatile ExecutionStrategy<EntityMessage> executionStrategy;
   private volatile ActiveServerEntity.ReconnectHandler reconnect;
 
+  private static final int PASSIVE_SYNC_WINDOW = TCPropertiesImpl.getProperties()
+        .getInt(TCPropertiesConsts.L2_PASSIVE_SYNC_WINDOW, 32);
   private final DefermentQueue<SchedulingRunnable> runnables = new DefermentQueue<>(TCPropertiesImpl.getProperties()
         .getInt(TCPropertiesConsts.ENTITY_DEFERMENT_QUEUE_SIZE, 1024));
 
@@ -167,6 +172,19 @@ public class ManagedEntityImpl implements ManagedEntity {
     registry.setOwningEntity(this);
     this.codec = factory.getMessageCodec();
     this.syncCodec = factory.getSyncMessageCodec();
+    MessageDecoder copying = raw -> codec.decodeMessage(raw);
+    this.decoder = this.codec instanceof BufferMessageCodec
+        ? MessageDecoder.viewing(copying, ((BufferMessageCodec<?>) this.codec)::decodeMessage)
+        : copying;
+  }
+
+  private MessageDecoder syncDecoder(int concurrencyKey) {
+    MessageDecoder copying = raw -> syncCodec.decode(concurrencyKey, raw);
+    if (syncCodec instanceof BufferSyncMessageCodec) {
+      BufferSyncMessageCodec<?> buffers = (BufferSyncMessageCodec<?>) syncCodec;
+      return MessageDecoder.viewing(copying, view -> buffers.decode(concurrencyKey, view));
+    }
+    return copying;
   }
 
   @Override
@@ -362,7 +380,7 @@ public class ManagedEntityImpl implements ManagedEntity {
     Trace.activeTrace().log("ManagedEntityImpl.processInvokeRequest");
     if (isInActiveState) {
       try {
-        key = this.concurrencyStrategy.concurrencyKey(message.decodeMessage(raw->this.codec.decodeMessage(raw)));
+        key = this.concurrencyStrategy.concurrencyKey(message.decodeMessage(this.decoder));
       } catch (MessageCodecException codec) {
         // use the universal key because this is going to result in error downstream
         key = ConcurrencyStrategy.UNIVERSAL_KEY;
@@ -459,7 +477,7 @@ public class ManagedEntityImpl implements ManagedEntity {
 
   private EntityMessage decodeMessage(MessagePayload payload, ResultCapture capture) {
     try {
-      return payload.decodeMessage(r->codec.decodeMessage(r));
+      return payload.decodeMessage(decoder);
     } catch (MessageCodecException ce) {
       capture.failure(ServerException.createMessageCodecException(id, ce));
     }
@@ -671,8 +689,7 @@ public class ManagedEntityImpl implements ManagedEntity {
     try {
 
       this.passiveServerEntity.invokePassive(new InvokeContextImpl(message.getConcurrency()),
-                                             message.decodeMessage(raw -> syncCodec.decode(message.getConcurrency(),
-                                                                                              raw)));
+                                             message.decodeMessage(syncDecoder(message.getConcurrency())));
     } catch (EntityUserException | MessageCodecException e) {
       logger.error("Caught EntityUserException during sync invoke", e);
       throw new RuntimeException("Caught EntityUserException during sync invoke", e);
@@ -821,13 +838,18 @@ public class ManagedEntityImpl implements ManagedEntity {
           throw new IllegalStateException("Actions on a non-existent entity.");
         } else {
           // Create the channel which will send the payloads over the wire.
-          PassiveSynchronizationChannel<EntityMessage> syncChannel = new EntityMessagePassiveSynchronizationChannelImpl(
+          EntityMessagePassiveSynchronizationChannelImpl syncChannel = new EntityMessagePassiveSynchronizationChannelImpl(
             passives,
             concurrencyKey,
             false
           );
         //  start is handled by the sync request that triggered this action
-          this.activeServerEntity.synchronizeKeyToPassive(syncChannel, concurrencyKey);
+          try {
+            this.activeServerEntity.synchronizeKeyToPassive(syncChannel, concurrencyKey);
+          } finally {
+        //  the section is only complete once the passives have received every payload
+            syncChannel.drain();
+          }
         }
       } else {
         throw new IllegalStateException("syncing a passive entity");
@@ -1155,6 +1177,9 @@ public class ManagedEntityImpl implements ManagedEntity {
     //  waitForCompletion below waits for completion of the local request processor
     syncStart.waitForCompletion();
 // wait for future is ok, occuring on sync executor thread
+    //  activities to the passive are ordered so key boundaries are not waited on individually,
+    //  the window only bounds how far ahead of the passive this sync can get
+    PassiveSyncWindow window = new PassiveSyncWindow(PASSIVE_SYNC_WINDOW);
     try {
       if (!this.isDestroyed) {
         for (Integer concurrency : concurrencyStrategy.getKeysForSynchronization()) {
@@ -1163,7 +1188,7 @@ public class ManagedEntityImpl implements ManagedEntity {
           Assert.assertTrue(concurrency > 0);
 
           if (activeServerEntity != null) {
-            activeServerEntity.prepareKeyForSynchronizeOnPassive(new EntityMessagePassiveSynchronizationChannelImpl(Collections.singleton(passive), concurrency, true), concurrency);
+            activeServerEntity.prepareKeyForSynchronizeOnPassive(new EntityMessagePassiveSynchronizationChannelImpl(passive, window, concurrency, true), concurrency);
           }
           // We don't actually use the message in the direct strategy so this is safe.
           //  don't care about the result
@@ -1173,11 +1198,12 @@ public class ManagedEntityImpl implements ManagedEntity {
         //  wait for completed above waits for acknowledgment from the passive
         //  waitForCompletion below waits for completion of the local request processor
           sectionComplete.waitForCompletion();
-          executor.scheduleSync(SyncReplicationActivity.createEndEntityKeyMessage(id, version, fetchID, concurrency), passive).waitForCompleted();
+          window.add(executor.scheduleSync(SyncReplicationActivity.createEndEntityKeyMessage(id, version, fetchID, concurrency), passive));
         }
   //  end passive sync for an entity
   // wait for future is ok, occuring on sync executor thread
-        executor.scheduleSync(SyncReplicationActivity.createEndEntityMessage(id, version, fetchID), passive).waitForCompleted();
+        window.add(executor.scheduleSync(SyncReplicationActivity.createEndEntityMessage(id, version, fetchID), passive));
+        window.drainCompleted();
       }
     } finally {
       //  flush the sync pipeline and switch back to main pipeline.
@@ -1318,7 +1344,7 @@ public class ManagedEntityImpl implements ManagedEntity {
         if (logger.isDebugEnabled()) {
           try {
             if (request.getAction() == ServerEntityAction.INVOKE_ACTION) {
-              payload.decodeMessage(raw->codec.decodeMessage(raw));
+              payload.decodeMessage(decoder);
             }
           } catch (MessageCodecException codec) {
 
@@ -1344,7 +1370,7 @@ public class ManagedEntityImpl implements ManagedEntity {
       }
       if (isActive() && request.getAction() == ServerEntityAction.INVOKE_ACTION) {
         try {
-          ExecutionStrategy.Location loc = executionStrategy.getExecutionLocation(payload.decodeMessage(raw->codec.decodeMessage(raw)));
+          ExecutionStrategy.Location loc = executionStrategy.getExecutionLocation(payload.decodeMessage(decoder));
           if (loc != ExecutionStrategy.Location.IGNORE) {
             replicate = loc.runOnPassive();
           }
@@ -1492,12 +1518,23 @@ public class ManagedEntityImpl implements ManagedEntity {
 
   private class EntityMessagePassiveSynchronizationChannelImpl implements PassiveSynchronizationChannel<EntityMessage> {
     private final List<SessionID> passives;
+    private final Map<SessionID, PassiveSyncWindow> windows = new LinkedHashMap<>();
     private final int concurrencyKey;
     private final boolean prepare;
 
     public EntityMessagePassiveSynchronizationChannelImpl(Collection<SessionID> passives, int concurrencyKey, boolean prepare) {
       this.passives = new ArrayList<>(passives);
       Collections.sort(this.passives);
+      for (SessionID passive : this.passives) {
+        this.windows.put(passive, new PassiveSyncWindow(PASSIVE_SYNC_WINDOW));
+      }
+      this.concurrencyKey = concurrencyKey;
+      this.prepare = prepare;
+    }
+
+    public EntityMessagePassiveSynchronizationChannelImpl(SessionID passive, PassiveSyncWindow window, int concurrencyKey, boolean prepare) {
+      this.passives = Collections.singletonList(passive);
+      this.windows.put(passive, window);
       this.concurrencyKey = concurrencyKey;
       this.prepare = prepare;
     }
@@ -1505,19 +1542,27 @@ public class ManagedEntityImpl implements ManagedEntity {
     @Override
 //  TODO:  what should be done about exception handling?
     public void synchronizeToPassive(EntityMessage payload) {
+      byte[] message;
+      try {
+        message = syncCodec.encode(concurrencyKey, payload);
+      } catch (MessageCodecException ce) {
+        throw new RuntimeException(ce);
+      }
       for (SessionID passive : passives) {
-        try {
-          byte[] message = syncCodec.encode(concurrencyKey, payload);
-          ActivePassiveAckWaiter waiter = executor.scheduleSync(SyncReplicationActivity.createPayloadMessage(id, version, fetchID,
-                                             concurrencyKey, TCByteBufferFactory.wrap(message), ""), passive);
-          //  wait for the passive to receive before sending the next
-          waiter.waitForReceived();
-        } catch (MessageCodecException ce) {
-          throw new RuntimeException(ce);
-        }
+        ActivePassiveAckWaiter waiter = executor.scheduleSync(SyncReplicationActivity.createPayloadMessage(id, version, fetchID,
+                                           concurrencyKey, TCByteBufferFactory.wrap(message), ""), passive);
+        //  keep sending until the passive falls a full window behind
+        windows.get(passive).add(waiter);
       }
     }
 
+    /**
+     * Wait for the passives to receive all the payloads sent through this channel.
+     */
+    void drain() {
+      windows.values().forEach(PassiveSyncWindow::drainReceived);
+    }
+
     @Override
     public boolean equals(Object o) {
       if (this == o) {
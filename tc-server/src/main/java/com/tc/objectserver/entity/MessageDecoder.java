@@ -17,6 +17,9 @@
  */
 package com.tc.objectserver.entity;
 
+import com.tc.bytes.TCByteBuffer;
+import com.tc.bytes.TCByteBufferFactory;
+import java.nio.ByteBuffer;
 import org.terracotta.entity.EntityMessage;
 import org.terracotta.entity.MessageCodecException;
 
@@ -25,4 +28,37 @@ import org.terracotta.entity.MessageCodecException;
  */
 public interface MessageDecoder {
   EntityMessage decode(byte[] raw) throws MessageCodecException;
+
+  /**
+   * Decodes the received payload.  Unless overridden this copies it out to call {@link #decode(byte[])}.
+   */
+  default EntityMessage decode(TCByteBuffer raw) throws MessageCodecException {
+    return decode(TCByteBufferFactory.unwrap(raw));
+  }
+
+  /**
+   * A decoder handing codecs a read-only view of the received payload rather than a copy.
+   */
+  static MessageDecoder viewing(MessageDecoder copying, BufferDecoder buffers) {
+    return new MessageDecoder() {
+      @Override
+      public EntityMessage decode(byte[] raw) throws MessageCodecException {
+        return copying.decode(raw);
+      }
+
+      @Override
+      public EntityMessage decode(TCByteBuffer raw) throws MessageCodecException {
+        ByteBuffer nio = raw.getNioBuffer();
+        try {
+          return buffers.decode(nio.asReadOnlyBuffer());
+        } finally {
+          raw.returnNioBuffer(nio);
+        }
+      }
+    };
+  }
+
+  interface BufferDecoder {
+    EntityMessage decode(ByteBuffer view) throws MessageCodecException;
+  }
 }
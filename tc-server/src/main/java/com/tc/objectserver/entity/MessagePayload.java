@@ -110,7 +110,7 @@ public class MessagePayload {
     }
     try {
       if (message == null) {
-        message = codec.decode(convertRawToBytes());
+        message = raw == null ? codec.decode((byte[]) null) : codec.decode(raw.duplicate());
       }
       return message;
     } catch (MessageCodecException ce) {
@@ -0,0 +1,71 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.tc.objectserver.entity;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Flow control for passive sync.  Sync activities sent to a passive travel on one ordered stream so the sender does
+ * not need to wait for each one before sending the next, it only keeps the number of activities the passive has not
+ * yet received under the window size.
+ * <p>
+ * Not thread safe, a window belongs to the thread driving the sync.
+ */
+class PassiveSyncWindow {
+  private final int size;
+  private final Deque<ActivePassiveAckWaiter> inflight = new ArrayDeque<>();
+
+  PassiveSyncWindow(int size) {
+    this.size = Math.max(1, size);
+  }
+
+  /**
+   * Track a sent activity, waiting for the oldest ones to be received if the window is full.
+   */
+  void add(ActivePassiveAckWaiter waiter) {
+    inflight.addLast(waiter);
+    while (inflight.size() > size) {
+      inflight.pollFirst().waitForReceived();
+    }
+  }
+
+  /**
+   * Wait until the passive has received everything sent through this window.
+   */
+  void drainReceived() {
+    ActivePassiveAckWaiter waiter;
+    while ((waiter = inflight.pollFirst()) != null) {
+      waiter.waitForReceived();
+    }
+  }
+
+  /**
+   * Wait until the passive has completed everything sent through this window.
+   */
+  void drainCompleted() {
+    ActivePassiveAckWaiter waiter;
+    while ((waiter = inflight.pollFirst()) != null) {
+      waiter.waitForCompleted();
+    }
+  }
+
+  int inflight() {
+    return inflight.size();
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.tc.objectserver.handler;
+
+import com.tc.object.StatType;
+import com.tc.stats.LatencyHistogram;
+import com.tc.text.PrettyPrintable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import static com.tc.object.StatType.SERVER_ADD;
+import static com.tc.object.StatType.SERVER_BEGININVOKE;
+import static com.tc.object.StatType.SERVER_COMPLETE;
+import static com.tc.object.StatType.SERVER_ENDINVOKE;
+import static com.tc.object.StatType.SERVER_RECEIVED;
+import static com.tc.object.StatType.SERVER_RETIRED;
+import static com.tc.object.StatType.SERVER_SCHEDULE;
+
+/**
+ * Latency of each server side phase of an invoke, per entity type.  Fed from the timings captured through
+ * {@link com.tc.objectserver.api.StatisticsCapture} once the invoke is retired.  Every timing lands in two
+ * histograms, one covering everything since startup and one covering the current interval, so resetting the
+ * interval never clears what other consumers of the cumulative view read.
+ */
+public class InvokeLatencies implements PrettyPrintable {
+
+  private static final StatType[][] PHASES = {
+    {SERVER_ADD, SERVER_SCHEDULE},
+    {SERVER_SCHEDULE, SERVER_BEGININVOKE},
+    {SERVER_BEGININVOKE, SERVER_ENDINVOKE},
+    {SERVER_RECEIVED, SERVER_COMPLETE},
+    {SERVER_COMPLETE, SERVER_RETIRED},
+    {SERVER_ADD, SERVER_RETIRED}
+  };
+
+  private final ConcurrentMap<String, LatencyHistogram[]> cumulative = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, LatencyHistogram[]> interval = new ConcurrentHashMap<>();
+
+  /**
+   * @param type class name of the entity invoked
+   * @param stats server timings indexed by {@link StatType#serverSpot()}
+   */
+  void record(String type, long[] stats) {
+    LatencyHistogram[] total = cumulative.computeIfAbsent(type, t->newHistograms());
+    LatencyHistogram[] current = interval.computeIfAbsent(type, t->newHistograms());
+    for (int x = 0; x < PHASES.length; x++) {
+      long start = stats[PHASES[x][0].serverSpot()];
+      long finish = stats[PHASES[x][1].serverSpot()];
+      if (start != 0 && finish != 0) {
+        total[x].record(finish - start);
+        current[x].record(finish - start);
+      }
+    }
+  }
+
+  /**
+   * Latencies in nanoseconds recorded since startup, not affected by {@link #reset()}.
+   */
+  public Map<String, Map<String, Map<String, Long>>> getLatencies() {
+    return collect(cumulative, LatencyHistogram::snapshot);
+  }
+
+  /**
+   * Latencies in nanoseconds recorded since the last reset, starting a new interval.
+   */
+  public Map<String, Map<String, Map<String, Long>>> reset() {
+    return collect(interval, LatencyHistogram::snapshotAndReset);
+  }
+
+  private static Map<String, Map<String, Map<String, Long>>> collect(ConcurrentMap<String, LatencyHistogram[]> types,
+                                                                   Function<LatencyHistogram, LatencyHistogram.Snapshot> snapper) {
+    Map<String, Map<String, Map<String, Long>>> map = new LinkedHashMap<>();
+    types.forEach((type, histograms)->{
+      Map<String, Map<String, Long>> phases = new LinkedHashMap<>();
+      for (int x = 0; x < PHASES.length; x++) {
+        LatencyHistogram.Snapshot snap = snapper.apply(histograms[x]);
+        if (snap.getCount() > 0) {
+          phases.put(PHASES[x][0].description() + "->" + PHASES[x][1].description(), snap.toMap());
+        }
+      }
+      map.put(type, phases);
+    });
+    return map;
+  }
+
+  private static LatencyHistogram[] newHistograms() {
+    LatencyHistogram[] histograms = new LatencyHistogram[PHASES.length];
+    for (int x = 0; x < histograms.length; x++) {
+      histograms[x] = new LatencyHistogram();
+    }
+    return histograms;
+  }
+
+  @Override
+  public Map<String, ?> getStateMap() {
+    return getLatencies();
+  }
+}
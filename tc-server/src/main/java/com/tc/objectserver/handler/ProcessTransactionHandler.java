@@ -109,6 +109,7 @@ public class ProcessTransactionHandler implements ReconnectListener {
   private final ConcurrentHashMap<ClientID, VoltronEntityMultiResponse> invokeReturn = new ConcurrentHashMap<>();
   private final ConcurrentHashMap<ClientID, Integer> inflightFetch = new ConcurrentHashMap<>();
   private final ConcurrentHashMap<TransactionID, Future<Void>> transactionOrderPersistenceFutures = new ConcurrentHashMap<>();
+  private final InvokeLatencies latencies = new InvokeLatencies();
 
   @Override
   public synchronized void reconnectComplete() {
@@ -270,6 +271,10 @@ public class ProcessTransactionHandler implements ReconnectListener {
     return sender;
   }
 
+  public InvokeLatencies getInvokeLatencies() {
+    return latencies;
+  }
+
   public ProcessTransactionHandler(Persistor persistor, DSOChannelManager channelManager, EntityManager entityManager) {
     this.persistor = persistor;
     this.dsoChannelManager = channelManager;
@@ -423,7 +428,7 @@ public class ProcessTransactionHandler implements ReconnectListener {
       ManagedEntity entity = optionalEntity.get();
       // Note that it is possible to trigger an exception when decoding a message in addInvokeRequest.
       if (ServerEntityAction.INVOKE_ACTION == action) {
-        InvokeHandler handler = new InvokeHandler(request, this::insertMessageInStream, chaincomplete, chainfail, requiresReceived, requiresRetired);
+        InvokeHandler handler = new InvokeHandler(entity.getID().getClassName(), request, this::insertMessageInStream, chaincomplete, chainfail, requiresReceived, requiresRetired);
         handler.addMessage();
         if(transactionOrderPersistenceFuture != null) {
           transactionOrderPersistenceFutures.put(transactionID, transactionOrderPersistenceFuture);
@@ -715,10 +720,12 @@ public class ProcessTransactionHandler implements ReconnectListener {
     private final boolean sendReceived;
     private final boolean holdResultForRetired;
     private byte[] heldResult;
+    private final String type;
     private final long[] stats = new long[StatType.SERVER_RETIRED.serverSpot() + 1];
 
-    InvokeHandler(ServerEntityRequest request, Consumer<VoltronEntityResponse> sender, Consumer<byte[]> complete, Consumer<ServerException> failure, boolean reqReceived, boolean reqRetired) {
+    InvokeHandler(String type, ServerEntityRequest request, Consumer<VoltronEntityResponse> sender, Consumer<byte[]> complete, Consumer<ServerException> failure, boolean reqReceived, boolean reqRetired) {
       super(request, sender, complete, failure);
+      this.type = type;
       sendReceived = reqReceived;
       holdResultForRetired = reqRetired;
     }
@@ -823,6 +830,7 @@ public class ProcessTransactionHandler implements ReconnectListener {
             }
           });
         }
+        latencies.record(type, stats);
         MonitoringEventCreator.finish();
         complete.complete(null);
       });
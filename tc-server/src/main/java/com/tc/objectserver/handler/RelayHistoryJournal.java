@@ -0,0 +1,329 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.tc.objectserver.handler;
+
+import com.tc.bytes.TCByteBuffer;
+import com.tc.bytes.TCByteBufferFactory;
+import com.tc.bytes.TCReference;
+import com.tc.io.TCByteBufferInputStream;
+import com.tc.io.TCByteBufferOutputStream;
+import com.tc.l2.msg.ReplicationMessage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append only journal of the replication messages relayed to a duplication target, so a target that fell far behind
+ * can resume from disk instead of requiring a full passive sync.
+ * <p>
+ * Messages are written in arrival order, which is sequence order, to memory mapped segment files.  Each record is
+ * {@code [int length][long sequence][serialized message]}.  Every segment keeps an in-memory index of the sequences
+ * it holds and their offsets, so a resume point is found with a binary search.  Whole segments are dropped, oldest
+ * first, once the journal is over its size limit or a segment's last write is older than the retention time.
+ * <p>
+ * The journal only lives as long as the server process; any segments left in the directory by a previous run are
+ * deleted on startup.
+ */
+public class RelayHistoryJournal implements Closeable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(RelayHistoryJournal.class);
+  private static final String PREFIX = "relay-";
+  private static final String SUFFIX = ".journal";
+  private static final int RECORD_HEADER = Integer.BYTES + Long.BYTES;
+
+  private final Path directory;
+  private final int segmentSize;
+  private final long maxBytes;
+  private final long retentionMillis;
+  private final LongSupplier clock;
+
+  private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+  private Segment current;
+  private long totalBytes;
+  private long lastSequence = Long.MIN_VALUE;
+
+  public RelayHistoryJournal(Path directory, int segmentSize, long maxBytes, long retentionMillis) throws IOException {
+    this(directory, segmentSize, maxBytes, retentionMillis, System::currentTimeMillis);
+  }
+
+  RelayHistoryJournal(Path directory, int segmentSize, long maxBytes, long retentionMillis, LongSupplier clock) throws IOException {
+    if (segmentSize <= RECORD_HEADER) {
+      throw new IllegalArgumentException("segment size too small " + segmentSize);
+    }
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.maxBytes = maxBytes;
+    this.retentionMillis = retentionMillis;
+    this.clock = clock;
+    Files.createDirectories(directory);
+    try (DirectoryStream<Path> stale = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+      for (Path p : stale) {
+        Files.delete(p);
+      }
+    }
+  }
+
+  /**
+   * Append a message.  Sequences must increase, a message that does not is not journaled.
+   */
+  public synchronized void append(ReplicationMessage msg) throws IOException {
+    long sequence = msg.getSequenceID();
+    if (sequence <= lastSequence) {
+      LOGGER.warn("not journaling out of order relay message {} after {}", sequence, lastSequence);
+      return;
+    }
+    TCByteBufferOutputStream out = new TCByteBufferOutputStream();
+    msg.serializeTo(out);
+    try (TCReference data = out.accessBuffers()) {
+      int length = (int)data.available();
+      if (current == null || !current.fits(length)) {
+        roll(sequence, length);
+      }
+      current.append(sequence, data, length, clock.getAsLong());
+    }
+    lastSequence = sequence;
+    expire();
+  }
+
+  private void roll(long firstSequence, int length) throws IOException {
+    if (current != null) {
+      current.map.force();
+    }
+    int size = Math.max(segmentSize, RECORD_HEADER + length);
+    current = new Segment(directory.resolve(PREFIX + String.format("%020d", firstSequence) + SUFFIX), size);
+    segments.put(firstSequence, current);
+    totalBytes += size;
+  }
+
+  private void expire() throws IOException {
+    long now = clock.getAsLong();
+    Iterator<Segment> oldest = segments.values().iterator();
+    while (oldest.hasNext()) {
+      Segment segment = oldest.next();
+      boolean overSize = maxBytes > 0 && totalBytes > maxBytes;
+      boolean expired = retentionMillis > 0 && now - segment.lastAppend > retentionMillis;
+      if (segment == current || !(overSize || expired)) {
+        break;
+      }
+      oldest.remove();
+      totalBytes -= segment.capacity();
+      segment.delete();
+    }
+  }
+
+  public synchronized boolean contains(long sequence) {
+    Map.Entry<Long, Segment> segment = segments.floorEntry(sequence);
+    return segment != null && segment.getValue().indexOf(sequence) >= 0;
+  }
+
+  /**
+   * Hand every journaled message after {@code lastSeen} to the consumer in order.  The consumer may stop the replay
+   * by returning false.
+   */
+  public Replay replayAfter(long lastSeen, Predicate<ReplicationMessage> consumer) throws IOException {
+    Cursor cursor = cursorAfter(lastSeen);
+    return cursor == null ? Replay.MISSING : replay(cursor, Long.MAX_VALUE, consumer);
+  }
+
+  /**
+   * @return a cursor positioned after {@code lastSeen}, null if {@code lastSeen} is not in the journal
+   */
+  public synchronized Cursor cursorAfter(long lastSeen) {
+    return contains(lastSeen) ? new Cursor(lastSeen) : null;
+  }
+
+  /**
+   * Hand the journaled messages after the cursor to the consumer in order, moving the cursor past every message the
+   * consumer accepts.  Stops once at least {@code maxBytes} of records were replayed so a large journal can be
+   * replayed in steps without holding the journal for the whole replay.
+   *
+   * @return {@link Replay#MISSING} if the cursor position was dropped from the journal, {@link Replay#ABORTED} if the
+   *         consumer returned false, {@link Replay#PARTIAL} if the byte limit was reached before the end of the
+   *         journal and {@link Replay#COMPLETE} otherwise
+   */
+  public synchronized Replay replay(Cursor cursor, long maxBytes, Predicate<ReplicationMessage> consumer) throws IOException {
+    Map.Entry<Long, Segment> start = segments.floorEntry(cursor.position);
+    if (start == null) {
+      return Replay.MISSING;
+    }
+    int index = start.getValue().indexOf(cursor.position);
+    if (index < 0) {
+      return Replay.MISSING;
+    }
+    index += 1;
+    long replayed = 0;
+    for (Segment segment : segments.tailMap(start.getKey(), true).values()) {
+      for (; index < segment.count; index++) {
+        if (replayed >= maxBytes) {
+          return Replay.PARTIAL;
+        }
+        if (!consumer.test(segment.read(index))) {
+          return Replay.ABORTED;
+        }
+        cursor.position = segment.sequences[index];
+        replayed += RECORD_HEADER + segment.length(index);
+      }
+      index = 0;
+    }
+    return Replay.COMPLETE;
+  }
+
+  /**
+   * @return true if nothing was appended after the cursor position
+   */
+  public synchronized boolean isCaughtUp(Cursor cursor) {
+    return cursor.position == lastSequence;
+  }
+
+  public synchronized long getTotalBytes() {
+    return totalBytes;
+  }
+
+  public synchronized int getSegmentCount() {
+    return segments.size();
+  }
+
+  public synchronized Map<String, Object> getStateMap() {
+    Map<String, Object> state = new LinkedHashMap<>();
+    state.put("directory", directory.toString());
+    state.put("segments", segments.size());
+    state.put("bytes", totalBytes);
+    state.put("first", segments.isEmpty() ? -1 : segments.firstKey());
+    state.put("last", lastSequence);
+    return state;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    for (Segment segment : segments.values()) {
+      segment.delete();
+    }
+    segments.clear();
+    current = null;
+    totalBytes = 0;
+  }
+
+  public enum Replay {
+    MISSING,
+    ABORTED,
+    PARTIAL,
+    COMPLETE
+  }
+
+  /**
+   * Position of a replay in the journal, the sequence of the last message handed out.
+   */
+  public static final class Cursor {
+    private long position;
+
+    private Cursor(long position) {
+      this.position = position;
+    }
+
+    public long getPosition() {
+      return position;
+    }
+  }
+
+  private static class Segment {
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    private long[] sequences = new long[256];
+    private int[] offsets = new int[256];
+    private int count;
+    private long lastAppend;
+
+    Segment(Path file, int size) throws IOException {
+      this.file = file;
+      this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      this.map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    boolean fits(int length) {
+      return map.remaining() >= RECORD_HEADER + length;
+    }
+
+    int capacity() {
+      return map.capacity();
+    }
+
+    void append(long sequence, TCReference data, int length, long now) {
+      if (count == sequences.length) {
+        sequences = Arrays.copyOf(sequences, count * 2);
+        offsets = Arrays.copyOf(offsets, count * 2);
+      }
+      sequences[count] = sequence;
+      offsets[count] = map.position();
+      count += 1;
+      map.putInt(length);
+      map.putLong(sequence);
+      for (TCByteBuffer buffer : data) {
+        ByteBuffer nio = buffer.getNioBuffer();
+        try {
+          map.put(nio);
+        } finally {
+          buffer.returnNioBuffer(nio);
+        }
+      }
+      lastAppend = now;
+    }
+
+    int indexOf(long sequence) {
+      return Arrays.binarySearch(sequences, 0, count, sequence);
+    }
+
+    int length(int index) {
+      return map.getInt(offsets[index]);
+    }
+
+    ReplicationMessage read(int index) throws IOException {
+      ByteBuffer record = map.duplicate();
+      record.position(offsets[index]);
+      int length = record.getInt();
+      record.getLong();
+      byte[] data = new byte[length];
+      record.get(data);
+      ReplicationMessage msg = new ReplicationMessage();
+      msg.deserializeFrom(new TCByteBufferInputStream(TCByteBufferFactory.wrap(data)));
+      return msg;
+    }
+
+    void delete() throws IOException {
+      channel.close();
+      Files.deleteIfExists(file);
+    }
+  }
+}
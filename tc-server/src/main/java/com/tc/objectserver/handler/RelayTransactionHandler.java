@@ -39,6 +39,8 @@ import com.tc.objectserver.core.api.ServerConfigurationContext;
 import com.tc.util.Assert;
 import com.tc.util.SimpleRingBuffer;
 
+import java.io.IOException;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,17 +48,30 @@ import org.slf4j.LoggerFactory;
 public class RelayTransactionHandler {
   private static final Logger PLOGGER = LoggerFactory.getLogger(MessagePayload.class);
   private static final Logger LOGGER = LoggerFactory.getLogger(RelayTransactionHandler.class);
+  // bytes of journal replayed per step of a catch up, one step is sent before the next is read
+  private static final long REPLAY_STEP_BYTES = 1024 * 1024;
 
   private final GroupManager<AbstractGroupMessage> groupManager;
   private final PassiveAckSender ackSender;
   private final Stage<Runnable> relaySender;
   private StateManager stateMgr;
-  private ServerID endTarget = ServerID.NULL_ID;
+  private volatile ServerID endTarget = ServerID.NULL_ID;
   private volatile GroupMessageBatchContext<RelayMessage, ReplicationMessage> forward;
   
   private final SimpleRingBuffer<ReplicationMessage> history = new SimpleRingBuffer<>(5000);
+  private RelayHistoryJournal journal;
+  // a relay target being caught up from the journal, live messages are only journaled until it is done
+  private CatchUp catchUp;
   
   public RelayTransactionHandler(Stage<Runnable> sendToActive, GroupManager<AbstractGroupMessage> groupManager) {
+    this(sendToActive, groupManager, null);
+  }
+
+  /**
+   * @param journal if not null, relayed messages are also journaled and resumption replays from the journal
+   */
+  public RelayTransactionHandler(Stage<Runnable> sendToActive, GroupManager<AbstractGroupMessage> groupManager, RelayHistoryJournal journal) {
+    this.journal = journal;
     this.groupManager = groupManager;
     this.ackSender = new PassiveAckSender(groupManager, m->true, sendToActive.getSink());
     this.relaySender = sendToActive;
@@ -91,7 +106,7 @@ public class RelayTransactionHandler {
     NodeID active = stateMgr.getActiveNodeID();
     TCLogging.getConsoleLogger().info("remote node connected for resumption of duplication {}", node);
     if (!active.isNull() && endTarget.equals(node)) {
-      return replayHistory(new GroupMessageBatchContext<>(RelayTransactionHandler::createRelayMessage, groupManager, node, Integer.MAX_VALUE, 1, n->sendToRelayTarget()), lastSeen);
+      return replayHistory(node, lastSeen);
     } else {
       return false;
     }
@@ -125,38 +140,189 @@ public class RelayTransactionHandler {
     for (SyncReplicationActivity activity : rep.getActivities()) {
       ackSender.acknowledge(activeSender, activity, ReplicationResultCode.NONE);
     }
-    addToHistory(rep);
-    
-    if (this.forward.batchMessage(rep)) {
+    boolean newBatch;
+    synchronized (this) {
+      addToHistory(rep);
+      // while a target catches up it picks this message up from the journal
+      newBatch = catchUp == null && this.forward != null && this.forward.batchMessage(rep);
+    }
+    if (newBatch) {
       sendToRelayTarget();
     }
   }
   
   private synchronized void addToHistory(ReplicationMessage msg) {
     history.put(msg);
+    if (journal != null) {
+      try {
+        journal.append(msg);
+      } catch (IOException ioe) {
+        LOGGER.warn("relay history journal failed, falling back to in-memory history", ioe);
+        closeJournal();
+      }
+    }
+  }
+
+  /**
+   * Release the journal, relay history is only kept in memory from here on.
+   */
+  public synchronized void close() {
+    if (journal != null) {
+      closeJournal();
+    }
+  }
+
+  private void closeJournal() {
+    try {
+      journal.close();
+    } catch (IOException ioe) {
+      LOGGER.warn("unable to close relay history journal", ioe);
+    }
+    journal = null;
   }
   
-  private synchronized boolean replayHistory(GroupMessageBatchContext<RelayMessage, ReplicationMessage> batcher, long lastSeen) {
+  private synchronized boolean replayHistory(ServerID node, long lastSeen) {
+    if (journal != null) {
+      return startCatchUp(node, lastSeen);
+    }
     boolean valid = history.stream().filter(m->m.getSequenceID() == lastSeen).findFirst().isPresent();
     if (valid) {
+      GroupMessageBatchContext<RelayMessage, ReplicationMessage> batcher = new GroupMessageBatchContext<>(RelayTransactionHandler::createRelayMessage, groupManager, node, Integer.MAX_VALUE, 1, n->sendToRelayTarget());
       history.stream().filter(m->m.getSequenceID() > lastSeen).peek(m->System.out.println("replaying:" + m)).forEach(batcher::batchMessage);
-      sendToRelayTarget();
+      catchUp = null;
       this.forward = batcher;
+      sendToRelayTarget();
       return true;
     } else {
       return false;
     }
   }
-  
+
+  /**
+   * Replay the journal to the target in steps on the relay stage.  Each step reads a bounded slice of the journal and
+   * sends it as one batch, the next step runs once that batch is on the network.  The target only takes over live
+   * forwarding once the replay has reached the end of the journal.
+   */
+  private boolean startCatchUp(ServerID node, long lastSeen) {
+    RelayHistoryJournal.Cursor cursor = journal.cursorAfter(lastSeen);
+    if (cursor == null) {
+      return false;
+    }
+    CatchUp next = new CatchUp(node, cursor);
+    catchUp = next;
+    relaySender.getSink().addToSink(() -> catchUp(next));
+    return true;
+  }
+
+  private void catchUp(CatchUp step) {
+    RelayHistoryJournal source;
+    synchronized (this) {
+      if (catchUp != step || step.failed) {
+        return;
+      }
+      source = journal;
+    }
+    RelayHistoryJournal.Replay result;
+    int[] replayed = new int[1];
+    try {
+      result = source == null ? RelayHistoryJournal.Replay.MISSING : source.replay(step.cursor, REPLAY_STEP_BYTES, m->{
+        step.batcher.batchMessage(m);
+        replayed[0] += 1;
+        return true;
+      });
+    } catch (IOException ioe) {
+      LOGGER.warn("unable to replay relay history journal", ioe);
+      result = RelayHistoryJournal.Replay.MISSING;
+    }
+    if (result != RelayHistoryJournal.Replay.PARTIAL && result != RelayHistoryJournal.Replay.COMPLETE) {
+      LOGGER.warn("relay target {} fell out of the relay history journal at {}, it needs to resync", step.target, step.cursor.getPosition());
+      abandonCatchUp(step);
+      return;
+    }
+    boolean caughtUp = false;
+    if (result == RelayHistoryJournal.Replay.COMPLETE) {
+      synchronized (this) {
+        // appends happen under this monitor so nothing can slip in between the check and the switch
+        if (catchUp == step && source.isCaughtUp(step.cursor)) {
+          catchUp = null;
+          this.forward = step.batcher;
+          caughtUp = true;
+        }
+      }
+    }
+    if (replayed[0] == 0) {
+      if (!caughtUp) {
+        // messages were appended after the replay reached the end, take another step
+        relaySender.getSink().addToSink(() -> catchUp(step));
+      }
+      return;
+    }
+    try {
+      step.batcher.flushBatch();
+    } catch (GroupException group) {
+      LOGGER.warn("relay target lost during replay", group);
+      abandonCatchUp(step);
+    }
+  }
+
+  /**
+   * The target can no longer be caught up.  Stop relaying to it and tell it to resync, which restarts it and brings it
+   * back through a full sync as a new relay target.
+   */
+  private void abandonCatchUp(CatchUp step) {
+    step.failed = true;
+    synchronized (this) {
+      // the last step may fail after the target already took over live forwarding
+      if (catchUp != step && this.forward != step.batcher) {
+        return;
+      }
+      catchUp = null;
+      this.forward = null;
+      endTarget = ServerID.NULL_ID;
+    }
+    try {
+      groupManager.sendTo(step.target, RelayMessage.createInvalid());
+    } catch (GroupException group) {
+      LOGGER.warn("unable to tell relay target {} to resync", step.target, group);
+    }
+  }
+
+  private void afterCatchUpSend(CatchUp step) {
+    if (step.failed) {
+      return;
+    }
+    if (this.forward == step.batcher) {
+      sendToRelayTarget();
+    } else {
+      relaySender.getSink().addToSink(() -> catchUp(step));
+    }
+  }
+
   private void sendToRelayTarget() {
     // If we created this message, enqueue the decision to flush it (the other case where we may flush is network
     //  available).
     this.relaySender.getSink().addToSink(() -> {
+      GroupMessageBatchContext<RelayMessage, ReplicationMessage> current = this.forward;
       try {
-        this.forward.flushBatch();
+        if (current != null) {
+          current.flushBatch();
+        }
       } catch (GroupException group) {
        
       }
     });
   }
+
+  private class CatchUp {
+    private final ServerID target;
+    private final RelayHistoryJournal.Cursor cursor;
+    private final GroupMessageBatchContext<RelayMessage, ReplicationMessage> batcher;
+    private volatile boolean failed;
+
+    CatchUp(ServerID target, RelayHistoryJournal.Cursor cursor) {
+      this.target = target;
+      this.cursor = cursor;
+      this.batcher = new GroupMessageBatchContext<>(RelayTransactionHandler::createRelayMessage, groupManager, target, Integer.MAX_VALUE, 1, n->afterCatchUpSend(this));
+    }
+  }
 }
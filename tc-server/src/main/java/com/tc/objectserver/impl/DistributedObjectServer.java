@@ -161,7 +161,10 @@ import com.tc.util.UUID;
 import com.tc.util.startuplock.FileNotCreatedException;
 import com.tc.util.startuplock.LocationNotCreatedException;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.net.InetAddress;
 import java.net.NetworkInterface;
 import java.net.UnknownHostException;
@@ -242,6 +245,7 @@ import org.terracotta.server.ServerEnv;
 import com.tc.net.protocol.tcm.TCAction;
 import com.tc.net.utils.ConnectionLogger;
 import com.tc.objectserver.handler.DuplicationTransactionHandler;
+import com.tc.objectserver.handler.RelayHistoryJournal;
 import com.tc.objectserver.handler.RelayTransactionHandler;
 import com.tc.objectserver.persistence.ClusterPersistentState;
 import com.tc.objectserver.persistence.RelayPersistentState;
@@ -291,6 +295,7 @@ public class DistributedObjectServer {
   private final TerracottaServiceProviderRegistryImpl serviceRegistry;
   private WeightGeneratorFactory globalWeightGeneratorFactory;
   private EntityManagerImpl entityManager;
+  private RelayTransactionHandler relayTransactionHandler;
 
   private final SetOnceFlag  stopping = new SetOnceFlag();
   private final CompletableFuture<Void> stopped = new CompletableFuture<>();
@@ -481,6 +486,7 @@ public class DistributedObjectServer {
     this.tcProperties = TCPropertiesImpl.getProperties();
 
     TCByteBufferFactory.setFixedBufferSize(tcProperties.getInt("bytebuffer.direct.size", 4096));
+    TCByteBufferFactory.configureHeapPooling(tcProperties.getLong(TCPropertiesConsts.TC_BYTEBUFFER_HEAP_POOL_MAX_MB, 0) * 1024 * 1024);
     final int fastStageSize = -1; // needs to be unbounded due to rescheduling by other stages on the pipeline.  If not unbounded, deadlock can occur.
     final StageManager stageManager = this.seda.getStageManager();
 
@@ -857,7 +863,8 @@ public class DistributedObjectServer {
     // XXX: yucky casts
     this.managementContext = new ServerManagementContext((DSOChannelManagerMBean) channelManager, connectionManager, channelStats,
                                                          connectionPolicy, getOperationGuardian(platformServiceRegistry,
-                                                                 channelLifeCycleHandler), voltron, voltronSink);
+                                                                 channelLifeCycleHandler), voltron, voltronSink,
+                                                         processTransactionHandler.getInvokeLatencies());
 
     final CallbackOnExitHandler handler = new CallbackGroupExceptionHandler(logger, consoleLogger);
     this.threadGroup.addCallbackOnExitExceptionHandler(GroupException.class, handler);
@@ -889,6 +896,7 @@ public class DistributedObjectServer {
         ThreadUtil.executeInThread(threadGroup.getParent(), ()->{
           try {
             this.seda.getStageManager().stopAll();
+            closeRelayHistory();
             if (!threadGroup.retire(TimeUnit.SECONDS.toMillis(30L), e->L2Utils.handleInterrupted(logger, e))) {
               logger.warn("unable to shutdown server threads");
               threadGroup.printLiveThreads(logger::warn);
@@ -914,6 +922,7 @@ public class DistributedObjectServer {
       this.context.shutdown();
       this.entityManager.shutdown();
       this.serviceRegistry.shutdown();
+      closeRelayHistory();
       this.configSetupManager.close();
       stopped.complete(null);
     } catch (Throwable in) {
@@ -1383,8 +1392,45 @@ public class DistributedObjectServer {
     return persistor;
   }
     
+  private RelayHistoryJournal createRelayHistoryJournal() {
+    if (!tcProperties.getBoolean(TCPropertiesConsts.L2_RELAY_JOURNAL_ENABLED, false)) {
+      return null;
+    }
+    try {
+      String dir = tcProperties.getProperty(TCPropertiesConsts.L2_RELAY_JOURNAL_DIRECTORY, true);
+      Path path = (dir == null || dir.isEmpty()) ? defaultRelayJournalDirectory() : Paths.get(dir);
+      RelayHistoryJournal journal = new RelayHistoryJournal(path,
+          tcProperties.getInt(TCPropertiesConsts.L2_RELAY_JOURNAL_SEGMENT_MB, 64) * 1024 * 1024,
+          tcProperties.getLong(TCPropertiesConsts.L2_RELAY_JOURNAL_MAX_MB, 1024) * 1024 * 1024,
+          TimeUnit.SECONDS.toMillis(tcProperties.getLong(TCPropertiesConsts.L2_RELAY_JOURNAL_RETENTION_SECONDS, 0)));
+      logger.info("relay history journal in {}", path);
+      return journal;
+    } catch (IOException ioe) {
+      logger.warn("unable to create relay history journal, using in-memory history", ioe);
+      return null;
+    }
+  }
+
+  /**
+   * The same directory on every start so the journal deletes the segments a previous run left behind.
+   */
+  private Path defaultRelayJournalDirectory() {
+    ServerConfiguration server = configSetupManager.getServerConfiguration();
+    File logs = server.getLogsLocation();
+    Path base = logs != null ? logs.toPath() : Paths.get(System.getProperty("user.dir"));
+    return base.resolve("relay-journal-" + server.getName());
+  }
+
+  private void closeRelayHistory() {
+    RelayTransactionHandler handler = this.relayTransactionHandler;
+    if (handler != null) {
+      handler.close();
+    }
+  }
+
   private EventHandler<ReplicationMessage> createAndRouteRelayTransactionHandler(Stage<Runnable> current) {
-    RelayTransactionHandler handler = new RelayTransactionHandler(current, groupCommManager);
+    RelayTransactionHandler handler = new RelayTransactionHandler(current, groupCommManager, createRelayHistoryJournal());
+    this.relayTransactionHandler = handler;
     Stage<RelayMessage> relays = this.seda.getStageManager().createStage(ServerConfigurationContext.PASSIVE_RELAY_STAGE, RelayMessage.class, new AbstractEventHandler<RelayMessage>() {
       @Override
       public void handleEvent(RelayMessage context) throws EventHandlerException {
@@ -20,6 +20,9 @@ package com.tc.objectserver.persistence;
 import com.tc.net.ClientID;
 import com.tc.objectserver.api.ClientNotFoundException;
 import com.tc.net.core.ProductID;
+import com.tc.properties.TCProperties;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -46,7 +49,10 @@ public class Persistor implements PrettyPrintable {
 
   public boolean start(boolean trackClients) {
     clientStatePersistor = new ClientStatePersistor(persistentStorage);
-    this.transactionOrderPersistor = new TransactionOrderPersistor(persistentStorage, this.clientStatePersistor.loadPermanentClientIDs());
+    TCProperties props = TCPropertiesImpl.getProperties();
+    this.transactionOrderPersistor = new TransactionOrderPersistor(persistentStorage, this.clientStatePersistor.loadPermanentClientIDs(),
+        props.getInt(TCPropertiesConsts.L2_TRANSACTION_ORDER_GROUP_COMMIT_SIZE, 0),
+        props.getLong(TCPropertiesConsts.L2_TRANSACTION_ORDER_GROUP_COMMIT_WINDOW, 500));
     for (ClientID orphan : clientStatePersistor.loadOrphanClientIDs()) {
       try {
         removeClientState(orphan);
@@ -64,6 +70,9 @@ public class Persistor implements PrettyPrintable {
   }
 
   public void close() {
+    if (transactionOrderPersistor != null) {
+      transactionOrderPersistor.close();
+    }
   }
   
   public void addClientState(ClientID node, ProductID product) {
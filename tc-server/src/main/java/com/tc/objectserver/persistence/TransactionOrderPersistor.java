@@ -36,13 +36,21 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 
 /**
  * Stores the information mapping the client-local TransactionIDs of in-flight transactions into a global order.
  * This is persisted because reconnect on restart needs to ensure that the transactions being replayed are done so in
  * the same order as their original order.
+ * <p>
+ * With group commit the sequence tuples of permanent clients are queued in arrival order and written to storage by a
+ * flusher thread once a batch is full or the commit window has passed.  The future returned for a transaction
+ * completes once its whole batch is durable.  Anything reading or deleting stored sequences flushes the queue first,
+ * always under {@code flushLock} and then this object's monitor, so storage sees the tuples in global order.
  */
 public class TransactionOrderPersistor {
   private final IPlatformPersistence storageManager;
@@ -51,13 +59,35 @@ public class TransactionOrderPersistor {
   private List<ClientTransaction> globalList = null;
   private final Set<ClientID> permNodeIDs = new HashSet<>();
   private final Map<ClientID, List<ClientTransaction>> fastSequenceCache = new HashMap<>();
+
+  private final int groupCommitSize;
+  private final long groupCommitWindowNanos;
+  private final Object flushLock = new Object();
+  private List<PendingStore> pendingStores = new ArrayList<>();
+  private Thread flusher;
+  private boolean closed;
   
   public TransactionOrderPersistor(IPlatformPersistence storageManager, Set<ClientID> clients) {
+    this(storageManager, clients, 0, 0L);
+  }
+
+  /**
+   * @param groupCommitSize the number of sequence tuples written to storage together, zero or less stores every
+   *        tuple as it arrives
+   * @param groupCommitWindowMicros the longest a tuple waits for its batch to fill
+   */
+  public TransactionOrderPersistor(IPlatformPersistence storageManager, Set<ClientID> clients, int groupCommitSize, long groupCommitWindowMicros) {
     this.storageManager = storageManager;
     // these are permanent clients because we steart with them
     for (ClientID oneClient : clients) {
       this.permNodeIDs.add(oneClient);
     }
+    this.groupCommitSize = groupCommitSize;
+    this.groupCommitWindowNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(1L, groupCommitWindowMicros));
+  }
+
+  private boolean isGroupCommit() {
+    return this.groupCommitSize > 0;
   }
 
   /**
@@ -90,6 +120,9 @@ public class TransactionOrderPersistor {
         transaction.localSequenceID = transactionID.toLong();
         transaction.globalSequenceID = this.receivedTransactionCount;
 
+        if (isGroupCommit()) {
+          return enqueueStore(source.toLong(), transaction, oldestTransactionOnClient.toLong());
+        }
         return this.storageManager.fastStoreSequence(source.toLong(), transaction, oldestTransactionOnClient.toLong());
       } else {
         ClientTransaction transaction = new ClientTransaction();
@@ -116,16 +149,143 @@ public class TransactionOrderPersistor {
   /**
    * Called when we no longer need to track transaction ordering information from source (presumably due to a disconnect).
    */
-  synchronized void removeTrackingForClient(ClientID source) {
-    long sourceID = source.toLong();
+  void removeTrackingForClient(ClientID source) {
+    synchronized (this.flushLock) {
+      synchronized (this) {
+        flushPendingStores();
+        long sourceID = source.toLong();
+        try {
+          if (this.permNodeIDs.remove(source)) {
+            this.storageManager.deleteSequence(sourceID);
+          } else {
+            fastSequenceCache.remove(source);
+          }
+        } catch (IOException e) {
+          Assert.fail(e.getLocalizedMessage());
+        }
+      }
+    }
+  }
+
+  private synchronized Future<Void> enqueueStore(long sourceID, IPlatformPersistence.SequenceTuple transaction, long oldestValidSequenceID) {
+    if (this.closed) {
+      return this.storageManager.fastStoreSequence(sourceID, transaction, oldestValidSequenceID);
+    }
+    PendingStore store = new PendingStore(sourceID, transaction, oldestValidSequenceID);
+    this.pendingStores.add(store);
+    if (this.flusher == null) {
+      this.flusher = new Thread(this::runFlusher, "TransactionOrderPersistor-GroupCommit");
+      this.flusher.setDaemon(true);
+      this.flusher.start();
+    }
+    if (this.pendingStores.size() == 1 || this.pendingStores.size() >= this.groupCommitSize) {
+      notifyAll();
+    }
+    return store.durable;
+  }
+
+  private void runFlusher() {
     try {
-      if (this.permNodeIDs.remove(source)) {
-        this.storageManager.deleteSequence(sourceID);
+      while (awaitBatch()) {
+        synchronized (this.flushLock) {
+          List<PendingStore> batch;
+          synchronized (this) {
+            batch = takePendingStores();
+          }
+          storeBatch(batch);
+        }
+      }
+    } catch (InterruptedException ie) {
+      // shutting down, close() stores whatever is left
+    }
+  }
+
+  private synchronized boolean awaitBatch() throws InterruptedException {
+    while (this.pendingStores.isEmpty() && !this.closed) {
+      wait();
+    }
+    long deadline = System.nanoTime() + this.groupCommitWindowNanos;
+    long remaining = this.groupCommitWindowNanos;
+    while (this.pendingStores.size() < this.groupCommitSize && !this.closed && remaining > 0) {
+      TimeUnit.NANOSECONDS.timedWait(this, remaining);
+      remaining = deadline - System.nanoTime();
+    }
+    return !this.closed;
+  }
+
+  private List<PendingStore> takePendingStores() {
+    List<PendingStore> batch = this.pendingStores;
+    if (!batch.isEmpty()) {
+      this.pendingStores = new ArrayList<>();
+    }
+    return batch;
+  }
+
+  /**
+   * Must be called holding {@code flushLock} and this object's monitor.
+   */
+  private void flushPendingStores() {
+    if (!this.pendingStores.isEmpty()) {
+      storeBatch(takePendingStores());
+    }
+  }
+
+  /**
+   * Writes the batch in arrival order then waits for all of it to be durable before completing the futures.  Must be
+   * called holding {@code flushLock}.
+   */
+  private void storeBatch(List<PendingStore> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    List<Future<Void>> writes = new ArrayList<>(batch.size());
+    Throwable failure = null;
+    for (PendingStore store : batch) {
+      try {
+        writes.add(this.storageManager.fastStoreSequence(store.sourceID, store.transaction, store.oldestValidSequenceID));
+      } catch (RuntimeException e) {
+        failure = e;
+        break;
+      }
+    }
+    if (failure == null) {
+      try {
+        for (Future<Void> write : writes) {
+          if (write != null) {
+            write.get();
+          }
+        }
+      } catch (ExecutionException e) {
+        failure = e.getCause();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failure = e;
+      }
+    }
+    for (PendingStore store : batch) {
+      if (failure == null) {
+        store.durable.complete(null);
       } else {
-        fastSequenceCache.remove(source);
+        store.durable.completeExceptionally(failure);
+      }
+    }
+  }
+
+  /**
+   * Stores everything still queued for group commit and stops the flusher.
+   */
+  public void close() {
+    Thread stop;
+    synchronized (this.flushLock) {
+      synchronized (this) {
+        this.closed = true;
+        flushPendingStores();
+        stop = this.flusher;
+        notifyAll();
       }
-    } catch (IOException e) {
-      Assert.fail(e.getLocalizedMessage());
+    }
+    if (stop != null) {
+      stop.interrupt();
     }
   }
 
@@ -151,6 +311,19 @@ public class TransactionOrderPersistor {
     return null;
   }
     
+  private static class PendingStore {
+    private final long sourceID;
+    private final IPlatformPersistence.SequenceTuple transaction;
+    private final long oldestValidSequenceID;
+    private final CompletableFuture<Void> durable = new CompletableFuture<>();
+
+    PendingStore(long sourceID, IPlatformPersistence.SequenceTuple transaction, long oldestValidSequenceID) {
+      this.sourceID = sourceID;
+      this.transaction = transaction;
+      this.oldestValidSequenceID = oldestValidSequenceID;
+    }
+  }
+
   private static class ClientTransaction {
     public long clientID;
     public long localTransactionID;
@@ -183,7 +356,16 @@ public class TransactionOrderPersistor {
     }
   }
   
-  private synchronized List<ClientTransaction> buildGlobalListIfNecessary() {
+  private List<ClientTransaction> buildGlobalListIfNecessary() {
+    synchronized (this.flushLock) {
+      synchronized (this) {
+        flushPendingStores();
+        return buildGlobalList();
+      }
+    }
+  }
+
+  private List<ClientTransaction> buildGlobalList() {
     if (null == this.globalList) {
       TreeMap<Long, ClientTransaction> sortMap = new TreeMap<>();
       for (ClientID clientID : this.permNodeIDs) {
@@ -240,16 +422,21 @@ public class TransactionOrderPersistor {
   /**
    * Clears all internal state.
    */
-  public synchronized  void clearAllRecords() {
-    this.globalList = null;
-    for (ClientID nodeID : this.permNodeIDs) {
-      try {
-        this.storageManager.deleteSequence(nodeID.toLong());
-      } catch (IOException e) {
-        Assert.fail(e.getLocalizedMessage());
+  public void clearAllRecords() {
+    synchronized (this.flushLock) {
+      synchronized (this) {
+        flushPendingStores();
+        this.globalList = null;
+        for (ClientID nodeID : this.permNodeIDs) {
+          try {
+            this.storageManager.deleteSequence(nodeID.toLong());
+          } catch (IOException e) {
+            Assert.fail(e.getLocalizedMessage());
+          }
+        }
+        this.fastSequenceCache.clear();
       }
     }
-    this.fastSequenceCache.clear();
   }
 
   /**
@@ -259,9 +446,19 @@ public class TransactionOrderPersistor {
     return this.receivedTransactionCount;
   }
   
-  public synchronized Map<String, Object> reportStateToMap(Map<String, Object> map) {
+  public Map<String, Object> reportStateToMap(Map<String, Object> map) {
+    synchronized (this.flushLock) {
+      synchronized (this) {
+        flushPendingStores();
+        return reportState(map);
+      }
+    }
+  }
+
+  private Map<String, Object> reportState(Map<String, Object> map) {
     map.put("className", this.getClass().getName());
     map.put("receivedTransactions", getReceivedTransactionCount());
+    map.put("groupCommitSize", this.groupCommitSize);
     if(this.permNodeIDs != null && storageManager != null) {
       Map<String, Object> clientMap = new LinkedHashMap<>();
       map.put("permanentClients", clientMap);
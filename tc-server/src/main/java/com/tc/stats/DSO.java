@@ -31,6 +31,7 @@ import com.tc.object.net.DSOChannelManagerMBean;
 import com.tc.objectserver.core.api.ServerConfigurationContext;
 import com.tc.objectserver.core.impl.ServerManagementContext;
 import com.tc.objectserver.entity.VoltronMessageSink;
+import com.tc.objectserver.handler.InvokeLatencies;
 import com.tc.objectserver.handler.VoltronMessageHandler;
 import com.tc.stats.api.DSOMBean;
 import com.tc.util.DaemonThreadFactory;
@@ -88,6 +89,7 @@ public class DSO extends AbstractNotifyingMBean implements DSOMBean {
   private final ConnectionPolicy                       connectionPolicy;
   private final VoltronMessageHandler               messageHandler;
   private final VoltronMessageSink                  messageSink;
+  private final InvokeLatencies                     latencies;
   
   private volatile int jmxRemotePort = DEFAULT_JMX_REMOTE_PORT;
   private volatile JMXConnectorServer jmxConnectorServer;
@@ -103,6 +105,7 @@ public class DSO extends AbstractNotifyingMBean implements DSOMBean {
     this.connectionPolicy = managementContext.getConnectionPolicy();
     this.messageHandler = managementContext.getVoltronMessageHandler();
     this.messageSink = managementContext.getVoltronMessageSink();
+    this.latencies = managementContext.getInvokeLatencies();
     this.connections = managementContext.getConnectionManager();
     this.group = configContext.getL2Coordinator().getGroupManager();
     // add various listeners (do this before the setupXXX() methods below so we don't ever miss anything)
@@ -506,4 +509,14 @@ public class DSO extends AbstractNotifyingMBean implements DSOMBean {
   public boolean isAlwaysHydrate() {
     return this.messageSink.isAlwaysHydrate();
   }
+
+  @Override
+  public Map<String, Map<String, Map<String, Long>>> getInvokeLatencies() {
+    return this.latencies.getLatencies();
+  }
+
+  @Override
+  public Map<String, Map<String, Map<String, Long>>> resetInvokeLatencies() {
+    return this.latencies.reset();
+  }
 }
@@ -88,4 +88,16 @@ public interface DSOMBean extends TerracottaMBean {
   void setAlwaysHydrate(boolean hydrate);
   
   boolean isAlwaysHydrate();
+
+  /**
+   * Percentiles of each server side phase of an invoke in nanoseconds, per entity type, since startup.
+   * Not affected by {@link #resetInvokeLatencies()}.
+   */
+  Map<String, Map<String, Map<String, Long>>> getInvokeLatencies();
+
+  /**
+   * Percentiles of each server side phase of an invoke in nanoseconds, per entity type, since the last reset.
+   * Starts a new interval, the totals since startup are kept.
+   */
+  Map<String, Map<String, Map<String, Long>>> resetInvokeLatencies();
 }
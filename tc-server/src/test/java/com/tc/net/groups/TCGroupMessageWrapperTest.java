@@ -17,6 +17,8 @@
  */
 package com.tc.net.groups;
 
+import com.tc.bytes.TCReference;
+import com.tc.io.TCByteBufferOutputStream;
 import com.tc.l2.ha.L2HAZapNodeRequestProcessor;
 import com.tc.l2.msg.ClusterStateMessage;
 import com.tc.l2.msg.L2StateMessage;
@@ -53,6 +55,7 @@ import com.tc.util.UUID;
 import java.net.InetSocketAddress;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
@@ -203,6 +206,30 @@ public class TCGroupMessageWrapperTest extends TestCase {
     sendGroupMessage(sendMesg);
   }
 
+  public void testSerializedGroupMessage() throws Exception {
+    AbstractGroupMessage sendMesg = new ClusterStateMessage(ClusterStateMessage.OPERATION_SUCCESS, new MessageID(1001));
+    NetworkListener lsnr = initServer();
+    channelManager = lsnr.getChannelManager();
+    ClientMessageChannel channel = openChannel(lsnr);
+
+    TCByteBufferOutputStream out = new TCByteBufferOutputStream();
+    sendMesg.serializeTo(out);
+    CountDownLatch sent = new CountDownLatch(2);
+    try (TCReference serialized = out.accessBuffers()) {
+      for (int x = 0; x < 2; x++) {
+        TCGroupMessageWrapper wrapper = (TCGroupMessageWrapper) channel.createMessage(TCMessageType.GROUP_WRAPPER_MESSAGE);
+        wrapper.setSerializedGroupMessage(sendMesg, serialized.duplicate());
+        assertNotNull(wrapper.send(sent::countDown));
+      }
+    }
+    for (int x = 0; x < 2; x++) {
+      GroupMessage receivedMesg = queue.poll(timeout, unit);
+      assertNotNull(receivedMesg);
+      verifyGroupMessage(sendMesg, receivedMesg);
+    }
+    assertTrue(sent.await(timeout, unit));
+  }
+
   private ServerID makeNodeID(String name) {
     return (new ServerID(name, UUID.getUUID().toString().getBytes()));
   }
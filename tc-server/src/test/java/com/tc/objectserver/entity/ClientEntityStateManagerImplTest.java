@@ -35,6 +35,7 @@ import com.tc.object.EntityID;
 import com.tc.object.FetchID;
 import com.tc.util.Assert;
 import static com.tc.util.Assert.assertEquals;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
@@ -116,6 +117,68 @@ public class ClientEntityStateManagerImplTest {
     assertTrue(verifyNoReferences(new FetchID(1)));
   }
 
+  @Test
+  public void testDisconnectOnlySeesOwnReferences() throws Exception {
+    ClientID one = new ClientID(1);
+    ClientID two = new ClientID(2);
+    FetchID first = new FetchID(1);
+    FetchID second = new FetchID(2);
+    assertTrue(addReference(new ClientDescriptorImpl(one, new ClientInstanceID(1)), first));
+    assertTrue(addReference(new ClientDescriptorImpl(one, new ClientInstanceID(2)), first));
+    assertTrue(addReference(new ClientDescriptorImpl(one, new ClientInstanceID(3)), second));
+    assertTrue(addReference(new ClientDescriptorImpl(two, new ClientInstanceID(1)), second));
+
+    List<FetchID> fetches = clientEntityStateManager.clientDisconnected(one);
+    assertEquals(2, fetches.size());
+    assertTrue(fetches.contains(first));
+    assertTrue(fetches.contains(second));
+
+    List<EntityDescriptor> descriptors = clientEntityStateManager.clientDisconnectedFromEntity(one, first);
+    assertEquals(2, descriptors.size());
+    assertEquals(1, clientEntityStateManager.clientDisconnectedFromEntity(two, second).size());
+    assertTrue(clientEntityStateManager.clientDisconnectedFromEntity(two, first).isEmpty());
+  }
+
+  @Test
+  public void testIndexesFollowRemoves() throws Exception {
+    ClientID client = new ClientID(1);
+    ClientDescriptorImpl cd = new ClientDescriptorImpl(client, new ClientInstanceID(1));
+    assertTrue(addReference(cd, new FetchID(1)));
+    // moving the descriptor to another entity drops the old entity reference
+    assertFalse(addReference(cd, new FetchID(2)));
+    assertTrue(verifyNoReferences(new FetchID(1)));
+    assertFalse(verifyNoReferences(new FetchID(2)));
+    assertFalse(clientEntityStateManager.verifyNoClientReferences(client));
+    assertTrue(removeReference(cd));
+    assertTrue(verifyNoReferences(new FetchID(2)));
+    assertTrue(clientEntityStateManager.verifyNoClientReferences(client));
+    assertTrue(clientEntityStateManager.clientDisconnected(client).isEmpty());
+  }
+
+  @Test
+  public void testConcurrentAddAndRemove() throws Exception {
+    FetchID entity = new FetchID(1);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      ClientID client = new ClientID(t);
+      threads.add(new Thread(() -> {
+        for (int x = 1; x <= 1000; x++) {
+          ClientDescriptorImpl cd = new ClientDescriptorImpl(client, new ClientInstanceID(x));
+          assertTrue(clientEntityStateManager.addReference(cd, entity));
+          assertTrue(clientEntityStateManager.removeReference(cd));
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    for (Thread t : threads) {
+      t.join();
+    }
+    assertTrue(verifyNoReferences(entity));
+    for (int t = 0; t < 4; t++) {
+      assertTrue(clientEntityStateManager.verifyNoClientReferences(new ClientID(t)));
+    }
+  }
+
   private boolean addReference(ClientDescriptorImpl clientID, FetchID descriptor) {
     // This only fails by asserting.
     boolean didSucceed = false;
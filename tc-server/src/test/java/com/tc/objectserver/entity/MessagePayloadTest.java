@@ -17,12 +17,15 @@
  */
 package com.tc.objectserver.entity;
 
+import com.tc.bytes.TCByteBuffer;
+import com.tc.bytes.TCByteBufferFactory;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import static org.junit.Assert.*;
+import org.terracotta.entity.EntityMessage;
 import org.terracotta.entity.MessageCodecException;
 
 /**
@@ -62,4 +65,20 @@ public class MessagePayloadTest {
             // expected
         }
     }
+
+    @Test
+    public void testDecodeFromView() throws Exception {
+        TCByteBuffer raw = TCByteBufferFactory.wrap(new byte[] {1, 2, 3});
+        MessagePayload payload = MessagePayload.rawDataOnly(raw);
+        EntityMessage decoded = new EntityMessage() {};
+        MessageDecoder decoder = MessageDecoder.viewing(b->{throw new AssertionError("payload copied");}, view->{
+            assertTrue(view.isReadOnly());
+            assertEquals(3, view.remaining());
+            assertEquals(2, view.get(1));
+            return decoded;
+        });
+        assertSame(decoded, payload.decodeMessage(decoder));
+        // the payload itself is left untouched for replication
+        assertArrayEquals(new byte[] {1, 2, 3}, payload.getRawPayload());
+    }
 }
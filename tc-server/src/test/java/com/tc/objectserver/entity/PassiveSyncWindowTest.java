@@ -0,0 +1,71 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.tc.objectserver.entity;
+
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+
+public class PassiveSyncWindowTest {
+
+  @Test
+  public void testWaitsOnlyWhenFull() {
+    PassiveSyncWindow window = new PassiveSyncWindow(2);
+    ActivePassiveAckWaiter one = mock(ActivePassiveAckWaiter.class);
+    ActivePassiveAckWaiter two = mock(ActivePassiveAckWaiter.class);
+    ActivePassiveAckWaiter three = mock(ActivePassiveAckWaiter.class);
+    window.add(one);
+    window.add(two);
+    verify(one, never()).waitForReceived();
+    window.add(three);
+    verify(one).waitForReceived();
+    verify(two, never()).waitForReceived();
+    assertEquals(2, window.inflight());
+  }
+
+  @Test
+  public void testDrainWaitsInOrder() {
+    PassiveSyncWindow window = new PassiveSyncWindow(4);
+    ActivePassiveAckWaiter one = mock(ActivePassiveAckWaiter.class);
+    ActivePassiveAckWaiter two = mock(ActivePassiveAckWaiter.class);
+    window.add(one);
+    window.add(two);
+    window.drainCompleted();
+    InOrder order = inOrder(one, two);
+    order.verify(one).waitForCompleted();
+    order.verify(two).waitForCompleted();
+    verify(one, never()).waitForReceived();
+    assertEquals(0, window.inflight());
+  }
+
+  @Test
+  public void testMinimumWindow() {
+    PassiveSyncWindow window = new PassiveSyncWindow(0);
+    ActivePassiveAckWaiter one = mock(ActivePassiveAckWaiter.class);
+    window.add(one);
+    verify(one, never()).waitForReceived();
+    window.drainReceived();
+    verify(one).waitForReceived();
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.tc.objectserver.handler;
+
+import com.tc.object.StatType;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+public class InvokeLatenciesTest {
+
+  private static final String TYPE = "com.example.Entity";
+  private static final String TOTAL = StatType.SERVER_ADD.description() + "->" + StatType.SERVER_RETIRED.description();
+
+  private static long[] timings(long start, long duration) {
+    long[] stats = new long[StatType.END.serverSpot()];
+    stats[StatType.SERVER_ADD.serverSpot()] = start;
+    stats[StatType.SERVER_RETIRED.serverSpot()] = start + duration;
+    return stats;
+  }
+
+  private static long count(Map<String, Map<String, Map<String, Long>>> latencies) {
+    return latencies.get(TYPE).get(TOTAL).get("count");
+  }
+
+  @Test
+  public void testResetDoesNotClearCumulative() {
+    InvokeLatencies latencies = new InvokeLatencies();
+    latencies.record(TYPE, timings(100, 10));
+    latencies.record(TYPE, timings(200, 20));
+
+    assertEquals(2, count(latencies.reset()));
+    assertEquals(2, count(latencies.getLatencies()));
+
+    latencies.record(TYPE, timings(300, 30));
+    assertEquals(3, count(latencies.getLatencies()));
+    assertEquals(1, count(latencies.reset()));
+    assertTrue(latencies.reset().get(TYPE).isEmpty());
+    assertEquals(3, count(latencies.getLatencies()));
+  }
+
+  @Test
+  public void testMissingMarksAreSkipped() {
+    InvokeLatencies latencies = new InvokeLatencies();
+    latencies.record(TYPE, new long[StatType.END.serverSpot()]);
+    assertTrue(latencies.getLatencies().get(TYPE).isEmpty());
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.tc.objectserver.handler;
+
+import com.tc.bytes.TCByteBufferFactory;
+import com.tc.l2.msg.ReplicationMessage;
+import com.tc.l2.msg.SyncReplicationActivity;
+import com.tc.object.EntityID;
+import com.tc.object.FetchID;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+public class RelayHistoryJournalTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static ReplicationMessage message(long sequence, int payload) {
+    SyncReplicationActivity activity = SyncReplicationActivity.createStartEntityMessage(new EntityID("test", "entity"), 1,
+        new FetchID(sequence), TCByteBufferFactory.wrap(new byte[payload]), 1);
+    ReplicationMessage msg = ReplicationMessage.createActivityContainer(activity);
+    msg.setSequenceID(sequence);
+    return msg;
+  }
+
+  private static List<Long> replay(RelayHistoryJournal journal, long lastSeen) throws IOException {
+    List<Long> seen = new ArrayList<>();
+    assertEquals(RelayHistoryJournal.Replay.COMPLETE, journal.replayAfter(lastSeen, m->{
+      assertEquals(m.getSequenceID(), m.getActivities().get(0).getFetchID().toLong());
+      return seen.add(m.getSequenceID());
+    }));
+    return seen;
+  }
+
+  @Test
+  public void testReplayAcrossSegments() throws Exception {
+    Path dir = folder.newFolder().toPath();
+    try (RelayHistoryJournal journal = new RelayHistoryJournal(dir, 4096, 0, 0)) {
+      for (long x = 1; x <= 100; x++) {
+        journal.append(message(x, 200));
+      }
+      assertTrue(journal.getSegmentCount() > 1);
+      assertEquals(100, replay(journal, 1).size() + 1);
+      List<Long> tail = replay(journal, 90);
+      assertEquals(10, tail.size());
+      assertEquals(91L, (long)tail.get(0));
+      assertTrue(replay(journal, 100).isEmpty());
+      assertEquals(RelayHistoryJournal.Replay.MISSING, journal.replayAfter(101, m->true));
+    }
+    assertEquals(0, Files.list(dir).count());
+  }
+
+  @Test
+  public void testConsumerAbortIsReported() throws Exception {
+    try (RelayHistoryJournal journal = new RelayHistoryJournal(folder.newFolder().toPath(), 4096, 0, 0)) {
+      for (long x = 1; x <= 10; x++) {
+        journal.append(message(x, 10));
+      }
+      List<Long> seen = new ArrayList<>();
+      assertEquals(RelayHistoryJournal.Replay.ABORTED, journal.replayAfter(1, m->seen.add(m.getSequenceID()) && seen.size() < 3));
+      assertEquals(3, seen.size());
+    }
+  }
+
+  @Test
+  public void testCursorReplaysInSteps() throws Exception {
+    try (RelayHistoryJournal journal = new RelayHistoryJournal(folder.newFolder().toPath(), 4096, 0, 0)) {
+      for (long x = 1; x <= 100; x++) {
+        journal.append(message(x, 200));
+      }
+      RelayHistoryJournal.Cursor cursor = journal.cursorAfter(10);
+      List<Long> seen = new ArrayList<>();
+      int steps = 0;
+      RelayHistoryJournal.Replay result;
+      do {
+        steps++;
+        result = journal.replay(cursor, 1000, m->seen.add(m.getSequenceID()));
+        assertEquals(seen.isEmpty() ? 10L : seen.get(seen.size() - 1), cursor.getPosition());
+      } while (result == RelayHistoryJournal.Replay.PARTIAL);
+      assertEquals(RelayHistoryJournal.Replay.COMPLETE, result);
+      assertTrue(steps > 10);
+      assertEquals(90, seen.size());
+      assertTrue(journal.isCaughtUp(cursor));
+      journal.append(message(101, 10));
+      assertFalse(journal.isCaughtUp(cursor));
+      assertEquals(RelayHistoryJournal.Replay.COMPLETE, journal.replay(cursor, 1000, m->seen.add(m.getSequenceID())));
+      assertEquals(101L, cursor.getPosition());
+    }
+  }
+
+  @Test
+  public void testCursorMissingOnceExpired() throws Exception {
+    try (RelayHistoryJournal journal = new RelayHistoryJournal(folder.newFolder().toPath(), 4096, 3 * 4096, 0)) {
+      journal.append(message(1, 200));
+      RelayHistoryJournal.Cursor cursor = journal.cursorAfter(1);
+      for (long x = 2; x <= 200; x++) {
+        journal.append(message(x, 200));
+      }
+      assertEquals(RelayHistoryJournal.Replay.MISSING, journal.replay(cursor, Long.MAX_VALUE, m->true));
+    }
+  }
+
+  @Test
+  public void testAppendReturnsPooledBuffers() throws Exception {
+    TCByteBufferFactory.setHeapPooling(1024 * 1024);
+    try (RelayHistoryJournal journal = new RelayHistoryJournal(folder.newFolder().toPath(), 4096, 0, 0)) {
+      for (long x = 1; x <= 10; x++) {
+        journal.append(message(x, 200));
+      }
+      assertTrue(TCByteBufferFactory.getHeapPool().getPooledBytes() > 0);
+      assertEquals(9, replay(journal, 1).size());
+    } finally {
+      TCByteBufferFactory.setHeapPooling(0);
+    }
+  }
+
+  @Test
+  public void testSizeRetention() throws Exception {
+    try (RelayHistoryJournal journal = new RelayHistoryJournal(folder.newFolder().toPath(), 4096, 3 * 4096, 0)) {
+      for (long x = 1; x <= 200; x++) {
+        journal.append(message(x, 200));
+      }
+      assertTrue(journal.getTotalBytes() <= 3 * 4096);
+      assertFalse(journal.contains(1));
+      assertTrue(journal.contains(200));
+    }
+  }
+
+  @Test
+  public void testTimeRetention() throws Exception {
+    AtomicLong now = new AtomicLong();
+    try (RelayHistoryJournal journal = new RelayHistoryJournal(folder.newFolder().toPath(), 4096, 0, 1000, now::get)) {
+      for (long x = 1; x <= 30; x++) {
+        journal.append(message(x, 200));
+      }
+      now.set(5000);
+      for (long x = 31; x <= 60; x++) {
+        journal.append(message(x, 200));
+      }
+      assertFalse(journal.contains(1));
+      assertTrue(journal.contains(60));
+    }
+  }
+
+  @Test
+  public void testOversizedMessageGetsItsOwnSegment() throws Exception {
+    try (RelayHistoryJournal journal = new RelayHistoryJournal(folder.newFolder().toPath(), 1024, 0, 0)) {
+      journal.append(message(1, 100));
+      journal.append(message(2, 10_000));
+      journal.append(message(3, 100));
+      assertEquals(3, journal.getSegmentCount());
+      assertEquals(2, replay(journal, 1).size());
+    }
+  }
+
+  @Test
+  public void testOutOfOrderIsSkipped() throws Exception {
+    try (RelayHistoryJournal journal = new RelayHistoryJournal(folder.newFolder().toPath(), 4096, 0, 0)) {
+      journal.append(message(5, 10));
+      journal.append(message(3, 10));
+      assertFalse(journal.contains(3));
+      assertTrue(journal.contains(5));
+    }
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ *  Copyright Terracotta, Inc.
+ *  Copyright IBM Corp. 2024, 2025
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package com.tc.objectserver.handler;
+
+import com.tc.async.api.Sink;
+import com.tc.async.api.Stage;
+import com.tc.bytes.TCByteBufferFactory;
+import com.tc.l2.api.L2Coordinator;
+import com.tc.l2.dup.RelayMessage;
+import com.tc.l2.msg.ReplicationMessage;
+import com.tc.l2.msg.SyncReplicationActivity;
+import com.tc.l2.state.StateManager;
+import com.tc.net.NodeID;
+import com.tc.net.ServerID;
+import com.tc.net.groups.AbstractGroupMessage;
+import com.tc.net.groups.GroupException;
+import com.tc.net.groups.GroupManager;
+import com.tc.object.EntityID;
+import com.tc.object.FetchID;
+import com.tc.objectserver.core.api.ServerConfigurationContext;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class RelayTransactionHandlerTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final ServerID active = new ServerID("active", new byte[] {1});
+  private final ServerID target = new ServerID("target", new byte[] {2});
+  private final Deque<Runnable> relayStage = new ArrayDeque<>();
+  private final List<RelayMessage> sentToTarget = new ArrayList<>();
+  private volatile boolean targetUnreachable;
+
+  private RelayHistoryJournal journal;
+  private RelayTransactionHandler handler;
+
+  @SuppressWarnings("unchecked")
+  @Before
+  public void setUp() throws Exception {
+    GroupManager<AbstractGroupMessage> groupManager = mock(GroupManager.class);
+    when(groupManager.getLocalNodeID()).thenReturn(new ServerID("relay", new byte[] {3}));
+    doAnswer(invocation -> {
+      record(invocation.getArgument(0), invocation.getArgument(1));
+      return null;
+    }).when(groupManager).sendTo(any(NodeID.class), any(AbstractGroupMessage.class));
+    doAnswer(invocation -> {
+      AbstractGroupMessage msg = invocation.getArgument(1);
+      if (targetUnreachable && msg instanceof RelayMessage) {
+        throw new GroupException("target is gone");
+      }
+      record(invocation.getArgument(0), msg);
+      ((Runnable)invocation.getArgument(2)).run();
+      return null;
+    }).when(groupManager).sendToWithSentCallback(any(NodeID.class), any(AbstractGroupMessage.class), any(Runnable.class));
+
+    Stage<Runnable> stage = mock(Stage.class);
+    Sink<Runnable> sink = mock(Sink.class);
+    when(stage.getSink()).thenReturn(sink);
+    doAnswer(invocation -> relayStage.add(invocation.getArgument(0))).when(sink).addToSink(any(Runnable.class));
+
+    StateManager stateManager = mock(StateManager.class);
+    when(stateManager.getActiveNodeID()).thenReturn(active);
+    L2Coordinator coordinator = mock(L2Coordinator.class);
+    when(coordinator.getStateManager()).thenReturn(stateManager);
+    ServerConfigurationContext context = mock(ServerConfigurationContext.class);
+    when(context.getL2Coordinator()).thenReturn(coordinator);
+
+    journal = new RelayHistoryJournal(folder.newFolder().toPath(), 4096, 0, 0);
+    handler = new RelayTransactionHandler(stage, groupManager, journal);
+    handler.getEventHandler().initializeContext(context);
+  }
+
+  @After
+  public void tearDown() {
+    handler.close();
+  }
+
+  private void record(NodeID node, AbstractGroupMessage msg) {
+    if (target.equals(node) && msg instanceof RelayMessage) {
+      sentToTarget.add((RelayMessage)msg);
+    }
+  }
+
+  private void relay(long sequence) throws Exception {
+    SyncReplicationActivity activity = SyncReplicationActivity.createStartEntityMessage(new EntityID("test", "entity"), 1,
+        new FetchID(sequence), TCByteBufferFactory.wrap(new byte[64]), 1);
+    ReplicationMessage msg = ReplicationMessage.createActivityContainer(activity);
+    msg.setSequenceID(sequence);
+    msg.setMessageOrginator(active);
+    handler.getEventHandler().handleEvent(msg);
+    drain();
+  }
+
+  private void drain() {
+    while (!relayStage.isEmpty()) {
+      relayStage.poll().run();
+    }
+  }
+
+  private long count(int type) {
+    return sentToTarget.stream().filter(m -> m.getType() == type).count();
+  }
+
+  @Test
+  public void testCatchUpReachesLiveForwarding() throws Exception {
+    assertTrue(handler.registerRelayConsumer(target));
+    for (long x = 1; x <= 10; x++) {
+      relay(x);
+    }
+    assertTrue(handler.resumeRelayConsumer(target, 5));
+    drain();
+    long batches = count(RelayMessage.RELAY_BATCH);
+    relay(11);
+    assertEquals(batches + 1, count(RelayMessage.RELAY_BATCH));
+    assertEquals(0, count(RelayMessage.RELAY_INVALID));
+  }
+
+  @Test
+  public void testFailedCatchUpDropsTarget() throws Exception {
+    assertTrue(handler.registerRelayConsumer(target));
+    for (long x = 1; x <= 10; x++) {
+      relay(x);
+    }
+    targetUnreachable = true;
+    assertTrue(handler.resumeRelayConsumer(target, 5));
+    drain();
+    // the target is told to resync instead of silently never hearing from the relay again
+    assertEquals(1, count(RelayMessage.RELAY_INVALID));
+    assertFalse(handler.resumeRelayConsumer(target, 10));
+
+    targetUnreachable = false;
+    assertTrue(handler.registerRelayConsumer(target));
+    long batches = count(RelayMessage.RELAY_BATCH);
+    relay(11);
+    assertEquals(batches + 1, count(RelayMessage.RELAY_BATCH));
+  }
+
+  @Test
+  public void testClosedJournalDuringCatchUpDropsTarget() throws Exception {
+    assertTrue(handler.registerRelayConsumer(target));
+    for (long x = 1; x <= 10; x++) {
+      relay(x);
+    }
+    assertTrue(handler.resumeRelayConsumer(target, 5));
+    handler.close();
+    drain();
+    assertEquals(1, count(RelayMessage.RELAY_INVALID));
+    assertTrue(handler.registerRelayConsumer(target));
+  }
+}
@@ -24,10 +24,13 @@ import com.tc.test.TCTestCase;
 import com.tc.net.core.ProductID;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 
 public class TransactionOrderPersistorTest extends TCTestCase {
@@ -362,6 +365,39 @@ public class TransactionOrderPersistorTest extends TCTestCase {
     thread2.join();
   }
 
+  public void testGroupCommitCompletesFullBatch() throws Exception {
+    NullPlatformPersistentStorage storage = new NullPlatformPersistentStorage();
+    TransactionOrderPersistor persistor = new TransactionOrderPersistor(storage, Collections.emptySet(), 4, TimeUnit.SECONDS.toMicros(30));
+    persistor.addTrackingForClient(client1, ProductID.PERMANENT);
+    TransactionID oldest = new TransactionID(1L);
+    List<Future<Void>> futures = new ArrayList<>();
+    for (int i = 1; i <= 4; ++i) {
+      futures.add(persistor.updateWithNewMessage(client1, new TransactionID(i), oldest));
+    }
+    for (Future<Void> f : futures) {
+      f.get(10, TimeUnit.SECONDS);
+    }
+    assertEquals(4, storage.loadSequence(client1.toLong()).size());
+    persistor.close();
+  }
+
+  public void testGroupCommitFlushesBeforeReplayLookup() throws Exception {
+    NullPlatformPersistentStorage storage = new NullPlatformPersistentStorage();
+    TransactionOrderPersistor persistor = new TransactionOrderPersistor(storage, Collections.emptySet(), 100, TimeUnit.SECONDS.toMicros(30));
+    persistor.addTrackingForClient(client1, ProductID.PERMANENT);
+    persistor.addTrackingForClient(client2, ProductID.PERMANENT);
+    TransactionID oldest = new TransactionID(1L);
+    Future<Void> first = persistor.updateWithNewMessage(client1, new TransactionID(1), oldest);
+    Future<Void> second = persistor.updateWithNewMessage(client2, new TransactionID(1), oldest);
+    Future<Void> third = persistor.updateWithNewMessage(client1, new TransactionID(2), oldest);
+    assertFalse(first.isDone());
+    // the replay order is the arrival order even though nothing was stored yet
+    assertEquals(0, persistor.getIndexToReplay(client1, new TransactionID(1)));
+    assertEquals(1, persistor.getIndexToReplay(client2, new TransactionID(1)));
+    assertEquals(2, persistor.getIndexToReplay(client1, new TransactionID(2)));
+    assertTrue(first.isDone() && second.isDone() && third.isDone());
+    persistor.close();
+  }
 
   private static class ClientThread extends Thread {
     private TransactionOrderPersistor persistor;